@@ -0,0 +1,50 @@
+package com.notification.consumer.breaker;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "app.consumer.breaker")
+public class CircuitBreakerProperties {
+
+    // com o relay fora, pausa o consumo em vez de gastar as tentativas e mandar o backlog para a DLQ
+    private boolean enabled = true;
+
+    // últimas entregas consideradas na taxa de falha
+    @Min(1)
+    private int windowSize = 50;
+
+    // abaixo disso a janela ainda não decide nada (evita abrir com 1 de 1 falhando)
+    @Min(1)
+    private int minimumCalls = 20;
+
+    // fração de falhas retentáveis na janela que abre o circuito
+    @DecimalMin("0.01")
+    @DecimalMax("1.0")
+    private double failureRateThreshold = 0.5;
+
+    // primeira pausa; cada probe que falha dobra a seguinte, até max-open-duration
+    @NotNull
+    private Duration openDuration = Duration.ofSeconds(10);
+
+    @NotNull
+    private Duration maxOpenDuration = Duration.ofMinutes(5);
+
+    // entregas de teste no half-open; todas precisam dar certo para fechar
+    @Min(1)
+    private int halfOpenProbes = 3;
+
+    // quanto um record recusado espera para voltar enquanto o half-open já tem probes em andamento
+    @NotNull
+    private Duration rejectedRedelivery = Duration.ofSeconds(1);
+}
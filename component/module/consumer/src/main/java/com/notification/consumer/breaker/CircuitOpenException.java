@@ -0,0 +1,39 @@
+package com.notification.consumer.breaker;
+
+import java.time.Duration;
+
+/**
+ * O circuit breaker não deixou a entrega sair. Nada foi tentado (ou a falha aconteceu com o circuito já aberto):
+ * o record não vai para a DLQ nem gasta tentativa, volta para o tópico e é entregue de novo depois.
+ */
+public class CircuitOpenException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public CircuitOpenException(Duration retryAfter) {
+        this(retryAfter, null);
+    }
+
+    public CircuitOpenException(Duration retryAfter, Throwable cause) {
+        super("Delivery circuit breaker is open, retry in " + retryAfter.toMillis() + "ms", cause);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * O container embrulha a exceção do listener; procura na cadeia de causas.
+     */
+    public static boolean isCause(Throwable failure) {
+        Throwable current = failure;
+        for (int depth = 0; current != null && depth < 10; depth++) {
+            if (current instanceof CircuitOpenException) {
+                return true;
+            }
+            current = current.getCause() == current ? null : current.getCause();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,286 @@
+package com.notification.consumer.breaker;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+/**
+ * Circuit breaker em volta de cada chamada a {@code NotificationConsumerService.process}.
+ *
+ * CLOSED: a taxa de falha das últimas {@code windowSize} entregas, com pelo menos {@code minimumCalls}, abre o
+ * circuito ao passar de {@code failureRateThreshold}. Só contam as falhas retentáveis: destinatário inválido
+ * não diz nada sobre a saúde do relay.
+ * OPEN: tudo é recusado com {@link CircuitOpenException} até o fim da pausa; quem escuta a transição pausa os
+ * containers, e o backlog fica no tópico.
+ * HALF_OPEN: no fim da pausa deixa passar {@code halfOpenProbes} entregas de teste. Todas dando certo, fecha;
+ * uma falhando, abre de novo com o dobro da pausa (até {@code maxOpenDuration}).
+ */
+@Slf4j
+public class DeliveryCircuitBreaker {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    @FunctionalInterface
+    public interface StateListener {
+
+        /**
+         * Chamado fora do lock do breaker, no thread que causou a transição.
+         *
+         * @param openFor duração da pausa quando {@code to} é OPEN; zero nos demais casos
+         */
+        void onStateChange(State from, State to, Duration openFor);
+    }
+
+    private final CircuitBreakerProperties props;
+    private final Predicate<Throwable> countsAsFailure;
+    private final Clock clock;
+    private final List<StateListener> listeners = new CopyOnWriteArrayList<>();
+
+    // janela circular das últimas entregas: true = falhou
+    private final boolean[] window;
+    private int windowNext;
+    private int windowCalls;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long openUntil;
+    private long openMillis;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    private final Counter rejected;
+    private final Map<State, Counter> transitions = new EnumMap<>(State.class);
+
+    public DeliveryCircuitBreaker(CircuitBreakerProperties props, Predicate<Throwable> countsAsFailure, MeterRegistry meterRegistry) {
+        this(props, countsAsFailure, meterRegistry, Clock.systemUTC());
+    }
+
+    DeliveryCircuitBreaker(CircuitBreakerProperties props, Predicate<Throwable> countsAsFailure, MeterRegistry meterRegistry,
+                           Clock clock) {
+        this.props = props;
+        this.countsAsFailure = countsAsFailure;
+        this.clock = clock;
+        this.window = new boolean[props.getWindowSize()];
+        this.openMillis = props.getOpenDuration().toMillis();
+
+        Gauge.builder("notification.consumer.breaker.state", this, breaker -> breaker.state().ordinal())
+                .description("Delivery circuit breaker state: 0 closed, 1 half-open, 2 open")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("notification.consumer.breaker.rejected")
+                .description("Deliveries refused by the circuit breaker and left in the topic")
+                .register(meterRegistry);
+        for (State to : State.values()) {
+            transitions.put(to, Counter.builder("notification.consumer.breaker.transitions")
+                    .description("Circuit breaker state changes")
+                    .tag("to", to.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    public void addListener(StateListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Pede permissão para uma entrega. Com permissão, quem chama deve informar o resultado com
+     * {@link #onSuccess()} ou {@link #onFailure(Throwable)}.
+     *
+     * @throws CircuitOpenException se a entrega não pode sair agora
+     */
+    public void acquire() {
+        Transition transition = null;
+        CircuitOpenException refusal = null;
+        synchronized (this) {
+            final long now = clock.millis();
+            if (state == State.OPEN && now >= openUntil) {
+                transition = moveTo(State.HALF_OPEN);
+            }
+            if (state == State.OPEN) {
+                refusal = new CircuitOpenException(Duration.ofMillis(Math.max(1, openUntil - now)));
+            } else if (state == State.HALF_OPEN) {
+                if (probesInFlight + probeSuccesses >= props.getHalfOpenProbes()) {
+                    refusal = new CircuitOpenException(props.getRejectedRedelivery());
+                } else {
+                    probesInFlight++;
+                }
+            }
+        }
+        fire(transition);
+        if (refusal != null) {
+            rejected.increment();
+            throw refusal;
+        }
+    }
+
+    /**
+     * Verifica sem pedir permissão (nem ocupar probe do half-open): lança enquanto a pausa do circuito aberto não
+     * acabou. Para quem despacha a entrega para outro thread, que pede a permissão na hora de entregar.
+     *
+     * @throws CircuitOpenException se o circuito está aberto
+     */
+    public void ensureNotOpen() {
+        final Duration remaining;
+        synchronized (this) {
+            final long now = clock.millis();
+            if (state != State.OPEN || now >= openUntil) {
+                return;
+            }
+            remaining = Duration.ofMillis(openUntil - now);
+        }
+        rejected.increment();
+        throw new CircuitOpenException(remaining);
+    }
+
+    public void onSuccess() {
+        Transition transition = null;
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                record(false);
+            } else if (state == State.HALF_OPEN) {
+                probesInFlight = Math.max(0, probesInFlight - 1);
+                probeSuccesses++;
+                if (probeSuccesses >= props.getHalfOpenProbes()) {
+                    transition = moveTo(State.CLOSED);
+                }
+            }
+            // OPEN: entrega que começou antes de abrir; não muda nada
+        }
+        fire(transition);
+    }
+
+    public void onFailure(Throwable failure) {
+        final boolean counts = countsAsFailure.test(failure);
+        Transition transition = null;
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                if (counts) {
+                    record(true);
+                    if (windowCalls >= props.getMinimumCalls()
+                            && windowFailures >= props.getFailureRateThreshold() * windowCalls) {
+                        transition = moveTo(State.OPEN);
+                    }
+                }
+            } else if (state == State.HALF_OPEN) {
+                probesInFlight = Math.max(0, probesInFlight - 1);
+                if (counts) {
+                    transition = moveTo(State.OPEN);
+                }
+            }
+        }
+        fire(transition);
+    }
+
+    /**
+     * Resultado de um lote entregue com uma permissão só: conta como uma chamada, para que um lote não feche o
+     * half-open sozinho nem pese N vezes na janela. Falha se as falhas retentáveis do lote chegam a
+     * {@code failureRateThreshold} do tamanho dele.
+     */
+    public void onBatchOutcome(int size, List<? extends Throwable> failures) {
+        Throwable counted = null;
+        int countedFailures = 0;
+        for (Throwable failure : failures) {
+            if (countsAsFailure.test(failure)) {
+                countedFailures++;
+                if (counted == null) {
+                    counted = failure;
+                }
+            }
+        }
+        if (counted != null && countedFailures >= props.getFailureRateThreshold() * size) {
+            onFailure(counted);
+        } else {
+            onSuccess();
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public synchronized boolean isOpen() {
+        return state == State.OPEN;
+    }
+
+    /**
+     * Quanto falta para o próximo probe; zero se o circuito não está aberto.
+     */
+    public synchronized Duration retryAfter() {
+        return state == State.OPEN
+                ? Duration.ofMillis(Math.max(1, openUntil - clock.millis()))
+                : Duration.ZERO;
+    }
+
+    // chamados com o lock
+
+    private void record(boolean failed) {
+        if (windowCalls == window.length) {
+            if (window[windowNext]) {
+                windowFailures--;
+            }
+        } else {
+            windowCalls++;
+        }
+        window[windowNext] = failed;
+        if (failed) {
+            windowFailures++;
+        }
+        windowNext = (windowNext + 1) % window.length;
+    }
+
+    private Transition moveTo(State to) {
+        final State from = state;
+        state = to;
+        probesInFlight = 0;
+        probeSuccesses = 0;
+
+        Duration openFor = Duration.ZERO;
+        if (to == State.OPEN) {
+            // probe falhou: a pausa seguinte dobra; abrindo a partir do CLOSED, volta à inicial
+            openMillis = from == State.HALF_OPEN
+                    ? Math.min(openMillis * 2, props.getMaxOpenDuration().toMillis())
+                    : props.getOpenDuration().toMillis();
+            openUntil = clock.millis() + openMillis;
+            openFor = Duration.ofMillis(openMillis);
+        } else if (to == State.CLOSED) {
+            windowNext = 0;
+            windowCalls = 0;
+            windowFailures = 0;
+        }
+        return new Transition(from, to, openFor);
+    }
+
+    private void fire(Transition transition) {
+        if (transition == null) {
+            return;
+        }
+        transitions.get(transition.to()).increment();
+        if (transition.to() == State.OPEN) {
+            log.warn("Delivery circuit breaker opened. from={} pause={}ms", transition.from(), transition.openFor().toMillis());
+        } else {
+            log.info("Delivery circuit breaker {}. from={}", transition.to() == State.CLOSED ? "closed" : "half-open",
+                    transition.from());
+        }
+        for (StateListener listener : listeners) {
+            try {
+                listener.onStateChange(transition.from(), transition.to(), transition.openFor());
+            } catch (RuntimeException ex) {
+                log.error("Circuit breaker listener failed. error={}", ex.toString());
+            }
+        }
+    }
+
+    private record Transition(State from, State to, Duration openFor) {
+    }
+}
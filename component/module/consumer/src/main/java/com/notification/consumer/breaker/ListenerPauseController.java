@@ -0,0 +1,83 @@
+package com.notification.consumer.breaker;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pausa os containers de entrega quando o circuito abre e os retoma no fim da pausa, para os probes do half-open.
+ * Pausado, o container segue fazendo poll (sem rebalance) mas não busca records: o backlog fica no tópico e os
+ * records que já estavam no poll voltam pelo seek do error handler.
+ *
+ * Só os containers cujo id começa com {@link #DELIVERY_LISTENER_PREFIX}. Os tiers de retry se pausam sozinhos
+ * com nack, e o tópico de agendamento não entrega nada.
+ */
+@Slf4j
+public class ListenerPauseController implements DeliveryCircuitBreaker.StateListener, AutoCloseable {
+
+    public static final String DELIVERY_LISTENER_PREFIX = "notification-delivery";
+
+    private final KafkaListenerEndpointRegistry registry;
+    private final ScheduledExecutorService timer;
+    private ScheduledFuture<?> pendingResume;
+
+    public ListenerPauseController(DeliveryCircuitBreaker breaker, KafkaListenerEndpointRegistry registry) {
+        this(breaker, registry, Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "notification-breaker");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    ListenerPauseController(DeliveryCircuitBreaker breaker, KafkaListenerEndpointRegistry registry,
+                            ScheduledExecutorService timer) {
+        this.registry = registry;
+        this.timer = timer;
+        breaker.addListener(this);
+    }
+
+    @Override
+    public synchronized void onStateChange(DeliveryCircuitBreaker.State from, DeliveryCircuitBreaker.State to,
+                                           Duration openFor) {
+        if (to != DeliveryCircuitBreaker.State.OPEN) {
+            return;
+        }
+        final List<MessageListenerContainer> containers = containers();
+        containers.forEach(MessageListenerContainer::pause);
+
+        if (pendingResume != null) {
+            pendingResume.cancel(false);
+        }
+        pendingResume = timer.schedule(this::resume, openFor.toMillis(), TimeUnit.MILLISECONDS);
+        log.warn("Delivery listeners paused. containers={} resumeIn={}ms", containers.size(), openFor.toMillis());
+    }
+
+    /**
+     * Fim da pausa: os records voltam a chegar e o primeiro deles leva o breaker para o half-open.
+     */
+    synchronized void resume() {
+        pendingResume = null;
+        final List<MessageListenerContainer> containers = containers();
+        containers.forEach(MessageListenerContainer::resume);
+        log.info("Delivery listeners resumed for half-open probes. containers={}", containers.size());
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    private List<MessageListenerContainer> containers() {
+        return registry.getListenerContainers().stream()
+                .filter(container -> container.getListenerId() != null
+                        && container.getListenerId().startsWith(DELIVERY_LISTENER_PREFIX))
+                .toList();
+    }
+}
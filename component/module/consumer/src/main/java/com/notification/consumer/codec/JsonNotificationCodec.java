@@ -0,0 +1,127 @@
+package com.notification.consumer.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.notification.consumer.model.DecodedNotification;
+import com.notification.consumer.model.NotificationMessage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class JsonNotificationCodec implements NotificationCodec {
+
+    public static final String FORMAT = "json";
+
+    // campos de roteamento ainda não lidos no decode parcial
+    private static final int ID = 1;
+    private static final int TYPE = 1 << 1;
+    private static final int TO = 1 << 2;
+    private static final int ROUTING_FIELDS = ID | TYPE | TO;
+
+    // writer/reader já resolvidos para o tipo: thread-safe e sem lookup de serializer por mensagem
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+    // o decode parcial usa o parser de streaming direto, sem databind
+    private final JsonFactory factory;
+
+    public JsonNotificationCodec(ObjectMapper objectMapper) {
+        this.writer = objectMapper.writerFor(NotificationMessage.class);
+        this.reader = objectMapper.readerFor(NotificationMessage.class);
+        this.factory = objectMapper.getFactory();
+    }
+
+    @Override
+    public String format() {
+        return FORMAT;
+    }
+
+    @Override
+    public int schemaVersion() {
+        return 1;
+    }
+
+    @Override
+    public byte[] encode(NotificationMessage message) {
+        try {
+            return writer.writeValueAsBytes(message);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize message to JSON", e);
+        }
+    }
+
+    @Override
+    public NotificationMessage decode(ByteBuffer payload, int schemaVersion) {
+        try {
+            if (payload.hasArray()) {
+                return reader.readValue(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+            }
+            return reader.readValue(new ByteBufferBackedInputStream(payload.duplicate()));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid JSON payload: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Percorre só o primeiro nível do objeto e para assim que id, type e to aparecem. O publisher serializa
+     * nessa ordem (a do record), então subject e body nem chegam a ser tokenizados; em outra ordem, os valores
+     * no caminho são pulados sem virar String.
+     */
+    @Override
+    public DecodedNotification decodeRouting(ByteBuffer payload, int schemaVersion) {
+        String id = null;
+        String type = null;
+        String to = null;
+        int missing = ROUTING_FIELDS;
+
+        try (JsonParser parser = parser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Invalid JSON payload: expected an object");
+            }
+            while (missing != 0 && parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.currentName();
+                final JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "id" -> {
+                        id = scalar(parser, value, field);
+                        missing &= ~ID;
+                    }
+                    case "type" -> {
+                        type = scalar(parser, value, field);
+                        missing &= ~TYPE;
+                    }
+                    case "to" -> {
+                        to = scalar(parser, value, field);
+                        missing &= ~TO;
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid JSON payload: " + e.getMessage(), e);
+        }
+
+        return new DecodedNotification(id, type, to, () -> decode(payload, schemaVersion));
+    }
+
+    private JsonParser parser(ByteBuffer payload) throws IOException {
+        if (payload.hasArray()) {
+            return factory.createParser(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+        }
+        return factory.createParser(new ByteBufferBackedInputStream(payload.duplicate()));
+    }
+
+    private static String scalar(JsonParser parser, JsonToken value, String field) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!value.isScalarValue()) {
+            throw new IllegalArgumentException("Invalid JSON payload: " + field + " must be a string");
+        }
+        return parser.getValueAsString();
+    }
+}
@@ -0,0 +1,38 @@
+package com.notification.consumer.codec;
+
+import com.notification.consumer.model.DecodedNotification;
+import com.notification.consumer.model.NotificationMessage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Formato de serialização do NotificationMessage no tópico.
+ * O formato e a versão do schema viajam nos headers de cada record (ver NotificationCodecHeaders),
+ * então o consumer sabe decodificar mensagens de qualquer formato durante uma migração.
+ */
+public interface NotificationCodec {
+
+    String format();
+
+    int schemaVersion();
+
+    byte[] encode(NotificationMessage message);
+
+    /**
+     * Decodifica direto do buffer do record, sem copiar para um byte[] intermediário.
+     * Não altera a posição de payload.
+     *
+     * @param schemaVersion versão declarada no header do record; nunca maior que {@link #schemaVersion()}
+     */
+    NotificationMessage decode(ByteBuffer payload, int schemaVersion);
+
+    /**
+     * Decode parcial: só id, type e to; o resto do payload é lido quando a mensagem for usada.
+     * Um payload inválido depois dos campos de roteamento só falha em {@link DecodedNotification#message()}.
+     * Não altera a posição de payload, que precisa continuar válido até lá.
+     */
+    default DecodedNotification decodeRouting(ByteBuffer payload, int schemaVersion) {
+        return DecodedNotification.of(decode(payload, schemaVersion));
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.notification.consumer.codec;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.notification.consumer.model.DecodedNotification;
+import com.notification.consumer.model.NotificationMessage;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Escolhe o codec pelo header de formato de cada record.
+ * Records sem header são do publisher antigo (JSON puro), então json é o default —
+ * é isso que permite trocar o formato com rolling deploy.
+ */
+@Component
+public class NotificationCodecRegistry {
+
+    private final Map<String, NotificationCodec> codecs;
+
+    public NotificationCodecRegistry() {
+        // campos novos de um publisher mais recente não podem quebrar este consumer
+        this(new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false));
+    }
+
+    public NotificationCodecRegistry(ObjectMapper objectMapper) {
+        this.codecs = Map.of(
+                JsonNotificationCodec.FORMAT, new JsonNotificationCodec(objectMapper),
+                BinaryNotificationCodec.FORMAT, new BinaryNotificationCodec()
+        );
+    }
+
+    public NotificationMessage decode(Headers headers, ByteBuffer payload) {
+        final NotificationCodec codec = codecFor(headers, payload);
+        return codec.decode(payload, schemaVersionOf(headers, codec));
+    }
+
+    /**
+     * Só os campos de roteamento; o resto do payload é decodificado quando a mensagem for usada
+     * (ver {@link NotificationCodec#decodeRouting}).
+     */
+    public DecodedNotification decodeRouting(Headers headers, ByteBuffer payload) {
+        final NotificationCodec codec = codecFor(headers, payload);
+        return codec.decodeRouting(payload, schemaVersionOf(headers, codec));
+    }
+
+    public NotificationCodec codec(String format) {
+        final NotificationCodec codec = codecs.get(format);
+        if (codec == null) {
+            throw new IllegalArgumentException("Unsupported payload format: " + format);
+        }
+        return codec;
+    }
+
+    /**
+     * Representação textual do payload para DLQ/log: JSON fica legível, binário vai em base64.
+     */
+    public String describe(Headers headers, ByteBuffer payload) {
+        if (payload == null) {
+            return null;
+        }
+        // cópia só no caminho de erro
+        final byte[] bytes = new byte[payload.remaining()];
+        payload.duplicate().get(bytes);
+        return JsonNotificationCodec.FORMAT.equals(formatOf(headers))
+                ? new String(bytes, StandardCharsets.UTF_8)
+                : "base64:" + Base64.getEncoder().encodeToString(bytes);
+    }
+
+    private NotificationCodec codecFor(Headers headers, ByteBuffer payload) {
+        if (payload == null) {
+            throw new IllegalArgumentException("Empty payload");
+        }
+
+        final String format = formatOf(headers);
+        final NotificationCodec codec = codecs.get(format);
+        if (codec == null) {
+            throw new IllegalArgumentException("Unsupported payload format: " + format);
+        }
+
+        final int version = schemaVersionOf(headers, codec);
+        if (version < 1 || version > codec.schemaVersion()) {
+            throw new IllegalArgumentException("Unsupported " + format + " schema version: " + version);
+        }
+        return codec;
+    }
+
+    private String formatOf(Headers headers) {
+        final String format = headerValue(headers, NotificationCodecHeaders.FORMAT);
+        return format == null ? JsonNotificationCodec.FORMAT : format;
+    }
+
+    private static int schemaVersionOf(Headers headers, NotificationCodec codec) {
+        final String version = headerValue(headers, NotificationCodecHeaders.SCHEMA_VERSION);
+        if (version == null) {
+            return codec.schemaVersion();
+        }
+        try {
+            return Integer.parseInt(version.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String headerValue(Headers headers, String name) {
+        if (headers == null) {
+            return null;
+        }
+        final Header header = headers.lastHeader(name);
+        return (header == null || header.value() == null) ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,202 @@
+package com.notification.consumer.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Limite adaptativo de entregas simultâneas, no estilo do controle de congestionamento do TCP (AIMD).
+ *
+ * Cada entrega pede uma permissão e devolve com a latência medida. Sem congestionamento, com o limite em uso
+ * (pelo menos metade das permissões ocupadas), o limite sobe 1/limite por entrega: +1 a cada rodada completa.
+ * Falha retentável, ou latência acima de {@code rttTolerance} vezes o RTT de base, multiplica o limite por
+ * {@code backoffRatio}, no máximo uma vez por RTT, para que as entregas já em voo na mesma rajada não derrubem o
+ * limite em cascata.
+ *
+ * O RTT de base é o menor RTT visto no último {@code sampleInterval}: cai na hora e sobe no máximo 10% por
+ * intervalo, para acompanhar um relay que ficou mais lento sem confundir fila com latência normal.
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BASELINE_MAX_RISE = 1.1;
+    private static final double SMOOTHING = 0.1;
+
+    private final ConcurrencyLimitProperties props;
+    private final Predicate<Throwable> countsAsCongestion;
+    private final LongSupplier nanoTime;
+    private final long intervalNanos;
+
+    private double limit;
+    private int inFlight;
+
+    private long baselineRttNanos;
+    private double smoothedRttNanos;
+    private long decreaseHoldUntil;
+
+    private long intervalStart;
+    private long intervalMinRttNanos = Long.MAX_VALUE;
+    private long intervalCompleted;
+    private double throughput;
+
+    private final Counter completed;
+    private final Counter congested;
+
+    public AdaptiveConcurrencyLimiter(ConcurrencyLimitProperties props, Predicate<Throwable> countsAsCongestion,
+                                      MeterRegistry meterRegistry) {
+        this(props, countsAsCongestion, meterRegistry, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(ConcurrencyLimitProperties props, Predicate<Throwable> countsAsCongestion,
+                               MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        if (props.getMinLimit() > props.getMaxLimit()) {
+            throw new IllegalStateException("app.consumer.concurrency.min-limit must not exceed max-limit");
+        }
+        this.props = props;
+        this.countsAsCongestion = countsAsCongestion;
+        this.nanoTime = nanoTime;
+        this.intervalNanos = props.getSampleInterval().toNanos();
+        this.limit = Math.max(props.getMinLimit(), Math.min(props.getMaxLimit(), props.getInitialLimit()));
+        this.intervalStart = nanoTime.getAsLong();
+        // nanoTime tem origem arbitrária e pode ser negativo: zero seguraria a primeira redução
+        this.decreaseHoldUntil = intervalStart;
+
+        Gauge.builder("notification.consumer.concurrency.limit", this, AdaptiveConcurrencyLimiter::limit)
+                .description("Deliveries allowed in flight at the same time")
+                .register(meterRegistry);
+        Gauge.builder("notification.consumer.concurrency.in-flight", this, AdaptiveConcurrencyLimiter::inFlight)
+                .description("Deliveries in flight")
+                .register(meterRegistry);
+        Gauge.builder("notification.consumer.concurrency.rtt", this, limiter -> limiter.smoothedRtt(TimeUnit.MILLISECONDS))
+                .description("Smoothed delivery latency in milliseconds")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("notification.consumer.concurrency.rtt.baseline", this, limiter -> limiter.baselineRtt(TimeUnit.MILLISECONDS))
+                .description("Delivery latency without queueing, the reference for congestion, in milliseconds")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("notification.consumer.concurrency.throughput", this, AdaptiveConcurrencyLimiter::throughput)
+                .description("Deliveries per second over the last sample interval")
+                .register(meterRegistry);
+        this.completed = Counter.builder("notification.consumer.concurrency.completed")
+                .description("Deliveries that returned their permit")
+                .register(meterRegistry);
+        this.congested = Counter.builder("notification.consumer.concurrency.congested")
+                .description("Deliveries that signalled congestion: retryable failure or latency above tolerance")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Espera uma permissão. Quem recebe deve devolvê-la com {@link #onSuccess(long)} ou {@link #onFailure(long, Throwable)}.
+     * Interrompida, a espera termina e a entrega segue sem esperar (desligamento): a flag de interrupção fica.
+     *
+     * @return o instante da permissão, para medir a latência da entrega
+     */
+    public long acquire() {
+        synchronized (this) {
+            while (inFlight >= permits()) {
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            inFlight++;
+        }
+        return nanoTime.getAsLong();
+    }
+
+    public void onSuccess(long acquiredAt) {
+        release(acquiredAt, false);
+    }
+
+    public void onFailure(long acquiredAt, Throwable failure) {
+        release(acquiredAt, countsAsCongestion.test(failure));
+    }
+
+    public synchronized int limit() {
+        return permits();
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public synchronized double smoothedRtt(TimeUnit unit) {
+        return smoothedRttNanos / unit.toNanos(1);
+    }
+
+    public synchronized double baselineRtt(TimeUnit unit) {
+        return (double) baselineRttNanos / unit.toNanos(1);
+    }
+
+    public synchronized double throughput() {
+        return throughput;
+    }
+
+    private void release(long acquiredAt, boolean failed) {
+        final long now = nanoTime.getAsLong();
+        final long rtt = Math.max(1, now - acquiredAt);
+        final boolean congestion;
+        synchronized (this) {
+            // ocupação antes desta devolução: abaixo da metade do limite, quem limita é a demanda, não o relay
+            final boolean saturated = inFlight * 2 >= permits();
+            inFlight = Math.max(0, inFlight - 1);
+
+            sample(now, rtt);
+            congestion = failed || rtt > baselineRttNanos * props.getRttTolerance();
+            if (congestion) {
+                if (now - decreaseHoldUntil >= 0) {
+                    final int before = permits();
+                    limit = Math.max(props.getMinLimit(), limit * props.getBackoffRatio());
+                    decreaseHoldUntil = now + (long) smoothedRttNanos;
+                    if (permits() < before) {
+                        log.debug("Concurrency limit decreased. limit={} rttMs={} failed={}",
+                                permits(), TimeUnit.NANOSECONDS.toMillis(rtt), failed);
+                    }
+                }
+            } else if (saturated) {
+                limit = Math.min(props.getMaxLimit(), limit + 1.0 / limit);
+            }
+            notifyAll();
+        }
+        completed.increment();
+        if (congestion) {
+            congested.increment();
+        }
+    }
+
+    // chamados com o lock
+
+    private void sample(long now, long rtt) {
+        smoothedRttNanos = smoothedRttNanos == 0 ? rtt : smoothedRttNanos + SMOOTHING * (rtt - smoothedRttNanos);
+        if (baselineRttNanos == 0 || rtt < baselineRttNanos) {
+            baselineRttNanos = rtt;
+        }
+        intervalMinRttNanos = Math.min(intervalMinRttNanos, rtt);
+        intervalCompleted++;
+
+        final long elapsed = now - intervalStart;
+        if (elapsed >= intervalNanos) {
+            throughput = intervalCompleted * 1e9 / elapsed;
+            // relay mais lento de vez: a base acompanha aos poucos, em vez de reduzir o limite para sempre
+            baselineRttNanos = Math.min(intervalMinRttNanos, (long) (baselineRttNanos * BASELINE_MAX_RISE));
+            intervalStart = now;
+            intervalMinRttNanos = Long.MAX_VALUE;
+            intervalCompleted = 0;
+            log.info("Concurrency limit. limit={} inFlight={} rttMs={} baselineRttMs={} throughput={}/s",
+                    permits(), inFlight, TimeUnit.NANOSECONDS.toMillis((long) smoothedRttNanos),
+                    TimeUnit.NANOSECONDS.toMillis(baselineRttNanos), Math.round(throughput));
+        }
+    }
+
+    private int permits() {
+        return Math.max(props.getMinLimit(), (int) limit);
+    }
+}
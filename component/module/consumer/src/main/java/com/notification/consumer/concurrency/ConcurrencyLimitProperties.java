@@ -0,0 +1,45 @@
+package com.notification.consumer.concurrency;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "app.consumer.concurrency")
+public class ConcurrencyLimitProperties {
+
+    // limita as entregas simultâneas ao que o relay aguenta, medindo latência e falhas
+    private boolean enabled = true;
+
+    @Min(1)
+    private int initialLimit = 8;
+
+    @Min(1)
+    private int minLimit = 1;
+
+    // na prática o teto também é o número de threads que entregam (workers, concurrency do container)
+    @Min(1)
+    private int maxLimit = 64;
+
+    // fator da redução multiplicativa a cada sinal de congestionamento
+    @DecimalMin("0.1")
+    @DecimalMax("0.99")
+    private double backoffRatio = 0.9;
+
+    // uma entrega mais lenta que rttTolerance vezes o RTT de base conta como congestionamento
+    @DecimalMin("1.1")
+    private double rttTolerance = 2.0;
+
+    // a cada intervalo o RTT de base é recalculado e a vazão publicada
+    @NotNull
+    private Duration sampleInterval = Duration.ofSeconds(10);
+}
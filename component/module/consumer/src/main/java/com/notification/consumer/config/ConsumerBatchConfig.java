@@ -0,0 +1,38 @@
+package com.notification.consumer.config;
+
+import com.notification.consumer.listener.BatchListenerProperties;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+
+import java.util.Properties;
+
+@Configuration
+@EnableConfigurationProperties(BatchListenerProperties.class)
+@ConditionalOnProperty(prefix = "app.consumer.batch", name = "enabled", havingValue = "true")
+public class ConsumerBatchConfig {
+
+    public static final String BATCH_CONTAINER_FACTORY = "batchKafkaListenerContainerFactory";
+
+    @Bean(BATCH_CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            BatchListenerProperties props
+    ) {
+        final ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        // mesmas configurações do spring.kafka.listener.*, só que entregando o poll inteiro
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+
+        final Properties overrides = new Properties();
+        overrides.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(props.getMaxPollRecords()));
+        factory.getContainerProperties().setKafkaConsumerProperties(overrides);
+        return factory;
+    }
+}
@@ -0,0 +1,36 @@
+package com.notification.consumer.config;
+
+import com.notification.consumer.breaker.CircuitBreakerProperties;
+import com.notification.consumer.breaker.DeliveryCircuitBreaker;
+import com.notification.consumer.breaker.ListenerPauseController;
+import com.notification.consumer.retry.RetryPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+
+@Configuration
+@EnableConfigurationProperties(CircuitBreakerProperties.class)
+@ConditionalOnProperty(prefix = "app.consumer.breaker", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ConsumerBreakerConfig {
+
+    @Bean
+    public DeliveryCircuitBreaker deliveryCircuitBreaker(
+            CircuitBreakerProperties props,
+            RetryPolicy retryPolicy,
+            MeterRegistry meterRegistry
+    ) {
+        // mesma classificação do retry: o que não adianta repetir também não indica relay fora
+        return new DeliveryCircuitBreaker(props, retryPolicy::isRetryable, meterRegistry);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ListenerPauseController listenerPauseController(
+            DeliveryCircuitBreaker breaker,
+            KafkaListenerEndpointRegistry registry
+    ) {
+        return new ListenerPauseController(breaker, registry);
+    }
+}
@@ -0,0 +1,26 @@
+package com.notification.consumer.config;
+
+import com.notification.consumer.concurrency.AdaptiveConcurrencyLimiter;
+import com.notification.consumer.concurrency.ConcurrencyLimitProperties;
+import com.notification.consumer.retry.RetryPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+@ConditionalOnProperty(prefix = "app.consumer.concurrency", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ConsumerConcurrencyConfig {
+
+    @Bean
+    public AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter(
+            ConcurrencyLimitProperties props,
+            RetryPolicy retryPolicy,
+            MeterRegistry meterRegistry
+    ) {
+        // destinatário inválido falha rápido e não diz nada sobre a carga no relay
+        return new AdaptiveConcurrencyLimiter(props, retryPolicy::isRetryable, meterRegistry);
+    }
+}
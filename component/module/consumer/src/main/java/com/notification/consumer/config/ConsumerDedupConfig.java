@@ -0,0 +1,20 @@
+package com.notification.consumer.config;
+
+import com.notification.consumer.dedup.DedupProperties;
+import com.notification.consumer.dedup.NotificationDeduplicator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(DedupProperties.class)
+@ConditionalOnProperty(prefix = "app.consumer.dedup", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ConsumerDedupConfig {
+
+    @Bean
+    public NotificationDeduplicator notificationDeduplicator(DedupProperties props, MeterRegistry meterRegistry) {
+        return new NotificationDeduplicator(props, meterRegistry);
+    }
+}
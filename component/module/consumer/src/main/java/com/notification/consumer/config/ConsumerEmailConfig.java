@@ -0,0 +1,35 @@
+package com.notification.consumer.config;
+
+import com.notification.consumer.delivery.EmailDeliveryProperties;
+import com.notification.consumer.delivery.EmailSender;
+import com.notification.consumer.delivery.fake.FakeSmtpServer;
+import com.notification.consumer.delivery.impl.LoggingEmailSender;
+import com.notification.consumer.delivery.impl.SmtpEmailSender;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(EmailDeliveryProperties.class)
+public class ConsumerEmailConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "app.consumer.email", name = "sender", havingValue = "smtp")
+    public EmailSender smtpEmailSender(EmailDeliveryProperties props) {
+        return new SmtpEmailSender(props);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.consumer.email", name = "sender", havingValue = "log", matchIfMissing = true)
+    public EmailSender loggingEmailSender() {
+        return new LoggingEmailSender();
+    }
+
+    // para benchmark local: aponte smtp.host/port para ele (localhost:fake-server.port)
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "app.consumer.email.fake-server", name = "enabled", havingValue = "true")
+    public FakeSmtpServer fakeSmtpServer(EmailDeliveryProperties props) {
+        return new FakeSmtpServer(props.getFakeServer().getPort(), props.getFakeServer().getLatency());
+    }
+}
@@ -0,0 +1,56 @@
+package com.notification.consumer.config;
+
+import com.notification.consumer.listener.LaneListenerProperties;
+import com.notification.consumer.listener.LaneScheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import java.util.Properties;
+
+@Configuration
+@EnableConfigurationProperties(LaneListenerProperties.class)
+@ConditionalOnProperty(prefix = "app.consumer.lanes", name = "enabled", havingValue = "true")
+public class ConsumerLaneConfig {
+
+    public static final String LANES_CONTAINER_FACTORY = "lanesKafkaListenerContainerFactory";
+
+    @Bean(LANES_CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> lanesKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            LaneListenerProperties props,
+            @Value("${app.consumer.batch.enabled:false}") boolean batchEnabled,
+            @Value("${app.consumer.parallel.enabled:false}") boolean parallelEnabled
+    ) {
+        if (batchEnabled || parallelEnabled) {
+            throw new IllegalStateException("app.consumer.lanes cannot be enabled together with app.consumer.batch or app.consumer.parallel");
+        }
+
+        final ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+
+        // mesmo esquema do modo paralelo: acks fora de ordem vindos dos workers, commit até o maior offset contíguo
+        final ContainerProperties container = factory.getContainerProperties();
+        container.setAckMode(ContainerProperties.AckMode.MANUAL);
+        container.setAsyncAcks(true);
+
+        final Properties overrides = new Properties();
+        overrides.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(props.getMaxPollRecords()));
+        container.setKafkaConsumerProperties(overrides);
+        return factory;
+    }
+
+    @Bean(destroyMethod = "close")
+    public LaneScheduler notificationLaneScheduler(LaneListenerProperties props, MeterRegistry meterRegistry) {
+        return new LaneScheduler(props.getWeights(), props.getWorkers(), meterRegistry);
+    }
+}
@@ -0,0 +1,20 @@
+package com.notification.consumer.config;
+
+import com.notification.consumer.metrics.DeliveryLatencyMetrics;
+import com.notification.consumer.metrics.LatencyMetricsProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(LatencyMetricsProperties.class)
+@ConditionalOnProperty(prefix = "app.consumer.latency", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ConsumerLatencyConfig {
+
+    @Bean
+    public DeliveryLatencyMetrics deliveryLatencyMetrics(LatencyMetricsProperties props, MeterRegistry meterRegistry) {
+        return new DeliveryLatencyMetrics(props, meterRegistry);
+    }
+}
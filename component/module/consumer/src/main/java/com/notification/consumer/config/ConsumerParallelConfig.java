@@ -0,0 +1,55 @@
+package com.notification.consumer.config;
+
+import com.notification.consumer.listener.KeyOrderedExecutor;
+import com.notification.consumer.listener.ParallelListenerProperties;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import java.util.Properties;
+
+@Configuration
+@EnableConfigurationProperties(ParallelListenerProperties.class)
+@ConditionalOnProperty(prefix = "app.consumer.parallel", name = "enabled", havingValue = "true")
+public class ConsumerParallelConfig {
+
+    public static final String PARALLEL_CONTAINER_FACTORY = "parallelKafkaListenerContainerFactory";
+
+    @Bean(PARALLEL_CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> parallelKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            ParallelListenerProperties props,
+            @Value("${app.consumer.batch.enabled:false}") boolean batchEnabled
+    ) {
+        if (batchEnabled) {
+            throw new IllegalStateException("app.consumer.parallel and app.consumer.batch cannot be enabled together");
+        }
+
+        final ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+
+        // acks chegam fora de ordem (das threads de worker); o container só comita até o maior offset
+        // contíguo confirmado e segura o próximo poll até o anterior estar todo confirmado
+        final ContainerProperties container = factory.getContainerProperties();
+        container.setAckMode(ContainerProperties.AckMode.MANUAL);
+        container.setAsyncAcks(true);
+
+        final Properties overrides = new Properties();
+        overrides.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(props.getMaxPollRecords()));
+        container.setKafkaConsumerProperties(overrides);
+        return factory;
+    }
+
+    @Bean(destroyMethod = "close")
+    public KeyOrderedExecutor notificationKeyOrderedExecutor(ParallelListenerProperties props) {
+        return new KeyOrderedExecutor(props.getWorkers());
+    }
+}
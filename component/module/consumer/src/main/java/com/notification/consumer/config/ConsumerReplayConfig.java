@@ -0,0 +1,10 @@
+package com.notification.consumer.config;
+
+import com.notification.consumer.replay.DlqReplayProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(DlqReplayProperties.class)
+public class ConsumerReplayConfig {
+}
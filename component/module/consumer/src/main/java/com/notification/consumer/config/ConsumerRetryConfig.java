@@ -1,17 +1,74 @@
 package com.notification.consumer.config;
 
+import com.notification.consumer.breaker.CircuitOpenException;
 import com.notification.consumer.retry.RetryPolicy;
 import com.notification.consumer.retry.RetryProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.time.Duration;
 
 @Configuration
 @EnableConfigurationProperties(RetryProperties.class)
 public class ConsumerRetryConfig {
 
+    public static final String RETRY_CONTAINER_FACTORY = "retryKafkaListenerContainerFactory";
+
     @Bean
     public RetryPolicy retryPolicy(RetryProperties props) {
-        return RetryPolicy.of(props.getMaxAttempts(), props.getBackoffMs());
+        return new RetryPolicy(
+                props.getMaxAttempts(),
+                props.getBackoffMs(),
+                props.getMultiplier(),
+                props.getMaxBackoffMs(),
+                props.getJitter(),
+                props.getRetryableExceptions(),
+                props.getNonRetryableExceptions()
+        );
+    }
+
+    /**
+     * Aplicado pelo Spring Boot a todos os containers. Os listeners só lançam exceção quando a DLQ (ou o
+     * tópico de retry) não confirmou a escrita; nesse caso o record volta até o Kafka aceitar, sem desistir,
+     * porque desistir aqui perderia a mensagem.
+     *
+     * Record recusado pelo circuit breaker volta num intervalo fixo e curto: o container já está pausado até o
+     * probe, e o backoff exponencial só atrasaria a retomada.
+     */
+    @Bean
+    public CommonErrorHandler kafkaErrorHandler(
+            @Value("${app.consumer.breaker.rejected-redelivery:1s}") Duration rejectedRedelivery
+    ) {
+        final ExponentialBackOff backOff = new ExponentialBackOff(1_000, 2.0);
+        backOff.setMaxInterval(30_000);
+        final DefaultErrorHandler handler = new DefaultErrorHandler(backOff);
+
+        final FixedBackOff circuitOpen = new FixedBackOff(rejectedRedelivery.toMillis(), FixedBackOff.UNLIMITED_ATTEMPTS);
+        handler.setBackOffFunction((record, ex) -> CircuitOpenException.isCause(ex) ? circuitOpen : null);
+        return handler;
+    }
+
+    @Bean(RETRY_CONTAINER_FACTORY)
+    @ConditionalOnProperty(prefix = "app.consumer.retry", name = "mode", havingValue = "topics")
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> retryKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory
+    ) {
+        final ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        // nack(Duration) só existe com ack manual
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
     }
 }
@@ -0,0 +1,50 @@
+package com.notification.consumer.config;
+
+import com.notification.consumer.listener.KafkaNotificationScheduleListener;
+import com.notification.consumer.schedule.NotificationScheduler;
+import com.notification.consumer.schedule.ScheduleProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+@Configuration
+@EnableConfigurationProperties(ScheduleProperties.class)
+@ConditionalOnProperty(prefix = "app.consumer.schedule", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ConsumerScheduleConfig {
+
+    public static final String SCHEDULE_CONTAINER_FACTORY = "scheduleKafkaListenerContainerFactory";
+
+    @Bean(SCHEDULE_CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> scheduleKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            KafkaNotificationScheduleListener scheduleListener,
+            ScheduleProperties props
+    ) {
+        final ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+
+        // a carga de cada partição começa no assignment (seek para o começo) e termina no fim do log ou no idle
+        factory.getContainerProperties().setConsumerRebalanceListener(scheduleListener);
+        factory.getContainerProperties().setIdleEventInterval(props.getIdleCheck().toMillis());
+        return factory;
+    }
+
+    @Bean(destroyMethod = "close")
+    public NotificationScheduler notificationScheduler(
+            KafkaTemplate<String, byte[]> kafkaTemplate,
+            ScheduleProperties props,
+            MeterRegistry meterRegistry,
+            @Value("${app.kafka.topic.email-scheduled}") String scheduledTopic,
+            @Value("${app.kafka.topic.email}") String defaultTopic
+    ) {
+        return new NotificationScheduler(kafkaTemplate, props, meterRegistry, scheduledTopic, defaultTopic);
+    }
+}
@@ -0,0 +1,25 @@
+package com.notification.consumer.config;
+
+import com.notification.consumer.throttle.DomainThrottle;
+import com.notification.consumer.throttle.DomainThrottleProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * O limite por domínio adia a mensagem pelos tópicos de atraso, então só existe no modo de retry topics.
+ * No modo blocking não há bean e o throttle não faz nada, mesmo com app.consumer.throttle.enabled=true.
+ */
+@Configuration
+@EnableConfigurationProperties(DomainThrottleProperties.class)
+@ConditionalOnProperty(prefix = "app.consumer.retry", name = "mode", havingValue = "topics")
+public class ConsumerThrottleConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.consumer.throttle", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public DomainThrottle domainThrottle(DomainThrottleProperties props, MeterRegistry meterRegistry) {
+        return new DomainThrottle(props, meterRegistry);
+    }
+}
@@ -0,0 +1,50 @@
+package com.notification.consumer.controller;
+
+import com.notification.consumer.dto.DlqReplayProgressDTO;
+import com.notification.consumer.dto.DlqReplayRequestDTO;
+import com.notification.consumer.replay.DlqReplayService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * O replay roda em background: o POST responde 202 logo que ele começa e o progresso é consultado pelo id.
+ */
+@RestController
+@RequestMapping("/api/admin/dlq/replays")
+public class DlqReplayController {
+
+    private final DlqReplayService replayService;
+
+    public DlqReplayController(DlqReplayService replayService) {
+        this.replayService = replayService;
+    }
+
+    @PostMapping
+    public ResponseEntity<DlqReplayProgressDTO> start(@RequestBody @Valid DlqReplayRequestDTO request) {
+        return ResponseEntity.accepted().body(replayService.start(request));
+    }
+
+    @GetMapping
+    public List<DlqReplayProgressDTO> list() {
+        return replayService.list();
+    }
+
+    @GetMapping("/{id}")
+    public DlqReplayProgressDTO progress(@PathVariable String id) {
+        return replayService.progress(id);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<DlqReplayProgressDTO> cancel(@PathVariable String id) {
+        return ResponseEntity.accepted().body(replayService.cancel(id));
+    }
+}
@@ -0,0 +1,44 @@
+package com.notification.consumer.controller.advice;
+
+import com.notification.consumer.controller.DlqReplayController;
+import com.notification.consumer.dto.ErrorDTO;
+import com.notification.consumer.exception.ReplayConflictException;
+import com.notification.consumer.exception.ReplayNotFoundException;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+// Precisa rodar antes do AuthControllerAdvice, que captura Exception genérica.
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RestControllerAdvice(assignableTypes = DlqReplayController.class)
+public class ConsumerControllerAdvice {
+
+    @ExceptionHandler(ReplayConflictException.class)
+    public ResponseEntity<ErrorDTO> handleConflict(ReplayConflictException ex) {
+        return build(HttpStatus.CONFLICT, ex.getMessage());
+    }
+
+    @ExceptionHandler(ReplayNotFoundException.class)
+    public ResponseEntity<ErrorDTO> handleNotFound(ReplayNotFoundException ex) {
+        return build(HttpStatus.NOT_FOUND, ex.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ErrorDTO> handleInvalidRange(IllegalArgumentException ex) {
+        return build(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    private ResponseEntity<ErrorDTO> build(HttpStatus status, String message) {
+        return ResponseEntity
+                .status(status)
+                .body(new ErrorDTO(
+                        status.value(),
+                        status.getReasonPhrase(),
+                        message
+                ));
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.notification.consumer.dedup;
+
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "app.consumer.dedup")
+public class DedupProperties {
+
+    private boolean enabled = true;
+
+    // por quanto tempo um id entregue é lembrado; só em memória: um restart começa com a janela vazia
+    private Duration window = Duration.ofHours(6);
+
+    // fatias da janela; mais fatias = expiração mais precisa, uma consulta a mais por fatia
+    @Min(2)
+    private int buckets = 6;
+
+    // tamanho inicial da primeira fatia; as seguintes nascem do tamanho da anterior
+    @Min(1)
+    private int expectedIdsPerBucket = 1_000_000;
+}
@@ -0,0 +1,135 @@
+package com.notification.consumer.dedup;
+
+/**
+ * Conjunto de pares de long (um UUID = 128 bits) com endereçamento aberto e sondagem linear,
+ * guardado num único long[]: 16 bytes por slot, sem objeto por entrada.
+ *
+ * O par (0, 0) marca slot vazio, então ele mesmo fica num flag à parte. Não há remoção:
+ * quem expira ids descarta o conjunto inteiro (ver {@link NotificationDeduplicator}).
+ * Não é thread-safe.
+ */
+final class LongPairHashSet {
+
+    private static final double MAX_LOAD = 0.75;
+    // slots * 2 precisa caber num índice de array
+    private static final int MAX_SLOTS = (Integer.MAX_VALUE - 8) / 2;
+
+    private long[] table;
+    private int slots;
+    private int size;
+    private boolean containsZero;
+
+    LongPairHashSet(int expectedSize) {
+        allocate(slotsFor(Math.max(expectedSize, 16)));
+    }
+
+    /**
+     * @return true se o par não estava no conjunto
+     */
+    boolean add(long high, long low) {
+        if (high == 0 && low == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        int i = indexOf(high, low);
+        while (true) {
+            final long h = table[2 * i];
+            final long l = table[2 * i + 1];
+            if (h == 0 && l == 0) {
+                break;
+            }
+            if (h == high && l == low) {
+                return false;
+            }
+            if (++i == slots) {
+                i = 0;
+            }
+        }
+
+        table[2 * i] = high;
+        table[2 * i + 1] = low;
+        if (++size > slots * MAX_LOAD) {
+            grow();
+        }
+        return true;
+    }
+
+    boolean contains(long high, long low) {
+        if (high == 0 && low == 0) {
+            return containsZero;
+        }
+
+        int i = indexOf(high, low);
+        while (true) {
+            final long h = table[2 * i];
+            final long l = table[2 * i + 1];
+            if (h == high && l == low) {
+                return true;
+            }
+            if (h == 0 && l == 0) {
+                return false;
+            }
+            if (++i == slots) {
+                i = 0;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long memoryBytes() {
+        return (long) table.length * Long.BYTES;
+    }
+
+    private int indexOf(long high, long low) {
+        // UUID v4 já é aleatório, mas ids não-UUID chegam aqui via hash de nome; misturar não custa nada
+        final long hash = mix(high ^ Long.rotateLeft(low, 32));
+        // slots não é potência de 2 (sobraria até metade da memória); multiply-shift mapeia em [0, slots)
+        return (int) (((hash >>> 32) * slots) >>> 32);
+    }
+
+    private void grow() {
+        final long[] old = table;
+        final int target = (int) Math.min(MAX_SLOTS, slots + (long) slots / 2);
+        if (target == slots) {
+            throw new IllegalStateException("Dedup table is full. slots=" + slots);
+        }
+        allocate(target);
+        final boolean zero = containsZero;
+        size = 0;
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != 0 || old[i + 1] != 0) {
+                add(old[i], old[i + 1]);
+            }
+        }
+        if (zero) {
+            size++;
+        }
+    }
+
+    private void allocate(int slots) {
+        this.slots = slots;
+        this.table = new long[slots * 2];
+    }
+
+    private static int slotsFor(int expectedSize) {
+        return (int) Math.min(MAX_SLOTS, (long) Math.ceil(expectedSize / MAX_LOAD) + 1);
+    }
+
+    // finalizador do MurmurHash3 (fmix64)
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
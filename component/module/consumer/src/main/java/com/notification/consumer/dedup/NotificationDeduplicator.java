@@ -0,0 +1,164 @@
+package com.notification.consumer.dedup;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lembra os ids entregues na última janela para descartar as reentregas do Kafka (rebalance, commit que
+ * falhou), que virariam email duplicado. Os ids ficam só na memória do processo: depois de um restart ou crash
+ * a janela começa vazia e as reentregas não são descartadas.
+ *
+ * A janela é dividida em buckets de tempo, cada um um {@link LongPairHashSet}; ids novos entram no bucket
+ * corrente e a consulta olha todos. Ao virar o bucket, o mais antigo é descartado inteiro — expirar não
+ * custa nada por id. Um id fica lembrado entre window - window/buckets e window.
+ *
+ * Ids UUID viram os dois longs dele; outros viram um UUID por hash (nameUUIDFromBytes).
+ */
+@Slf4j
+public class NotificationDeduplicator {
+
+    private final LongPairHashSet[] buckets;
+    private final long bucketMillis;
+    private final int minBucketSize;
+    private final Clock clock;
+
+    private int current;
+    private long currentStartedAt;
+
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicLong memoryBytes = new AtomicLong();
+    private final Counter duplicates;
+    private final Counter uniques;
+
+    public NotificationDeduplicator(DedupProperties props, MeterRegistry meterRegistry) {
+        this(props, meterRegistry, Clock.systemUTC());
+    }
+
+    NotificationDeduplicator(DedupProperties props, MeterRegistry meterRegistry, Clock clock) {
+        this.buckets = new LongPairHashSet[props.getBuckets()];
+        this.bucketMillis = Math.max(1, props.getWindow().toMillis() / props.getBuckets());
+        this.minBucketSize = props.getExpectedIdsPerBucket();
+        this.clock = clock;
+
+        this.buckets[0] = new LongPairHashSet(minBucketSize);
+        this.currentStartedAt = clock.millis();
+        updateGauges();
+
+        this.duplicates = Counter.builder("notification.consumer.dedup.lookups")
+                .description("Delivery checks against the recently delivered ids")
+                .tag("result", "duplicate")
+                .register(meterRegistry);
+        this.uniques = Counter.builder("notification.consumer.dedup.lookups")
+                .description("Delivery checks against the recently delivered ids")
+                .tag("result", "unique")
+                .register(meterRegistry);
+        Gauge.builder("notification.consumer.dedup.ids", ids, AtomicLong::get)
+                .description("Delivered ids remembered in the dedup window")
+                .register(meterRegistry);
+        Gauge.builder("notification.consumer.dedup.memory", memoryBytes, AtomicLong::get)
+                .description("Memory held by the dedup tables")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * true se o id já foi entregue dentro da janela. Id null nunca é duplicado.
+     */
+    public synchronized boolean isDuplicate(String id) {
+        if (id == null) {
+            return false;
+        }
+        rotate();
+
+        final UUID key = toUuid(id);
+        for (LongPairHashSet bucket : buckets) {
+            if (bucket != null && bucket.contains(key.getMostSignificantBits(), key.getLeastSignificantBits())) {
+                duplicates.increment();
+                return true;
+            }
+        }
+        uniques.increment();
+        return false;
+    }
+
+    /**
+     * Registra o id só depois da entrega: uma falha (retry, DLQ, replay da DLQ) não pode bloquear a próxima tentativa.
+     */
+    public synchronized void markDelivered(String id) {
+        if (id == null) {
+            return;
+        }
+        rotate();
+
+        final UUID key = toUuid(id);
+        if (buckets[current].add(key.getMostSignificantBits(), key.getLeastSignificantBits())) {
+            ids.incrementAndGet();
+            // o add pode ter crescido a tabela
+            memoryBytes.set(totalMemory());
+        }
+    }
+
+    private void rotate() {
+        final long now = clock.millis();
+        if (now - currentStartedAt < bucketMillis) {
+            return;
+        }
+
+        if (now - currentStartedAt >= bucketMillis * buckets.length) {
+            // parado mais que a janela inteira: nada do que está guardado vale mais
+            Arrays.fill(buckets, null);
+            buckets[current] = new LongPairHashSet(minBucketSize);
+            currentStartedAt = now;
+        } else {
+            while (now - currentStartedAt >= bucketMillis) {
+                // o tráfego da próxima fatia deve parecer com o da anterior: já nasce do tamanho dela
+                final int previousSize = buckets[current].size();
+                current = (current + 1) % buckets.length;
+                buckets[current] = new LongPairHashSet(Math.max(minBucketSize, previousSize));
+                currentStartedAt += bucketMillis;
+            }
+        }
+        updateGauges();
+        log.debug("Rotated dedup bucket. ids={} memoryBytes={}", ids.get(), memoryBytes.get());
+    }
+
+    private void updateGauges() {
+        long count = 0;
+        for (LongPairHashSet bucket : buckets) {
+            if (bucket != null) {
+                count += bucket.size();
+            }
+        }
+        ids.set(count);
+        memoryBytes.set(totalMemory());
+    }
+
+    private long totalMemory() {
+        long bytes = 0;
+        for (LongPairHashSet bucket : buckets) {
+            if (bucket != null) {
+                bytes += bucket.memoryBytes();
+            }
+        }
+        return bytes;
+    }
+
+    static UUID toUuid(String id) {
+        if (id.length() == 36) {
+            try {
+                return UUID.fromString(id);
+            } catch (IllegalArgumentException ignored) {
+                // não é UUID: cai no hash abaixo
+            }
+        }
+        return UUID.nameUUIDFromBytes(id.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,28 @@
+package com.notification.consumer.delivery;
+
+/**
+ * Falha na entrega. {@code replyCode} é o código SMTP da resposta, ou 0 quando não houve resposta
+ * (conexão, timeout, pool esgotado). 5xx é permanente; o resto pode dar certo numa nova tentativa.
+ */
+public class EmailDeliveryException extends RuntimeException {
+
+    private final int replyCode;
+
+    public EmailDeliveryException(int replyCode, String message) {
+        super(message);
+        this.replyCode = replyCode;
+    }
+
+    public EmailDeliveryException(String message, Throwable cause) {
+        super(message, cause);
+        this.replyCode = 0;
+    }
+
+    public int getReplyCode() {
+        return replyCode;
+    }
+
+    public boolean isPermanent() {
+        return replyCode >= 500 && replyCode < 600;
+    }
+}
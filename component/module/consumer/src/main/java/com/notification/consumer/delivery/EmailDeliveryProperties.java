@@ -0,0 +1,93 @@
+package com.notification.consumer.delivery;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "app.consumer.email")
+public class EmailDeliveryProperties {
+
+    @NotNull
+    private EmailSenderType sender = EmailSenderType.LOG;
+
+    @NotBlank
+    private String from = "no-reply@company.com";
+
+    @Valid
+    private Smtp smtp = new Smtp();
+
+    @Valid
+    private FakeServer fakeServer = new FakeServer();
+
+    @Getter
+    @Setter
+    public static class Smtp {
+
+        // relay padrão; routes manda domínios específicos para outro relay (domínio -> host:porta)
+        @NotBlank
+        private String host = "localhost";
+
+        @Min(1)
+        @Max(65535)
+        private int port = 25;
+
+        private Map<String, String> routes = new HashMap<>();
+
+        @NotBlank
+        private String heloName = "notification-service";
+
+        // conexões abertas por relay, emprestadas ou ociosas
+        @Min(1)
+        private int maxConnectionsPerRelay = 8;
+
+        // depois disso a sessão é encerrada com QUIT e outra é aberta
+        @Min(1)
+        private int maxMessagesPerConnection = 500;
+
+        // usa PIPELINING quando o servidor anuncia no EHLO
+        private boolean pipelining = true;
+
+        @NotNull
+        private Duration connectTimeout = Duration.ofSeconds(5);
+
+        @NotNull
+        private Duration readTimeout = Duration.ofSeconds(30);
+
+        // espera por uma conexão livre quando o relay já está no limite
+        @NotNull
+        private Duration borrowTimeout = Duration.ofSeconds(10);
+
+        // conexão ociosa há mais tempo que isso é fechada em vez de reaproveitada
+        @NotNull
+        private Duration idleTimeout = Duration.ofSeconds(60);
+    }
+
+    @Getter
+    @Setter
+    public static class FakeServer {
+
+        // servidor SMTP em memória para testar throughput sem rede; não entrega nada
+        private boolean enabled = false;
+
+        @Min(0)
+        @Max(65535)
+        private int port = 2525;
+
+        // atraso antes de cada resposta enviada, simulando o round trip até um relay real
+        @NotNull
+        private Duration latency = Duration.ZERO;
+    }
+}
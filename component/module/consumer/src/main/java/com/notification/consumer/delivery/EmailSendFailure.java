@@ -0,0 +1,10 @@
+package com.notification.consumer.delivery;
+
+/**
+ * Email de um lote que não foi entregue, com a posição dele no lote.
+ */
+public record EmailSendFailure(
+        int index,
+        RuntimeException cause
+) {
+}
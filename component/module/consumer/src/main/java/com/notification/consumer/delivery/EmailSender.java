@@ -0,0 +1,30 @@
+package com.notification.consumer.delivery;
+
+import com.notification.consumer.model.EmailMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ponto de extensão da entrega de email. Falhas de entrega são {@link EmailDeliveryException}.
+ */
+public interface EmailSender {
+
+    void send(EmailMessage email);
+
+    /**
+     * Entrega um lote e devolve só os que falharam. Implementações com conexão podem sobrescrever para
+     * mandar o lote inteiro pela mesma sessão.
+     */
+    default List<EmailSendFailure> sendAll(List<EmailMessage> emails) {
+        final List<EmailSendFailure> failures = new ArrayList<>();
+        for (int i = 0; i < emails.size(); i++) {
+            try {
+                send(emails.get(i));
+            } catch (RuntimeException ex) {
+                failures.add(new EmailSendFailure(i, ex));
+            }
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,7 @@
+package com.notification.consumer.delivery;
+
+public enum EmailSenderType {
+    // só registra no log, como o processamento simulado
+    LOG,
+    SMTP
+}
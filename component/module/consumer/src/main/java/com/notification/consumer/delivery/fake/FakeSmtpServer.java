@@ -0,0 +1,283 @@
+package com.notification.consumer.delivery.fake;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Servidor SMTP em memória, só em loopback, para medir throughput do envio sem rede. Aceita tudo
+ * (menos os destinatários de {@link #setRejectRecipient}) e não entrega nada. Os destinatários de
+ * {@link #setDropReplyAfterData} simulam a resposta perdida: a mensagem é aceita e a conexão cai antes do 250.
+ *
+ * A latência simula o round trip até um relay real: é aplicada uma vez a cada flush de respostas, e as
+ * respostas só são enviadas quando não há mais comando esperando no socket. Com PIPELINING, os comandos
+ * que chegam juntos custam um round trip só, como num servidor de verdade.
+ */
+@Slf4j
+public class FakeSmtpServer implements Closeable {
+
+    // últimas mensagens recebidas, para inspeção em testes; o resto só conta
+    private static final int RETAINED_MESSAGES = 100;
+
+    private final int port;
+    private final Duration latency;
+    private volatile Predicate<String> rejectRecipient = recipient -> false;
+    private volatile Predicate<String> dropReplyAfterData = recipient -> false;
+
+    private final AtomicLong connections = new AtomicLong();
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicLong resets = new AtomicLong();
+    private final AtomicLong roundTrips = new AtomicLong();
+    private final Deque<ReceivedMessage> received = new ConcurrentLinkedDeque<>();
+
+    private ServerSocket serverSocket;
+    private ExecutorService workers;
+
+    public FakeSmtpServer(int port, Duration latency) {
+        this.port = port;
+        this.latency = latency;
+    }
+
+    public synchronized void start() throws IOException {
+        if (serverSocket != null) {
+            return;
+        }
+        serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        workers = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "fake-smtp");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final ServerSocket server = serverSocket;
+        workers.execute(() -> acceptLoop(server));
+        log.info("Fake SMTP server listening: port={} latency={}ms", getPort(), latency.toMillis());
+    }
+
+    public int getPort() {
+        return serverSocket == null ? port : serverSocket.getLocalPort();
+    }
+
+    public void setRejectRecipient(Predicate<String> rejectRecipient) {
+        this.rejectRecipient = rejectRecipient;
+    }
+
+    public void setDropReplyAfterData(Predicate<String> dropReplyAfterData) {
+        this.dropReplyAfterData = dropReplyAfterData;
+    }
+
+    public long connections() {
+        return connections.get();
+    }
+
+    public long messages() {
+        return messages.get();
+    }
+
+    public long resets() {
+        return resets.get();
+    }
+
+    public long roundTrips() {
+        return roundTrips.get();
+    }
+
+    public List<ReceivedMessage> received() {
+        return new ArrayList<>(received);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (serverSocket == null) {
+            return;
+        }
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+            // nada a fazer
+        }
+        workers.shutdownNow();
+        serverSocket = null;
+    }
+
+    private void acceptLoop(ServerSocket server) {
+        while (!server.isClosed()) {
+            try {
+                final Socket socket = server.accept();
+                connections.incrementAndGet();
+                workers.execute(() -> session(socket));
+            } catch (SocketException e) {
+                // fechado pelo close()
+                return;
+            } catch (IOException e) {
+                log.warn("Fake SMTP accept failed: {}", e.toString());
+            }
+        }
+    }
+
+    private void session(Socket socket) {
+        try (socket) {
+            final InputStream in = new BufferedInputStream(socket.getInputStream());
+            final OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            final Transaction tx = new Transaction();
+
+            reply(out, "220 fake-smtp ready");
+            flush(in, out);
+
+            String line;
+            while ((line = readLine(in)) != null) {
+                final String verb = (line.length() >= 4 ? line.substring(0, 4) : line).toUpperCase(Locale.ROOT);
+                switch (verb) {
+                    case "EHLO" -> reply(out, "250-fake-smtp\r\n250-PIPELINING\r\n250-8BITMIME\r\n250 SIZE 10485760");
+                    case "HELO", "NOOP" -> reply(out, "250 OK");
+                    case "MAIL" -> {
+                        if (tx.from != null) {
+                            reply(out, "503 Nested MAIL command");
+                        } else {
+                            tx.from = address(line);
+                            reply(out, "250 OK");
+                        }
+                    }
+                    case "RCPT" -> {
+                        final String recipient = address(line);
+                        if (tx.from == null) {
+                            reply(out, "503 Need MAIL first");
+                        } else if (rejectRecipient.test(recipient)) {
+                            reply(out, "550 Mailbox unavailable: " + recipient);
+                        } else {
+                            tx.recipients.add(recipient);
+                            reply(out, "250 OK");
+                        }
+                    }
+                    case "DATA" -> {
+                        if (tx.recipients.isEmpty()) {
+                            reply(out, "554 No valid recipients");
+                        } else {
+                            reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                            flush(in, out);
+                            final String content = readData(in);
+                            if (content == null) {
+                                return;
+                            }
+                            messages.incrementAndGet();
+                            retain(new ReceivedMessage(tx.from, List.copyOf(tx.recipients), content));
+                            if (tx.recipients.stream().anyMatch(dropReplyAfterData)) {
+                                return;
+                            }
+                            tx.reset();
+                            reply(out, "250 OK queued");
+                        }
+                    }
+                    case "RSET" -> {
+                        resets.incrementAndGet();
+                        tx.reset();
+                        reply(out, "250 OK");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        out.flush();
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+                flush(in, out);
+            }
+        } catch (IOException e) {
+            log.debug("Fake SMTP session ended: {}", e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Só envia quando o cliente não tem mais nada na fila: comandos em pipeline saem num flush só. */
+    private void flush(InputStream in, OutputStream out) throws IOException, InterruptedException {
+        if (in.available() > 0) {
+            return;
+        }
+        if (!latency.isZero()) {
+            Thread.sleep(latency.toMillis());
+        }
+        roundTrips.incrementAndGet();
+        out.flush();
+    }
+
+    private void retain(ReceivedMessage message) {
+        received.addLast(message);
+        while (received.size() > RETAINED_MESSAGES) {
+            received.pollFirst();
+        }
+    }
+
+    private static void reply(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.US_ASCII));
+        out.write('\r');
+        out.write('\n');
+    }
+
+    private static String address(String line) {
+        final int open = line.indexOf('<');
+        final int close = line.indexOf('>', open + 1);
+        return open >= 0 && close > open ? line.substring(open + 1, close) : line.substring(line.indexOf(':') + 1).trim();
+    }
+
+    /** Conteúdo até a linha com um ponto só, desfazendo o dot-stuffing; null se a conexão caiu no meio. */
+    private static String readData(InputStream in) throws IOException {
+        final StringBuilder content = new StringBuilder();
+        String line;
+        while ((line = readLine(in)) != null) {
+            if (line.equals(".")) {
+                return content.toString();
+            }
+            content.append(line.startsWith("..") ? line.substring(1) : line).append("\r\n");
+        }
+        return null;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        final ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                final byte[] bytes = line.toByteArray();
+                final int length = bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? bytes.length - 1 : bytes.length;
+                return new String(bytes, 0, length, StandardCharsets.UTF_8);
+            }
+            line.write(b);
+        }
+        return null;
+    }
+
+    public record ReceivedMessage(String from, List<String> recipients, String content) {
+    }
+
+    private static final class Transaction {
+
+        private String from;
+        private final List<String> recipients = new ArrayList<>();
+
+        void reset() {
+            from = null;
+            recipients.clear();
+        }
+    }
+}
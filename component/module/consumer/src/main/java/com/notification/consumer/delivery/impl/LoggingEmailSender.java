@@ -0,0 +1,14 @@
+package com.notification.consumer.delivery.impl;
+
+import com.notification.consumer.delivery.EmailSender;
+import com.notification.consumer.model.EmailMessage;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class LoggingEmailSender implements EmailSender {
+
+    @Override
+    public void send(EmailMessage email) {
+        log.debug("Email delivery skipped (log sender): id={} to={}", email.id(), email.to());
+    }
+}
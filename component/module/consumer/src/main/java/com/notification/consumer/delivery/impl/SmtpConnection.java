@@ -0,0 +1,358 @@
+package com.notification.consumer.delivery.impl;
+
+import com.notification.consumer.delivery.EmailDeliveryException;
+import com.notification.consumer.delivery.EmailDeliveryProperties;
+import com.notification.consumer.model.EmailMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Uma sessão SMTP aberta com um relay. Não é thread-safe: fica com um thread de cada vez, emprestada do pool.
+ *
+ * Cada envio é uma transação MAIL/RCPT/DATA. Na sessão reaproveitada a transação começa com RSET, para não
+ * herdar estado da anterior. Com PIPELINING, RSET, MAIL, RCPT e DATA vão num único write e as respostas são
+ * lidas em ordem: um round trip até o 354 em vez de quatro.
+ */
+@Slf4j
+class SmtpConnection implements Closeable {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final SmtpRelay relay;
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private final boolean pipelining;
+    private final boolean eightBitMime;
+
+    private int transactions;
+    // transação que começou e não terminou: o estado do servidor é desconhecido
+    private boolean dirty;
+    // o conteúdo da transação atual já foi escrito: o relay pode ter aceitado mesmo sem o 250 chegar
+    private boolean contentSent;
+    private boolean broken;
+    private long lastUsedNanos = System.nanoTime();
+
+    private SmtpConnection(SmtpRelay relay, Socket socket, InputStream in, OutputStream out,
+                           boolean pipelining, boolean eightBitMime) {
+        this.relay = relay;
+        this.socket = socket;
+        this.in = in;
+        this.out = out;
+        this.pipelining = pipelining;
+        this.eightBitMime = eightBitMime;
+    }
+
+    static SmtpConnection open(SmtpRelay relay, EmailDeliveryProperties.Smtp props) throws IOException {
+        final Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(relay.host(), relay.port()), (int) props.getConnectTimeout().toMillis());
+            socket.setSoTimeout((int) props.getReadTimeout().toMillis());
+            socket.setTcpNoDelay(true);
+
+            final InputStream in = new BufferedInputStream(socket.getInputStream());
+            final OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            expect(readReply(in), 220, "greeting");
+
+            write(out, "EHLO " + props.getHeloName());
+            out.flush();
+            Reply ehlo = readReply(in);
+            if (ehlo.code() != 250) {
+                write(out, "HELO " + props.getHeloName());
+                out.flush();
+                ehlo = readReply(in);
+                expect(ehlo, 250, "HELO");
+            }
+
+            final String capabilities = ehlo.text().toUpperCase(Locale.ROOT);
+            final SmtpConnection connection = new SmtpConnection(relay, socket, in, out,
+                    props.isPipelining() && hasCapability(capabilities, "PIPELINING"),
+                    hasCapability(capabilities, "8BITMIME"));
+            log.debug("SMTP session opened: relay={} pipelining={}", relay, connection.pipelining);
+            return connection;
+
+        } catch (IOException | RuntimeException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @throws EmailDeliveryException quando o servidor recusa; a sessão continua usável, a menos que {@link #isBroken()}
+     * @throws IOException falha de rede; a sessão deve ser descartada. Depois de {@link #contentSent()} a mensagem
+     *                     pode ter sido entregue e não deve ser reenviada
+     */
+    void send(String from, EmailMessage email) throws IOException {
+        try {
+            transaction(from, email);
+        } catch (EmailDeliveryException e) {
+            // 421: o servidor vai fechar a conexão
+            if (e.getReplyCode() == 421) {
+                broken = true;
+            }
+            throw e;
+        }
+    }
+
+    private void transaction(String from, EmailMessage email) throws IOException {
+        final boolean reset = dirty || transactions > 0;
+        dirty = true;
+        contentSent = false;
+        lastUsedNanos = System.nanoTime();
+
+        final String mail = "MAIL FROM:<" + from + ">" + (eightBitMime ? " BODY=8BITMIME" : "");
+        final String rcpt = "RCPT TO:<" + clean(email.to()) + ">";
+
+        if (pipelining) {
+            if (reset) {
+                write(out, "RSET");
+            }
+            write(out, mail);
+            write(out, rcpt);
+            write(out, "DATA");
+            out.flush();
+
+            // todas as respostas do lote são lidas antes de decidir, para a sessão não ficar dessincronizada
+            final Reply rset = reset ? readReply(in) : null;
+            final Reply mailReply = readReply(in);
+            final Reply rcptReply = readReply(in);
+            final Reply dataReply = readReply(in);
+            if (dataReply.code() == 354 && (mailReply.code() != 250 || !accepted(rcptReply))) {
+                // servidor fora do padrão entrou em DATA sem destinatário válido: não há como voltar
+                broken = true;
+            }
+            if (rset != null) {
+                expect(rset, 250, "RSET");
+            }
+            expect(mailReply, 250, "MAIL FROM");
+            expectRecipient(rcptReply);
+            expect(dataReply, 354, "DATA");
+        } else {
+            if (reset) {
+                command("RSET", 250);
+            }
+            command(mail, 250);
+            write(out, rcpt);
+            out.flush();
+            expectRecipient(readReply(in));
+            command("DATA", 354);
+        }
+
+        contentSent = true;
+        writeContent(from, email);
+        out.flush();
+        expect(readReply(in), 250, "end of DATA");
+
+        dirty = false;
+        transactions++;
+        lastUsedNanos = System.nanoTime();
+    }
+
+    boolean isBroken() {
+        return broken || socket.isClosed();
+    }
+
+    boolean isReusable(long idleTimeoutNanos, int maxTransactions) {
+        return !isBroken()
+                && transactions < maxTransactions
+                && System.nanoTime() - lastUsedNanos < idleTimeoutNanos;
+    }
+
+    boolean contentSent() {
+        return contentSent;
+    }
+
+    int transactions() {
+        return transactions;
+    }
+
+    boolean pipelining() {
+        return pipelining;
+    }
+
+    SmtpRelay relay() {
+        return relay;
+    }
+
+    /** Encerra com QUIT quando a sessão ainda está sã; falha aqui não importa. */
+    @Override
+    public void close() {
+        try {
+            if (!isBroken()) {
+                write(out, "QUIT");
+                out.flush();
+                readReply(in);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("SMTP QUIT failed: relay={} error={}", relay, e.toString());
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // nada a fazer
+            }
+        }
+    }
+
+    private void command(String line, int expected) throws IOException {
+        write(out, line);
+        out.flush();
+        expect(readReply(in), expected, line.split("[ :]", 2)[0]);
+    }
+
+    private void writeContent(String from, EmailMessage email) throws IOException {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream(256 + length(email.body()) * 2);
+        if (email.id() != null) {
+            header(content, "Message-ID: <" + clean(email.id()) + "@notification-service>");
+        }
+        header(content, "Date: " + DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC)));
+        header(content, "From: <" + from + ">");
+        header(content, "To: <" + clean(email.to()) + ">");
+        header(content, "Subject: " + encodeHeader(clean(email.subject())));
+        header(content, "MIME-Version: 1.0");
+        header(content, "Content-Type: text/plain; charset=UTF-8");
+        header(content, "Content-Transfer-Encoding: " + (eightBitMime ? "8bit" : "base64"));
+        content.writeBytes(CRLF);
+
+        final String body = email.body() == null ? "" : email.body();
+        if (eightBitMime) {
+            dotStuffed(content, body);
+        } else {
+            // sem 8BITMIME o corpo UTF-8 precisa ser 7bit; base64 nunca começa linha com ponto
+            final String encoded = Base64.getMimeEncoder().encodeToString(body.getBytes(StandardCharsets.UTF_8));
+            content.writeBytes(encoded.getBytes(StandardCharsets.US_ASCII));
+            content.writeBytes(CRLF);
+        }
+        content.write('.');
+        content.writeBytes(CRLF);
+        content.writeTo(out);
+    }
+
+    private static void dotStuffed(ByteArrayOutputStream content, String body) {
+        // normaliza quebras de linha para CRLF e duplica o ponto no início de linha (RFC 5321 4.5.2)
+        final String[] lines = body.split("\r\n|\r|\n", -1);
+        for (String line : lines) {
+            if (line.startsWith(".")) {
+                content.write('.');
+            }
+            content.writeBytes(line.getBytes(StandardCharsets.UTF_8));
+            content.writeBytes(CRLF);
+        }
+    }
+
+    private static void header(ByteArrayOutputStream content, String line) {
+        content.writeBytes(line.getBytes(StandardCharsets.UTF_8));
+        content.writeBytes(CRLF);
+    }
+
+    private static String encodeHeader(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0x7E) {
+                return "=?UTF-8?B?" + Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8)) + "?=";
+            }
+        }
+        return value;
+    }
+
+    // CR/LF em campo do usuário viraria header ou comando injetado
+    private static String clean(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.indexOf('\r') < 0 && value.indexOf('\n') < 0 ? value : value.replaceAll("[\r\n]+", " ");
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static boolean accepted(Reply reply) {
+        return reply.code() == 250 || reply.code() == 251;
+    }
+
+    private static void expectRecipient(Reply reply) {
+        if (!accepted(reply)) {
+            throw rejected("RCPT TO", reply);
+        }
+    }
+
+    private static void expect(Reply reply, int expected, String stage) {
+        if (reply.code() != expected) {
+            throw rejected(stage, reply);
+        }
+    }
+
+    private static EmailDeliveryException rejected(String stage, Reply reply) {
+        return new EmailDeliveryException(reply.code(), "SMTP " + stage + " rejected: " + reply.code() + " " + reply.text());
+    }
+
+    private static boolean hasCapability(String ehloText, String capability) {
+        for (String line : ehloText.split("\n")) {
+            if (line.equals(capability) || line.startsWith(capability + " ")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void write(OutputStream out, String line) throws IOException {
+        out.write(line.getBytes(StandardCharsets.UTF_8));
+        out.write(CRLF);
+    }
+
+    /** Lê uma resposta, juntando as linhas de continuação ("250-...") num texto separado por \n. */
+    private static Reply readReply(InputStream in) throws IOException {
+        final StringBuilder text = new StringBuilder();
+        while (true) {
+            final String line = readLine(in);
+            if (line.length() < 3) {
+                throw new IOException("Malformed SMTP reply: " + line);
+            }
+            final int code;
+            try {
+                code = Integer.parseInt(line.substring(0, 3));
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed SMTP reply: " + line, e);
+            }
+            if (!text.isEmpty()) {
+                text.append('\n');
+            }
+            text.append(line.length() > 4 ? line.substring(4) : "");
+            if (line.length() == 3 || line.charAt(3) != '-') {
+                return new Reply(code, text.toString());
+            }
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        final StringBuilder line = new StringBuilder(64);
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                final int end = line.length() > 0 && line.charAt(line.length() - 1) == '\r' ? line.length() - 1 : line.length();
+                return line.substring(0, end);
+            }
+            line.append((char) b);
+        }
+        throw new EOFException("SMTP connection closed by server");
+    }
+
+    private record Reply(int code, String text) {
+    }
+}
@@ -0,0 +1,124 @@
+package com.notification.consumer.delivery.impl;
+
+import com.notification.consumer.delivery.EmailDeliveryException;
+import com.notification.consumer.delivery.EmailDeliveryProperties;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sessões SMTP de um relay, limitadas a {@code maxConnectionsPerRelay} abertas ao mesmo tempo.
+ *
+ * As ociosas ficam numa pilha: o borrow pega a usada mais recentemente, e as do fundo envelhecem até passar
+ * do idle timeout e serem fechadas. Assim o pool encolhe sozinho quando o tráfego cai.
+ */
+class SmtpConnectionPool implements Closeable {
+
+    private final SmtpRelay relay;
+    private final EmailDeliveryProperties.Smtp props;
+    private final long idleTimeoutNanos;
+    // uma permissão por conexão aberta, emprestada ou ociosa
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<SmtpConnection> idle = new ConcurrentLinkedDeque<>();
+
+    private volatile boolean closed;
+
+    SmtpConnectionPool(SmtpRelay relay, EmailDeliveryProperties.Smtp props) {
+        this.relay = relay;
+        this.props = props;
+        this.idleTimeoutNanos = props.getIdleTimeout().toNanos();
+        this.permits = new Semaphore(props.getMaxConnectionsPerRelay());
+    }
+
+    /**
+     * Devolve uma sessão ociosa ainda boa ou abre uma nova; espera até {@code borrowTimeout} se o relay está no limite.
+     */
+    SmtpConnection borrow() throws IOException {
+        evictExpired();
+
+        SmtpConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            if (connection.isReusable(idleTimeoutNanos, props.getMaxMessagesPerConnection())) {
+                return connection;
+            }
+            discard(connection);
+        }
+
+        acquire();
+        try {
+            return SmtpConnection.open(relay, props);
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * {@code reusable=false} quando a sessão teve erro de rede: ela é fechada em vez de voltar ao pool.
+     */
+    void release(SmtpConnection connection, boolean reusable) {
+        if (reusable && !closed && connection.isReusable(idleTimeoutNanos, props.getMaxMessagesPerConnection())) {
+            idle.offerFirst(connection);
+            return;
+        }
+        discard(connection);
+    }
+
+    SmtpRelay relay() {
+        return relay;
+    }
+
+    int idleCount() {
+        return idle.size();
+    }
+
+    int openCount() {
+        return props.getMaxConnectionsPerRelay() - permits.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        SmtpConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            discard(connection);
+        }
+    }
+
+    private void acquire() {
+        if (closed) {
+            throw new EmailDeliveryException(0, "SMTP pool for relay " + relay + " is closed");
+        }
+        try {
+            if (!permits.tryAcquire(props.getBorrowTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new EmailDeliveryException(0, "No SMTP connection available for relay " + relay
+                        + " within " + props.getBorrowTimeout().toMillis() + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmailDeliveryException("Interrupted while waiting for an SMTP connection to " + relay, e);
+        }
+    }
+
+    private void evictExpired() {
+        SmtpConnection oldest;
+        while ((oldest = idle.peekLast()) != null
+                && !oldest.isReusable(idleTimeoutNanos, props.getMaxMessagesPerConnection())) {
+            // outro thread pode ter pego a mesma; só quem remove fecha
+            if (idle.removeLastOccurrence(oldest)) {
+                discard(oldest);
+            }
+        }
+    }
+
+    private void discard(SmtpConnection connection) {
+        try {
+            connection.close();
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.notification.consumer.delivery.impl;
+
+import com.notification.consumer.delivery.EmailDeliveryException;
+import com.notification.consumer.delivery.EmailDeliveryProperties;
+import com.notification.consumer.delivery.EmailSendFailure;
+import com.notification.consumer.delivery.EmailSender;
+import com.notification.consumer.model.EmailMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Entrega por SMTP com um pool de sessões por relay. O relay vem do domínio do destinatário
+ * ({@code smtp.routes}) ou é o padrão ({@code smtp.host}/{@code smtp.port}).
+ *
+ * O lote vai inteiro pela mesma sessão, uma transação por email: a conexão, o EHLO e o TLS (quando houver)
+ * são pagos uma vez por sessão, não por mensagem.
+ */
+@Slf4j
+public class SmtpEmailSender implements EmailSender, Closeable {
+
+    private final String from;
+    private final EmailDeliveryProperties.Smtp props;
+    private final SmtpRelay defaultRelay;
+    private final Map<String, SmtpRelay> routes = new HashMap<>();
+    private final ConcurrentHashMap<SmtpRelay, SmtpConnectionPool> pools = new ConcurrentHashMap<>();
+
+    public SmtpEmailSender(EmailDeliveryProperties props) {
+        this.from = props.getFrom();
+        this.props = props.getSmtp();
+        this.defaultRelay = new SmtpRelay(this.props.getHost(), this.props.getPort());
+        this.props.getRoutes().forEach((domain, relay) ->
+                routes.put(domain.toLowerCase(Locale.ROOT), SmtpRelay.parse(relay, this.props.getPort())));
+    }
+
+    @Override
+    public void send(EmailMessage email) {
+        final SmtpConnectionPool pool = poolFor(email.to());
+        final Session session = new Session(pool);
+        try {
+            session.send(email);
+        } finally {
+            session.release();
+        }
+    }
+
+    @Override
+    public List<EmailSendFailure> sendAll(List<EmailMessage> emails) {
+        final Map<SmtpConnectionPool, List<Integer>> byRelay = new LinkedHashMap<>();
+        for (int i = 0; i < emails.size(); i++) {
+            byRelay.computeIfAbsent(poolFor(emails.get(i).to()), pool -> new ArrayList<>()).add(i);
+        }
+
+        final List<EmailSendFailure> failures = new ArrayList<>();
+        byRelay.forEach((pool, indexes) -> {
+            final Session session = new Session(pool);
+            try {
+                for (int index : indexes) {
+                    try {
+                        session.send(emails.get(index));
+                    } catch (EmailDeliveryException ex) {
+                        failures.add(new EmailSendFailure(index, ex));
+                    }
+                }
+            } finally {
+                session.release();
+            }
+        });
+        failures.sort((a, b) -> Integer.compare(a.index(), b.index()));
+        return failures;
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(SmtpConnectionPool::close);
+    }
+
+    SmtpConnectionPool poolFor(String to) {
+        final int at = to == null ? -1 : to.lastIndexOf('@');
+        final SmtpRelay relay = at < 0
+                ? defaultRelay
+                : routes.getOrDefault(to.substring(at + 1).toLowerCase(Locale.ROOT), defaultRelay);
+        return pools.computeIfAbsent(relay, r -> new SmtpConnectionPool(r, props));
+    }
+
+    /**
+     * Uma sessão emprestada do pool para uma sequência de envios. Recusa do servidor mantém a sessão;
+     * erro de rede descarta e a próxima mensagem abre outra.
+     */
+    private final class Session {
+
+        private final SmtpConnectionPool pool;
+        private SmtpConnection connection;
+
+        Session(SmtpConnectionPool pool) {
+            this.pool = pool;
+        }
+
+        void send(EmailMessage email) {
+            for (int attempt = 1; ; attempt++) {
+                if (connection == null) {
+                    connection = borrow();
+                }
+                final boolean reused = connection.transactions() > 0;
+                try {
+                    connection.send(from, email);
+                    return;
+                } catch (IOException e) {
+                    final boolean contentSent = connection.contentSent();
+                    pool.release(connection, false);
+                    connection = null;
+                    // sessão reaproveitada pode ter sido fechada pelo servidor enquanto ociosa: tenta uma vez numa nova.
+                    // Depois do conteúdo, não: o relay pode ter aceitado e o reenvio duplicaria o email
+                    if (!reused || attempt > 1 || contentSent) {
+                        throw failed(e);
+                    }
+                } catch (EmailDeliveryException e) {
+                    if (connection.isBroken()) {
+                        pool.release(connection, false);
+                        connection = null;
+                    }
+                    throw e;
+                }
+            }
+        }
+
+        void release() {
+            if (connection != null) {
+                pool.release(connection, true);
+                connection = null;
+            }
+        }
+
+        private SmtpConnection borrow() {
+            try {
+                return pool.borrow();
+            } catch (IOException e) {
+                throw failed(e);
+            }
+        }
+
+        private EmailDeliveryException failed(IOException e) {
+            log.warn("SMTP delivery failed: relay={} error={}", pool.relay(), e.toString());
+            return new EmailDeliveryException("SMTP I/O error on relay " + pool.relay() + ": " + e.getMessage(), e);
+        }
+    }
+}
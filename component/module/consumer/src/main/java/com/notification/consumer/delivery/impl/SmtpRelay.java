@@ -0,0 +1,21 @@
+package com.notification.consumer.delivery.impl;
+
+record SmtpRelay(String host, int port) {
+
+    static SmtpRelay parse(String value, int defaultPort) {
+        final int colon = value.lastIndexOf(':');
+        if (colon < 0) {
+            return new SmtpRelay(value.trim(), defaultPort);
+        }
+        try {
+            return new SmtpRelay(value.substring(0, colon).trim(), Integer.parseInt(value.substring(colon + 1).trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid SMTP relay: " + value, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return host + ":" + port;
+    }
+}
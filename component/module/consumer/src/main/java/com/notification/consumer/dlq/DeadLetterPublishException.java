@@ -0,0 +1,11 @@
+package com.notification.consumer.dlq;
+
+/**
+ * A DLQ (ou o tópico de retry) não confirmou a escrita: a mensagem de origem não pode ser comitada.
+ */
+public class DeadLetterPublishException extends RuntimeException {
+
+    public DeadLetterPublishException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
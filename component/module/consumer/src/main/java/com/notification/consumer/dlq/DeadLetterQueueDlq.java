@@ -2,8 +2,16 @@ package com.notification.consumer.dlq;
 
 import com.notification.consumer.model.NotificationMessage;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface DeadLetterQueueDlq {
 
-    void send(NotificationMessage message, String reason);
+    /**
+     * Completa quando o Kafka confirma a escrita na DLQ; falha com {@link DeadLetterPublishException}.
+     * O offset da mensagem de origem só pode ser comitado depois disso.
+     *
+     * @param sourceKey key do record que falhou, guardada no envelope para o replay voltar à mesma partição
+     */
+    CompletableFuture<Void> send(String sourceKey, NotificationMessage message, String reason);
 
 }
@@ -2,64 +2,130 @@ package com.notification.consumer.dlq.impl;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.notification.consumer.dlq.DeadLetterPublishException;
 import com.notification.consumer.dlq.DeadLetterQueueDlq;
 import com.notification.consumer.model.NotificationMessage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Component
 public class KafkaDeadLetterQueueDlq implements DeadLetterQueueDlq {
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final ObjectMapper objectMapper;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final ObjectWriter envelopeWriter;
+
+    private final Timer acked;
+    private final Timer failed;
+    private final AtomicInteger inFlight = new AtomicInteger();
 
     @Value("${app.kafka.topic.email-dlq}")
     private String dlqTopic;
 
+    @Value("${app.consumer.dlq.ack-timeout:30s}")
+    private Duration ackTimeout = Duration.ofSeconds(30);
+
     public KafkaDeadLetterQueueDlq(
-            KafkaTemplate<String, String> kafkaTemplate
+            KafkaTemplate<String, byte[]> kafkaTemplate,
+            MeterRegistry meterRegistry
     ) {
         this.kafkaTemplate = kafkaTemplate;
-        this.objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        this.envelopeWriter = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .writerFor(DlqEnvelope.class);
+
+        this.acked = Timer.builder("notification.consumer.dlq.send")
+                .description("Time until Kafka acknowledged a DLQ write")
+                .tag("result", "acked")
+                .register(meterRegistry);
+        this.failed = Timer.builder("notification.consumer.dlq.send")
+                .description("Time until Kafka acknowledged a DLQ write")
+                .tag("result", "failed")
+                .register(meterRegistry);
+        Gauge.builder("notification.consumer.dlq.in-flight", inFlight, AtomicInteger::get)
+                .description("DLQ writes waiting for a Kafka acknowledgement")
+                .register(meterRegistry);
     }
 
+    /**
+     * @param sourceKey key do record de origem, definida pela estratégia de particionamento do publisher;
+     *                  null em envelopes gravados antes de ela existir
+     */
     public record DlqEnvelope(
             String id,
             Instant failedAt,
             String reason,
+            String sourceKey,
             NotificationMessage message
     ) {
     }
 
     @Override
-    public void send(NotificationMessage message, String reason) {
+    public CompletableFuture<Void> send(String sourceKey, NotificationMessage message, String reason) {
         final DlqEnvelope envelope = new DlqEnvelope(
                 UUID.randomUUID().toString(),
                 Instant.now(),
                 reason,
+                sourceKey,
                 message
         );
 
         final String key = (message != null && message.id() != null) ? message.id() : envelope.id();
 
+        final byte[] json;
         try {
-            final String json = objectMapper.writeValueAsString(envelope);
-            kafkaTemplate.send(dlqTopic, key, json);
-
-            // log claro de falha permanente / roteamento para DLQ
-            log.error("Sent message to DLQ. topic={} key={} reason={}", dlqTopic, key, reason);
-
+            // o envelope segue em JSON, independente do formato da mensagem original
+            json = envelopeWriter.writeValueAsBytes(envelope);
         } catch (JsonProcessingException e) {
-            // não pode quebrar o consumer por falha ao serializar DLQ
+            // não pode quebrar o consumer por falha ao serializar DLQ; reenviar não resolveria
             log.error("Failed to serialize DLQ envelope. topic={} reason={} error={}",
                     dlqTopic, reason, e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // sem esperar aqui: o chamador junta os futuros de um poll inteiro e o producer agrupa os envios
+        final long start = System.nanoTime();
+        inFlight.incrementAndGet();
+
+        CompletableFuture<SendResult<String, byte[]>> sent;
+        try {
+            sent = kafkaTemplate.send(dlqTopic, key, json);
+        } catch (Exception e) {
+            sent = CompletableFuture.failedFuture(e);
         }
+
+        return sent
+                .orTimeout(ackTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((result, ex) -> {
+                    inFlight.decrementAndGet();
+                    final long elapsed = System.nanoTime() - start;
+
+                    if (ex != null) {
+                        failed.record(elapsed, TimeUnit.NANOSECONDS);
+                        log.error("Failed to send message to DLQ. topic={} key={} reason={} error={}",
+                                dlqTopic, key, reason, ex.toString());
+                        throw new DeadLetterPublishException("DLQ write not acknowledged for key=" + key, ex);
+                    }
+
+                    acked.record(elapsed, TimeUnit.NANOSECONDS);
+                    // log claro de falha permanente / roteamento para DLQ
+                    log.error("Sent message to DLQ. topic={} key={} reason={}", dlqTopic, key, reason);
+                    return null;
+                });
     }
 }
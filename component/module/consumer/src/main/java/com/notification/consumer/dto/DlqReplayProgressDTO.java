@@ -0,0 +1,27 @@
+package com.notification.consumer.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+/**
+ * Retrato de um replay. total é o número de offsets no intervalo; scanned avança até ele.
+ * matched passou pelos filtros; replayed foi confirmado pelo Kafka no tópico da prioridade;
+ * unreplayable são envelopes sem mensagem válida (ex.: payload que nem decodificou).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DlqReplayProgressDTO(
+        String id,
+        String status,
+        long total,
+        long scanned,
+        long matched,
+        long replayed,
+        long unreplayable,
+        double percent,
+        double ratePerSecond,
+        Instant startedAt,
+        Instant finishedAt,
+        String error
+) {
+}
@@ -0,0 +1,25 @@
+package com.notification.consumer.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.PositiveOrZero;
+
+import java.time.Instant;
+
+/**
+ * Intervalo do DLQ a reprocessar e filtros. Sem intervalo, vai do início ao fim do tópico (o fim é
+ * fixado no começo do replay: o que cair na DLQ durante ele não entra).
+ *
+ * fromOffset/toOffset (inclusivos) valem para todas as partições; fromTimestamp/toTimestamp usam o
+ * timestamp do record no DLQ. failedAfter/failedBefore filtram pelo failedAt do envelope.
+ */
+public record DlqReplayRequestDTO(
+        @PositiveOrZero Long fromOffset,
+        @PositiveOrZero Long toOffset,
+        Instant fromTimestamp,
+        Instant toTimestamp,
+        String reasonContains,
+        Instant failedAfter,
+        Instant failedBefore,
+        @Min(1) Integer maxPerSecond
+) {
+}
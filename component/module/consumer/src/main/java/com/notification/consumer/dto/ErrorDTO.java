@@ -0,0 +1,8 @@
+package com.notification.consumer.dto;
+
+public record ErrorDTO(
+        int status,
+        String error,
+        String message
+) {
+}
@@ -0,0 +1,9 @@
+package com.notification.consumer.exception;
+
+public class ReplayConflictException extends RuntimeException {
+
+    public ReplayConflictException(String runningId) {
+        super("A DLQ replay is already running: " + runningId);
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.notification.consumer.exception;
+
+public class ReplayNotFoundException extends RuntimeException {
+
+    public ReplayNotFoundException(String id) {
+        super("DLQ replay not found: " + id);
+    }
+
+}
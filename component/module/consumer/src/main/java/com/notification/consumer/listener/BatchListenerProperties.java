@@ -0,0 +1,20 @@
+package com.notification.consumer.listener;
+
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "app.consumer.batch")
+public class BatchListenerProperties {
+
+    private boolean enabled = false;
+
+    // max.poll.records só do container em lote; o listener de um record por vez não é afetado
+    @Min(1)
+    private int maxPollRecords = 500;
+}
@@ -0,0 +1,113 @@
+package com.notification.consumer.listener;
+
+import com.notification.consumer.breaker.CircuitOpenException;
+import com.notification.consumer.dlq.DeadLetterPublishException;
+import com.notification.consumer.model.DecodedNotification;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fecha um record processado fora do thread do poll: espera a DLQ/retry confirmar e decide o ack.
+ * Usado pelos listeners que despacham para workers (paralelo e por prioridade).
+ */
+@Slf4j
+final class DeadLetterSettler {
+
+    private static final long MAX_DEAD_LETTER_BACKOFF_MS = 30_000;
+
+    private final NotificationRecordHandler recordHandler;
+    private final long deadLetterBackoffMs;
+
+    DeadLetterSettler(NotificationRecordHandler recordHandler, long deadLetterBackoffMs) {
+        this.recordHandler = recordHandler;
+        this.deadLetterBackoffMs = deadLetterBackoffMs;
+    }
+
+    /**
+     * {@link NotificationRecordHandler#process} e {@link #settle} no thread do worker.
+     *
+     * Com o circuito aberto o worker não espera: a tarefa devolve o thread e o record volta a rodar em
+     * {@code retryExecutor} depois do {@code retryAfter}, sem ack até lá. O futuro só completa no fim, então
+     * no modo paralelo a chave continua com a vez dele. O listener já parou de despachar (ver
+     * {@link NotificationRecordHandler#ensureDeliveryAllowed}): só os records que estavam na fila passam por aqui.
+     */
+    CompletableFuture<Void> handle(ConsumerRecord<String, ByteBuffer> record, DecodedNotification decoded,
+                                   PendingDeadLetters pending, Executor retryExecutor) {
+        try {
+            if (decoded != null) {
+                recordHandler.process(record, decoded, pending);
+            }
+            settle(record, pending);
+            return CompletableFuture.completedFuture(null);
+        } catch (CircuitOpenException ex) {
+            log.debug("Circuit open, parking record. topic={} partition={} offset={} retryIn={}ms",
+                    record.topic(), record.partition(), record.offset(), ex.retryAfter().toMillis());
+            final Executor later = CompletableFuture.delayedExecutor(
+                    ex.retryAfter().toMillis(), TimeUnit.MILLISECONDS, retryExecutor);
+            // nada foi escrito na DLQ/retry antes da recusa: recomeça com pending novo
+            return CompletableFuture.supplyAsync(
+                            () -> handle(record, decoded, new PendingDeadLetters(), retryExecutor), later)
+                    .thenCompose(done -> done);
+        }
+    }
+
+    /**
+     * Espera a DLQ/retry confirmar, no thread do worker (só a tarefa deste record espera). Se o Kafka recusar,
+     * refaz a etapa que escreveu (decode de payload inválido ou o processamento que falhou) com backoff,
+     * porque aqui não dá para devolver o record ao container: nack só vale no thread do poll.
+     */
+    void settle(ConsumerRecord<String, ByteBuffer> record, PendingDeadLetters pending) {
+        PendingDeadLetters current = pending;
+        long backoff = deadLetterBackoffMs;
+
+        while (true) {
+            try {
+                current.await();
+                return;
+            } catch (DeadLetterPublishException ex) {
+                log.warn("Dead letter write failed, retrying in {}ms. topic={} partition={} offset={} error={}",
+                        backoff, record.topic(), record.partition(), record.offset(), ex.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw ex;
+                }
+                backoff = Math.min(backoff * 2, MAX_DEAD_LETTER_BACKOFF_MS);
+
+                current = new PendingDeadLetters();
+                final DecodedNotification again = recordHandler.decode(record, current);
+                if (again != null) {
+                    // CircuitOpenException sobe para o handle, que estaciona o record
+                    recordHandler.process(record, again, current);
+                }
+            }
+        }
+    }
+
+    /**
+     * Callback de conclusão da tarefa do worker.
+     */
+    void acknowledge(ConsumerRecord<String, ByteBuffer> record, DecodedNotification decoded, Acknowledgment ack, Throwable ex) {
+        final Throwable cause = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+        if (cause == null) {
+            ack.acknowledge();
+        } else if (cause instanceof DeadLetterPublishException) {
+            // desligando no meio da espera: sem ack, o record volta depois do rebalance
+            log.warn("Leaving record unacknowledged. topic={} partition={} offset={}",
+                    record.topic(), record.partition(), record.offset());
+        } else {
+            // process() já manda falhas para a DLQ; chegar aqui é erro inesperado e travaria a partição
+            log.error("Unexpected failure processing message: id={} error={}",
+                    decoded == null ? null : decoded.id(), cause.toString());
+            ack.acknowledge();
+        }
+    }
+}
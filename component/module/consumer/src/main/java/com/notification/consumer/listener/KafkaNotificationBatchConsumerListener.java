@@ -0,0 +1,155 @@
+package com.notification.consumer.listener;
+
+import com.notification.consumer.breaker.CircuitOpenException;
+import com.notification.consumer.breaker.ListenerPauseController;
+import com.notification.consumer.config.ConsumerBatchConfig;
+import com.notification.consumer.model.DecodedNotification;
+import com.notification.consumer.model.NotificationMessage;
+import com.notification.consumer.model.ProcessingFailure;
+import com.notification.consumer.service.NotificationConsumerService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Recebe o poll inteiro (até max-poll-records) e entrega as mensagens decodificadas ao service de uma vez.
+ * Só as que falharam passam pelo retry/DLQ; as entregues no lote não são reprocessadas.
+ * O poll só é comitado depois que todas as escritas na DLQ/retry dele forem confirmadas.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.consumer.batch", name = "enabled", havingValue = "true")
+public class KafkaNotificationBatchConsumerListener {
+
+    private final NotificationConsumerService processorService;
+    private final NotificationRecordHandler recordHandler;
+
+    public KafkaNotificationBatchConsumerListener(
+            NotificationConsumerService notificationConsumerService,
+            NotificationRecordHandler recordHandler
+    ) {
+        this.processorService = notificationConsumerService;
+        this.recordHandler = recordHandler;
+    }
+
+    @KafkaListener(
+            id = ListenerPauseController.DELIVERY_LISTENER_PREFIX + "-batch",
+            // sem o modo de prioridades, os tópicos de todas as prioridades são drenados juntos
+            topics = {"${app.kafka.topic.email-high}", "${app.kafka.topic.email}", "${app.kafka.topic.email-low}"},
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = ConsumerBatchConfig.BATCH_CONTAINER_FACTORY
+    )
+    public void consume(List<ConsumerRecord<String, ByteBuffer>> records) {
+        // escritas na DLQ/retry de cada record, na posição dele no poll
+        final List<PendingDeadLetters> pendings = new ArrayList<>(records.size());
+        final List<NotificationMessage> messages = new ArrayList<>(records.size());
+        final List<DecodedNotification> decodeds = new ArrayList<>(records.size());
+        // posição no poll de cada mensagem decodificada (o retry por tópico republica o payload original)
+        final List<Integer> positions = new ArrayList<>(records.size());
+
+        for (int i = 0; i < records.size(); i++) {
+            final PendingDeadLetters pending = new PendingDeadLetters();
+            pendings.add(pending);
+            final DecodedNotification decoded = recordHandler.decode(records.get(i), pending);
+            if (decoded == null || recordHandler.isDuplicate(decoded)
+                    || recordHandler.isThrottled(records.get(i), decoded, pending)) {
+                continue;
+            }
+            final NotificationMessage message = recordHandler.materialize(records.get(i), decoded, pending);
+            if (message != null) {
+                messages.add(message);
+                decodeds.add(decoded);
+                positions.add(i);
+            }
+        }
+
+        int failed = 0;
+        if (!messages.isEmpty()) {
+            try {
+                recordHandler.acquireDelivery();
+            } catch (CircuitOpenException ex) {
+                returnToTopic(positions.get(0), pendings, ex);
+            }
+
+            List<ProcessingFailure> failures;
+            try {
+                failures = processorService.processBatch(messages);
+            } catch (Exception ex) {
+                // o service não conseguiu dizer quais falharam: o lote inteiro vai para o retry individual
+                log.warn("Batch processing failed as a whole. size={} error={}", messages.size(), ex.getMessage());
+                failures = new ArrayList<>(messages.size());
+                for (int i = 0; i < messages.size(); i++) {
+                    failures.add(new ProcessingFailure(i, messages.get(i), ex));
+                }
+            }
+
+            final boolean[] failedInBatch = new boolean[messages.size()];
+            for (ProcessingFailure failure : failures) {
+                failedInBatch[failure.index()] = true;
+            }
+            for (int i = 0; i < messages.size(); i++) {
+                if (!failedInBatch[i]) {
+                    recordHandler.delivered(records.get(positions.get(i)), decodeds.get(i));
+                }
+            }
+            // uma permissão, um resultado
+            recordHandler.deliveryOutcome(messages.size(), failures.stream().map(ProcessingFailure::cause).toList());
+
+            for (ProcessingFailure failure : failures) {
+                final int position = positions.get(failure.index());
+                try {
+                    recordHandler.recover(records.get(position), decodeds.get(failure.index()), failure.cause(),
+                            pendings.get(position));
+                } catch (CircuitOpenException ex) {
+                    returnToTopic(position, pendings, ex);
+                }
+            }
+            failed = failures.size();
+        }
+
+        awaitDeadLetters(pendings);
+
+        log.info("Processed batch: records={} decoded={} failed={}", records.size(), messages.size(), failed);
+    }
+
+    /**
+     * Circuito aberto: confirma as escritas na DLQ/retry dos records antes de {@code position} e faz o error
+     * handler comitar até eles e entregar o resto de novo, com o container já pausado. Mensagens entregues
+     * depois dessa posição voltam também; o dedup as descarta.
+     */
+    private void returnToTopic(int position, List<PendingDeadLetters> pendings, CircuitOpenException ex) {
+        awaitDeadLetters(pendings.subList(0, position));
+        throw new BatchListenerFailedException("Delivery circuit breaker open", ex, position);
+    }
+
+    /**
+     * Espera as escritas na DLQ/retry do poll inteiro de uma vez: o producer agrupa os envios, então uma
+     * rajada de falhas custa poucos round-trips em vez de um por mensagem. Se alguma não foi confirmada,
+     * o error handler comita até o record anterior a ela e entrega o resto de novo.
+     */
+    private void awaitDeadLetters(List<PendingDeadLetters> pendings) {
+        final CompletableFuture<?>[] all = pendings.stream()
+                .filter(pending -> !pending.isEmpty())
+                .map(PendingDeadLetters::settled)
+                .toArray(CompletableFuture[]::new);
+        if (all.length == 0) {
+            return;
+        }
+        CompletableFuture.allOf(all).exceptionally(ex -> null).join();
+
+        for (int i = 0; i < pendings.size(); i++) {
+            final Throwable failure = pendings.get(i).failure();
+            if (failure != null) {
+                throw new BatchListenerFailedException("Dead letter write not acknowledged", failure, i);
+            }
+        }
+    }
+}
@@ -1,80 +1,45 @@
 package com.notification.consumer.listener;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.notification.consumer.dlq.DeadLetterQueueDlq;
-import com.notification.consumer.model.NotificationMessage;
-import com.notification.consumer.retry.RetryExecutor;
-import com.notification.consumer.retry.RetryPolicy;
-import com.notification.consumer.service.NotificationConsumerService;
+import com.notification.consumer.breaker.ListenerPauseController;
+import com.notification.consumer.model.DecodedNotification;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
+
 @Slf4j
 @Component
+@ConditionalOnProperty(prefix = "app.consumer", name = {"batch.enabled", "parallel.enabled", "lanes.enabled"}, havingValue = "false", matchIfMissing = true)
 public class KafkaNotificationConsumerListener {
 
-    private final NotificationConsumerService processorService;
-    private final RetryExecutor retryExecutor;
-    private final DeadLetterQueueDlq deadLetterQueueDlq;
-    private final RetryPolicy retryPolicy;
-    private final ObjectMapper objectMapper;
+    private final NotificationRecordHandler recordHandler;
 
-    public KafkaNotificationConsumerListener(
-            NotificationConsumerService notificationConsumerService,
-            RetryExecutor retryExecutor,
-            DeadLetterQueueDlq deadLetterQueueDlq,
-            RetryPolicy retryPolicy
-    ) {
-        this.processorService = notificationConsumerService;
-        this.retryExecutor = retryExecutor;
-        this.deadLetterQueueDlq = deadLetterQueueDlq;
-        this.retryPolicy = retryPolicy;
-        this.objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    public KafkaNotificationConsumerListener(NotificationRecordHandler recordHandler) {
+        this.recordHandler = recordHandler;
     }
 
+    /**
+     * Com o circuito aberto, o process lança {@code CircuitOpenException}: o error handler faz o seek de volta para
+     * este record e o container, já pausado pelo {@code ListenerPauseController}, só o busca de novo no probe.
+     */
     @KafkaListener(
-            topics = "${app.kafka.topic.email}",
+            id = ListenerPauseController.DELIVERY_LISTENER_PREFIX,
+            // sem o modo de prioridades, os tópicos de todas as prioridades são drenados juntos
+            topics = {"${app.kafka.topic.email-high}", "${app.kafka.topic.email}", "${app.kafka.topic.email-low}"},
             groupId = "${spring.kafka.consumer.group-id}"
     )
-    public void consume(String payload) {
-        final NotificationMessage message;
-
-        try {
-            message = objectMapper.readValue(payload, NotificationMessage.class);
-            log.info("Received message: id={} type={} to={}", safeId(message), message.type(), message.to());
-        } catch (Exception ex) {
-            final String reason = "Invalid JSON payload: " + ex.getMessage();
-            log.error(reason);
-
-            deadLetterQueueDlq.send(
-                    new NotificationMessage(null, "UNKNOWN", null, null, payload, null),
-                    reason
-            );
-            return;
-        }
-
-        try {
-            retryExecutor.execute(
-                    "process-notification id=" + safeId(message),
-                    retryPolicy,
-                    () -> processorService.process(message)
-            );
-
-            log.info("Successfully processed message: id={}", safeId(message));
-
-        } catch (Exception ex) {
-            final String reason = "Permanent failure after " + retryPolicy.maxAttempts()
-                    + " attempts: " + (ex.getMessage() == null ? ex.getClass().getSimpleName() : ex.getMessage());
-
-            log.error(reason);
-
-            deadLetterQueueDlq.send(message, reason);
+    public void consume(ConsumerRecord<String, ByteBuffer> record) {
+        final PendingDeadLetters pending = new PendingDeadLetters();
+        final DecodedNotification decoded = recordHandler.decode(record, pending);
+        if (decoded != null) {
+            recordHandler.process(record, decoded, pending);
         }
-    }
 
-    private String safeId(NotificationMessage message) {
-        return (message == null || message.id() == null) ? "null" : message.id();
+        // o offset só é comitado depois do ack da DLQ/retry; se falhar, a exceção faz o error handler
+        // do container entregar o record de novo
+        pending.await();
     }
 }
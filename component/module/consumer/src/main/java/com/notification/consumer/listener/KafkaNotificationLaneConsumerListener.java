@@ -0,0 +1,121 @@
+package com.notification.consumer.listener;
+
+import com.notification.consumer.breaker.ListenerPauseController;
+import com.notification.consumer.config.ConsumerLaneConfig;
+import com.notification.consumer.model.DecodedNotification;
+import com.notification.consumer.model.NotificationPriority;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Um container por tópico de prioridade: um backlog de LOW enche só o container dele e nunca atrasa o poll
+ * do HIGH. Os records decodificados entram na fila da prioridade no {@link LaneScheduler}, que reparte os
+ * workers pelos pesos.
+ *
+ * Ao contrário do modo paralelo, não há ordem por destinatário: duas mensagens da mesma pessoa em
+ * prioridades diferentes são independentes por definição, e dentro da fila a ordem é a de chegada.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.consumer.lanes", name = "enabled", havingValue = "true")
+public class KafkaNotificationLaneConsumerListener {
+
+    private final NotificationRecordHandler recordHandler;
+    private final LaneScheduler scheduler;
+    private final DeadLetterSettler settler;
+    private final Clock clock;
+    private final Map<NotificationPriority, Timer> latency = new EnumMap<>(NotificationPriority.class);
+
+    public KafkaNotificationLaneConsumerListener(
+            NotificationRecordHandler recordHandler,
+            LaneScheduler scheduler,
+            MeterRegistry meterRegistry
+    ) {
+        this(recordHandler, scheduler, meterRegistry, 1_000, Clock.systemUTC());
+    }
+
+    KafkaNotificationLaneConsumerListener(
+            NotificationRecordHandler recordHandler,
+            LaneScheduler scheduler,
+            MeterRegistry meterRegistry,
+            long deadLetterBackoffMs,
+            Clock clock
+    ) {
+        this.recordHandler = recordHandler;
+        this.scheduler = scheduler;
+        this.settler = new DeadLetterSettler(recordHandler, deadLetterBackoffMs);
+        this.clock = clock;
+        for (NotificationPriority priority : NotificationPriority.values()) {
+            latency.put(priority, Timer.builder("notification.consumer.lane.latency")
+                    .description("Time from publish to the end of processing, per priority lane")
+                    .tag("lane", priority.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    @KafkaListener(
+            id = ListenerPauseController.DELIVERY_LISTENER_PREFIX + "-high",
+            topics = "${app.kafka.topic.email-high}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = ConsumerLaneConfig.LANES_CONTAINER_FACTORY
+    )
+    public void consumeHigh(ConsumerRecord<String, ByteBuffer> record, Acknowledgment ack) {
+        dispatch(NotificationPriority.HIGH, record, ack);
+    }
+
+    @KafkaListener(
+            id = ListenerPauseController.DELIVERY_LISTENER_PREFIX + "-normal",
+            topics = "${app.kafka.topic.email}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = ConsumerLaneConfig.LANES_CONTAINER_FACTORY
+    )
+    public void consumeNormal(ConsumerRecord<String, ByteBuffer> record, Acknowledgment ack) {
+        dispatch(NotificationPriority.NORMAL, record, ack);
+    }
+
+    @KafkaListener(
+            id = ListenerPauseController.DELIVERY_LISTENER_PREFIX + "-low",
+            topics = "${app.kafka.topic.email-low}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = ConsumerLaneConfig.LANES_CONTAINER_FACTORY
+    )
+    public void consumeLow(ConsumerRecord<String, ByteBuffer> record, Acknowledgment ack) {
+        dispatch(NotificationPriority.LOW, record, ack);
+    }
+
+    /**
+     * A fila vem do tópico, não do payload: o publisher já roteou pela prioridade da mensagem.
+     * Com o circuito aberto o record não entra na fila: a exceção devolve o record ao tópico pelo error handler.
+     */
+    void dispatch(NotificationPriority lane, ConsumerRecord<String, ByteBuffer> record, Acknowledgment ack) {
+        recordHandler.ensureDeliveryAllowed();
+
+        final PendingDeadLetters pending = new PendingDeadLetters();
+        final DecodedNotification decoded = recordHandler.decode(record, pending);
+        // um record estacionado pelo circuito aberto volta para o fim da mesma fila
+        final Executor laneExecutor = task -> scheduler.submit(lane, task);
+
+        CompletableFuture.supplyAsync(() -> settler.handle(record, decoded, pending, laneExecutor), laneExecutor)
+                .thenCompose(done -> done)
+                .thenRun(() -> {
+                    // timestamp do producer (CreateTime): inclui a espera no tópico e na fila
+                    if (record.timestamp() >= 0) {
+                        latency.get(lane).record(Math.max(0, clock.millis() - record.timestamp()), TimeUnit.MILLISECONDS);
+                    }
+                })
+                .whenComplete((ignored, ex) -> settler.acknowledge(record, decoded, ack, ex));
+    }
+}
@@ -0,0 +1,69 @@
+package com.notification.consumer.listener;
+
+import com.notification.consumer.breaker.ListenerPauseController;
+import com.notification.consumer.config.ConsumerParallelConfig;
+import com.notification.consumer.model.DecodedNotification;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decodifica no thread do poll e despacha o processamento para o {@link KeyOrderedExecutor}, com a chave do
+ * record (o destinatário, ver particionamento do publisher). Mensagens do mesmo destinatário seguem em ordem;
+ * destinatários diferentes da mesma partição são entregues em paralelo.
+ *
+ * O ack de cada record só acontece quando o processamento dele termina (sucesso, ou DLQ/retry confirmados).
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.consumer.parallel", name = "enabled", havingValue = "true")
+public class KafkaNotificationParallelConsumerListener {
+
+    private final NotificationRecordHandler recordHandler;
+    private final KeyOrderedExecutor executor;
+    private final DeadLetterSettler settler;
+
+    public KafkaNotificationParallelConsumerListener(
+            NotificationRecordHandler recordHandler,
+            KeyOrderedExecutor executor
+    ) {
+        this(recordHandler, executor, 1_000);
+    }
+
+    KafkaNotificationParallelConsumerListener(
+            NotificationRecordHandler recordHandler,
+            KeyOrderedExecutor executor,
+            long deadLetterBackoffMs
+    ) {
+        this.recordHandler = recordHandler;
+        this.executor = executor;
+        this.settler = new DeadLetterSettler(recordHandler, deadLetterBackoffMs);
+    }
+
+    /**
+     * Com o circuito aberto o record não é despachado: a exceção faz o error handler do container fazer o seek
+     * de volta para ele, e o container, já pausado pelo {@code ListenerPauseController}, só o busca de novo no probe.
+     */
+    @KafkaListener(
+            id = ListenerPauseController.DELIVERY_LISTENER_PREFIX + "-parallel",
+            // sem o modo de prioridades, os tópicos de todas as prioridades são drenados juntos
+            topics = {"${app.kafka.topic.email-high}", "${app.kafka.topic.email}", "${app.kafka.topic.email-low}"},
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = ConsumerParallelConfig.PARALLEL_CONTAINER_FACTORY
+    )
+    public void consume(ConsumerRecord<String, ByteBuffer> record, Acknowledgment ack) {
+        recordHandler.ensureDeliveryAllowed();
+
+        final PendingDeadLetters pending = new PendingDeadLetters();
+        final DecodedNotification decoded = recordHandler.decode(record, pending);
+
+        // records antigos vêm sem chave; o destinatário dá a mesma ordem
+        final String key = record.key() != null ? record.key() : (decoded == null ? null : decoded.to());
+
+        executor.submitAsync(key, () -> settler.handle(record, decoded, pending, executor.workers()))
+                .whenComplete((ignored, ex) -> settler.acknowledge(record, decoded, ack, ex));
+    }
+}
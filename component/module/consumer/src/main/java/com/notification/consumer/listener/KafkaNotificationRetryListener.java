@@ -0,0 +1,120 @@
+package com.notification.consumer.listener;
+
+import com.notification.consumer.breaker.CircuitOpenException;
+import com.notification.consumer.config.ConsumerRetryConfig;
+import com.notification.consumer.dlq.DeadLetterPublishException;
+import com.notification.consumer.model.DecodedNotification;
+import com.notification.consumer.retry.DelayedRetryPublisher;
+import com.notification.consumer.retry.RetryHeaders;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.listener.AcknowledgingMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consome os tópicos de atraso, um container por tier de cada prioridade: dentro de um tier o atraso é fixo, então os records de
+ * uma partição vencem na ordem do offset e basta olhar o primeiro (um adiamento do limite por domínio entra
+ * num tier com atraso maior ou igual ao dele, ver {@link DelayedRetryPublisher#defer}). Se ele ainda não venceu, o nack pausa o
+ * container (que segue fazendo poll, sem rebalance) até o vencimento e entrega o record de novo.
+ * Um container por tier evita que o tier de 5m segure o de 5s, e os tiers LOW não seguram os HIGH.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.consumer.retry", name = "mode", havingValue = "topics")
+public class KafkaNotificationRetryListener implements SmartLifecycle {
+
+    // nacks longos são quebrados em pedaços; o record volta, ainda não venceu, e pausa de novo
+    private static final Duration MAX_PAUSE = Duration.ofSeconds(30);
+    private static final Duration DEAD_LETTER_REDELIVERY = Duration.ofSeconds(1);
+
+    private final NotificationRecordHandler recordHandler;
+    private final Clock clock;
+    private final List<ConcurrentMessageListenerContainer<Object, Object>> containers = new ArrayList<>();
+    private volatile boolean running;
+
+    @Autowired
+    public KafkaNotificationRetryListener(
+            @Qualifier(ConsumerRetryConfig.RETRY_CONTAINER_FACTORY) ConcurrentKafkaListenerContainerFactory<Object, Object> factory,
+            NotificationRecordHandler recordHandler,
+            DelayedRetryPublisher delayedRetry,
+            @Value("${spring.kafka.consumer.group-id}") String groupId
+    ) {
+        this(recordHandler, Clock.systemUTC());
+
+        for (String topic : delayedRetry.tierTopics()) {
+            final ConcurrentMessageListenerContainer<Object, Object> container = factory.createContainer(topic);
+            container.getContainerProperties().setGroupId(groupId);
+            container.setBeanName("notification-" + topic);
+            container.setupMessageListener((AcknowledgingMessageListener<String, ByteBuffer>) this::onMessage);
+            containers.add(container);
+        }
+    }
+
+    KafkaNotificationRetryListener(NotificationRecordHandler recordHandler, Clock clock) {
+        this.recordHandler = recordHandler;
+        this.clock = clock;
+    }
+
+    void onMessage(ConsumerRecord<String, ByteBuffer> record, Acknowledgment ack) {
+        final long wait = RetryHeaders.dueAt(record.headers()) - clock.millis();
+        if (wait > 0) {
+            ack.nack(Duration.ofMillis(Math.min(wait, MAX_PAUSE.toMillis())));
+            return;
+        }
+
+        final PendingDeadLetters pending = new PendingDeadLetters();
+        final DecodedNotification decoded = recordHandler.decode(record, pending);
+        if (decoded != null) {
+            try {
+                recordHandler.process(record, decoded, pending);
+            } catch (CircuitOpenException ex) {
+                // relay fora: o tier pausa até o próximo probe, como se o record ainda não tivesse vencido
+                ack.nack(Duration.ofMillis(Math.min(ex.retryAfter().toMillis(), MAX_PAUSE.toMillis())));
+                return;
+            }
+        }
+
+        try {
+            pending.await();
+        } catch (DeadLetterPublishException ex) {
+            // sem o ack da DLQ/próximo tier o record não pode ser comitado: volta em instantes
+            log.warn("Dead letter write failed, redelivering retry record. topic={} offset={} error={}",
+                    record.topic(), record.offset(), ex.getMessage());
+            ack.nack(DEAD_LETTER_REDELIVERY);
+            return;
+        }
+        ack.acknowledge();
+    }
+
+    @Override
+    public void start() {
+        containers.forEach(ConcurrentMessageListenerContainer::start);
+        running = true;
+        log.info("Retry tier consumers started. tiers={}", containers.size());
+    }
+
+    @Override
+    public void stop() {
+        containers.forEach(ConcurrentMessageListenerContainer::stop);
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,114 @@
+package com.notification.consumer.listener;
+
+import com.notification.consumer.config.ConsumerScheduleConfig;
+import com.notification.consumer.schedule.NotificationScheduler;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lê o tópico de agendamento para o {@link NotificationScheduler}. Cada partição recebida é relida do começo
+ * (o tópico é compactado, então o log é o estado) e fica em carga até o listener alcançar o fim que ela tinha
+ * no assignment. Num tópico compactado o último offset pode ter sumido; o evento de container ocioso cobre
+ * esse caso comparando a posição do consumer com o fim.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.consumer.schedule", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class KafkaNotificationScheduleListener implements ConsumerAwareRebalanceListener {
+
+    public static final String LISTENER_ID = "notification-schedule";
+
+    private final NotificationScheduler scheduler;
+    // fim de cada partição ainda em carga
+    private final Map<TopicPartition, Long> loadingEnds = new ConcurrentHashMap<>();
+
+    public KafkaNotificationScheduleListener(NotificationScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @KafkaListener(
+            id = LISTENER_ID,
+            topics = "${app.kafka.topic.email-scheduled}",
+            // grupo próprio: as partições de agendamento são repartidas entre as instâncias independente dos tópicos de entrega
+            groupId = "${spring.kafka.consumer.group-id}-scheduler",
+            containerFactory = ConsumerScheduleConfig.SCHEDULE_CONTAINER_FACTORY
+    )
+    public void consume(ConsumerRecord<String, ByteBuffer> record) {
+        scheduler.accept(record);
+
+        final TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        final Long end = loadingEnds.get(partition);
+        if (end != null && record.offset() >= end - 1) {
+            markLoaded(partition);
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        consumer.seekToBeginning(partitions);
+        final Map<TopicPartition, Long> ends = consumer.endOffsets(partitions);
+        final Map<TopicPartition, Long> begins = consumer.beginningOffsets(partitions);
+
+        for (TopicPartition partition : partitions) {
+            scheduler.assigned(partition);
+            final long end = ends.getOrDefault(partition, 0L);
+            if (end <= begins.getOrDefault(partition, 0L)) {
+                scheduler.loaded(partition);
+            } else {
+                loadingEnds.put(partition, end);
+            }
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        revoke(partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        revoke(partitions);
+    }
+
+    @EventListener
+    public void onIdle(ListenerContainerIdleEvent event) {
+        // o container concorrente publica o evento com o id dos filhos ("notification-schedule-0", ...)
+        if (loadingEnds.isEmpty() || event.getListenerId() == null || !event.getListenerId().startsWith(LISTENER_ID)) {
+            return;
+        }
+        final Consumer<?, ?> consumer = event.getConsumer();
+        for (TopicPartition partition : event.getTopicPartitions()) {
+            final Long end = loadingEnds.get(partition);
+            if (end != null && consumer.position(partition) >= end) {
+                markLoaded(partition);
+            }
+        }
+    }
+
+    private void markLoaded(TopicPartition partition) {
+        if (loadingEnds.remove(partition) != null) {
+            scheduler.loaded(partition);
+        }
+    }
+
+    private void revoke(Collection<TopicPartition> partitions) {
+        partitions.forEach(loadingEnds::remove);
+        scheduler.revoked(partitions);
+    }
+}
@@ -0,0 +1,109 @@
+package com.notification.consumer.listener;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Executa tarefas num pool compartilhado garantindo ordem por chave: tarefas da mesma chave rodam em série,
+ * na ordem de submissão; chaves diferentes rodam em paralelo.
+ *
+ * Cada chave com trabalho pendente guarda só o futuro da última tarefa (a "cauda"); a próxima é encadeada nele.
+ * Quando a cauda termina sem nada novo atrás, a chave sai do mapa, então a memória acompanha o que está em voo.
+ */
+@Slf4j
+public class KeyOrderedExecutor implements AutoCloseable {
+
+    private final ExecutorService workers;
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    public KeyOrderedExecutor(int threads) {
+        this(Executors.newFixedThreadPool(threads, new WorkerThreadFactory()));
+    }
+
+    KeyOrderedExecutor(ExecutorService workers) {
+        this.workers = workers;
+    }
+
+    /**
+     * Agenda a tarefa depois das já submetidas com a mesma chave. Chave null não tem ordem a preservar.
+     */
+    public CompletableFuture<Void> submit(String key, Runnable task) {
+        if (key == null) {
+            return CompletableFuture.runAsync(task, workers);
+        }
+
+        final CompletableFuture<Void> next = tails.compute(key, (k, tail) -> tail == null
+                ? CompletableFuture.runAsync(task, workers)
+                // falha da anterior não interrompe a fila da chave
+                : tail.exceptionally(ex -> null).thenRunAsync(task, workers));
+
+        next.whenComplete((ignored, ex) -> tails.remove(key, next));
+        return next;
+    }
+
+    /**
+     * Como {@link #submit}, mas a tarefa devolve um futuro e a próxima da chave só começa quando ele completa.
+     * Serve para a tarefa que precisa esperar (circuito aberto) sem ocupar um worker nem perder a vez na chave.
+     */
+    public CompletableFuture<Void> submitAsync(String key, Supplier<CompletableFuture<Void>> task) {
+        if (key == null) {
+            return CompletableFuture.supplyAsync(task, workers).thenCompose(done -> done);
+        }
+
+        final CompletableFuture<Void> next = tails.compute(key, (k, tail) -> tail == null
+                ? CompletableFuture.supplyAsync(task, workers).thenCompose(done -> done)
+                : tail.exceptionally(ex -> null).thenComposeAsync(ignored -> task.get(), workers));
+
+        next.whenComplete((ignored, ex) -> tails.remove(key, next));
+        return next;
+    }
+
+    /**
+     * O pool dos workers, para continuar uma tarefa de {@link #submitAsync} que já tem a vez na chave.
+     */
+    Executor workers() {
+        return workers;
+    }
+
+    /**
+     * Chaves com pelo menos uma tarefa ainda não concluída.
+     */
+    public int activeKeys() {
+        return tails.size();
+    }
+
+    @Override
+    public void close() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Workers did not finish in time; pending notifications will be redelivered. activeKeys={}", tails.size());
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "notification-worker-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
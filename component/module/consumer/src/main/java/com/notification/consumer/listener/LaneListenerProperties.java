@@ -0,0 +1,37 @@
+package com.notification.consumer.listener;
+
+import com.notification.consumer.model.NotificationPriority;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "app.consumer.lanes")
+public class LaneListenerProperties {
+
+    private boolean enabled = false;
+
+    // threads de processamento compartilhadas pelas três filas
+    @Min(1)
+    private int workers = 32;
+
+    // por container (um por prioridade): limita o que cada fila tem em voo
+    @Min(1)
+    private int maxPollRecords = 500;
+
+    // fatia de workers de cada fila quando todas têm trabalho; fila vazia cede a vez às outras
+    @NotEmpty
+    private Map<NotificationPriority, Integer> weights = new EnumMap<>(Map.of(
+            NotificationPriority.HIGH, 8,
+            NotificationPriority.NORMAL, 3,
+            NotificationPriority.LOW, 1
+    ));
+}
@@ -0,0 +1,226 @@
+package com.notification.consumer.listener;
+
+import com.notification.consumer.model.NotificationPriority;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Uma fila por prioridade e um pool de workers que escolhe de qual fila tirar a próxima tarefa por
+ * weighted round-robin suave (o do nginx): a cada escolha, toda fila com trabalho ganha o seu peso de
+ * crédito, a de maior crédito é atendida e paga o total dos pesos em disputa.
+ *
+ * Com pesos 8/3/1 e as três cheias, a cada 12 tarefas saem 8 HIGH, 3 NORMAL e 1 LOW, intercaladas. HIGH
+ * passa na frente sempre que tem trabalho, mas LOW nunca espera mais que uma rodada. Fila vazia sai da
+ * disputa e zera o crédito: não acumula vez enquanto está ociosa, e as outras dividem os workers.
+ *
+ * O tamanho das filas não é limitado aqui: cada container com async acks só faz o próximo poll depois de
+ * confirmar o anterior, então cada fila tem no máximo um poll em voo.
+ */
+@Slf4j
+public class LaneScheduler implements AutoCloseable {
+
+    private final Map<NotificationPriority, Lane> lanes = new EnumMap<>(NotificationPriority.class);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final List<Thread> workers = new ArrayList<>();
+    private boolean closed;
+
+    public LaneScheduler(Map<NotificationPriority, Integer> weights, int workers, MeterRegistry meterRegistry) {
+        this(weights, meterRegistry);
+        for (int i = 1; i <= workers; i++) {
+            final Thread worker = new Thread(this::work, "notification-lane-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            this.workers.add(worker);
+        }
+    }
+
+    /**
+     * Sem workers: as tarefas só saem por {@link #poll()}.
+     */
+    LaneScheduler(Map<NotificationPriority, Integer> weights, MeterRegistry meterRegistry) {
+        for (NotificationPriority priority : NotificationPriority.values()) {
+            final int weight = weights.getOrDefault(priority, 0);
+            if (weight < 1) {
+                throw new IllegalArgumentException("Lane weight must be at least 1: " + priority + "=" + weight);
+            }
+            lanes.put(priority, new Lane(priority, weight, meterRegistry));
+            Gauge.builder("notification.consumer.lane.depth", this, scheduler -> scheduler.depth(priority))
+                    .description("Records waiting in the priority lane")
+                    .tag("lane", tagOf(priority))
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * @throws RejectedExecutionException depois do {@link #close()}; o record volta pelo error handler do container
+     */
+    public CompletableFuture<Void> submit(NotificationPriority priority, Runnable task) {
+        final Task queued = new Task(lanes.get(priority), task, System.nanoTime());
+        lock.lock();
+        try {
+            if (closed) {
+                throw new RejectedExecutionException("Lane scheduler is closed");
+            }
+            queued.lane.queue.add(queued);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        return queued.future;
+    }
+
+    public int depth(NotificationPriority priority) {
+        lock.lock();
+        try {
+            return lanes.get(priority).queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Próxima tarefa pela ordem dos pesos, ou null se todas as filas estão vazias. Não executa a tarefa.
+     */
+    Task poll() {
+        lock.lock();
+        try {
+            return next();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void work() {
+        while (true) {
+            final Task task;
+            lock.lock();
+            try {
+                Task next;
+                while ((next = next()) == null) {
+                    if (closed) {
+                        return;
+                    }
+                    notEmpty.awaitUninterruptibly();
+                }
+                task = next;
+            } finally {
+                lock.unlock();
+            }
+            task.run();
+        }
+    }
+
+    // chamado com o lock
+    private Task next() {
+        Lane chosen = null;
+        int contending = 0;
+        for (Lane lane : lanes.values()) {
+            if (lane.queue.isEmpty()) {
+                lane.credit = 0;
+                continue;
+            }
+            lane.credit += lane.weight;
+            contending += lane.weight;
+            // empate fica com a de maior prioridade (ordem do enum)
+            if (chosen == null || lane.credit > chosen.credit) {
+                chosen = lane;
+            }
+        }
+        if (chosen == null) {
+            return null;
+        }
+        chosen.credit -= contending;
+        return chosen.queue.poll();
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            // os workers ainda esvaziam as filas antes de sair
+            closed = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        try {
+            for (Thread worker : workers) {
+                worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (workers.stream().anyMatch(Thread::isAlive)) {
+            log.warn("Lane workers did not finish in time; pending notifications will be redelivered. high={} normal={} low={}",
+                    depth(NotificationPriority.HIGH), depth(NotificationPriority.NORMAL), depth(NotificationPriority.LOW));
+            workers.forEach(Thread::interrupt);
+        }
+    }
+
+    private static String tagOf(NotificationPriority priority) {
+        return priority.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Lane {
+
+        private final NotificationPriority priority;
+        private final int weight;
+        private final ArrayDeque<Task> queue = new ArrayDeque<>();
+        private final Timer wait;
+        private int credit;
+
+        Lane(NotificationPriority priority, int weight, MeterRegistry meterRegistry) {
+            this.priority = priority;
+            this.weight = weight;
+            this.wait = Timer.builder("notification.consumer.lane.wait")
+                    .description("Time a record waited in its priority lane for a worker")
+                    .tag("lane", tagOf(priority))
+                    .register(meterRegistry);
+        }
+    }
+
+    static final class Task {
+
+        private final Lane lane;
+        private final Runnable runnable;
+        private final long submittedAt;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Task(Lane lane, Runnable runnable, long submittedAt) {
+            this.lane = lane;
+            this.runnable = runnable;
+            this.submittedAt = submittedAt;
+        }
+
+        void run() {
+            lane.wait.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+            try {
+                runnable.run();
+                future.complete(null);
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+        }
+
+        NotificationPriority priority() {
+            return lane.priority;
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.notification.consumer.listener;
+
+import com.notification.consumer.breaker.CircuitOpenException;
+import com.notification.consumer.breaker.DeliveryCircuitBreaker;
+import com.notification.consumer.codec.NotificationCodecRegistry;
+import com.notification.consumer.concurrency.AdaptiveConcurrencyLimiter;
+import com.notification.consumer.dedup.NotificationDeduplicator;
+import com.notification.consumer.dlq.DeadLetterQueueDlq;
+import com.notification.consumer.metrics.DeliveryLatencyMetrics;
+import com.notification.consumer.model.DecodedNotification;
+import com.notification.consumer.model.NotificationMessage;
+import com.notification.consumer.retry.DelayedRetryPublisher;
+import com.notification.consumer.retry.RetryExecutor;
+import com.notification.consumer.retry.RetryHeaders;
+import com.notification.consumer.retry.RetryPolicy;
+import com.notification.consumer.service.NotificationConsumerService;
+import com.notification.consumer.throttle.DomainThrottle;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Etapas por record compartilhadas pelos listeners (um record por vez ou em lote):
+ * decode, descarte de reentregas, limite por domínio, retry e roteamento para a DLQ.
+ *
+ * No modo de retry "topics" não há retry local: a falha é republicada no tópico de atraso da próxima
+ * tentativa (ver {@link DelayedRetryPublisher}) e o listener segue para o próximo record.
+ *
+ * Com o {@link DeliveryCircuitBreaker}, cada chamada ao service pede permissão. Recusada, ou falhando com o
+ * circuito já aberto, a entrega lança {@link CircuitOpenException}: nada vai para a DLQ nem para o retry, e o
+ * listener devolve o record ao tópico.
+ *
+ * Com o {@link AdaptiveConcurrencyLimiter}, a chamada ao service ainda espera uma das permissões de entrega
+ * simultânea, e a latência e o resultado dela ajustam o limite.
+ *
+ * Com o {@link DeliveryLatencyMetrics}, o resultado de cada mensagem (entregue, retry ou DLQ) registra as
+ * latências dela; o decode marca o instante do poll.
+ */
+@Slf4j
+@Component
+public class NotificationRecordHandler {
+
+    private final NotificationConsumerService processorService;
+    private final RetryExecutor retryExecutor;
+    private final DeadLetterQueueDlq deadLetterQueueDlq;
+    private final RetryPolicy retryPolicy;
+    private final NotificationCodecRegistry codecRegistry;
+    // null no modo blocking
+    private final DelayedRetryPublisher delayedRetry;
+    // null com app.consumer.dedup.enabled=false
+    private final NotificationDeduplicator deduplicator;
+    // null no modo blocking ou com app.consumer.throttle.enabled=false
+    private final DomainThrottle throttle;
+    // null com app.consumer.breaker.enabled=false
+    private final DeliveryCircuitBreaker breaker;
+    // null com app.consumer.concurrency.enabled=false
+    private final AdaptiveConcurrencyLimiter limiter;
+    // null com app.consumer.latency.enabled=false
+    private final DeliveryLatencyMetrics latency;
+
+    @Autowired
+    public NotificationRecordHandler(
+            NotificationConsumerService notificationConsumerService,
+            RetryExecutor retryExecutor,
+            DeadLetterQueueDlq deadLetterQueueDlq,
+            RetryPolicy retryPolicy,
+            NotificationCodecRegistry codecRegistry,
+            @Nullable DelayedRetryPublisher delayedRetry,
+            @Nullable NotificationDeduplicator deduplicator,
+            @Nullable DomainThrottle throttle,
+            @Nullable DeliveryCircuitBreaker breaker,
+            @Nullable AdaptiveConcurrencyLimiter limiter,
+            @Nullable DeliveryLatencyMetrics latency
+    ) {
+        this.processorService = notificationConsumerService;
+        this.retryExecutor = retryExecutor;
+        this.deadLetterQueueDlq = deadLetterQueueDlq;
+        this.retryPolicy = retryPolicy;
+        this.codecRegistry = codecRegistry;
+        this.delayedRetry = delayedRetry;
+        this.deduplicator = deduplicator;
+        this.throttle = throttle;
+        this.breaker = breaker;
+        this.limiter = limiter;
+        this.latency = latency;
+    }
+
+    /**
+     * Decodifica só os campos de roteamento (id, type, to); subject/body ficam no buffer até o processamento.
+     * Payloads inválidos vão direto para a DLQ e o retorno é null.
+     * Escritas na DLQ/retry de todos os métodos entram em {@code pending}; quem chama espera antes do commit.
+     */
+    public DecodedNotification decode(ConsumerRecord<String, ByteBuffer> record, PendingDeadLetters pending) {
+        try {
+            // formato (json/binary) e versão do schema vêm nos headers do record;
+            // o ByteBufferDeserializer entrega o buffer do fetch, decodificado sem cópia
+            final DecodedNotification decoded = codecRegistry.decodeRouting(record.headers(), record.value());
+            if (latency != null) {
+                decoded.receivedAt(latency.now());
+            }
+            log.info("Received message: id={} type={} to={}", decoded.id(), decoded.type(), decoded.to());
+            return decoded;
+        } catch (Exception ex) {
+            invalidPayload(record, ex, pending);
+            return null;
+        }
+    }
+
+    /**
+     * Monta a mensagem completa. Se o resto do payload for inválido, vai para a DLQ como no decode e o retorno é null.
+     */
+    public NotificationMessage materialize(ConsumerRecord<String, ByteBuffer> record, DecodedNotification decoded,
+                                           PendingDeadLetters pending) {
+        try {
+            return decoded.message();
+        } catch (Exception ex) {
+            invalidPayload(record, ex, pending);
+            return null;
+        }
+    }
+
+    /**
+     * Modo blocking: processa com a política de retry completa; esgotadas as tentativas, vai para a DLQ.
+     * Modo topics: uma tentativa; a falha agenda a próxima no tópico de atraso.
+     *
+     * @throws CircuitOpenException se o circuit breaker recusou a entrega; o record deve voltar para o tópico
+     */
+    public void process(ConsumerRecord<String, ByteBuffer> record, DecodedNotification decoded, PendingDeadLetters pending) {
+        if (isDuplicate(decoded) || isThrottled(record, decoded, pending)) {
+            return;
+        }
+        final NotificationMessage message = materialize(record, decoded, pending);
+        if (message == null) {
+            return;
+        }
+        if (delayedRetry == null) {
+            processWithRetry(record, decoded, retryPolicy, pending);
+            return;
+        }
+
+        try {
+            deliver(message);
+            delivered(record, decoded);
+            log.info("Successfully processed message: id={}", safeId(message));
+        } catch (CircuitOpenException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            stopIfOpen(ex);
+            scheduleRetry(record, decoded, ex, pending);
+        }
+    }
+
+    /**
+     * Para mensagens que já falharam uma vez dentro de um lote: gasta só as tentativas restantes.
+     */
+    public void recover(ConsumerRecord<String, ByteBuffer> record, DecodedNotification decoded, Exception firstFailure,
+                        PendingDeadLetters pending) {
+        stopIfOpen(firstFailure);
+        if (delayedRetry != null) {
+            scheduleRetry(record, decoded, firstFailure, pending);
+            return;
+        }
+        if (retryPolicy.maxAttempts() <= 1 || !retryPolicy.isRetryable(firstFailure)) {
+            deadLetter(record, decoded.message(), firstFailure, pending);
+            observe(record, decoded, DeliveryLatencyMetrics.Outcome.DLQ);
+            return;
+        }
+        processWithRetry(record, decoded, retryPolicy.withMaxAttempts(retryPolicy.maxAttempts() - 1), pending);
+    }
+
+    /**
+     * true se o id já foi entregue há pouco (reentrega depois de rebalance/crash); o record é só comitado.
+     * Só olha o id: a duplicata não chega a decodificar o body.
+     */
+    public boolean isDuplicate(DecodedNotification decoded) {
+        if (deduplicator == null || !deduplicator.isDuplicate(decoded.id())) {
+            return false;
+        }
+        log.info("Skipping already delivered message: id={}", decoded.id());
+        return true;
+    }
+
+    /**
+     * true se o domínio do destinatário está no limite: o record vai para o tópico de atraso sem gastar tentativa
+     * e o listener segue para o próximo, sem segurar a partição. Só olha o to, antes de montar o body.
+     * O record que volta de um adiamento já tem token reservado e só espera o instante dele.
+     */
+    public boolean isThrottled(ConsumerRecord<String, ByteBuffer> record, DecodedNotification decoded,
+                               PendingDeadLetters pending) {
+        if (throttle == null || delayedRetry == null) {
+            return false;
+        }
+        final Duration reserved = delayedRetry.reservedDeferral(record);
+        final Duration deferral = reserved != null ? reserved : throttle.tryAcquire(decoded.to());
+        if (deferral.isZero()) {
+            return false;
+        }
+        log.debug("Recipient domain over its rate limit, deferring: id={} to={} delay={}ms",
+                decoded.id(), decoded.to(), deferral.toMillis());
+        pending.add(delayedRetry.defer(record, deferral));
+        return true;
+    }
+
+    /**
+     * Paralelo e lanes, no thread do poll, antes de despachar: com o circuito aberto o record nem entra na fila
+     * dos workers. O listener lança e o error handler do container faz o seek de volta, como no modo single.
+     *
+     * @throws CircuitOpenException se o circuito está aberto
+     */
+    public void ensureDeliveryAllowed() {
+        if (breaker != null) {
+            breaker.ensureNotOpen();
+        }
+    }
+
+    /**
+     * Lote: uma permissão do circuit breaker para o lote inteiro, pedida antes de chamar o service.
+     *
+     * @throws CircuitOpenException se o circuito não deixa entregar agora
+     */
+    public void acquireDelivery() {
+        if (breaker != null) {
+            breaker.acquire();
+        }
+    }
+
+    /**
+     * Lote: um resultado só para a permissão de {@link #acquireDelivery()}, com as falhas das {@code size}
+     * mensagens entregues.
+     */
+    public void deliveryOutcome(int size, List<? extends Exception> failures) {
+        if (breaker != null) {
+            breaker.onBatchOutcome(size, failures);
+        }
+    }
+
+    public void delivered(ConsumerRecord<String, ByteBuffer> record, DecodedNotification decoded) {
+        if (deduplicator != null) {
+            deduplicator.markDelivered(decoded.id());
+        }
+        if (throttle != null) {
+            throttle.delivered(decoded.to());
+        }
+        observe(record, decoded, DeliveryLatencyMetrics.Outcome.SUCCESS);
+    }
+
+    private void processWithRetry(ConsumerRecord<String, ByteBuffer> record, DecodedNotification decoded,
+                                  RetryPolicy policy, PendingDeadLetters pending) {
+        final NotificationMessage message = decoded.message();
+        try {
+            retryExecutor.execute(
+                    "process-notification id=" + safeId(message),
+                    policy,
+                    () -> deliver(message)
+            );
+            delivered(record, decoded);
+
+            log.info("Successfully processed message: id={}", safeId(message));
+
+        } catch (CircuitOpenException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            stopIfOpen(ex);
+            deadLetter(record, message, ex, pending);
+            observe(record, decoded, DeliveryLatencyMetrics.Outcome.DLQ);
+        }
+    }
+
+    private void scheduleRetry(ConsumerRecord<String, ByteBuffer> record, DecodedNotification decoded, Exception ex,
+                               PendingDeadLetters pending) {
+        final int attempt = RetryHeaders.attempt(record.headers());
+        pending.add(delayedRetry.schedule(record, decoded.message(), attempt, ex));
+        observe(record, decoded, delayedRetry.willRetry(attempt, ex)
+                ? DeliveryLatencyMetrics.Outcome.RETRY
+                : DeliveryLatencyMetrics.Outcome.DLQ);
+    }
+
+    private void observe(ConsumerRecord<String, ByteBuffer> record, DecodedNotification decoded,
+                         DeliveryLatencyMetrics.Outcome outcome) {
+        if (latency != null) {
+            latency.record(record, decoded, outcome);
+        }
+    }
+
+    /**
+     * Uma chamada ao service, com permissão e resultado registrados no circuit breaker e no limite de concorrência.
+     * O breaker vem primeiro: com o circuito aberto, a entrega é recusada sem ocupar permissão.
+     */
+    private void deliver(NotificationMessage message) {
+        if (breaker != null) {
+            breaker.acquire();
+        }
+        final long acquiredAt = limiter == null ? 0 : limiter.acquire();
+        try {
+            processorService.process(message);
+        } catch (RuntimeException ex) {
+            if (limiter != null) {
+                limiter.onFailure(acquiredAt, ex);
+            }
+            if (breaker != null) {
+                breaker.onFailure(ex);
+            }
+            throw ex;
+        }
+        if (limiter != null) {
+            limiter.onSuccess(acquiredAt);
+        }
+        if (breaker != null) {
+            breaker.onSuccess();
+        }
+    }
+
+    /**
+     * Falha retentável com o circuito aberto (por ela ou por outras): o relay está fora, então a mensagem volta
+     * para o tópico em vez de gastar tentativa ou ir para a DLQ.
+     */
+    private void stopIfOpen(Exception failure) {
+        if (breaker != null && retryPolicy.isRetryable(failure) && breaker.isOpen()) {
+            throw new CircuitOpenException(breaker.retryAfter(), failure);
+        }
+    }
+
+    private void invalidPayload(ConsumerRecord<String, ByteBuffer> record, Exception ex, PendingDeadLetters pending) {
+        final String reason = ex.getMessage() == null ? "Invalid payload: " + ex.getClass().getSimpleName() : ex.getMessage();
+        log.error(reason);
+
+        pending.add(deadLetterQueueDlq.send(
+                record.key(),
+                new NotificationMessage(null, "UNKNOWN", null, null,
+                        codecRegistry.describe(record.headers(), record.value()), null),
+                reason
+        ));
+    }
+
+    private void deadLetter(ConsumerRecord<String, ByteBuffer> record, NotificationMessage message, Exception ex,
+                            PendingDeadLetters pending) {
+        final String error = ex.getMessage() == null ? ex.getClass().getSimpleName() : ex.getMessage();
+        final String reason = retryPolicy.isRetryable(ex)
+                ? "Permanent failure after " + retryPolicy.maxAttempts() + " attempts: " + error
+                : "Non-retryable failure: " + error;
+
+        log.error(reason);
+
+        pending.add(deadLetterQueueDlq.send(record.key(), message, reason));
+    }
+
+    static String safeId(NotificationMessage message) {
+        return (message == null || message.id() == null) ? "null" : message.id();
+    }
+}
@@ -0,0 +1,24 @@
+package com.notification.consumer.listener;
+
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "app.consumer.parallel")
+public class ParallelListenerProperties {
+
+    private boolean enabled = false;
+
+    // threads de processamento compartilhadas por todas as partições do consumer
+    @Min(1)
+    private int workers = 32;
+
+    // limita o que fica em voo: o container só faz o próximo poll depois de todo o anterior confirmado
+    @Min(1)
+    private int maxPollRecords = 500;
+}
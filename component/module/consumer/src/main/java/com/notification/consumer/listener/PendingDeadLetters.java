@@ -0,0 +1,68 @@
+package com.notification.consumer.listener;
+
+import com.notification.consumer.dlq.DeadLetterPublishException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Escritas na DLQ (ou num tópico de retry) feitas ao tratar um record. O offset dele só pode ser comitado
+ * depois que todas forem confirmadas pelo Kafka; senão uma falha no envio perde a mensagem de vez.
+ *
+ * Os envios são assíncronos: em lote o listener espera os de todos os records juntos, uma vez só.
+ */
+public class PendingDeadLetters {
+
+    private final List<CompletableFuture<Void>> sends = new ArrayList<>(1);
+
+    public void add(CompletableFuture<Void> send) {
+        sends.add(send);
+    }
+
+    public boolean isEmpty() {
+        return sends.isEmpty();
+    }
+
+    public CompletableFuture<Void> settled() {
+        if (sends.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (sends.size() == 1) {
+            return sends.get(0);
+        }
+        return CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Bloqueia até todas as escritas serem confirmadas. O timeout já vem aplicado em cada envio.
+     */
+    public void await() {
+        try {
+            settled().join();
+        } catch (CompletionException e) {
+            final Throwable cause = e.getCause() == null ? e : e.getCause();
+            if (cause instanceof DeadLetterPublishException publish) {
+                throw publish;
+            }
+            throw new DeadLetterPublishException("Dead letter write failed", cause);
+        }
+    }
+
+    /**
+     * Depois de {@link #settled()} concluir: a primeira falha, ou null se tudo foi confirmado.
+     */
+    public Throwable failure() {
+        for (CompletableFuture<Void> send : sends) {
+            if (send.isCompletedExceptionally()) {
+                try {
+                    send.join();
+                } catch (CompletionException e) {
+                    return e.getCause() == null ? e : e.getCause();
+                }
+            }
+        }
+        return null;
+    }
+}
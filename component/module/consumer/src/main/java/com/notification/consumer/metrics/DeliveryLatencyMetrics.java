@@ -0,0 +1,134 @@
+package com.notification.consumer.metrics;
+
+import com.notification.consumer.model.DecodedNotification;
+import com.notification.consumer.model.NotificationMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latência de cada mensagem no consumer, medida quando o resultado dela é decidido:
+ *
+ * - end-to-end: do {@code createdAt} da mensagem (ou do {@code sendAt}, se agendada) até o resultado; é o SLO.
+ * - broker-dwell: do timestamp do record até o poll que o entregou ao listener.
+ * - processing: do poll até o resultado, incluindo a fila dos workers nos modos parallel e lanes.
+ *
+ * Tags {@code type} e {@code outcome}. Os timers do Micrometer guardam os percentis num histograma HDR com janela
+ * deslizante, sem guardar as amostras: custo fixo por mensagem, qualquer que seja a vazão.
+ */
+public class DeliveryLatencyMetrics {
+
+    public enum Outcome {
+        // entregue
+        SUCCESS,
+        // republicada num tópico de atraso para outra tentativa
+        RETRY,
+        // enviada para a DLQ
+        DLQ
+    }
+
+    static final String OTHER = "other";
+
+    private static final Duration MAX_END_TO_END = Duration.ofHours(1);
+    private static final Duration MAX_PROCESSING = Duration.ofMinutes(1);
+
+    private final LatencyMetricsProperties props;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    // type -> timers por resultado; limitado a maxTaggedTypes
+    private final Map<String, Map<Outcome, Timers>> byType = new ConcurrentHashMap<>();
+
+    public DeliveryLatencyMetrics(LatencyMetricsProperties props, MeterRegistry meterRegistry) {
+        this(props, meterRegistry, Clock.systemUTC());
+    }
+
+    DeliveryLatencyMetrics(LatencyMetricsProperties props, MeterRegistry meterRegistry, Clock clock) {
+        this.props = props;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+    }
+
+    /**
+     * Instante do poll, guardado no {@link DecodedNotification} para o tempo de processamento.
+     */
+    public long now() {
+        return clock.millis();
+    }
+
+    public void record(ConsumerRecord<?, ?> record, DecodedNotification decoded, Outcome outcome) {
+        final long now = clock.millis();
+        final Timers timers = timers(decoded.type()).get(outcome);
+
+        if (decoded.receivedAt() > 0) {
+            timers.processing.record(Math.max(0, now - decoded.receivedAt()), TimeUnit.MILLISECONDS);
+            if (record.timestamp() > 0) {
+                timers.brokerDwell.record(Math.max(0, decoded.receivedAt() - record.timestamp()), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (decoded.isMaterialized()) {
+            final NotificationMessage message = decoded.message();
+            if (message.createdAt() != null) {
+                // agendada: o relógio do SLO começa quando ela podia sair, não quando foi aceita
+                long start = message.createdAt().toEpochMilli();
+                if (message.sendAt() != null) {
+                    start = Math.max(start, message.sendAt().toEpochMilli());
+                }
+                // relógios de publisher e consumer não são o mesmo; negativo vira zero
+                timers.endToEnd.record(Math.max(0, now - start), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private Map<Outcome, Timers> timers(String type) {
+        final String tag = type == null ? OTHER : type;
+        final Map<Outcome, Timers> existing = byType.get(tag);
+        if (existing != null) {
+            return existing;
+        }
+        if (byType.size() >= props.getMaxTaggedTypes()) {
+            return byType.computeIfAbsent(OTHER, this::register);
+        }
+        return byType.computeIfAbsent(tag, this::register);
+    }
+
+    private Map<Outcome, Timers> register(String type) {
+        final Map<Outcome, Timers> timers = new EnumMap<>(Outcome.class);
+        for (Outcome outcome : Outcome.values()) {
+            final String outcomeTag = outcome.name().toLowerCase(Locale.ROOT);
+            timers.put(outcome, new Timers(
+                    timer("notification.consumer.latency.end-to-end",
+                            "Time from the message's createdAt (or sendAt) to its outcome", type, outcomeTag, MAX_END_TO_END),
+                    timer("notification.consumer.latency.broker-dwell",
+                            "Time from the record timestamp to the poll that returned it", type, outcomeTag, MAX_END_TO_END),
+                    timer("notification.consumer.latency.processing",
+                            "Time from the poll to the message's outcome", type, outcomeTag, MAX_PROCESSING)));
+        }
+        return timers;
+    }
+
+    private Timer timer(String name, String description, String type, String outcome, Duration max) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .publishPercentiles(props.getPercentiles().stream().mapToDouble(Double::doubleValue).toArray())
+                .publishPercentileHistogram(props.isPercentileHistogram())
+                .serviceLevelObjectives(props.getSlo().toArray(Duration[]::new))
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(max)
+                .distributionStatisticExpiry(props.getExpiry())
+                .register(meterRegistry);
+    }
+
+    private record Timers(Timer endToEnd, Timer brokerDwell, Timer processing) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.notification.consumer.metrics;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.List;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "app.consumer.latency")
+public class LatencyMetricsProperties {
+
+    private boolean enabled = true;
+
+    // percentis calculados no processo, por instância (não agregáveis entre instâncias)
+    @NotNull
+    private List<Double> percentiles = List.of(0.5, 0.95, 0.99);
+
+    // buckets de histograma para o Prometheus: agregáveis, histogram_quantile no servidor
+    private boolean percentileHistogram = true;
+
+    // buckets exatos nesses limites, para medir o SLO sem interpolação (ex.: p99 de ponta a ponta < 5s)
+    @NotNull
+    private List<Duration> slo = List.of(Duration.ofSeconds(1), Duration.ofSeconds(5));
+
+    // janela dos percentis: valores mais antigos que isso saem do cálculo
+    @NotNull
+    private Duration expiry = Duration.ofMinutes(2);
+
+    // tipos distintos com tag própria; os demais entram como "other"
+    @Min(1)
+    private int maxTaggedTypes = 50;
+}
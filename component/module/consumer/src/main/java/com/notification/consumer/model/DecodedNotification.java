@@ -0,0 +1,70 @@
+package com.notification.consumer.model;
+
+import java.util.function.Supplier;
+
+/**
+ * Resultado do decode parcial: só os campos de roteamento (id, type, to) lidos do payload.
+ * A mensagem completa, com subject/body, é montada na primeira chamada de {@link #message()};
+ * o que for descartado antes (duplicata, filtro) nunca paga pelo body.
+ *
+ * Não é thread-safe: cada record é tratado por um thread de cada vez.
+ */
+public final class DecodedNotification {
+
+    private final String id;
+    private final String type;
+    private final String to;
+    private Supplier<NotificationMessage> materializer;
+    private NotificationMessage message;
+    // epoch millis do poll que trouxe o record; 0 enquanto não registrado
+    private long receivedAt;
+
+    public DecodedNotification(String id, String type, String to, Supplier<NotificationMessage> materializer) {
+        this.id = id;
+        this.type = type;
+        this.to = to;
+        this.materializer = materializer;
+    }
+
+    public static DecodedNotification of(NotificationMessage message) {
+        final DecodedNotification decoded = new DecodedNotification(message.id(), message.type(), message.to(), null);
+        decoded.message = message;
+        return decoded;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public String type() {
+        return type;
+    }
+
+    public String to() {
+        return to;
+    }
+
+    /**
+     * @throws IllegalArgumentException se o resto do payload for inválido
+     */
+    public NotificationMessage message() {
+        if (message == null) {
+            message = materializer.get();
+            // solta a referência ao buffer do record
+            materializer = null;
+        }
+        return message;
+    }
+
+    public long receivedAt() {
+        return receivedAt;
+    }
+
+    public void receivedAt(long epochMillis) {
+        this.receivedAt = epochMillis;
+    }
+
+    public boolean isMaterialized() {
+        return message != null;
+    }
+}
@@ -0,0 +1,12 @@
+package com.notification.consumer.model;
+
+/**
+ * O que o {@link com.notification.consumer.delivery.EmailSender} entrega; o remetente vem da configuração do sender.
+ */
+public record EmailMessage(
+        String id,
+        String to,
+        String subject,
+        String body
+) {
+}
@@ -0,0 +1,25 @@
+package com.notification.consumer.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+/**
+ * Prioridade definida no publish; cada uma chega pelo seu tópico (ver LaneScheduler).
+ */
+public enum NotificationPriority {
+    HIGH,
+    NORMAL,
+    LOW;
+
+    // valor ausente ou desconhecido (publisher mais novo) vira NORMAL em vez de payload inválido
+    @JsonCreator
+    public static NotificationPriority from(String value) {
+        if (value != null) {
+            for (NotificationPriority priority : values()) {
+                if (priority.name().equalsIgnoreCase(value)) {
+                    return priority;
+                }
+            }
+        }
+        return NORMAL;
+    }
+}
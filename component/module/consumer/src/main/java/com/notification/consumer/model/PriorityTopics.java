@@ -0,0 +1,22 @@
+package com.notification.consumer.model;
+
+import java.util.List;
+
+/**
+ * Tópico de cada prioridade ({@code app.kafka.topic.email-high}, {@code email} e {@code email-low}).
+ * Quem republica (retry, replay da DLQ) usa o da prioridade da mensagem, para ela não perder a fila nas lanes.
+ */
+public record PriorityTopics(String high, String normal, String low) {
+
+    public String topicFor(NotificationPriority priority) {
+        return switch (priority == null ? NotificationPriority.NORMAL : priority) {
+            case HIGH -> high;
+            case LOW -> low;
+            case NORMAL -> normal;
+        };
+    }
+
+    public List<String> all() {
+        return List.of(high, normal, low);
+    }
+}
@@ -0,0 +1,11 @@
+package com.notification.consumer.model;
+
+/**
+ * Mensagem de um lote que falhou no processamento, com a posição dela no lote.
+ */
+public record ProcessingFailure(
+        int index,
+        NotificationMessage message,
+        Exception cause
+) {
+}
@@ -0,0 +1,81 @@
+package com.notification.consumer.replay;
+
+import com.notification.consumer.dto.DlqReplayProgressDTO;
+import com.notification.consumer.dto.DlqReplayRequestDTO;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estado de um replay. Escrito só pela thread do replay; lido a qualquer momento pelo endpoint de progresso.
+ */
+@Getter
+public class DlqReplayJob {
+
+    public enum Status {
+        RUNNING, COMPLETED, CANCELLED, FAILED
+    }
+
+    private final String id;
+    private final DlqReplayRequestDTO request;
+    private final int maxPerSecond;
+    private final Instant startedAt;
+
+    private volatile Status status = Status.RUNNING;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile boolean cancelRequested;
+    private volatile long total;
+
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong matched = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong unreplayable = new AtomicLong();
+
+    public DlqReplayJob(String id, DlqReplayRequestDTO request, int maxPerSecond, Instant startedAt) {
+        this.id = id;
+        this.request = request;
+        this.maxPerSecond = maxPerSecond;
+        this.startedAt = startedAt;
+    }
+
+    public void requestCancel() {
+        cancelRequested = true;
+    }
+
+    public void total(long total) {
+        this.total = total;
+    }
+
+    public void finish(Status status, String error, Instant at) {
+        this.error = error;
+        this.finishedAt = at;
+        this.status = status;
+    }
+
+    public boolean isRunning() {
+        return status == Status.RUNNING;
+    }
+
+    public DlqReplayProgressDTO progress(Instant now) {
+        final long done = scanned.get();
+        final Instant end = finishedAt == null ? now : finishedAt;
+        final double seconds = Math.max(0.001, Duration.between(startedAt, end).toMillis() / 1000.0);
+        return new DlqReplayProgressDTO(
+                id,
+                status.name(),
+                total,
+                done,
+                matched.get(),
+                replayed.get(),
+                unreplayable.get(),
+                total == 0 ? 100.0 : Math.min(100.0, done * 100.0 / total),
+                replayed.get() / seconds,
+                startedAt,
+                finishedAt,
+                error
+        );
+    }
+}
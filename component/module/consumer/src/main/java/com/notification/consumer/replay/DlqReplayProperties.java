@@ -0,0 +1,36 @@
+package com.notification.consumer.replay;
+
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "app.consumer.replay")
+public class DlqReplayProperties {
+
+    // default quando o pedido não informa; o pedido não passa de max-per-second-limit
+    @Min(1)
+    private int maxPerSecond = 100;
+
+    @Min(1)
+    private int maxPerSecondLimit = 5000;
+
+    // records lidos do DLQ por poll; é o que fica em memória de cada vez
+    @Min(1)
+    private int pollRecords = 500;
+
+    // ack dos tópicos de prioridade para os envios de um poll
+    private Duration sendTimeout = Duration.ofSeconds(30);
+
+    private Duration progressLogInterval = Duration.ofSeconds(10);
+
+    // replays terminados mantidos para consulta
+    @Min(1)
+    private int history = 20;
+}
@@ -0,0 +1,20 @@
+package com.notification.consumer.replay;
+
+import com.notification.consumer.dto.DlqReplayProgressDTO;
+import com.notification.consumer.dto.DlqReplayRequestDTO;
+
+import java.util.List;
+
+/**
+ * Republica mensagens do DLQ no tópico da prioridade delas, em background, uma execução por vez.
+ */
+public interface DlqReplayService {
+
+    DlqReplayProgressDTO start(DlqReplayRequestDTO request);
+
+    DlqReplayProgressDTO progress(String id);
+
+    List<DlqReplayProgressDTO> list();
+
+    DlqReplayProgressDTO cancel(String id);
+}
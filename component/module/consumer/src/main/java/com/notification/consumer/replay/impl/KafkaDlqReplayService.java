@@ -0,0 +1,458 @@
+package com.notification.consumer.replay.impl;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.notification.consumer.codec.NotificationCodec;
+import com.notification.consumer.codec.NotificationCodecHeaders;
+import com.notification.consumer.codec.NotificationCodecRegistry;
+import com.notification.consumer.dlq.impl.KafkaDeadLetterQueueDlq.DlqEnvelope;
+import com.notification.consumer.dto.DlqReplayProgressDTO;
+import com.notification.consumer.dto.DlqReplayRequestDTO;
+import com.notification.consumer.exception.ReplayConflictException;
+import com.notification.consumer.exception.ReplayNotFoundException;
+import com.notification.consumer.model.NotificationMessage;
+import com.notification.consumer.model.PriorityTopics;
+import com.notification.consumer.replay.DlqReplayJob;
+import com.notification.consumer.replay.DlqReplayProperties;
+import com.notification.consumer.replay.DlqReplayService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Lê o DLQ com um consumer próprio (assign + seek, sem commit de offset: não interfere no consumo normal)
+ * e republica os envelopes selecionados no tópico da prioridade de cada mensagem.
+ *
+ * Em memória fica só um poll de cada vez: os envios de um poll são confirmados antes do próximo, então o
+ * tamanho do DLQ não importa. O ritmo é limitado espaçando os envios em 1/maxPerSecond.
+ */
+@Slf4j
+@Service
+public class KafkaDlqReplayService implements DlqReplayService {
+
+    static final String REPLAY_ID_HEADER = "notification-replay-id";
+    private static final String REPLAY_GROUP_ID = "notification-dlq-replay";
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+
+    private final Supplier<Consumer<String, byte[]>> consumers;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final NotificationCodec codec;
+    private final DlqReplayProperties props;
+    private final String dlqTopic;
+    private final PriorityTopics topics;
+    private final Executor runner;
+    private final Clock clock;
+
+    private final ObjectReader envelopeReader;
+    private final byte[] formatHeader;
+    private final byte[] schemaVersionHeader;
+    private final Counter replayedCounter;
+
+    // em ordem de início; os terminados mais antigos saem depois de props.history
+    private final Map<String, DlqReplayJob> jobs = new LinkedHashMap<>();
+    private DlqReplayJob current;
+
+    @Autowired
+    public KafkaDlqReplayService(
+            ConsumerFactory<Object, Object> consumerFactory,
+            KafkaTemplate<String, byte[]> kafkaTemplate,
+            NotificationCodecRegistry codecRegistry,
+            DlqReplayProperties props,
+            MeterRegistry meterRegistry,
+            @Value("${app.kafka.codec:json}") String format,
+            @Value("${app.kafka.topic.email-dlq}") String dlqTopic,
+            @Value("${app.kafka.topic.email-high}") String highTopic,
+            @Value("${app.kafka.topic.email}") String mainTopic,
+            @Value("${app.kafka.topic.email-low}") String lowTopic
+    ) {
+        this(() -> createConsumer(consumerFactory, props), kafkaTemplate, codecRegistry.codec(format), props,
+                meterRegistry, dlqTopic, new PriorityTopics(highTopic, mainTopic, lowTopic), newRunner(), Clock.systemUTC());
+    }
+
+    KafkaDlqReplayService(
+            Supplier<Consumer<String, byte[]>> consumers,
+            KafkaTemplate<String, byte[]> kafkaTemplate,
+            NotificationCodec codec,
+            DlqReplayProperties props,
+            MeterRegistry meterRegistry,
+            String dlqTopic,
+            PriorityTopics topics,
+            Executor runner,
+            Clock clock
+    ) {
+        this.consumers = consumers;
+        this.kafkaTemplate = kafkaTemplate;
+        this.codec = codec;
+        this.props = props;
+        this.dlqTopic = dlqTopic;
+        this.topics = topics;
+        this.runner = runner;
+        this.clock = clock;
+
+        this.envelopeReader = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .readerFor(DlqEnvelope.class);
+        this.formatHeader = codec.format().getBytes(StandardCharsets.UTF_8);
+        this.schemaVersionHeader = String.valueOf(codec.schemaVersion()).getBytes(StandardCharsets.UTF_8);
+        this.replayedCounter = Counter.builder("notification.consumer.dlq.replayed")
+                .description("DLQ messages republished to their priority topic and acknowledged")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public synchronized DlqReplayProgressDTO start(DlqReplayRequestDTO request) {
+        final int maxPerSecond = validate(request);
+        if (current != null && current.isRunning()) {
+            throw new ReplayConflictException(current.getId());
+        }
+
+        final DlqReplayJob job = new DlqReplayJob(UUID.randomUUID().toString(), request, maxPerSecond, clock.instant());
+        current = job;
+        jobs.put(job.getId(), job);
+        evictFinished();
+
+        runner.execute(() -> run(job));
+        return job.progress(clock.instant());
+    }
+
+    @Override
+    public synchronized DlqReplayProgressDTO progress(String id) {
+        return find(id).progress(clock.instant());
+    }
+
+    @Override
+    public synchronized List<DlqReplayProgressDTO> list() {
+        final Instant now = clock.instant();
+        return jobs.values().stream().map(job -> job.progress(now)).toList();
+    }
+
+    @Override
+    public synchronized DlqReplayProgressDTO cancel(String id) {
+        final DlqReplayJob job = find(id);
+        // a thread do replay para no fim do poll corrente, depois de confirmar o que já enviou
+        job.requestCancel();
+        return job.progress(clock.instant());
+    }
+
+    @PreDestroy
+    void stop() {
+        synchronized (this) {
+            if (current != null) {
+                current.requestCancel();
+            }
+        }
+        if (runner instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void run(DlqReplayJob job) {
+        try (Consumer<String, byte[]> consumer = consumers.get()) {
+            final Map<TopicPartition, Long> stops = plan(consumer, job);
+            log.info("DLQ replay started. id={} topic={} partitions={} total={} maxPerSecond={}",
+                    job.getId(), dlqTopic, stops.size(), job.getTotal(), job.getMaxPerSecond());
+
+            stream(consumer, job, stops);
+            job.finish(job.isCancelRequested() ? DlqReplayJob.Status.CANCELLED : DlqReplayJob.Status.COMPLETED,
+                    null, clock.instant());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.finish(DlqReplayJob.Status.CANCELLED, "Interrupted", clock.instant());
+        } catch (Exception e) {
+            log.error("DLQ replay failed. id={} error={}", job.getId(), e.toString());
+            job.finish(DlqReplayJob.Status.FAILED, e.toString(), clock.instant());
+        }
+
+        final DlqReplayProgressDTO progress = job.progress(clock.instant());
+        log.info("DLQ replay finished. id={} status={} scanned={} matched={} replayed={} unreplayable={}",
+                progress.id(), progress.status(), progress.scanned(), progress.matched(),
+                progress.replayed(), progress.unreplayable());
+    }
+
+    /**
+     * Posiciona o consumer no início do intervalo de cada partição e devolve o fim (exclusivo).
+     * O fim é fixado agora: o que o próprio replay fizer cair na DLQ de novo não entra nesta execução.
+     */
+    private Map<TopicPartition, Long> plan(Consumer<String, byte[]> consumer, DlqReplayJob job) {
+        final DlqReplayRequestDTO request = job.getRequest();
+        final List<TopicPartition> partitions = consumer.partitionsFor(dlqTopic).stream()
+                .map(info -> new TopicPartition(info.topic(), info.partition()))
+                .toList();
+
+        final Map<TopicPartition, Long> begin = consumer.beginningOffsets(partitions);
+        final Map<TopicPartition, Long> end = consumer.endOffsets(partitions);
+        final Map<TopicPartition, Long> fromTime = request.fromTimestamp() == null
+                ? Map.of() : offsetsForTime(consumer, partitions, request.fromTimestamp(), end);
+        final Map<TopicPartition, Long> toTime = request.toTimestamp() == null
+                ? Map.of() : offsetsForTime(consumer, partitions, request.toTimestamp(), end);
+
+        final Map<TopicPartition, Long> starts = new HashMap<>();
+        final Map<TopicPartition, Long> stops = new HashMap<>();
+        long total = 0;
+        for (TopicPartition tp : partitions) {
+            final long first = begin.get(tp);
+            final long last = end.get(tp);
+
+            long start = first;
+            if (request.fromOffset() != null) {
+                start = Math.max(first, request.fromOffset());
+            } else if (request.fromTimestamp() != null) {
+                start = Math.max(first, fromTime.get(tp));
+            }
+
+            long stop = last;
+            if (request.toOffset() != null) {
+                stop = Math.min(last, request.toOffset() + 1);
+            } else if (request.toTimestamp() != null) {
+                stop = Math.min(last, toTime.get(tp));
+            }
+
+            if (start < stop) {
+                starts.put(tp, start);
+                stops.put(tp, stop);
+                total += stop - start;
+            }
+        }
+
+        consumer.assign(starts.keySet());
+        starts.forEach(consumer::seek);
+        job.total(total);
+        return stops;
+    }
+
+    private void stream(Consumer<String, byte[]> consumer, DlqReplayJob job, Map<TopicPartition, Long> stops)
+            throws Exception {
+        final Map<TopicPartition, Long> remaining = new HashMap<>(stops);
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / job.getMaxPerSecond();
+        final long logIntervalNanos = props.getProgressLogInterval().toNanos();
+        long nextSendAt = System.nanoTime();
+        long nextLogAt = System.nanoTime() + logIntervalNanos;
+
+        while (!remaining.isEmpty() && !job.isCancelRequested()) {
+            final ConsumerRecords<String, byte[]> records = consumer.poll(POLL_TIMEOUT);
+            final List<CompletableFuture<?>> acks = new ArrayList<>(records.count());
+
+            for (TopicPartition tp : records.partitions()) {
+                final Long stop = remaining.get(tp);
+                for (ConsumerRecord<String, byte[]> record : records.records(tp)) {
+                    if (stop == null || record.offset() >= stop) {
+                        break;
+                    }
+                    job.getScanned().incrementAndGet();
+
+                    final DlqEnvelope envelope = select(record, job);
+                    if (envelope == null) {
+                        continue;
+                    }
+                    nextSendAt = pace(nextSendAt, intervalNanos);
+                    acks.add(send(envelope, job).thenRun(() -> {
+                        job.getReplayed().incrementAndGet();
+                        replayedCounter.increment();
+                    }));
+                }
+            }
+
+            // confirma o poll inteiro antes do próximo: limita a memória e, se o Kafka falhar, o replay para
+            // sabendo exatamente até onde foi (scanned/replayed)
+            if (!acks.isEmpty()) {
+                CompletableFuture.allOf(acks.toArray(CompletableFuture[]::new))
+                        .get(props.getSendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            }
+
+            for (Iterator<Map.Entry<TopicPartition, Long>> it = remaining.entrySet().iterator(); it.hasNext(); ) {
+                final Map.Entry<TopicPartition, Long> entry = it.next();
+                if (consumer.position(entry.getKey()) >= entry.getValue()) {
+                    consumer.pause(List.of(entry.getKey()));
+                    it.remove();
+                }
+            }
+
+            if (System.nanoTime() >= nextLogAt) {
+                final DlqReplayProgressDTO progress = job.progress(clock.instant());
+                log.info("DLQ replay progress. id={} scanned={}/{} ({}%) replayed={} rate={}/s",
+                        progress.id(), progress.scanned(), progress.total(), Math.round(progress.percent()),
+                        progress.replayed(), Math.round(progress.ratePerSecond()));
+                nextLogAt = System.nanoTime() + logIntervalNanos;
+            }
+        }
+    }
+
+    /**
+     * Envelope que passa nos filtros e tem uma mensagem republicável; null para pular.
+     */
+    private DlqEnvelope select(ConsumerRecord<String, byte[]> record, DlqReplayJob job) {
+        final DlqEnvelope envelope;
+        try {
+            envelope = record.value() == null ? null : envelopeReader.readValue(record.value());
+        } catch (Exception e) {
+            job.getUnreplayable().incrementAndGet();
+            log.warn("Skipping unreadable DLQ record. partition={} offset={} error={}",
+                    record.partition(), record.offset(), e.getMessage());
+            return null;
+        }
+        if (envelope == null) {
+            job.getUnreplayable().incrementAndGet();
+            return null;
+        }
+        if (!matches(envelope, job.getRequest())) {
+            return null;
+        }
+        job.getMatched().incrementAndGet();
+
+        // payload que nem decodificou vai para a DLQ sem id; republicar só o faria voltar para lá
+        final NotificationMessage message = envelope.message();
+        if (message == null || message.id() == null) {
+            job.getUnreplayable().incrementAndGet();
+            return null;
+        }
+        return envelope;
+    }
+
+    static boolean matches(DlqEnvelope envelope, DlqReplayRequestDTO request) {
+        if (request.reasonContains() != null && !request.reasonContains().isBlank()) {
+            if (envelope.reason() == null || !envelope.reason().toLowerCase(Locale.ROOT)
+                    .contains(request.reasonContains().toLowerCase(Locale.ROOT))) {
+                return false;
+            }
+        }
+        final Instant failedAt = envelope.failedAt();
+        if (request.failedAfter() != null && (failedAt == null || failedAt.isBefore(request.failedAfter()))) {
+            return false;
+        }
+        return request.failedBefore() == null || (failedAt != null && failedAt.isBefore(request.failedBefore()));
+    }
+
+    private CompletableFuture<?> send(DlqEnvelope envelope, DlqReplayJob job) {
+        final NotificationMessage message = envelope.message();
+        // volta para o tópico da prioridade dela, não para o principal, com a key original: seja qual for a
+        // estratégia do publisher, cai na partição do tráfego ao vivo do mesmo destinatário/domínio
+        final ProducerRecord<String, byte[]> record =
+                new ProducerRecord<>(topics.topicFor(message.priority()), envelope.sourceKey(), codec.encode(message));
+        record.headers()
+                .add(NotificationCodecHeaders.FORMAT, formatHeader)
+                .add(NotificationCodecHeaders.SCHEMA_VERSION, schemaVersionHeader)
+                .add(REPLAY_ID_HEADER, job.getId().getBytes(StandardCharsets.UTF_8));
+        return kafkaTemplate.send(record);
+    }
+
+    /**
+     * Espera o próximo slot; depois de uma pausa (filtro pulando muita coisa) não acumula crédito para rajada.
+     */
+    private static long pace(long nextSendAt, long intervalNanos) throws InterruptedException {
+        final long now = System.nanoTime();
+        if (nextSendAt > now) {
+            TimeUnit.NANOSECONDS.sleep(nextSendAt - now);
+            return nextSendAt + intervalNanos;
+        }
+        return now + intervalNanos;
+    }
+
+    private int validate(DlqReplayRequestDTO request) {
+        if ((request.fromOffset() != null || request.toOffset() != null)
+                && (request.fromTimestamp() != null || request.toTimestamp() != null)) {
+            throw new IllegalArgumentException("Use either an offset range or a timestamp range, not both");
+        }
+        if (request.fromOffset() != null && request.toOffset() != null && request.fromOffset() > request.toOffset()) {
+            throw new IllegalArgumentException("fromOffset must not be greater than toOffset");
+        }
+        if (request.fromTimestamp() != null && request.toTimestamp() != null
+                && request.fromTimestamp().isAfter(request.toTimestamp())) {
+            throw new IllegalArgumentException("fromTimestamp must not be after toTimestamp");
+        }
+        final int maxPerSecond = request.maxPerSecond() == null ? props.getMaxPerSecond() : request.maxPerSecond();
+        if (maxPerSecond < 1 || maxPerSecond > props.getMaxPerSecondLimit()) {
+            throw new IllegalArgumentException("maxPerSecond must be between 1 and " + props.getMaxPerSecondLimit());
+        }
+        return maxPerSecond;
+    }
+
+    private DlqReplayJob find(String id) {
+        final DlqReplayJob job = jobs.get(id);
+        if (job == null) {
+            throw new ReplayNotFoundException(id);
+        }
+        return job;
+    }
+
+    private void evictFinished() {
+        final Iterator<DlqReplayJob> it = jobs.values().iterator();
+        while (jobs.size() > props.getHistory() && it.hasNext()) {
+            if (!it.next().isRunning()) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Primeiro offset com timestamp >= at em cada partição; sem nenhum, o fim da partição.
+     */
+    private static Map<TopicPartition, Long> offsetsForTime(
+            Consumer<String, byte[]> consumer, List<TopicPartition> partitions, Instant at, Map<TopicPartition, Long> end
+    ) {
+        final Map<TopicPartition, Long> query = new HashMap<>();
+        partitions.forEach(tp -> query.put(tp, at.toEpochMilli()));
+        final Map<TopicPartition, OffsetAndTimestamp> found = consumer.offsetsForTimes(query);
+
+        final Map<TopicPartition, Long> offsets = new HashMap<>();
+        for (TopicPartition tp : partitions) {
+            final OffsetAndTimestamp offset = found.get(tp);
+            offsets.put(tp, offset == null ? end.get(tp) : offset.offset());
+        }
+        return offsets;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Consumer<String, byte[]> createConsumer(ConsumerFactory<Object, Object> factory, DlqReplayProperties props) {
+        // o consumer da aplicação entrega ByteBuffer; aqui o envelope é lido de um byte[] inteiro
+        final Properties overrides = new Properties();
+        overrides.setProperty(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        overrides.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(props.getPollRecords()));
+        return (Consumer) factory.createConsumer(REPLAY_GROUP_ID, "dlq-replay", null, overrides);
+    }
+
+    private static ExecutorService newRunner() {
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "notification-dlq-replay");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
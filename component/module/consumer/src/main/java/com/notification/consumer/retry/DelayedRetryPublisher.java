@@ -0,0 +1,247 @@
+package com.notification.consumer.retry;
+
+import com.notification.consumer.dlq.DeadLetterQueueDlq;
+import com.notification.consumer.model.NotificationMessage;
+import com.notification.consumer.model.PriorityTopics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retry não bloqueante: a mensagem que falhou é republicada, com o payload e os headers originais, no tópico
+ * de atraso da próxima tentativa. A tentativa n (1 = tópico principal) vai para o tier n; quem falha no
+ * último tier, ou com exceção não-retentável pela {@link RetryPolicy}, vai para a DLQ.
+ * Os atrasos são os dos tiers: backoff exponencial e jitter só valem no modo blocking.
+ *
+ * Cada prioridade tem os seus tiers ({@code notifications.email.high.retry.5s}, ...): um backlog de retries LOW
+ * não segura os HIGH. Como nas lanes, a prioridade é a do tópico de onde o record veio, que o publisher escolheu
+ * pela prioridade da mensagem; o tier de um tier é da mesma prioridade.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.consumer.retry", name = "mode", havingValue = "topics")
+public class DelayedRetryPublisher {
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final DeadLetterQueueDlq deadLetterQueueDlq;
+    private final RetryPolicy retryPolicy;
+    private final List<Duration> tiers;
+    // tópico da prioridade -> tópicos dos tiers dela
+    private final Map<String, List<String>> tierTopicsByTopic = new LinkedHashMap<>();
+    // tópico da prioridade ou de um tier dela -> tópico da prioridade
+    private final Map<String, String> priorityTopicOf = new HashMap<>();
+    private final String defaultTopic;
+    private final Duration sendTimeout;
+    private final Clock clock;
+
+    @Autowired
+    public DelayedRetryPublisher(
+            KafkaTemplate<String, byte[]> kafkaTemplate,
+            DeadLetterQueueDlq deadLetterQueueDlq,
+            RetryPolicy retryPolicy,
+            RetryProperties props,
+            @Value("${app.kafka.topic.email-high}") String highTopic,
+            @Value("${app.kafka.topic.email}") String mainTopic,
+            @Value("${app.kafka.topic.email-low}") String lowTopic
+    ) {
+        this(kafkaTemplate, deadLetterQueueDlq, retryPolicy, props, new PriorityTopics(highTopic, mainTopic, lowTopic),
+                Clock.systemUTC());
+    }
+
+    DelayedRetryPublisher(
+            KafkaTemplate<String, byte[]> kafkaTemplate,
+            DeadLetterQueueDlq deadLetterQueueDlq,
+            RetryPolicy retryPolicy,
+            RetryProperties props,
+            PriorityTopics topics,
+            Clock clock
+    ) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.deadLetterQueueDlq = deadLetterQueueDlq;
+        this.retryPolicy = retryPolicy;
+        this.tiers = List.copyOf(props.getTopics().getTiers());
+        for (String topic : topics.all()) {
+            final List<String> tierTopics = tiers.stream().map(delay -> tierTopic(topic, delay)).toList();
+            tierTopicsByTopic.put(topic, tierTopics);
+            priorityTopicOf.put(topic, topic);
+            tierTopics.forEach(tierTopic -> priorityTopicOf.put(tierTopic, topic));
+        }
+        this.defaultTopic = topics.normal();
+        this.sendTimeout = props.getTopics().getSendTimeout();
+        this.clock = clock;
+    }
+
+    /**
+     * Os tiers de todas as prioridades.
+     */
+    public List<String> tierTopics() {
+        return tierTopicsByTopic.values().stream().flatMap(List::stream).toList();
+    }
+
+    /**
+     * Total de tentativas: a do tópico principal mais uma por tier.
+     */
+    public int maxAttempts() {
+        return tiers.size() + 1;
+    }
+
+    /**
+     * true se {@link #schedule} vai republicar num tier; false se a falha vai direto para a DLQ.
+     */
+    public boolean willRetry(int attempt, Exception cause) {
+        return retryPolicy.isRetryable(cause) && attempt <= tiers.size();
+    }
+
+    /**
+     * @param attempt a tentativa que acabou de falhar
+     * @return completa quando o republish (ou a DLQ, no lugar dele) for confirmado pelo Kafka
+     */
+    public CompletableFuture<Void> schedule(ConsumerRecord<String, ByteBuffer> record, NotificationMessage message,
+                                            int attempt, Exception cause) {
+        final String error = cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage();
+
+        if (!retryPolicy.isRetryable(cause)) {
+            final String reason = "Non-retryable failure: " + error;
+            log.error(reason);
+            return deadLetterQueueDlq.send(record.key(), message, reason);
+        }
+        if (attempt > tiers.size()) {
+            final String reason = "Permanent failure after " + attempt + " attempts: " + error;
+            log.error(reason);
+            return deadLetterQueueDlq.send(record.key(), message, reason);
+        }
+
+        final String topic = tierTopicsOf(record).get(attempt - 1);
+        final long dueAt = clock.millis() + tiers.get(attempt - 1).toMillis();
+
+        return send(republish(record, topic, attempt + 1, dueAt))
+                .<Void>thenApply(result -> {
+                    log.warn("Failed attempt {}/{} for id={}, retry scheduled. topic={} error={}",
+                            attempt, maxAttempts(), safeId(message), topic, error);
+                    return null;
+                })
+                .exceptionallyCompose(ex -> {
+                    // sem o republish a mensagem se perderia; melhor a DLQ do que nada
+                    final String reason = "Retry scheduling failed after attempt " + attempt + ": " + error;
+                    log.error("{} topic={} sendError={}", reason, topic, ex.toString());
+                    return deadLetterQueueDlq.send(record.key(), message, reason);
+                });
+    }
+
+    /**
+     * Estaciona o record num tier até {@code delay} passar, sem gastar tentativa: não é falha, é vazão
+     * (ver {@link com.notification.consumer.throttle.DomainThrottle}). O listener do tier respeita o due-at.
+     * O record leva o instante do token reservado, para não pedir outro quando voltar.
+     *
+     * O tier é o primeiro com atraso maior ou igual a {@code delay}: o due-at nunca passa do due-at dos retries
+     * que chegam depois nesse tier, que vencem na ordem do offset, então o adiamento não segura a fila deles.
+     * Acima do último tier, o record fica o atraso dele e é adiado de novo quando volta, até a reserva vencer.
+     *
+     * @return completa quando o Kafka confirmar; se falhar, o record de origem não pode ser comitado
+     */
+    public CompletableFuture<Void> defer(ConsumerRecord<String, ByteBuffer> record, Duration delay) {
+        int tier = 0;
+        while (tier < tiers.size() - 1 && tiers.get(tier).compareTo(delay) < 0) {
+            tier++;
+        }
+        final long now = clock.millis();
+        final long throttledUntil = now + delay.toMillis();
+        final long dueAt = Math.min(throttledUntil, now + tiers.get(tier).toMillis());
+
+        final ProducerRecord<String, byte[]> copy =
+                republish(record, tierTopicsOf(record).get(tier), RetryHeaders.attempt(record.headers()), dueAt);
+        copy.headers().add(RetryHeaders.THROTTLED_UNTIL, String.valueOf(throttledUntil).getBytes(StandardCharsets.UTF_8));
+        return send(copy).<Void>thenApply(result -> null);
+    }
+
+    /**
+     * @return null se o record não tem token reservado pelo {@link #defer}; senão quanto falta para ele
+     */
+    public Duration reservedDeferral(ConsumerRecord<String, ByteBuffer> record) {
+        final long throttledUntil = RetryHeaders.throttledUntil(record.headers());
+        if (throttledUntil == 0) {
+            return null;
+        }
+        return Duration.ofMillis(Math.max(0, throttledUntil - clock.millis()));
+    }
+
+    // tópico desconhecido (ex.: record antigo de um tier renomeado) fica com a prioridade NORMAL
+    private List<String> tierTopicsOf(ConsumerRecord<String, ByteBuffer> record) {
+        return tierTopicsByTopic.get(priorityTopicOf.getOrDefault(record.topic(), defaultTopic));
+    }
+
+    private static ProducerRecord<String, byte[]> republish(ConsumerRecord<String, ByteBuffer> record, String topic,
+                                                            int attempt, long dueAt) {
+        final ProducerRecord<String, byte[]> copy = new ProducerRecord<>(topic, null, record.key(), bytes(record.value()));
+        for (Header header : record.headers()) {
+            // a reserva de token vale para uma entrega só: o retry de uma falha pede outro
+            if (!header.key().equals(RetryHeaders.ATTEMPT) && !header.key().equals(RetryHeaders.DUE_AT)
+                    && !header.key().equals(RetryHeaders.THROTTLED_UNTIL)) {
+                copy.headers().add(header);
+            }
+        }
+        copy.headers()
+                .add(RetryHeaders.ATTEMPT, String.valueOf(attempt).getBytes(StandardCharsets.UTF_8))
+                .add(RetryHeaders.DUE_AT, String.valueOf(dueAt).getBytes(StandardCharsets.UTF_8));
+        return copy;
+    }
+
+    private CompletableFuture<SendResult<String, byte[]>> send(ProducerRecord<String, byte[]> record) {
+        CompletableFuture<SendResult<String, byte[]>> sent;
+        try {
+            sent = kafkaTemplate.send(record);
+        } catch (Exception ex) {
+            sent = CompletableFuture.failedFuture(ex);
+        }
+        return sent.orTimeout(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    static String tierTopic(String mainTopic, Duration delay) {
+        return mainTopic + ".retry." + label(delay);
+    }
+
+    static String label(Duration delay) {
+        final long millis = delay.toMillis();
+        if (millis % 3_600_000 == 0) {
+            return (millis / 3_600_000) + "h";
+        }
+        if (millis % 60_000 == 0) {
+            return (millis / 60_000) + "m";
+        }
+        if (millis % 1_000 == 0) {
+            return (millis / 1_000) + "s";
+        }
+        return millis + "ms";
+    }
+
+    private static byte[] bytes(ByteBuffer value) {
+        if (value == null) {
+            return null;
+        }
+        final byte[] copy = new byte[value.remaining()];
+        value.duplicate().get(copy);
+        return copy;
+    }
+
+    private static String safeId(NotificationMessage message) {
+        return (message == null || message.id() == null) ? "null" : message.id();
+    }
+}
@@ -0,0 +1,15 @@
+package com.notification.consumer.retry;
+
+/**
+ * Falha que não adianta repetir (destinatário malformado, conteúdo rejeitado): vai direto para a DLQ.
+ */
+public class NonRetryableException extends RuntimeException {
+
+    public NonRetryableException(String message) {
+        super(message);
+    }
+
+    public NonRetryableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -3,6 +3,8 @@ package com.notification.consumer.retry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 @Slf4j
 @Component
 public class RetryExecutor {
@@ -14,6 +16,7 @@ public class RetryExecutor {
 
     public void execute(String operationName, RetryPolicy policy, ThrowingRunnable action) throws Exception {
         Exception last = null;
+        long delay = 0;
 
         for (int attempt = 1; attempt <= policy.maxAttempts(); attempt++) {
             try {
@@ -26,6 +29,13 @@ public class RetryExecutor {
             } catch (Exception ex) {
                 last = ex;
 
+                if (!policy.isRetryable(ex)) {
+                    log.warn("Non-retryable failure on attempt {}/{} for {}: {}",
+                            attempt, policy.maxAttempts(), operationName,
+                            ex.getClass().getSimpleName() + ": " + (ex.getMessage() == null ? "" : ex.getMessage()));
+                    throw ex;
+                }
+
                 log.warn(
                         "Failed attempt {}/{} for {}: {}",
                         attempt,
@@ -35,7 +45,9 @@ public class RetryExecutor {
                 );
 
                 if (attempt < policy.maxAttempts()) {
-                    sleep(policy.backoffMillis());
+                    // jitter espalha os retries de vários consumers em vez de todos baterem juntos no downstream
+                    delay = policy.delayBefore(attempt + 1, delay, ThreadLocalRandom.current());
+                    sleep(delay);
                 }
             }
         }
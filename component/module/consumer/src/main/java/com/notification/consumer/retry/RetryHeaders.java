@@ -0,0 +1,42 @@
+package com.notification.consumer.retry;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+
+public final class RetryHeaders {
+
+    // número da tentativa que o record carrega (ausente = 1, primeira entrega no tópico principal)
+    public static final String ATTEMPT = "notification-retry-attempt";
+    // epoch millis a partir do qual o record do tópico de atraso pode ser processado
+    public static final String DUE_AT = "notification-retry-due-at";
+    // epoch millis do token reservado pelo limite por domínio; com ele a mensagem adiada não gasta outro token
+    public static final String THROTTLED_UNTIL = "notification-throttled-until";
+
+    private RetryHeaders() {
+    }
+
+    public static int attempt(Headers headers) {
+        final String value = lastValue(headers, ATTEMPT);
+        return value == null ? 1 : Integer.parseInt(value);
+    }
+
+    public static long dueAt(Headers headers) {
+        final String value = lastValue(headers, DUE_AT);
+        return value == null ? 0L : Long.parseLong(value);
+    }
+
+    /**
+     * @return 0 se o record não carrega reserva do limite por domínio
+     */
+    public static long throttledUntil(Headers headers) {
+        final String value = lastValue(headers, THROTTLED_UNTIL);
+        return value == null ? 0L : Long.parseLong(value);
+    }
+
+    private static String lastValue(Headers headers, String name) {
+        final Header header = headers.lastHeader(name);
+        return (header == null || header.value() == null) ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+}
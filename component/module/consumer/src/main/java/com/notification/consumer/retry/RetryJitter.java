@@ -0,0 +1,10 @@
+package com.notification.consumer.retry;
+
+public enum RetryJitter {
+    // espera exponencial exata
+    NONE,
+    // aleatória entre 0 e a espera exponencial
+    FULL,
+    // aleatória entre o backoff inicial e 3x a espera anterior (não depende do número da tentativa)
+    DECORRELATED
+}
@@ -0,0 +1,8 @@
+package com.notification.consumer.retry;
+
+public enum RetryMode {
+    // retry no próprio thread do listener, com sleep entre tentativas (segura a partição)
+    BLOCKING,
+    // falhas republicadas em tópicos de atraso; o tópico principal nunca espera
+    TOPICS
+}
@@ -1,10 +1,84 @@
 package com.notification.consumer.retry;
 
+import com.notification.consumer.breaker.CircuitOpenException;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+
 public record RetryPolicy(
         int maxAttempts,
-        long backoffMillis
+        long backoffMillis,
+        double multiplier,
+        long maxBackoffMillis,
+        RetryJitter jitter,
+        // vazio = tudo que não for não-retentável é retentável
+        List<Class<? extends Throwable>> retryable,
+        List<Class<? extends Throwable>> nonRetryable
 ) {
+    public RetryPolicy {
+        maxBackoffMillis = Math.max(maxBackoffMillis, backoffMillis);
+        retryable = List.copyOf(retryable);
+        nonRetryable = List.copyOf(nonRetryable);
+    }
+
+    /**
+     * Backoff fixo, sem jitter, toda exceção retentável.
+     */
     public static RetryPolicy of(int maxAttempts, long backoffMillis) {
-        return new RetryPolicy(maxAttempts, backoffMillis);
+        return new RetryPolicy(maxAttempts, backoffMillis, 1.0, backoffMillis, RetryJitter.NONE, List.of(), List.of());
+    }
+
+    public RetryPolicy withMaxAttempts(int attempts) {
+        return new RetryPolicy(attempts, backoffMillis, multiplier, maxBackoffMillis, jitter, retryable, nonRetryable);
+    }
+
+    /**
+     * Espera antes da tentativa {@code attempt} (2 = primeiro retry). {@code previousDelayMillis} é a espera
+     * usada antes da tentativa anterior, 0 se não houve; só o jitter decorrelated usa.
+     */
+    public long delayBefore(int attempt, long previousDelayMillis, RandomGenerator random) {
+        final long exponential = capped(backoffMillis * Math.pow(multiplier, Math.max(0, attempt - 2)));
+
+        return switch (jitter) {
+            case NONE -> exponential;
+            case FULL -> random.nextLong(exponential + 1);
+            case DECORRELATED -> {
+                final long upper = Math.max(backoffMillis, capped(previousDelayMillis * 3.0));
+                yield backoffMillis + random.nextLong(upper - backoffMillis + 1);
+            }
+        };
+    }
+
+    /**
+     * Não-retentável se alguma exceção da cadeia de causas for de um tipo não-retentável; com a lista de
+     * retentáveis preenchida, também se nenhuma da cadeia estiver nela.
+     * Circuito aberto nunca é retentado aqui: o record volta para o tópico.
+     */
+    public boolean isRetryable(Throwable failure) {
+        if (failure instanceof CircuitOpenException) {
+            return false;
+        }
+        if (matches(nonRetryable, failure)) {
+            return false;
+        }
+        return retryable.isEmpty() || matches(retryable, failure);
+    }
+
+    private long capped(double millis) {
+        return (long) Math.min(maxBackoffMillis, millis);
+    }
+
+    private static boolean matches(List<Class<? extends Throwable>> types, Throwable failure) {
+        // o service costuma embrulhar a exceção do cliente de entrega; a causa é que decide
+        Throwable current = failure;
+        for (int depth = 0; current != null && depth < 10; depth++) {
+            for (Class<? extends Throwable> type : types) {
+                if (type.isInstance(current)) {
+                    return true;
+                }
+            }
+            current = current.getCause() == current ? null : current.getCause();
+        }
+        return false;
     }
 }
@@ -1,20 +1,66 @@
 package com.notification.consumer.retry;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 @Getter
 @Setter
 @Validated
 @ConfigurationProperties(prefix = "app.consumer.retry")
 public class RetryProperties {
 
+    @NotNull
+    private RetryMode mode = RetryMode.BLOCKING;
+
+    // usados só no modo blocking
     @Min(1)
     private int maxAttempts = 3;
 
+    // espera antes do primeiro retry; cada retry seguinte multiplica por multiplier, até max-backoff-ms
     @Min(0)
     private long backoffMs = 300;
+
+    @DecimalMin("1.0")
+    private double multiplier = 2.0;
+
+    @Min(0)
+    private long maxBackoffMs = 30_000;
+
+    @NotNull
+    private RetryJitter jitter = RetryJitter.FULL;
+
+    // classificação vale nos dois modos; a exceção (ou qualquer causa dela) é comparada por instanceof.
+    // retryable vazio = tudo que não estiver em non-retryable é retentável
+    private List<Class<? extends Throwable>> retryableExceptions = new ArrayList<>();
+
+    private List<Class<? extends Throwable>> nonRetryableExceptions = new ArrayList<>(List.of(
+            NonRetryableException.class, IllegalArgumentException.class));
+
+    @Valid
+    private Topics topics = new Topics();
+
+    @Getter
+    @Setter
+    public static class Topics {
+
+        // um tópico por atraso, <tópico da prioridade>.retry.<atraso>; a mensagem passa por cada um uma vez
+        @NotEmpty
+        private List<Duration> tiers = new ArrayList<>(List.of(
+                Duration.ofSeconds(5), Duration.ofSeconds(30), Duration.ofMinutes(5)));
+
+        // espera pelo ack do republish; se falhar, a mensagem vai para a DLQ em vez de se perder
+        @NotNull
+        private Duration sendTimeout = Duration.ofSeconds(10);
+    }
 }
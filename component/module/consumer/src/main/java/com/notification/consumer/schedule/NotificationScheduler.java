@@ -0,0 +1,405 @@
+package com.notification.consumer.schedule;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Segura as mensagens agendadas (sendAt no futuro) num {@link TimingWheel} e, quando vencem, republica cada uma
+ * no tópico e com a key que teria recebido no publish, em lotes.
+ *
+ * O estado fica no próprio Kafka: o tópico de agendamento é compactado por id, e cada mensagem liberada ganha
+ * um tombstone. Ao receber uma partição, o listener relê o tópico do começo; enquanto a partição carrega, os
+ * records ficam num buffer por id (o último vence, tombstone remove) e nada dela é liberado, senão uma
+ * mensagem cujo tombstone vem mais adiante no log sairia de novo. Quando a carga chega ao fim do log
+ * ({@link #loaded}), o que sobrou vai para o wheel.
+ *
+ * Entre o ack do tópico de destino e o do tombstone, uma queda faz a mensagem sair de novo no restart;
+ * o id é o mesmo, então o dedup do consumer descarta a segunda entrega.
+ */
+@Slf4j
+public class NotificationScheduler implements AutoCloseable {
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final String scheduledTopic;
+    private final String defaultTopic;
+    private final ScheduleProperties props;
+    private final Clock clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // um lote de release por vez; o revoke espera o lote em andamento chegar ao tombstone
+    private final ReentrantLock releaseLock = new ReentrantLock();
+    private final TimingWheel<ScheduledNotification> wheel;
+    private final Map<String, TimingWheel.Entry<ScheduledNotification>> byId = new HashMap<>();
+    private final Map<TopicPartition, Map<String, ScheduledNotification>> loading = new HashMap<>();
+    private final Counter released;
+    private final Counter failed;
+    private final ScheduledExecutorService ticker;
+
+    public NotificationScheduler(
+            KafkaTemplate<String, byte[]> kafkaTemplate,
+            ScheduleProperties props,
+            MeterRegistry meterRegistry,
+            String scheduledTopic,
+            String defaultTopic
+    ) {
+        this(kafkaTemplate, props, meterRegistry, scheduledTopic, defaultTopic, Clock.systemUTC(), true);
+    }
+
+    NotificationScheduler(
+            KafkaTemplate<String, byte[]> kafkaTemplate,
+            ScheduleProperties props,
+            MeterRegistry meterRegistry,
+            String scheduledTopic,
+            String defaultTopic,
+            Clock clock,
+            boolean startTicker
+    ) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.scheduledTopic = scheduledTopic;
+        this.defaultTopic = defaultTopic;
+        this.props = props;
+        this.clock = clock;
+        this.wheel = new TimingWheel<>(props.getTick().toMillis(), props.getWheelSize(), clock.millis());
+
+        this.released = Counter.builder("notification.consumer.schedule.released")
+                .description("Scheduled notifications republished to their topic")
+                .tag("result", "released")
+                .register(meterRegistry);
+        this.failed = Counter.builder("notification.consumer.schedule.released")
+                .description("Scheduled notifications republished to their topic")
+                .tag("result", "failed")
+                .register(meterRegistry);
+        Gauge.builder("notification.consumer.schedule.pending", this, NotificationScheduler::pending)
+                .description("Scheduled notifications waiting for their sendAt, including partitions still loading")
+                .register(meterRegistry);
+
+        if (startTicker) {
+            this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "notification-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            final long tickMs = props.getTick().toMillis();
+            ticker.scheduleWithFixedDelay(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.ticker = null;
+        }
+    }
+
+    /**
+     * Partição recebida: o que havia dela sai do wheel e ela volta a carregar do começo do log.
+     */
+    public void assigned(TopicPartition partition) {
+        lock.lock();
+        try {
+            drop(partition);
+            loading.put(partition, new LinkedHashMap<>());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A carga da partição chegou ao fim do log: o buffer dela vai para o wheel e passa a ser liberado.
+     */
+    public void loaded(TopicPartition partition) {
+        lock.lock();
+        try {
+            final Map<String, ScheduledNotification> buffer = loading.remove(partition);
+            if (buffer == null) {
+                return;
+            }
+            buffer.values().forEach(this::schedule);
+            log.info("Scheduled notifications loaded. partition={} loaded={} pending={}", partition, buffer.size(), wheel.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Espera o lote em andamento: depois do revoke outro consumer relê a partição, e um release sem tombstone
+     * ainda escrito sairia de novo lá.
+     */
+    public void revoked(Collection<TopicPartition> partitions) {
+        releaseLock.lock();
+        try {
+            lock.lock();
+            try {
+                partitions.forEach(this::drop);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            releaseLock.unlock();
+        }
+    }
+
+    public boolean isLoading(TopicPartition partition) {
+        lock.lock();
+        try {
+            return loading.containsKey(partition);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void accept(ConsumerRecord<String, ByteBuffer> record) {
+        final String id = record.key();
+        if (id == null) {
+            // sem key não há tombstone possível; o publisher sempre usa o id
+            log.error("Scheduled record without key ignored. topic={} partition={} offset={}",
+                    record.topic(), record.partition(), record.offset());
+            return;
+        }
+
+        final TopicPartition source = new TopicPartition(record.topic(), record.partition());
+        lock.lock();
+        try {
+            final Map<String, ScheduledNotification> buffer = loading.get(source);
+            if (record.value() == null) {
+                // tombstone: já foi liberada
+                if (buffer != null) {
+                    buffer.remove(id);
+                } else {
+                    cancel(id);
+                }
+                return;
+            }
+
+            final ScheduledNotification notification = toScheduled(record, source, id);
+            if (buffer != null) {
+                buffer.put(id, notification);
+            } else {
+                schedule(notification);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Republica tudo o que venceu, em lotes de {@code releaseBatchSize}.
+     *
+     * @return quantas mensagens foram confirmadas no tópico de destino
+     */
+    int releaseDue() {
+        int total = 0;
+        while (true) {
+            releaseLock.lock();
+            try {
+                final List<ScheduledNotification> batch = nextBatch();
+                if (batch.isEmpty()) {
+                    return total;
+                }
+                total += release(batch);
+            } finally {
+                releaseLock.unlock();
+            }
+        }
+    }
+
+    public int pending() {
+        lock.lock();
+        try {
+            int pending = wheel.size();
+            for (Map<String, ScheduledNotification> buffer : loading.values()) {
+                pending += buffer.size();
+            }
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (ticker == null) {
+            return;
+        }
+        ticker.shutdown();
+        try {
+            if (!ticker.awaitTermination(30, TimeUnit.SECONDS)) {
+                ticker.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            ticker.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void tick() {
+        try {
+            releaseDue();
+        } catch (RuntimeException ex) {
+            // o executor cancela a tarefa periódica se ela lançar
+            log.error("Scheduled release failed. error={}", ex.toString());
+        }
+    }
+
+    private List<ScheduledNotification> nextBatch() {
+        lock.lock();
+        try {
+            wheel.advance(clock.millis());
+            final List<ScheduledNotification> batch = new ArrayList<>();
+            ScheduledNotification next;
+            while (batch.size() < props.getReleaseBatchSize() && (next = wheel.pollExpired()) != null) {
+                byId.remove(next.id());
+                batch.add(next);
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int release(List<ScheduledNotification> batch) {
+        final List<CompletableFuture<?>> acks = new ArrayList<>(batch.size());
+        for (ScheduledNotification notification : batch) {
+            acks.add(send(new ProducerRecord<>(notification.targetTopic(), null, notification.key(),
+                    notification.payload(), notification.headers())));
+        }
+        kafkaTemplate.flush();
+        awaitAll(acks);
+
+        final List<ProducerRecord<String, byte[]>> tombstones = new ArrayList<>(batch.size());
+        final long retryAt = clock.millis() + props.getRetryDelay().toMillis();
+        lock.lock();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                final ScheduledNotification notification = batch.get(i);
+                if (!acks.get(i).isCompletedExceptionally()) {
+                    tombstones.add(new ProducerRecord<>(scheduledTopic, notification.source().partition(), notification.id(), null));
+                } else if (!byId.containsKey(notification.id())) {
+                    // sem ack: volta para o wheel, a não ser que um record novo do mesmo id tenha chegado
+                    schedule(notification.withDueAt(retryAt));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        final int releasedCount = tombstones.size();
+        released.increment(releasedCount);
+        if (releasedCount < batch.size()) {
+            failed.increment(batch.size() - releasedCount);
+            log.warn("Scheduled release not acknowledged, retrying in {}ms. failed={} batch={}",
+                    props.getRetryDelay().toMillis(), batch.size() - releasedCount, batch.size());
+        }
+        if (releasedCount == 0) {
+            return 0;
+        }
+
+        final List<CompletableFuture<?>> tombstoneAcks = new ArrayList<>(tombstones.size());
+        tombstones.forEach(tombstone -> tombstoneAcks.add(send(tombstone)));
+        kafkaTemplate.flush();
+        awaitAll(tombstoneAcks);
+        final long lost = tombstoneAcks.stream().filter(CompletableFuture::isCompletedExceptionally).count();
+        if (lost > 0) {
+            log.warn("Tombstone write failed; these notifications may be released again after a restart. count={}", lost);
+        }
+
+        log.info("Scheduled notifications released. count={}", releasedCount);
+        return releasedCount;
+    }
+
+    private CompletableFuture<?> send(ProducerRecord<String, byte[]> record) {
+        try {
+            return kafkaTemplate.send(record).orTimeout(props.getSendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private static void awaitAll(List<CompletableFuture<?>> futures) {
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .handle((ignored, ex) -> null)
+                .join();
+    }
+
+    // chamados com o lock
+
+    private void schedule(ScheduledNotification notification) {
+        cancel(notification.id());
+        byId.put(notification.id(), wheel.add(notification.dueAtMs(), notification));
+    }
+
+    private void cancel(String id) {
+        final TimingWheel.Entry<ScheduledNotification> entry = byId.remove(id);
+        if (entry != null) {
+            wheel.cancel(entry);
+        }
+    }
+
+    // varre o índice inteiro: só acontece em rebalance
+    private void drop(TopicPartition partition) {
+        loading.remove(partition);
+        final Iterator<TimingWheel.Entry<ScheduledNotification>> it = byId.values().iterator();
+        while (it.hasNext()) {
+            final TimingWheel.Entry<ScheduledNotification> entry = it.next();
+            if (entry.value().source().equals(partition)) {
+                wheel.cancel(entry);
+                it.remove();
+            }
+        }
+    }
+
+    private ScheduledNotification toScheduled(ConsumerRecord<String, ByteBuffer> record, TopicPartition source, String id) {
+        final String target = ScheduleHeaders.lastValue(record.headers(), ScheduleHeaders.TARGET_TOPIC);
+        final String key = ScheduleHeaders.lastValue(record.headers(), ScheduleHeaders.KEY);
+
+        final List<Header> headers = new ArrayList<>();
+        for (Header header : record.headers()) {
+            if (!ROUTING_HEADERS.contains(header.key())) {
+                headers.add(header);
+            }
+        }
+
+        final ByteBuffer value = record.value();
+        final byte[] payload = new byte[value.remaining()];
+        value.duplicate().get(payload);
+
+        return new ScheduledNotification(id, source, ScheduleHeaders.sendAt(record.headers()),
+                target != null ? target : defaultTopic, key, payload, headers);
+    }
+
+    private static final Set<String> ROUTING_HEADERS =
+            Set.of(ScheduleHeaders.SEND_AT, ScheduleHeaders.TARGET_TOPIC, ScheduleHeaders.KEY);
+
+    private record ScheduledNotification(
+            String id,
+            TopicPartition source,
+            long dueAtMs,
+            String targetTopic,
+            String key,
+            byte[] payload,
+            List<Header> headers  // os do record original, sem os de agendamento
+    ) {
+
+        ScheduledNotification withDueAt(long dueAt) {
+            return new ScheduledNotification(id, source, dueAt, targetTopic, key, payload, headers);
+        }
+    }
+}
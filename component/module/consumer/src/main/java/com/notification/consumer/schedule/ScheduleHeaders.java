@@ -0,0 +1,42 @@
+package com.notification.consumer.schedule;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Headers que o publisher põe nos records do tópico de agendamento.
+ */
+public final class ScheduleHeaders {
+
+    // epoch millis do sendAt
+    public static final String SEND_AT = "notification-send-at";
+    // tópico onde o record entra quando vence (o da prioridade da mensagem)
+    public static final String TARGET_TOPIC = "notification-target-topic";
+    // key que o record teria recebido no publish; ausente quando a estratégia não usa key
+    public static final String KEY = "notification-key";
+
+    private ScheduleHeaders() {
+    }
+
+    /**
+     * @return o sendAt, ou 0 (já vencido) se o header faltar ou for inválido: na dúvida entrega, não segura
+     */
+    public static long sendAt(Headers headers) {
+        final String value = lastValue(headers, SEND_AT);
+        if (value == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    public static String lastValue(Headers headers, String name) {
+        final Header header = headers.lastHeader(name);
+        return (header == null || header.value() == null) ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,44 @@
+package com.notification.consumer.schedule;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "app.consumer.schedule")
+public class ScheduleProperties {
+
+    // segura as mensagens com sendAt no futuro até vencerem
+    private boolean enabled = true;
+
+    // resolução do timing wheel: uma mensagem pode sair até um tick antes do sendAt
+    @NotNull
+    private Duration tick = Duration.ofMillis(100);
+
+    // buckets por nível; com tick de 100ms o nível 0 cobre 51s, o 1 cobre 7h e o 2 cobre 155 dias
+    @Min(2)
+    private int wheelSize = 512;
+
+    // máximo de mensagens republicadas por flush do producer
+    @Min(1)
+    private int releaseBatchSize = 500;
+
+    // espera pelo ack do tópico de destino; sem ack, a mensagem volta para o wheel
+    @NotNull
+    private Duration sendTimeout = Duration.ofSeconds(10);
+
+    // quanto a mensagem espera antes de nova tentativa depois de um release que falhou
+    @NotNull
+    private Duration retryDelay = Duration.ofSeconds(5);
+
+    // intervalo do evento de container ocioso, usado para notar o fim da carga de uma partição sem records novos
+    @NotNull
+    private Duration idleCheck = Duration.ofSeconds(5);
+}
@@ -0,0 +1,213 @@
+package com.notification.consumer.schedule;
+
+import java.util.PriorityQueue;
+
+/**
+ * Timing wheel hierárquico (o mesmo desenho do purgatório do Kafka). O nível 0 tem {@code wheelSize} buckets
+ * de {@code tickMs}; cada nível acima tem buckets do tamanho da volta inteira do nível de baixo, criados só
+ * quando algum prazo passa do alcance do nível atual.
+ *
+ * Inserir e cancelar são O(1): o item entra numa lista duplamente ligada do bucket do seu prazo. Só os buckets
+ * (no máximo {@code wheelSize} por nível) ficam numa fila por prazo, nunca os itens. Quando um bucket vence,
+ * os itens dele descem para um nível mais fino ou, se já venceram, vão para a lista de vencidos.
+ *
+ * Precisão de um tick: um item pode vencer até {@code tickMs} antes do prazo. Não é thread-safe.
+ */
+final class TimingWheel<T> {
+
+    private final PriorityQueue<Bucket<T>> buckets = new PriorityQueue<>((a, b) -> Long.compare(a.expiration, b.expiration));
+    private final Bucket<T> expired = new Bucket<>();
+    private final Level<T> root;
+    private int size;
+
+    TimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs < 1 || wheelSize < 2) {
+            throw new IllegalArgumentException("Invalid timing wheel: tickMs=" + tickMs + " wheelSize=" + wheelSize);
+        }
+        this.root = new Level<>(tickMs, wheelSize, startMs, buckets);
+    }
+
+    /**
+     * Agenda o valor para {@code dueAtMs}. Prazo já vencido vai direto para os vencidos.
+     */
+    Entry<T> add(long dueAtMs, T value) {
+        final Entry<T> entry = new Entry<>(dueAtMs, value);
+        place(entry);
+        size++;
+        return entry;
+    }
+
+    /**
+     * @return false se o item já tinha saído (vencido e retirado, ou cancelado antes)
+     */
+    boolean cancel(Entry<T> entry) {
+        if (entry.bucket == null) {
+            return false;
+        }
+        entry.bucket.remove(entry);
+        size--;
+        return true;
+    }
+
+    /**
+     * Avança o relógio até {@code nowMs}, movendo para os vencidos tudo cujo bucket venceu.
+     */
+    void advance(long nowMs) {
+        Bucket<T> bucket;
+        while ((bucket = buckets.peek()) != null && bucket.expiration <= nowMs) {
+            buckets.poll();
+            root.advanceClock(bucket.expiration);
+            bucket.expiration = -1;
+
+            Entry<T> entry;
+            while ((entry = bucket.pollFirst()) != null) {
+                place(entry);
+            }
+        }
+        root.advanceClock(nowMs);
+    }
+
+    /**
+     * Próximo item vencido, ou null. Na ordem em que venceram, não na ordem exata dos prazos.
+     */
+    T pollExpired() {
+        final Entry<T> entry = expired.pollFirst();
+        if (entry == null) {
+            return null;
+        }
+        size--;
+        return entry.value;
+    }
+
+    boolean hasExpired() {
+        return !expired.isEmpty();
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void place(Entry<T> entry) {
+        if (!root.add(entry)) {
+            expired.addLast(entry);
+        }
+    }
+
+    static final class Entry<T> {
+
+        private final long dueAtMs;
+        private final T value;
+        private Bucket<T> bucket;
+        private Entry<T> prev;
+        private Entry<T> next;
+
+        private Entry(long dueAtMs, T value) {
+            this.dueAtMs = dueAtMs;
+            this.value = value;
+        }
+
+        T value() {
+            return value;
+        }
+    }
+
+    private static final class Level<T> {
+
+        private final long tickMs;
+        private final int wheelSize;
+        private final long interval;
+        private final Bucket<T>[] slots;
+        private final PriorityQueue<Bucket<T>> queue;
+        private long currentTime;
+        private Level<T> overflow;
+
+        @SuppressWarnings("unchecked")
+        Level(long tickMs, int wheelSize, long startMs, PriorityQueue<Bucket<T>> queue) {
+            this.tickMs = tickMs;
+            this.wheelSize = wheelSize;
+            this.interval = tickMs * wheelSize;
+            this.slots = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                slots[i] = new Bucket<>();
+            }
+            this.queue = queue;
+            this.currentTime = startMs - (startMs % tickMs);
+        }
+
+        /**
+         * @return false se o prazo já está dentro do tick atual (vencido)
+         */
+        boolean add(Entry<T> entry) {
+            final long due = entry.dueAtMs;
+            if (due < currentTime + tickMs) {
+                return false;
+            }
+            if (due < currentTime + interval) {
+                final long virtualId = due / tickMs;
+                final Bucket<T> bucket = slots[(int) (virtualId % wheelSize)];
+                bucket.addLast(entry);
+                // bucket reaproveitado numa volta nova do nível: volta para a fila com o prazo novo
+                final long expiration = virtualId * tickMs;
+                if (bucket.expiration != expiration) {
+                    bucket.expiration = expiration;
+                    queue.add(bucket);
+                }
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Level<>(interval, wheelSize, currentTime, queue);
+            }
+            return overflow.add(entry);
+        }
+
+        void advanceClock(long timeMs) {
+            if (timeMs >= currentTime + tickMs) {
+                currentTime = timeMs - (timeMs % tickMs);
+                if (overflow != null) {
+                    overflow.advanceClock(currentTime);
+                }
+            }
+        }
+    }
+
+    private static final class Bucket<T> {
+
+        // sentinela da lista circular
+        private final Entry<T> head = new Entry<>(0, null);
+        private long expiration = -1;
+
+        Bucket() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        void addLast(Entry<T> entry) {
+            entry.bucket = this;
+            entry.prev = head.prev;
+            entry.next = head;
+            head.prev.next = entry;
+            head.prev = entry;
+        }
+
+        void remove(Entry<T> entry) {
+            entry.prev.next = entry.next;
+            entry.next.prev = entry.prev;
+            entry.prev = null;
+            entry.next = null;
+            entry.bucket = null;
+        }
+
+        Entry<T> pollFirst() {
+            final Entry<T> first = head.next;
+            if (first == head) {
+                return null;
+            }
+            remove(first);
+            return first;
+        }
+
+        boolean isEmpty() {
+            return head.next == head;
+        }
+    }
+}
@@ -1,9 +1,30 @@
 package com.notification.consumer.service;
 
 import com.notification.consumer.model.NotificationMessage;
+import com.notification.consumer.model.ProcessingFailure;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public interface NotificationConsumerService {
 
     void process(NotificationMessage message);
 
+    /**
+     * Processa um lote e devolve só as mensagens que falharam; as demais são consideradas entregues
+     * e não devem ser reprocessadas. Implementações de entrega podem sobrescrever para trabalhar o
+     * lote de uma vez (conexão reaproveitada, pipelining etc).
+     */
+    default List<ProcessingFailure> processBatch(List<NotificationMessage> messages) {
+        final List<ProcessingFailure> failures = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                process(messages.get(i));
+            } catch (Exception ex) {
+                failures.add(new ProcessingFailure(i, messages.get(i), ex));
+            }
+        }
+        return failures;
+    }
+
 }
@@ -1,22 +1,88 @@
 package com.notification.consumer.service.impl;
 
+import com.notification.consumer.delivery.EmailDeliveryException;
+import com.notification.consumer.delivery.EmailSendFailure;
+import com.notification.consumer.delivery.EmailSender;
+import com.notification.consumer.model.EmailMessage;
 import com.notification.consumer.model.NotificationMessage;
+import com.notification.consumer.model.ProcessingFailure;
+import com.notification.consumer.retry.NonRetryableException;
 import com.notification.consumer.service.NotificationConsumerService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Slf4j
 @Service
 public class NotificationConsumerServiceImpl implements NotificationConsumerService {
 
+    private final EmailSender emailSender;
+
+    public NotificationConsumerServiceImpl(EmailSender emailSender) {
+        this.emailSender = emailSender;
+    }
+
     @Override
     public void process(NotificationMessage message) {
-        // Aqui é o "business processing". No coding test basta demonstrar o pipeline.
+        validate(message);
+        try {
+            emailSender.send(toEmail(message));
+        } catch (EmailDeliveryException ex) {
+            throw classify(ex);
+        }
+
+        log.info("Notification processed: id={}, type={}, to={}", message.id(), message.type(), message.to());
+    }
+
+    /**
+     * Valida cada mensagem e manda as válidas de uma vez para o sender, que reaproveita a sessão SMTP no lote.
+     */
+    @Override
+    public List<ProcessingFailure> processBatch(List<NotificationMessage> messages) {
+        final List<ProcessingFailure> failures = new ArrayList<>();
+        final List<Integer> positions = new ArrayList<>(messages.size());
+        final List<EmailMessage> emails = new ArrayList<>(messages.size());
+
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                validate(messages.get(i));
+                emails.add(toEmail(messages.get(i)));
+                positions.add(i);
+            } catch (Exception ex) {
+                failures.add(new ProcessingFailure(i, messages.get(i), ex));
+            }
+        }
+
+        for (EmailSendFailure failure : emailSender.sendAll(emails)) {
+            final int index = positions.get(failure.index());
+            failures.add(new ProcessingFailure(index, messages.get(index), classify(failure.cause())));
+        }
+        failures.sort((a, b) -> Integer.compare(a.index(), b.index()));
+        return failures;
+    }
+
+    private static void validate(NotificationMessage message) {
+        if (message.to() == null || message.to().indexOf('@') <= 0) {
+            // repetir não conserta um endereço inválido: vai direto para a DLQ
+            throw new NonRetryableException("Invalid recipient: " + message.to());
+        }
         // Regra simples para simular falha e exercitar retry/dlq:
         if (message.subject() != null && message.subject().toLowerCase().contains("fail")) {
             throw new IllegalStateException("Simulated processing failure");
         }
+    }
 
-        log.info("Notification processed: id={}, type={}, to={}", message.id(), message.type(), message.to());
+    private static EmailMessage toEmail(NotificationMessage message) {
+        return new EmailMessage(message.id(), message.to(), message.subject(), message.body());
+    }
+
+    // 5xx do servidor (destinatário inexistente, conteúdo recusado) não muda numa nova tentativa
+    private static RuntimeException classify(RuntimeException ex) {
+        if (ex instanceof EmailDeliveryException delivery && delivery.isPermanent()) {
+            return new NonRetryableException(delivery.getMessage(), delivery);
+        }
+        return ex;
     }
 }
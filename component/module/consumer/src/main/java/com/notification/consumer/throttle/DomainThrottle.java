@@ -0,0 +1,136 @@
+package com.notification.consumer.throttle;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limite de vazão por domínio do destinatário, para não estourar o throttling dos provedores grandes
+ * com rajadas num domínio só.
+ *
+ * Um {@link TokenBucket} por domínio, criado no primeiro uso. Buckets ociosos há mais de {@code idleTimeout}
+ * saem do mapa numa varredura feita de tempos em tempos pelo próprio tryAcquire; um bucket recriado nasce
+ * cheio, o mesmo estado em que o antigo estaria depois de tanto tempo parado.
+ */
+@Slf4j
+public class DomainThrottle {
+
+    static final String OTHER = "other";
+    static final String UNKNOWN = "unknown";
+
+    private final DomainThrottleProperties props;
+    private final Clock clock;
+    private final long idleMillis;
+    private final long minDeferralMillis;
+    private final Map<String, DomainThrottleProperties.Limit> limits = new HashMap<>();
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepAt;
+
+    private final MeterRegistry meterRegistry;
+    // tag de métrica -> contadores; limitado a maxTaggedDomains fora os domínios configurados
+    private final ConcurrentHashMap<String, DomainMeters> meters = new ConcurrentHashMap<>();
+
+    public DomainThrottle(DomainThrottleProperties props, MeterRegistry meterRegistry) {
+        this(props, meterRegistry, Clock.systemUTC());
+    }
+
+    DomainThrottle(DomainThrottleProperties props, MeterRegistry meterRegistry, Clock clock) {
+        this.props = props;
+        this.clock = clock;
+        this.idleMillis = props.getIdleTimeout().toMillis();
+        this.minDeferralMillis = props.getMinDeferral().toMillis();
+        props.getDomains().forEach((domain, limit) -> limits.put(domain.toLowerCase(Locale.ROOT), limit));
+        this.nextSweepAt = new AtomicLong(clock.millis() + idleMillis);
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("notification.consumer.throttle.domains", buckets, Map::size)
+                .description("Recipient domains with a live token bucket")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Gasta um token do domínio do destinatário. Sem token disponível, reserva o próximo livre: a mensagem
+     * adiada não pede de novo quando volta (ver {@link com.notification.consumer.retry.RetryHeaders#THROTTLED_UNTIL}).
+     *
+     * @return {@link Duration#ZERO} se pode entregar agora; senão por quanto tempo adiar (no mínimo min-deferral)
+     */
+    public Duration tryAcquire(String recipient) {
+        final long now = clock.millis();
+        sweepIfDue(now);
+
+        final String domain = domainOf(recipient);
+        final long wait = buckets
+                .computeIfAbsent(domain, d -> new TokenBucket(limits.getOrDefault(d, props.getDefaultLimit()), now))
+                .tryAcquire(now);
+        if (wait == 0) {
+            return Duration.ZERO;
+        }
+
+        metersFor(domain).deferred.increment();
+        return Duration.ofMillis(Math.max(wait, minDeferralMillis));
+    }
+
+    public void delivered(String recipient) {
+        metersFor(domainOf(recipient)).delivered.increment();
+    }
+
+    int trackedDomains() {
+        return buckets.size();
+    }
+
+    static String domainOf(String recipient) {
+        final int at = recipient == null ? -1 : recipient.lastIndexOf('@');
+        if (at < 0 || at == recipient.length() - 1) {
+            return UNKNOWN;
+        }
+        return recipient.substring(at + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private void sweepIfDue(long now) {
+        final long due = nextSweepAt.get();
+        // um thread só varre; os outros seguem
+        if (now < due || !nextSweepAt.compareAndSet(due, now + idleMillis)) {
+            return;
+        }
+        final int before = buckets.size();
+        buckets.values().removeIf(bucket -> now - bucket.lastUsedAt() > idleMillis);
+        log.debug("Evicted idle domain buckets: {} -> {}", before, buckets.size());
+    }
+
+    private DomainMeters metersFor(String domain) {
+        final DomainMeters existing = meters.get(domain);
+        if (existing != null) {
+            return existing;
+        }
+        final String tag = limits.containsKey(domain) || meters.size() < props.getMaxTaggedDomains() ? domain : OTHER;
+        return meters.computeIfAbsent(tag, t -> new DomainMeters(t, meterRegistry));
+    }
+
+    private static final class DomainMeters {
+
+        private final Counter delivered;
+        private final Counter deferred;
+
+        DomainMeters(String domain, MeterRegistry meterRegistry) {
+            this.delivered = Counter.builder("notification.consumer.throttle.messages")
+                    .description("Messages per recipient domain, delivered or deferred by the rate limit")
+                    .tag("domain", domain)
+                    .tag("result", "delivered")
+                    .register(meterRegistry);
+            this.deferred = Counter.builder("notification.consumer.throttle.messages")
+                    .description("Messages per recipient domain, delivered or deferred by the rate limit")
+                    .tag("domain", domain)
+                    .tag("result", "deferred")
+                    .register(meterRegistry);
+        }
+    }
+}
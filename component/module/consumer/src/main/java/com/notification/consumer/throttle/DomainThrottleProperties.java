@@ -0,0 +1,66 @@
+package com.notification.consumer.throttle;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "app.consumer.throttle")
+public class DomainThrottleProperties {
+
+    // só vale no modo de retry topics: a mensagem acima do limite espera no tópico de atraso;
+    // no modo blocking o limite não é aplicado e as mensagens saem sem limite por domínio
+    private boolean enabled = true;
+
+    // domínios sem entrada em domains
+    @Valid
+    @NotNull
+    private Limit defaultLimit = new Limit(100, 200);
+
+    // domínio do destinatário (minúsculo) -> limite próprio
+    @Valid
+    private Map<String, Limit> domains = new HashMap<>();
+
+    // bucket sem uso há mais tempo que isso sai do mapa; deve cobrir o tempo de encher o bucket (burst / rate)
+    @NotNull
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    // espera mínima no tópico de atraso, para a mensagem não voltar antes do bucket ter folga de verdade
+    @NotNull
+    private Duration minDeferral = Duration.ofSeconds(1);
+
+    // domínios com tag própria nas métricas; os demais (fora de domains) somam em domain=other
+    @Min(0)
+    private int maxTaggedDomains = 100;
+
+    @Getter
+    @Setter
+    public static class Limit {
+
+        @DecimalMin("0.001")
+        private double ratePerSecond;
+
+        // quantas mensagens seguidas o domínio aceita depois de ocioso
+        @Min(1)
+        private int burst;
+
+        public Limit() {
+        }
+
+        public Limit(double ratePerSecond, int burst) {
+            this.ratePerSecond = ratePerSecond;
+            this.burst = burst;
+        }
+    }
+}
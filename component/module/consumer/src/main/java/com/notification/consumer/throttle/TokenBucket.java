@@ -0,0 +1,51 @@
+package com.notification.consumer.throttle;
+
+/**
+ * Token bucket de um domínio: enche a {@code ratePerSecond} até {@code burst} tokens; cada entrega gasta um.
+ * O reabastecimento é calculado na consulta, sem timer.
+ *
+ * Sem token, a mensagem reserva o próximo: o saldo fica negativo e a k-ésima adiada espera k / rate, em vez de
+ * todas voltarem juntas no mesmo instante e brigarem pelo mesmo token.
+ */
+final class TokenBucket {
+
+    private final double tokensPerMilli;
+    private final double capacity;
+
+    private double tokens;
+    private long refilledAt;
+    private volatile long lastUsedAt;
+
+    TokenBucket(DomainThrottleProperties.Limit limit, long now) {
+        this.tokensPerMilli = limit.getRatePerSecond() / 1000.0;
+        this.capacity = limit.getBurst();
+        this.tokens = capacity;
+        this.refilledAt = now;
+        this.lastUsedAt = now;
+    }
+
+    /**
+     * Gasta (ou reserva) um token.
+     *
+     * @return 0 se o token foi consumido agora; senão os millis até o token reservado para esta mensagem
+     */
+    synchronized long tryAcquire(long now) {
+        if (now > refilledAt) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerMilli);
+            refilledAt = now;
+        }
+        tokens -= 1;
+        if (tokens >= 0) {
+            lastUsedAt = now;
+            return 0;
+        }
+        final long wait = Math.max(1, (long) Math.ceil(-tokens / tokensPerMilli));
+        // com reservas pendentes o bucket não é ocioso: a varredura não pode zerar a dívida
+        lastUsedAt = now + wait;
+        return wait;
+    }
+
+    long lastUsedAt() {
+        return lastUsedAt;
+    }
+}
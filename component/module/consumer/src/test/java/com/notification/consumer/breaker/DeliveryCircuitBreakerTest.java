@@ -0,0 +1,212 @@
+package com.notification.consumer.breaker;
+
+import com.notification.consumer.retry.NonRetryableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeliveryCircuitBreakerTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> transitions = new ArrayList<>();
+    private CircuitBreakerProperties props;
+    private DeliveryCircuitBreaker breaker;
+
+    @BeforeEach
+    void setup() {
+        props = new CircuitBreakerProperties();
+        props.setWindowSize(4);
+        props.setMinimumCalls(4);
+        props.setFailureRateThreshold(0.5);
+        props.setOpenDuration(Duration.ofSeconds(10));
+        props.setMaxOpenDuration(Duration.ofSeconds(25));
+        props.setHalfOpenProbes(2);
+        props.setRejectedRedelivery(Duration.ofMillis(500));
+        breaker = new DeliveryCircuitBreaker(props, failure -> !(failure instanceof NonRetryableException),
+                meterRegistry, clock);
+        breaker.addListener((from, to, openFor) -> transitions.add(from + "->" + to + ":" + openFor.toSeconds()));
+    }
+
+    @Test
+    void onFailure_shouldOpen_whenTheFailureRateReachesTheThreshold() {
+        call(false);
+        call(true);
+        call(false);
+        assertEquals(DeliveryCircuitBreaker.State.CLOSED, breaker.state());
+
+        // 2 de 4 = 50%
+        call(true);
+
+        assertEquals(DeliveryCircuitBreaker.State.OPEN, breaker.state());
+        assertEquals(List.of("CLOSED->OPEN:10"), transitions);
+        CircuitOpenException refusal = assertThrows(CircuitOpenException.class, breaker::acquire);
+        assertEquals(Duration.ofSeconds(10), refusal.retryAfter());
+        assertEquals(1.0, meterRegistry.get("notification.consumer.breaker.rejected").counter().count());
+        assertEquals(2.0, meterRegistry.get("notification.consumer.breaker.state").gauge().value());
+    }
+
+    @Test
+    void onFailure_shouldIgnoreFailuresThatSayNothingAboutTheRelay() {
+        for (int i = 0; i < 10; i++) {
+            breaker.acquire();
+            breaker.onFailure(new NonRetryableException("Invalid recipient"));
+        }
+
+        assertEquals(DeliveryCircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void acquire_shouldLetOnlyTheProbesThrough_thenCloseWhenTheyAllSucceed() {
+        open();
+        clock.advance(Duration.ofSeconds(10));
+
+        breaker.acquire();
+        breaker.acquire();
+        assertEquals(DeliveryCircuitBreaker.State.HALF_OPEN, breaker.state());
+        CircuitOpenException refusal = assertThrows(CircuitOpenException.class, breaker::acquire);
+        assertEquals(Duration.ofMillis(500), refusal.retryAfter());
+
+        breaker.onSuccess();
+        // o slot do probe concluído não volta: o half-open testa no máximo halfOpenProbes entregas
+        assertThrows(CircuitOpenException.class, breaker::acquire);
+        breaker.onSuccess();
+
+        assertEquals(DeliveryCircuitBreaker.State.CLOSED, breaker.state());
+        assertEquals(List.of("CLOSED->OPEN:10", "OPEN->HALF_OPEN:0", "HALF_OPEN->CLOSED:0"), transitions);
+
+        // janela zerada ao fechar: uma falha só não reabre
+        call(true);
+        assertEquals(DeliveryCircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void onFailure_shouldReopenWithALongerPause_whenAProbeFails() {
+        open();
+
+        clock.advance(Duration.ofSeconds(10));
+        call(true);
+        assertEquals(DeliveryCircuitBreaker.State.OPEN, breaker.state());
+        assertEquals(Duration.ofSeconds(20), breaker.retryAfter());
+
+        clock.advance(Duration.ofSeconds(20));
+        call(true);
+        // dobraria para 40s; o teto é 25s
+        assertEquals(Duration.ofSeconds(25), breaker.retryAfter());
+
+        clock.advance(Duration.ofSeconds(25));
+        call(false);
+        call(false);
+        assertEquals(DeliveryCircuitBreaker.State.CLOSED, breaker.state());
+
+        open();
+        assertEquals(Duration.ofSeconds(10), breaker.retryAfter());
+        assertTrue(transitions.contains("HALF_OPEN->OPEN:25"));
+    }
+
+    @Test
+    void ensureNotOpen_shouldRefuseDuringThePause_withoutTakingAProbe() {
+        open();
+        clock.advance(Duration.ofSeconds(4));
+
+        CircuitOpenException refusal = assertThrows(CircuitOpenException.class, breaker::ensureNotOpen);
+        assertEquals(Duration.ofSeconds(6), refusal.retryAfter());
+
+        clock.advance(Duration.ofSeconds(6));
+        breaker.ensureNotOpen();
+        // a pausa acabou, mas quem leva ao half-open é a entrega, não a verificação
+        assertEquals(DeliveryCircuitBreaker.State.OPEN, breaker.state());
+        call(false);
+        call(false);
+        assertEquals(DeliveryCircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void onBatchOutcome_shouldCountTheWholeBatchAsOneProbe() {
+        open();
+        clock.advance(Duration.ofSeconds(10));
+
+        breaker.acquire();
+        breaker.onBatchOutcome(50, List.of());
+
+        // 50 entregas com uma permissão não fecham o half-open de 2 probes
+        assertEquals(DeliveryCircuitBreaker.State.HALF_OPEN, breaker.state());
+        breaker.acquire();
+        breaker.onBatchOutcome(50, List.of());
+        assertEquals(DeliveryCircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void onBatchOutcome_shouldFail_onlyWhenTheBatchFailureRateReachesTheThreshold() {
+        List<Exception> oneRelayFailure = List.of(new IllegalStateException("relay down"));
+        List<Exception> halfRelayFailures = List.of(new IllegalStateException("relay down"),
+                new IllegalStateException("relay down"));
+        List<Exception> invalidRecipients = List.of(new NonRetryableException("Invalid recipient"),
+                new NonRetryableException("Invalid recipient"), new NonRetryableException("Invalid recipient"));
+
+        for (int i = 0; i < 4; i++) {
+            breaker.acquire();
+            breaker.onBatchOutcome(4, i % 2 == 0 ? oneRelayFailure : invalidRecipients);
+        }
+        assertEquals(DeliveryCircuitBreaker.State.CLOSED, breaker.state());
+
+        // cada lote com metade das entregas falhando no relay é uma chamada com falha: 2 de 4 na janela
+        for (int i = 0; i < 2; i++) {
+            breaker.acquire();
+            breaker.onBatchOutcome(4, halfRelayFailures);
+        }
+        assertEquals(DeliveryCircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            call(true);
+        }
+        assertEquals(DeliveryCircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    private void call(boolean fail) {
+        breaker.acquire();
+        if (fail) {
+            breaker.onFailure(new IllegalStateException("relay down"));
+        } else {
+            breaker.onSuccess();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.notification.consumer.breaker;
+
+import com.notification.consumer.retry.RetryPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ListenerPauseControllerTest {
+
+    @Mock
+    private KafkaListenerEndpointRegistry registry;
+
+    @Mock
+    private ScheduledExecutorService timer;
+
+    @Mock
+    private MessageListenerContainer delivery;
+
+    @Mock
+    private MessageListenerContainer schedule;
+
+    @Test
+    void onStateChange_shouldPauseDeliveryContainers_andResumeThemForTheProbes() {
+        when(delivery.getListenerId()).thenReturn(ListenerPauseController.DELIVERY_LISTENER_PREFIX);
+        when(schedule.getListenerId()).thenReturn("notification-schedule");
+        when(registry.getListenerContainers()).thenReturn(List.of(delivery, schedule));
+
+        CircuitBreakerProperties props = new CircuitBreakerProperties();
+        props.setWindowSize(1);
+        props.setMinimumCalls(1);
+        props.setOpenDuration(Duration.ofSeconds(10));
+        DeliveryCircuitBreaker breaker = new DeliveryCircuitBreaker(props, RetryPolicy.of(1, 0)::isRetryable,
+                new SimpleMeterRegistry());
+        ListenerPauseController controller = new ListenerPauseController(breaker, registry, timer);
+
+        breaker.acquire();
+        breaker.onFailure(new IllegalStateException("relay down"));
+
+        verify(delivery).pause();
+        verify(schedule, never()).pause();
+        ArgumentCaptor<Runnable> resume = ArgumentCaptor.forClass(Runnable.class);
+        verify(timer).schedule(resume.capture(), eq(10_000L), eq(TimeUnit.MILLISECONDS));
+
+        resume.getValue().run();
+        verify(delivery).resume();
+        verify(schedule, never()).resume();
+
+        controller.close();
+        verify(timer).shutdownNow();
+    }
+
+    @Test
+    void onStateChange_shouldIgnoreTransitionsOtherThanOpen() {
+        ListenerPauseController controller = new ListenerPauseController(
+                new DeliveryCircuitBreaker(new CircuitBreakerProperties(), failure -> true, new SimpleMeterRegistry()),
+                registry, timer);
+
+        controller.onStateChange(DeliveryCircuitBreaker.State.HALF_OPEN, DeliveryCircuitBreaker.State.CLOSED, Duration.ZERO);
+
+        verify(registry, never()).getListenerContainers();
+        verify(timer, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+}
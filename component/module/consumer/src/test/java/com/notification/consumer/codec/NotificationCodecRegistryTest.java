@@ -0,0 +1,173 @@
+package com.notification.consumer.codec;
+
+import com.notification.consumer.model.DecodedNotification;
+import com.notification.consumer.model.NotificationMessage;
+import com.notification.consumer.model.NotificationPriority;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NotificationCodecRegistryTest {
+
+    private final NotificationCodecRegistry registry = new NotificationCodecRegistry();
+
+    @Test
+    void decode_shouldDefaultToJson_whenFormatHeaderIsMissing() {
+        String json = """
+                {"id":"id-1","type":"EMAIL","to":"a@b.com","subject":"s","body":"b","createdAt":"2026-01-01T00:00:00Z"}
+                """;
+
+        NotificationMessage msg = registry.decode(new RecordHeaders(), utf8(json));
+
+        assertEquals("id-1", msg.id());
+        assertEquals(Instant.parse("2026-01-01T00:00:00Z"), msg.createdAt());
+    }
+
+    @Test
+    void decode_shouldIgnoreUnknownJsonFields() {
+        String json = """
+                {"id":"id-1","type":"EMAIL","to":"a@b.com","subject":"s","body":"b","somethingNew":1}
+                """;
+
+        assertEquals("id-1", registry.decode(new RecordHeaders(), utf8(json)).id());
+    }
+
+    @Test
+    void decode_shouldUseBinaryCodec_whenHeaderSaysBinary() {
+        NotificationMessage msg = new NotificationMessage(
+                UUID.randomUUID().toString(), "EMAIL", "a@b.com", "s", "b", Instant.now()
+        );
+
+        NotificationMessage decoded = registry.decode(
+                headers("binary", "1"), ByteBuffer.wrap(new BinaryNotificationCodec().encode(msg)));
+
+        assertEquals(msg, decoded);
+    }
+
+    @Test
+    void decode_shouldReadPriority_andFallBackToNormal() {
+        NotificationMessage high = new NotificationMessage(
+                UUID.randomUUID().toString(), "EMAIL", "a@b.com", "s", "b", Instant.now(), NotificationPriority.HIGH
+        );
+
+        assertEquals(high, registry.decode(headers("binary", "2"), ByteBuffer.wrap(new BinaryNotificationCodec().encode(high))));
+        assertEquals(NotificationPriority.LOW, registry.decode(new RecordHeaders(),
+                utf8("{\"id\":\"id-1\",\"priority\":\"LOW\"}")).priority());
+        // sem o campo (publisher antigo) ou com um valor que este consumer não conhece
+        assertEquals(NotificationPriority.NORMAL, registry.decode(new RecordHeaders(), utf8("{\"id\":\"id-1\"}")).priority());
+        assertEquals(NotificationPriority.NORMAL, registry.decode(new RecordHeaders(),
+                utf8("{\"id\":\"id-1\",\"priority\":\"URGENT\"}")).priority());
+    }
+
+    @Test
+    void decode_shouldReadSendAt() {
+        Instant sendAt = Instant.parse("2026-03-01T09:30:00.250Z");
+        NotificationMessage scheduled = new NotificationMessage(
+                UUID.randomUUID().toString(), "EMAIL", "a@b.com", "s", "b", Instant.now(), NotificationPriority.LOW, sendAt
+        );
+
+        assertEquals(scheduled, registry.decode(headers("binary", "3"),
+                ByteBuffer.wrap(new BinaryNotificationCodec().encode(scheduled))));
+        assertEquals(sendAt, registry.decode(new RecordHeaders(),
+                utf8("{\"id\":\"id-1\",\"sendAt\":\"2026-03-01T09:30:00.250Z\"}")).sendAt());
+    }
+
+    @Test
+    void decode_shouldRejectNewerSchemaVersionsAndUnknownFormats() {
+        ByteBuffer payload = utf8("{}");
+
+        assertThrows(IllegalArgumentException.class, () -> registry.decode(headers("json", "99"), payload));
+        assertThrows(IllegalArgumentException.class, () -> registry.decode(headers("avro", "1"), payload));
+    }
+
+    @Test
+    void describe_shouldBase64EncodeBinaryPayloads() {
+        assertTrue(registry.describe(headers("binary", "1"), ByteBuffer.wrap(new byte[]{1, 2, 3})).startsWith("base64:"));
+        assertEquals("{}", registry.describe(new RecordHeaders(), utf8("{}")));
+    }
+
+    @Test
+    void decode_shouldReadSlicedAndDirectBuffers_withoutMovingPosition() {
+        NotificationMessage msg = new NotificationMessage(
+                UUID.randomUUID().toString(), "EMAIL", "a@b.com", "Olá", "b", Instant.now()
+        );
+        byte[] encoded = new BinaryNotificationCodec().encode(msg);
+
+        // buffer do fetch: o record é só uma fatia de um array maior
+        byte[] fetch = new byte[encoded.length + 10];
+        System.arraycopy(encoded, 0, fetch, 5, encoded.length);
+        ByteBuffer slice = ByteBuffer.wrap(fetch, 5, encoded.length).slice();
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(encoded.length).put(encoded).flip();
+
+        assertEquals(msg, registry.decode(headers("binary", "1"), slice));
+        assertEquals(msg, registry.decode(headers("binary", "1"), direct));
+        assertEquals(0, direct.position());
+
+        byte[] json = "xx{\"id\":\"id-1\",\"subject\":\"Olá\"}yy".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer jsonSlice = ByteBuffer.wrap(json, 2, json.length - 4).slice();
+        assertEquals("Olá", registry.decode(new RecordHeaders(), jsonSlice).subject());
+        assertEquals(0, jsonSlice.position());
+    }
+
+    @Test
+    void decodeRouting_shouldReadRoutingFieldsFirst_andDeferTheBody() {
+        // body inválido depois dos campos de roteamento: só falha quando a mensagem é montada
+        String json = """
+                {"id":"id-1","meta":{"a":[1,2]},"type":"EMAIL","to":"a@b.com","body":
+                """;
+
+        DecodedNotification decoded = registry.decodeRouting(new RecordHeaders(), utf8(json));
+
+        assertEquals("id-1", decoded.id());
+        assertEquals("EMAIL", decoded.type());
+        assertEquals("a@b.com", decoded.to());
+        assertFalse(decoded.isMaterialized());
+        assertThrows(IllegalArgumentException.class, decoded::message);
+    }
+
+    @Test
+    void decodeRouting_shouldMaterializeTheSameMessageAsDecode() {
+        NotificationMessage msg = new NotificationMessage(
+                UUID.randomUUID().toString(), "EMAIL", "a@b.com", "s", "b", Instant.now()
+        );
+        byte[] encoded = new BinaryNotificationCodec().encode(msg);
+
+        DecodedNotification decoded = registry.decodeRouting(headers("binary", "1"), ByteBuffer.wrap(encoded));
+        assertEquals(msg.id(), decoded.id());
+        assertEquals(msg, decoded.message());
+        assertTrue(decoded.isMaterialized());
+
+        String json = """
+                {"body":"b","subject":"s","to":"a@b.com","type":"EMAIL","id":"id-1"}
+                """;
+        assertEquals(registry.decode(new RecordHeaders(), utf8(json)),
+                registry.decodeRouting(new RecordHeaders(), utf8(json)).message());
+
+        // binário truncado no body: roteamento lido, falha só na materialização
+        DecodedNotification truncated = registry.decodeRouting(headers("binary", "1"),
+                ByteBuffer.wrap(encoded, 0, encoded.length - 3).slice());
+        assertEquals("a@b.com", truncated.to());
+        assertThrows(IllegalArgumentException.class, truncated::message);
+    }
+
+    private static ByteBuffer utf8(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static RecordHeaders headers(String format, String version) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(NotificationCodecHeaders.FORMAT, format.getBytes(StandardCharsets.UTF_8));
+        headers.add(NotificationCodecHeaders.SCHEMA_VERSION, version.getBytes(StandardCharsets.UTF_8));
+        return headers;
+    }
+}
@@ -0,0 +1,148 @@
+package com.notification.consumer.concurrency;
+
+import com.notification.consumer.retry.NonRetryableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setup() {
+        ConcurrencyLimitProperties props = new ConcurrencyLimitProperties();
+        props.setInitialLimit(4);
+        props.setMinLimit(1);
+        props.setMaxLimit(8);
+        props.setBackoffRatio(0.5);
+        props.setRttTolerance(2.0);
+        props.setSampleInterval(Duration.ofSeconds(10));
+        limiter = new AdaptiveConcurrencyLimiter(props, failure -> !(failure instanceof NonRetryableException),
+                meterRegistry, nanos::get);
+    }
+
+    @Test
+    void onSuccess_shouldRaiseTheLimit_whileTheLimitIsInUse() {
+        // +1/limite por entrega; no fim de cada rodada as últimas devoluções já não encontram o limite em uso
+        for (int round = 0; round < 4; round++) {
+            round(limiter.limit(), 10);
+        }
+
+        assertEquals(6, limiter.limit());
+        assertEquals(10.0, limiter.baselineRtt(TimeUnit.MILLISECONDS));
+        assertEquals(6.0, meterRegistry.get("notification.consumer.concurrency.limit").gauge().value());
+    }
+
+    @Test
+    void onSuccess_shouldKeepTheLimit_whenDemandDoesNotUseIt() {
+        for (int i = 0; i < 20; i++) {
+            round(1, 10);
+        }
+
+        assertEquals(4, limiter.limit());
+    }
+
+    @Test
+    void onSuccess_shouldBackOff_whenLatencyExceedsTheTolerance() {
+        round(4, 10);
+        assertEquals(4, limiter.limit());
+
+        // 4 entregas lentas da mesma rajada: uma redução só, não quatro
+        round(4, 50);
+
+        assertEquals(2, limiter.limit());
+        assertEquals(4.0, meterRegistry.get("notification.consumer.concurrency.congested").counter().count());
+
+        // passado um RTT, a próxima lenta reduz de novo
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        round(1, 50);
+        assertEquals(1, limiter.limit());
+    }
+
+    @Test
+    void onFailure_shouldBackOffOnlyForFailuresThatSignalCongestion() {
+        round(1, 10);
+
+        long acquiredAt = limiter.acquire();
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(5));
+        limiter.onFailure(acquiredAt, new NonRetryableException("Invalid recipient"));
+        assertEquals(4, limiter.limit());
+
+        acquiredAt = limiter.acquire();
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(5));
+        limiter.onFailure(acquiredAt, new IllegalStateException("relay timeout"));
+        assertEquals(2, limiter.limit());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void onFailure_shouldBackOff_whenNanoTimeIsNegative() {
+        nanos.set(-TimeUnit.DAYS.toNanos(365));
+        setup();
+        round(1, 10);
+
+        long acquiredAt = limiter.acquire();
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(5));
+        limiter.onFailure(acquiredAt, new IllegalStateException("relay timeout"));
+
+        assertEquals(2, limiter.limit());
+    }
+
+    @Test
+    void sample_shouldPublishThroughput_andLetTheBaselineRiseSlowly() {
+        round(2, 10);
+        // relay passou a responder em 40ms: a base sobe no máximo 10% por intervalo
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        round(2, 40);
+        assertEquals(10.0, limiter.baselineRtt(TimeUnit.MILLISECONDS));
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        round(2, 40);
+
+        assertEquals(11.0, limiter.baselineRtt(TimeUnit.MILLISECONDS));
+        assertTrue(limiter.throughput() > 0);
+        assertEquals(limiter.throughput(), meterRegistry.get("notification.consumer.concurrency.throughput").gauge().value());
+    }
+
+    @Test
+    void acquire_shouldWaitForAPermit_whenTheLimitIsInUse() throws Exception {
+        long[] permits = new long[4];
+        for (int i = 0; i < permits.length; i++) {
+            permits[i] = limiter.acquire();
+        }
+
+        CompletableFuture<Long> waiting = CompletableFuture.supplyAsync(limiter::acquire);
+        Thread.sleep(100);
+        assertFalse(waiting.isDone());
+
+        limiter.onSuccess(permits[0]);
+        waiting.get(5, TimeUnit.SECONDS);
+        assertEquals(4, limiter.inFlight());
+    }
+
+    /**
+     * {@code concurrent} entregas que começam juntas e terminam depois de {@code rttMillis}.
+     */
+    private void round(int concurrent, long rttMillis) {
+        long[] permits = new long[concurrent];
+        for (int i = 0; i < concurrent; i++) {
+            permits[i] = limiter.acquire();
+        }
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(rttMillis));
+        for (long acquiredAt : permits) {
+            limiter.onSuccess(acquiredAt);
+        }
+    }
+}
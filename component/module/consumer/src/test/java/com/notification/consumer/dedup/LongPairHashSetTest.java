@@ -0,0 +1,44 @@
+package com.notification.consumer.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongPairHashSetTest {
+
+    @Test
+    void add_shouldKeepEveryPair_whenTheTableGrowsPastItsInitialSize() {
+        LongPairHashSet set = new LongPairHashSet(16);
+        Set<UUID> reference = new HashSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 50_000; i++) {
+            UUID id = new UUID(random.nextLong(), random.nextLong());
+            assertEquals(reference.add(id), set.add(id.getMostSignificantBits(), id.getLeastSignificantBits()));
+        }
+
+        assertEquals(reference.size(), set.size());
+        for (UUID id : reference) {
+            assertTrue(set.contains(id.getMostSignificantBits(), id.getLeastSignificantBits()));
+        }
+        assertFalse(set.contains(1, 2));
+    }
+
+    @Test
+    void add_shouldTreatTheZeroPairAsARegularValue() {
+        LongPairHashSet set = new LongPairHashSet(16);
+
+        assertFalse(set.contains(0, 0));
+        assertTrue(set.add(0, 0));
+        assertFalse(set.add(0, 0));
+        assertTrue(set.contains(0, 0));
+        assertEquals(1, set.size());
+    }
+}
@@ -0,0 +1,121 @@
+package com.notification.consumer.dedup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotificationDeduplicatorTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private NotificationDeduplicator deduplicator;
+
+    @BeforeEach
+    void setup() {
+        DedupProperties props = new DedupProperties();
+        props.setWindow(Duration.ofHours(6));
+        props.setBuckets(6);
+        props.setExpectedIdsPerBucket(16);
+        deduplicator = new NotificationDeduplicator(props, meterRegistry, clock);
+    }
+
+    @Test
+    void isDuplicate_shouldBeTrue_onlyAfterTheIdWasDelivered() {
+        String id = UUID.randomUUID().toString();
+
+        assertFalse(deduplicator.isDuplicate(id));
+        deduplicator.markDelivered(id);
+
+        assertTrue(deduplicator.isDuplicate(id));
+        assertFalse(deduplicator.isDuplicate(UUID.randomUUID().toString()));
+    }
+
+    @Test
+    void isDuplicate_shouldHandleIdsThatAreNotUuids() {
+        deduplicator.markDelivered("order-42");
+
+        assertTrue(deduplicator.isDuplicate("order-42"));
+        assertFalse(deduplicator.isDuplicate("order-43"));
+        assertFalse(deduplicator.isDuplicate(null));
+    }
+
+    @Test
+    void isDuplicate_shouldForgetIds_onceTheirBucketLeavesTheWindow() {
+        String old = UUID.randomUUID().toString();
+        deduplicator.markDelivered(old);
+
+        // 5 fatias depois o id ainda está na janela
+        clock.advance(Duration.ofHours(5));
+        String recent = UUID.randomUUID().toString();
+        deduplicator.markDelivered(recent);
+        assertTrue(deduplicator.isDuplicate(old));
+
+        // a sexta virada descarta a fatia do primeiro id
+        clock.advance(Duration.ofHours(1));
+        assertFalse(deduplicator.isDuplicate(old));
+        assertTrue(deduplicator.isDuplicate(recent));
+    }
+
+    @Test
+    void isDuplicate_shouldForgetEverything_afterAFullIdleWindow() {
+        String id = UUID.randomUUID().toString();
+        deduplicator.markDelivered(id);
+
+        clock.advance(Duration.ofDays(1));
+
+        assertFalse(deduplicator.isDuplicate(id));
+        assertEquals(0.0, meterRegistry.get("notification.consumer.dedup.ids").gauge().value());
+    }
+
+    @Test
+    void metrics_shouldExposeHitsMissesSizeAndMemory() {
+        for (int i = 0; i < 1000; i++) {
+            String id = UUID.randomUUID().toString();
+            deduplicator.isDuplicate(id);
+            deduplicator.markDelivered(id);
+            deduplicator.isDuplicate(id);
+        }
+
+        assertEquals(1000.0, meterRegistry.get("notification.consumer.dedup.lookups").tag("result", "duplicate").counter().count());
+        assertEquals(1000.0, meterRegistry.get("notification.consumer.dedup.lookups").tag("result", "unique").counter().count());
+        assertEquals(1000.0, meterRegistry.get("notification.consumer.dedup.ids").gauge().value());
+        // 16 bytes por slot, carga entre 50% e 75%
+        double memory = meterRegistry.get("notification.consumer.dedup.memory").gauge().value();
+        assertTrue(memory >= 1000 * 16 / 0.75 && memory <= 1000 * 16 / 0.5, "memory=" + memory);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
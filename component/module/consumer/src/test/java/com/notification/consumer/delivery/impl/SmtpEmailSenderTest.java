@@ -0,0 +1,184 @@
+package com.notification.consumer.delivery.impl;
+
+import com.notification.consumer.delivery.EmailDeliveryException;
+import com.notification.consumer.delivery.EmailDeliveryProperties;
+import com.notification.consumer.delivery.EmailSendFailure;
+import com.notification.consumer.delivery.fake.FakeSmtpServer;
+import com.notification.consumer.model.EmailMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SmtpEmailSenderTest {
+
+    private FakeSmtpServer server;
+    private EmailDeliveryProperties props;
+    private SmtpEmailSender sender;
+
+    @BeforeEach
+    void setup() throws Exception {
+        server = new FakeSmtpServer(0, Duration.ZERO);
+        server.start();
+
+        props = new EmailDeliveryProperties();
+        props.getSmtp().setPort(server.getPort());
+        props.getSmtp().setBorrowTimeout(Duration.ofMillis(100));
+    }
+
+    @AfterEach
+    void teardown() {
+        if (sender != null) {
+            sender.close();
+        }
+        server.close();
+    }
+
+    @Test
+    void send_shouldReuseOneSession_andResetBetweenMessages() {
+        sender = new SmtpEmailSender(props);
+
+        for (int i = 0; i < 3; i++) {
+            sender.send(email(i, "user" + i + "@mail.com"));
+        }
+
+        assertEquals(3, server.messages());
+        assertEquals(1, server.connections());
+        assertEquals(2, server.resets());
+    }
+
+    @Test
+    void sendAll_shouldPipelineTheEnvelope_inOneRoundTripPerMessage() {
+        sender = new SmtpEmailSender(props);
+        sender.send(email(0, "warmup@mail.com"));
+        long before = server.roundTrips();
+
+        List<EmailMessage> emails = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            emails.add(email(i, "user" + i + "@mail.com"));
+        }
+        assertTrue(sender.sendAll(emails).isEmpty());
+
+        // RSET+MAIL+RCPT+DATA até o 354, depois o conteúdo até o 250
+        assertEquals(20, server.roundTrips() - before);
+        assertEquals(1, server.connections());
+    }
+
+    @Test
+    void sendAll_withoutPipelining_shouldWaitForEachReply() {
+        props.getSmtp().setPipelining(false);
+        sender = new SmtpEmailSender(props);
+        sender.send(email(0, "warmup@mail.com"));
+        long before = server.roundTrips();
+
+        sender.sendAll(List.of(email(1, "a@mail.com"), email(2, "b@mail.com")));
+
+        assertEquals(10, server.roundTrips() - before);
+    }
+
+    @Test
+    void sendAll_shouldReportRejectedRecipients_andKeepTheSession() {
+        server.setRejectRecipient(recipient -> recipient.startsWith("nobody"));
+        sender = new SmtpEmailSender(props);
+
+        List<EmailSendFailure> failures = sender.sendAll(List.of(
+                email(1, "a@mail.com"), email(2, "nobody@mail.com"), email(3, "b@mail.com")));
+
+        assertEquals(1, failures.size());
+        assertEquals(1, failures.get(0).index());
+        EmailDeliveryException cause = (EmailDeliveryException) failures.get(0).cause();
+        assertEquals(550, cause.getReplyCode());
+        assertTrue(cause.isPermanent());
+        assertEquals(2, server.messages());
+        assertEquals(1, server.connections());
+    }
+
+    @Test
+    void send_shouldOpenANewSession_afterMaxMessagesPerConnection() {
+        props.getSmtp().setMaxMessagesPerConnection(2);
+        sender = new SmtpEmailSender(props);
+
+        for (int i = 0; i < 5; i++) {
+            sender.send(email(i, "user" + i + "@mail.com"));
+        }
+
+        assertEquals(5, server.messages());
+        assertEquals(3, server.connections());
+    }
+
+    @Test
+    void send_shouldDotStuffTheBody_andEncodeNonAsciiSubjects() {
+        sender = new SmtpEmailSender(props);
+
+        sender.send(new EmailMessage("id-1", "a@mail.com", "Olá", "first\n.hidden\nlast"));
+
+        String content = server.received().get(0).content();
+        assertTrue(content.contains("Subject: =?UTF-8?B?"));
+        assertTrue(content.contains("\r\n.hidden\r\n"));
+        assertTrue(content.contains("Message-ID: <id-1@notification-service>"));
+    }
+
+    @Test
+    void send_shouldFailRetryably_whenTheRelayIsDown() {
+        int port = server.getPort();
+        server.close();
+        props.getSmtp().setPort(port);
+        sender = new SmtpEmailSender(props);
+
+        EmailDeliveryException ex = assertThrows(EmailDeliveryException.class,
+                () -> sender.send(email(1, "a@mail.com")));
+
+        assertFalse(ex.isPermanent());
+    }
+
+    @Test
+    void send_shouldNotResend_whenTheConnectionDropsAfterTheContent() {
+        server.setDropReplyAfterData("lost@mail.com"::equals);
+        sender = new SmtpEmailSender(props);
+        sender.send(email(1, "a@mail.com"));
+
+        // sessão reaproveitada, mas o relay já tem a mensagem: o erro sobe em vez de reenviar numa sessão nova
+        EmailDeliveryException ex = assertThrows(EmailDeliveryException.class,
+                () -> sender.send(email(2, "lost@mail.com")));
+
+        assertFalse(ex.isPermanent());
+        assertEquals(2, server.messages());
+        assertEquals(1, server.connections());
+    }
+
+    @Test
+    void borrow_shouldTimeOut_whenTheRelayIsAtTheConnectionLimit() throws Exception {
+        props.getSmtp().setMaxConnectionsPerRelay(1);
+        sender = new SmtpEmailSender(props);
+        SmtpConnectionPool pool = sender.poolFor("a@mail.com");
+
+        SmtpConnection connection = pool.borrow();
+
+        assertThrows(EmailDeliveryException.class, pool::borrow);
+        pool.release(connection, true);
+        assertEquals(1, pool.idleCount());
+        pool.release(pool.borrow(), true);
+        assertEquals(1, pool.openCount());
+    }
+
+    @Test
+    void poolFor_shouldRouteDomainsToTheirRelay() {
+        props.getSmtp().getRoutes().put("Big-Provider.com", "relay.internal:2526");
+        sender = new SmtpEmailSender(props);
+
+        assertEquals(new SmtpRelay("relay.internal", 2526), sender.poolFor("x@big-provider.com").relay());
+        assertEquals(new SmtpRelay("localhost", server.getPort()), sender.poolFor("x@other.com").relay());
+    }
+
+    private static EmailMessage email(int id, String to) {
+        return new EmailMessage("id-" + id, to, "Hello", "Body");
+    }
+}
@@ -2,6 +2,7 @@ package com.notification.consumer.dlq;
 
 import com.notification.consumer.dlq.impl.KafkaDeadLetterQueueDlq;
 import com.notification.consumer.model.NotificationMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,18 +10,26 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class KafkaDeadLetterQueueDlqTest {
@@ -28,19 +37,23 @@ public class KafkaDeadLetterQueueDlqTest {
     private static final String DLQ_TOPIC = "notifications.email.dlq";
 
     @Mock
-    private KafkaTemplate<String, String> kafkaTemplate;
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
 
 
     private KafkaDeadLetterQueueDlq adapter;
 
+    private SimpleMeterRegistry meterRegistry;
+
     @BeforeEach
     void setup() {
-        adapter = new KafkaDeadLetterQueueDlq(kafkaTemplate);
+        meterRegistry = new SimpleMeterRegistry();
+        adapter = new KafkaDeadLetterQueueDlq(kafkaTemplate, meterRegistry);
         setDlqTopic(adapter, DLQ_TOPIC);
     }
 
     @Test
     void send_shouldPublishEnvelopeToDlqTopic() {
+        when(kafkaTemplate.send(anyString(), anyString(), any(byte[].class))).thenReturn(CompletableFuture.completedFuture(null));
         NotificationMessage message = new NotificationMessage(
                 UUID.randomUUID().toString(),
                 "EMAIL",
@@ -50,18 +63,18 @@ public class KafkaDeadLetterQueueDlqTest {
                 Instant.now()
         );
 
-        adapter.send(message, "Permanent failure after 3 attempts: simulated");
+        adapter.send("user@example.com", message, "Permanent failure after 3 attempts: simulated");
 
         ArgumentCaptor<String> topicCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> keyCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<String> valueCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<byte[]> valueCaptor = ArgumentCaptor.forClass(byte[].class);
 
         verify(kafkaTemplate).send(topicCaptor.capture(), keyCaptor.capture(), valueCaptor.capture());
 
         assertEquals(DLQ_TOPIC, topicCaptor.getValue());
         assertEquals(message.id(), keyCaptor.getValue());
 
-        String json = valueCaptor.getValue();
+        String json = new String(valueCaptor.getValue(), StandardCharsets.UTF_8);
         assertNotNull(json);
         assertFalse(json.isBlank());
 
@@ -69,6 +82,8 @@ public class KafkaDeadLetterQueueDlqTest {
         assertTrue(json.contains("\"reason\""));
         assertTrue(json.contains("\"failedAt\""));
         assertTrue(json.contains("\"message\""));
+        // key do record de origem, para o replay voltar à mesma partição
+        assertTrue(json.contains("\"sourceKey\":\"user@example.com\""));
 
         // valida que a mensagem original foi embutida
         assertTrue(json.contains(message.id()));
@@ -77,6 +92,7 @@ public class KafkaDeadLetterQueueDlqTest {
 
     @Test
     void send_shouldFallbackKey_whenMessageIdIsNull() {
+        when(kafkaTemplate.send(anyString(), anyString(), any(byte[].class))).thenReturn(CompletableFuture.completedFuture(null));
         NotificationMessage message = new NotificationMessage(
                 null,
                 "EMAIL",
@@ -86,15 +102,49 @@ public class KafkaDeadLetterQueueDlqTest {
                 Instant.now()
         );
 
-        adapter.send(message, "any reason");
+        adapter.send(null, message, "any reason");
 
         ArgumentCaptor<String> keyCaptor = ArgumentCaptor.forClass(String.class);
-        verify(kafkaTemplate).send(eq(DLQ_TOPIC), keyCaptor.capture(), anyString());
+        verify(kafkaTemplate).send(eq(DLQ_TOPIC), keyCaptor.capture(), any(byte[].class));
 
         assertNotNull(keyCaptor.getValue());
         assertFalse(keyCaptor.getValue().isBlank());
     }
 
+    @Test
+    void send_shouldCompleteOnlyWhenKafkaAcknowledges() {
+        CompletableFuture<SendResult<String, byte[]>> brokerAck = new CompletableFuture<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any(byte[].class))).thenReturn(brokerAck);
+
+        CompletableFuture<Void> sent = adapter.send("user@example.com", message(), "reason");
+
+        assertFalse(sent.isDone());
+        assertEquals(1.0, meterRegistry.get("notification.consumer.dlq.in-flight").gauge().value());
+
+        brokerAck.complete(null);
+
+        assertTrue(sent.isDone());
+        assertFalse(sent.isCompletedExceptionally());
+        assertEquals(1, meterRegistry.get("notification.consumer.dlq.send").tag("result", "acked").timer().count());
+        assertEquals(0.0, meterRegistry.get("notification.consumer.dlq.in-flight").gauge().value());
+    }
+
+    @Test
+    void send_shouldFailWithDeadLetterPublishException_whenKafkaRejectsTheWrite() {
+        when(kafkaTemplate.send(anyString(), anyString(), any(byte[].class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        CompletableFuture<Void> sent = adapter.send("user@example.com", message(), "reason");
+
+        CompletionException ex = assertThrows(CompletionException.class, sent::join);
+        assertInstanceOf(DeadLetterPublishException.class, ex.getCause());
+        assertEquals(1, meterRegistry.get("notification.consumer.dlq.send").tag("result", "failed").timer().count());
+    }
+
+    private static NotificationMessage message() {
+        return new NotificationMessage("id-1", "EMAIL", "user@example.com", "FAIL", "Body", Instant.now());
+    }
+
     private static void setDlqTopic(KafkaDeadLetterQueueDlq adapter, String topic) {
         try {
             Field field = KafkaDeadLetterQueueDlq.class.getDeclaredField("dlqTopic");
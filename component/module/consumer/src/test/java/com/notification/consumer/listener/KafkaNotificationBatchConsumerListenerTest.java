@@ -0,0 +1,206 @@
+package com.notification.consumer.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.notification.consumer.breaker.CircuitBreakerProperties;
+import com.notification.consumer.breaker.DeliveryCircuitBreaker;
+import com.notification.consumer.dlq.DeadLetterPublishException;
+import com.notification.consumer.dlq.DeadLetterQueueDlq;
+import com.notification.consumer.model.NotificationMessage;
+import com.notification.consumer.model.ProcessingFailure;
+import com.notification.consumer.retry.RetryExecutor;
+import com.notification.consumer.retry.RetryPolicy;
+import com.notification.consumer.service.NotificationConsumerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.notification.consumer.listener.RecordHandlerBuilder.recordHandler;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaNotificationBatchConsumerListenerTest {
+
+    @Mock
+    private NotificationConsumerService notificationConsumerService;
+
+    @Mock
+    private RetryExecutor retryExecutor;
+
+    @Mock
+    private DeadLetterQueueDlq deadLetterQueueDlq;
+
+    private KafkaNotificationBatchConsumerListener listener;
+
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setup() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+        listener = new KafkaNotificationBatchConsumerListener(
+                notificationConsumerService,
+                recordHandler(notificationConsumerService, retryExecutor, deadLetterQueueDlq, RetryPolicy.of(3, 0))
+                        .build()
+        );
+    }
+
+    @Test
+    void consume_shouldProcessWholeBatchOnce_whenAllSucceed() throws Exception {
+        NotificationMessage a = message("id-1");
+        NotificationMessage b = message("id-2");
+        when(notificationConsumerService.processBatch(List.of(a, b))).thenReturn(List.of());
+
+        listener.consume(List.of(record(a), record(b)));
+
+        verify(notificationConsumerService).processBatch(List.of(a, b));
+        verifyNoInteractions(retryExecutor);
+        verifyNoInteractions(deadLetterQueueDlq);
+    }
+
+    @Test
+    void consume_shouldRetryOnlyFailedMessage_withRemainingAttempts() throws Exception {
+        NotificationMessage ok = message("id-1");
+        NotificationMessage bad = message("id-2");
+        when(notificationConsumerService.processBatch(List.of(ok, bad)))
+                .thenReturn(List.of(new ProcessingFailure(1, bad, new IllegalStateException("smtp down"))));
+
+        doAnswer(invocation -> {
+            RetryExecutor.ThrowingRunnable action = invocation.getArgument(2);
+            action.run();
+            return null;
+        }).when(retryExecutor).execute(anyString(), any(RetryPolicy.class), any(RetryExecutor.ThrowingRunnable.class));
+
+        listener.consume(List.of(record(ok), record(bad)));
+
+        // a tentativa do lote conta: sobram 2 das 3
+        verify(retryExecutor).execute(contains("id-2"), eq(RetryPolicy.of(2, 0)), any(RetryExecutor.ThrowingRunnable.class));
+        verify(notificationConsumerService).process(bad);
+        verify(notificationConsumerService, never()).process(ok);
+        verifyNoInteractions(deadLetterQueueDlq);
+    }
+
+    @Test
+    void consume_shouldSendToDlq_whenFailedMessageExhaustsRetries() throws Exception {
+        when(deadLetterQueueDlq.send(any(), any(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+        NotificationMessage ok = message("id-1");
+        NotificationMessage bad = message("id-2");
+        when(notificationConsumerService.processBatch(List.of(ok, bad)))
+                .thenReturn(List.of(new ProcessingFailure(1, bad, new IllegalStateException("smtp down"))));
+        doThrow(new IllegalStateException("still down"))
+                .when(retryExecutor).execute(anyString(), any(RetryPolicy.class), any(RetryExecutor.ThrowingRunnable.class));
+
+        listener.consume(List.of(record(ok), record(bad)));
+
+        ArgumentCaptor<String> reason = ArgumentCaptor.forClass(String.class);
+        verify(deadLetterQueueDlq).send(any(), eq(bad), reason.capture());
+        assertTrue(reason.getValue().contains("Permanent failure after 3 attempts"));
+    }
+
+    @Test
+    void consume_shouldDeadLetterInvalidRecord_andProcessTheRest() throws Exception {
+        when(deadLetterQueueDlq.send(any(), any(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+        NotificationMessage ok = message("id-1");
+        when(notificationConsumerService.processBatch(List.of(ok))).thenReturn(List.of());
+
+        listener.consume(List.of(rawRecord("{ invalid-json }"), record(ok)));
+
+        ArgumentCaptor<NotificationMessage> dlqMsg = ArgumentCaptor.forClass(NotificationMessage.class);
+        verify(deadLetterQueueDlq).send(any(), dlqMsg.capture(), anyString());
+        assertEquals("UNKNOWN", dlqMsg.getValue().type());
+        verify(notificationConsumerService).processBatch(List.of(ok));
+    }
+
+    @Test
+    void consume_shouldRetryEveryMessage_whenBatchCallThrows() throws Exception {
+        NotificationMessage a = message("id-1");
+        NotificationMessage b = message("id-2");
+        when(notificationConsumerService.processBatch(List.of(a, b))).thenThrow(new IllegalStateException("boom"));
+
+        listener.consume(List.of(record(a), record(b)));
+
+        verify(retryExecutor, times(2)).execute(anyString(), eq(RetryPolicy.of(2, 0)), any(RetryExecutor.ThrowingRunnable.class));
+        verifyNoInteractions(deadLetterQueueDlq);
+    }
+
+    @Test
+    void consume_shouldFailAtFirstUnacknowledgedDlqRecord_soTheRestIsRedelivered() throws Exception {
+        NotificationMessage ok = message("id-1");
+        CompletableFuture<Void> notAcked = CompletableFuture.failedFuture(new DeadLetterPublishException("not acked", null));
+        when(deadLetterQueueDlq.send(any(), any(), anyString())).thenReturn(notAcked);
+        when(notificationConsumerService.processBatch(List.of(ok))).thenReturn(List.of());
+
+        BatchListenerFailedException ex = assertThrows(BatchListenerFailedException.class,
+                () -> listener.consume(List.of(record(ok), rawRecord("{ invalid-json }"))));
+
+        // o error handler comita até o índice 0 e entrega de novo a partir do 1
+        assertEquals(1, ex.getIndex());
+    }
+
+    @Test
+    void consume_shouldReportOneOutcomeForTheBatchPermit() throws Exception {
+        CircuitBreakerProperties breakerProps = new CircuitBreakerProperties();
+        breakerProps.setWindowSize(1);
+        breakerProps.setMinimumCalls(1);
+        breakerProps.setOpenDuration(Duration.ofMillis(1));
+        breakerProps.setHalfOpenProbes(2);
+        DeliveryCircuitBreaker breaker = new DeliveryCircuitBreaker(breakerProps, failure -> true, new SimpleMeterRegistry());
+        breaker.acquire();
+        breaker.onFailure(new IllegalStateException("relay down"));
+        Thread.sleep(5);
+        listener = new KafkaNotificationBatchConsumerListener(
+                notificationConsumerService,
+                recordHandler(notificationConsumerService, retryExecutor, deadLetterQueueDlq, RetryPolicy.of(3, 0))
+                        .breaker(breaker)
+                        .build()
+        );
+        NotificationMessage a = message("id-1");
+        NotificationMessage b = message("id-2");
+        when(notificationConsumerService.processBatch(List.of(a, b))).thenReturn(List.of());
+
+        listener.consume(List.of(record(a), record(b)));
+
+        // duas entregas com uma permissão são um probe, não dois: o half-open continua
+        assertEquals(DeliveryCircuitBreaker.State.HALF_OPEN, breaker.state());
+    }
+
+    private ConsumerRecord<String, ByteBuffer> record(NotificationMessage message) throws Exception {
+        return rawRecord(objectMapper.writeValueAsString(message));
+    }
+
+    private ConsumerRecord<String, ByteBuffer> rawRecord(String payload) {
+        return new ConsumerRecord<>("notifications.email", 0, 0L, null,
+                ByteBuffer.wrap(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private NotificationMessage message(String id) {
+        return new NotificationMessage(id, "EMAIL", "test@mail.com", "Hello", "Body content",
+                Instant.parse("2026-01-01T00:00:00Z"));
+    }
+}
@@ -2,11 +2,26 @@ package com.notification.consumer.listener;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.notification.consumer.breaker.CircuitBreakerProperties;
+import com.notification.consumer.breaker.CircuitOpenException;
+import com.notification.consumer.breaker.DeliveryCircuitBreaker;
+import com.notification.consumer.codec.BinaryNotificationCodec;
+import com.notification.consumer.codec.NotificationCodecHeaders;
+import com.notification.consumer.dedup.DedupProperties;
+import com.notification.consumer.dedup.NotificationDeduplicator;
+import com.notification.consumer.dlq.DeadLetterPublishException;
 import com.notification.consumer.dlq.DeadLetterQueueDlq;
 import com.notification.consumer.model.NotificationMessage;
+import com.notification.consumer.retry.DelayedRetryPublisher;
+import com.notification.consumer.retry.NonRetryableException;
 import com.notification.consumer.retry.RetryExecutor;
+import com.notification.consumer.retry.RetryJitter;
 import com.notification.consumer.retry.RetryPolicy;
 import com.notification.consumer.service.NotificationConsumerService;
+import com.notification.consumer.throttle.DomainThrottle;
+import com.notification.consumer.throttle.DomainThrottleProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,20 +29,30 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
+import static com.notification.consumer.listener.RecordHandlerBuilder.recordHandler;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class KafkaNotificationConsumerListenerTest {
@@ -52,11 +77,8 @@ class KafkaNotificationConsumerListenerTest {
         retryPolicy = RetryPolicy.of(3, 0);
 
         listener = new KafkaNotificationConsumerListener(
-                notificationConsumerService,
-                retryExecutor,
-                deadLetterQueueDlq,
-                retryPolicy
-        );
+                recordHandler(notificationConsumerService, retryExecutor, deadLetterQueueDlq, retryPolicy)
+                        .build());
     }
 
     @Test
@@ -71,23 +93,49 @@ class KafkaNotificationConsumerListenerTest {
             return null;
         }).when(retryExecutor).execute(anyString(), eq(retryPolicy), any(RetryExecutor.ThrowingRunnable.class));
 
-        listener.consume(payload);
+        listener.consume(record(payload));
 
         verify(retryExecutor).execute(contains("process-notification"), eq(retryPolicy), any(RetryExecutor.ThrowingRunnable.class));
         verify(notificationConsumerService).process(any(NotificationMessage.class));
         verifyNoInteractions(deadLetterQueueDlq);
     }
 
+    @Test
+    void consume_shouldDecodeBinaryPayload_whenFormatHeaderIsBinary() throws Exception {
+        NotificationMessage message = validMessage();
+        BinaryNotificationCodec codec = new BinaryNotificationCodec();
+
+        ConsumerRecord<String, ByteBuffer> record =
+                new ConsumerRecord<>("notifications.email", 0, 0L, message.id(), ByteBuffer.wrap(codec.encode(message)));
+        record.headers()
+                .add(NotificationCodecHeaders.FORMAT, "binary".getBytes(StandardCharsets.UTF_8))
+                .add(NotificationCodecHeaders.SCHEMA_VERSION, "1".getBytes(StandardCharsets.UTF_8));
+
+        doAnswer(invocation -> {
+            RetryExecutor.ThrowingRunnable action = invocation.getArgument(2);
+            action.run();
+            return null;
+        }).when(retryExecutor).execute(anyString(), eq(retryPolicy), any(RetryExecutor.ThrowingRunnable.class));
+
+        listener.consume(record);
+
+        ArgumentCaptor<NotificationMessage> captor = ArgumentCaptor.forClass(NotificationMessage.class);
+        verify(notificationConsumerService).process(captor.capture());
+        assertEquals(message, captor.getValue());
+        verifyNoInteractions(deadLetterQueueDlq);
+    }
+
     @Test
     void consume_shouldSendToDlq_whenJsonIsInvalid() {
+        dlqAcks();
         String invalidJson = "{ invalid-json }";
 
-        listener.consume(invalidJson);
+        listener.consume(record(invalidJson));
 
         ArgumentCaptor<NotificationMessage> msgCaptor = ArgumentCaptor.forClass(NotificationMessage.class);
         ArgumentCaptor<String> reasonCaptor = ArgumentCaptor.forClass(String.class);
 
-        verify(deadLetterQueueDlq).send(msgCaptor.capture(), reasonCaptor.capture());
+        verify(deadLetterQueueDlq).send(any(), msgCaptor.capture(), reasonCaptor.capture());
         verifyNoInteractions(notificationConsumerService);
         verifyNoInteractions(retryExecutor);
 
@@ -99,8 +147,29 @@ class KafkaNotificationConsumerListenerTest {
         assertTrue(reason.startsWith("Invalid JSON payload:"), "Reason should start with 'Invalid JSON payload:'");
     }
 
+    @Test
+    void consume_shouldSendToDlq_whenBodyIsInvalidAfterTheRoutingFields() {
+        dlqAcks();
+        // id/type/to são lidos no decode parcial; o erro só aparece ao montar a mensagem
+        String truncated = "{\"id\":\"id-1\",\"type\":\"EMAIL\",\"to\":\"a@mail.com\",\"subject\":\"Hello\",\"body\":";
+
+        listener.consume(record(truncated));
+
+        ArgumentCaptor<NotificationMessage> msgCaptor = ArgumentCaptor.forClass(NotificationMessage.class);
+        ArgumentCaptor<String> reasonCaptor = ArgumentCaptor.forClass(String.class);
+
+        verify(deadLetterQueueDlq).send(any(), msgCaptor.capture(), reasonCaptor.capture());
+        verifyNoInteractions(notificationConsumerService);
+        verifyNoInteractions(retryExecutor);
+
+        assertEquals("UNKNOWN", msgCaptor.getValue().type());
+        assertEquals(truncated, msgCaptor.getValue().body());
+        assertTrue(reasonCaptor.getValue().startsWith("Invalid JSON payload:"));
+    }
+
     @Test
     void consume_shouldSendToDlq_whenProcessingFailsAfterRetry() throws Exception {
+        dlqAcks();
         NotificationMessage message = validMessage();
         String payload = objectMapper.writeValueAsString(message);
 
@@ -108,12 +177,12 @@ class KafkaNotificationConsumerListenerTest {
                 .when(retryExecutor)
                 .execute(anyString(), eq(retryPolicy), any(RetryExecutor.ThrowingRunnable.class));
 
-        listener.consume(payload);
+        listener.consume(record(payload));
 
         ArgumentCaptor<NotificationMessage> msgCaptor = ArgumentCaptor.forClass(NotificationMessage.class);
         ArgumentCaptor<String> reasonCaptor = ArgumentCaptor.forClass(String.class);
 
-        verify(deadLetterQueueDlq).send(msgCaptor.capture(), reasonCaptor.capture());
+        verify(deadLetterQueueDlq).send(any(), msgCaptor.capture(), reasonCaptor.capture());
 
         // como o RetryExecutor foi mockado pra lançar direto, o service não roda
         verify(notificationConsumerService, never()).process(any());
@@ -126,6 +195,142 @@ class KafkaNotificationConsumerListenerTest {
         assertTrue(reason.contains("processing failed"), "Must include original failure message");
     }
 
+    @Test
+    void consume_shouldScheduleDelayedRetry_insteadOfRetryingInline_whenRetryModeIsTopics() throws Exception {
+        DelayedRetryPublisher delayedRetry = mock(DelayedRetryPublisher.class);
+        listener = new KafkaNotificationConsumerListener(
+                recordHandler(notificationConsumerService, retryExecutor, deadLetterQueueDlq, retryPolicy)
+                        .delayedRetry(delayedRetry)
+                        .build());
+        NotificationMessage message = validMessage();
+        ConsumerRecord<String, ByteBuffer> record = record(objectMapper.writeValueAsString(message));
+        IllegalStateException failure = new IllegalStateException("smtp down");
+        doThrow(failure).when(notificationConsumerService).process(any());
+        when(delayedRetry.schedule(eq(record), any(NotificationMessage.class), eq(1), eq(failure)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        listener.consume(record);
+
+        // primeira entrega (sem header de tentativa) = tentativa 1
+        verify(delayedRetry).schedule(eq(record), any(NotificationMessage.class), eq(1), eq(failure));
+        verifyNoInteractions(retryExecutor);
+        verifyNoInteractions(deadLetterQueueDlq);
+    }
+
+    @Test
+    void consume_shouldSendToDlqWithNonRetryableReason_whenFailureIsNotRetryable() throws Exception {
+        dlqAcks();
+        RetryPolicy classifying = new RetryPolicy(3, 0, 1.0, 0, RetryJitter.NONE,
+                List.of(), List.of(NonRetryableException.class));
+        listener = new KafkaNotificationConsumerListener(
+                recordHandler(notificationConsumerService, retryExecutor, deadLetterQueueDlq, classifying)
+                        .build());
+        doThrow(new NonRetryableException("Invalid recipient: nope"))
+                .when(retryExecutor)
+                .execute(anyString(), eq(classifying), any(RetryExecutor.ThrowingRunnable.class));
+
+        listener.consume(record(objectMapper.writeValueAsString(validMessage())));
+
+        verify(deadLetterQueueDlq).send(any(), any(NotificationMessage.class),
+                eq("Non-retryable failure: Invalid recipient: nope"));
+    }
+
+    @Test
+    void consume_shouldThrow_soTheRecordIsRedelivered_whenDlqDoesNotAcknowledge() {
+        when(deadLetterQueueDlq.send(any(), any(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new DeadLetterPublishException("not acked", null)));
+
+        // sem ack da DLQ o offset não pode ser comitado: a exceção vai para o error handler do container
+        assertThrows(DeadLetterPublishException.class, () -> listener.consume(record("{ invalid-json }")));
+    }
+
+    @Test
+    void consume_shouldSkipRedeliveredMessage_whenItWasAlreadyDelivered() throws Exception {
+        DedupProperties dedupProps = new DedupProperties();
+        dedupProps.setExpectedIdsPerBucket(16);
+        listener = new KafkaNotificationConsumerListener(
+                recordHandler(notificationConsumerService, retryExecutor, deadLetterQueueDlq, retryPolicy)
+                        .deduplicator(new NotificationDeduplicator(dedupProps, new SimpleMeterRegistry()))
+                        .build());
+        doAnswer(invocation -> {
+            RetryExecutor.ThrowingRunnable action = invocation.getArgument(2);
+            action.run();
+            return null;
+        }).when(retryExecutor).execute(anyString(), eq(retryPolicy), any(RetryExecutor.ThrowingRunnable.class));
+        String payload = objectMapper.writeValueAsString(validMessage());
+
+        listener.consume(record(payload));
+        // mesma mensagem entregue de novo depois de um rebalance
+        listener.consume(record(payload));
+
+        verify(notificationConsumerService, times(1)).process(any(NotificationMessage.class));
+    }
+
+    @Test
+    void consume_shouldDeferWithoutProcessing_whenTheRecipientDomainIsOverItsLimit() throws Exception {
+        DelayedRetryPublisher delayedRetry = mock(DelayedRetryPublisher.class);
+        DomainThrottleProperties throttleProps = new DomainThrottleProperties();
+        throttleProps.setDefaultLimit(new DomainThrottleProperties.Limit(0.001, 1));
+        listener = new KafkaNotificationConsumerListener(
+                recordHandler(notificationConsumerService, retryExecutor, deadLetterQueueDlq, retryPolicy)
+                        .delayedRetry(delayedRetry)
+                        .throttle(new DomainThrottle(throttleProps, new SimpleMeterRegistry()))
+                        .build());
+        ConsumerRecord<String, ByteBuffer> first = record(objectMapper.writeValueAsString(validMessage()));
+        ConsumerRecord<String, ByteBuffer> second = record(objectMapper.writeValueAsString(validMessage()));
+        // sem reserva de um adiamento anterior (o mock devolveria Duration.ZERO)
+        when(delayedRetry.reservedDeferral(any())).thenReturn(null);
+        when(delayedRetry.defer(eq(second), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        listener.consume(first);
+        listener.consume(second);
+
+        verify(notificationConsumerService, times(1)).process(any(NotificationMessage.class));
+        verify(delayedRetry).defer(eq(second), any());
+        verify(delayedRetry, never()).schedule(any(), any(), anyInt(), any());
+        verifyNoInteractions(deadLetterQueueDlq);
+    }
+
+    @Test
+    void consume_shouldLeaveTheBacklogInTheTopic_onceTheCircuitOpens() throws Exception {
+        DelayedRetryPublisher delayedRetry = mock(DelayedRetryPublisher.class);
+        CircuitBreakerProperties breakerProps = new CircuitBreakerProperties();
+        breakerProps.setWindowSize(2);
+        breakerProps.setMinimumCalls(2);
+        DeliveryCircuitBreaker breaker = new DeliveryCircuitBreaker(breakerProps, retryPolicy::isRetryable, new SimpleMeterRegistry());
+        listener = new KafkaNotificationConsumerListener(
+                recordHandler(notificationConsumerService, retryExecutor, deadLetterQueueDlq, retryPolicy)
+                        .delayedRetry(delayedRetry)
+                        .breaker(breaker)
+                        .build());
+        doThrow(new IllegalStateException("relay down")).when(notificationConsumerService).process(any());
+        when(delayedRetry.schedule(any(), any(), anyInt(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        // 1ª falha: janela ainda abaixo do mínimo, segue para o tópico de atraso
+        listener.consume(record(objectMapper.writeValueAsString(validMessage())));
+        // 2ª falha abre o circuito: a mensagem não gasta tentativa, volta para o tópico
+        assertThrows(CircuitOpenException.class,
+                () -> listener.consume(record(objectMapper.writeValueAsString(validMessage()))));
+        // aberto: nem chega ao service
+        assertThrows(CircuitOpenException.class,
+                () -> listener.consume(record(objectMapper.writeValueAsString(validMessage()))));
+
+        assertEquals(DeliveryCircuitBreaker.State.OPEN, breaker.state());
+        verify(notificationConsumerService, times(2)).process(any(NotificationMessage.class));
+        verify(delayedRetry, times(1)).schedule(any(), any(), anyInt(), any());
+        verifyNoInteractions(deadLetterQueueDlq);
+    }
+
+    private void dlqAcks() {
+        when(deadLetterQueueDlq.send(any(), any(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    private ConsumerRecord<String, ByteBuffer> record(String payload) {
+        // sem header de formato, como os records do publisher antigo
+        return new ConsumerRecord<>("notifications.email", 0, 0L, null,
+                ByteBuffer.wrap(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+
     private NotificationMessage validMessage() {
         return new NotificationMessage(
                 UUID.randomUUID().toString(),
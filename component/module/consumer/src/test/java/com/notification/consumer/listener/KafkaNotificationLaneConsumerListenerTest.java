@@ -0,0 +1,140 @@
+package com.notification.consumer.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.notification.consumer.breaker.CircuitBreakerProperties;
+import com.notification.consumer.breaker.CircuitOpenException;
+import com.notification.consumer.breaker.DeliveryCircuitBreaker;
+import com.notification.consumer.dlq.DeadLetterQueueDlq;
+import com.notification.consumer.model.NotificationMessage;
+import com.notification.consumer.model.NotificationPriority;
+import com.notification.consumer.retry.RetryExecutor;
+import com.notification.consumer.retry.RetryPolicy;
+import com.notification.consumer.service.NotificationConsumerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.notification.consumer.listener.RecordHandlerBuilder.recordHandler;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaNotificationLaneConsumerListenerTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+
+    @Mock
+    private NotificationConsumerService notificationConsumerService;
+
+    @Mock
+    private DeadLetterQueueDlq deadLetterQueueDlq;
+
+    @Mock
+    private Acknowledgment ack;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LaneScheduler scheduler;
+    private KafkaNotificationLaneConsumerListener listener;
+
+    @BeforeEach
+    void setup() {
+        scheduler = new LaneScheduler(Map.of(
+                NotificationPriority.HIGH, 8, NotificationPriority.NORMAL, 3, NotificationPriority.LOW, 1), 2, meterRegistry);
+        listener = new KafkaNotificationLaneConsumerListener(
+                recordHandler(notificationConsumerService, new RetryExecutor(), deadLetterQueueDlq, RetryPolicy.of(1, 0))
+                        .build(),
+                scheduler,
+                meterRegistry,
+                1,
+                Clock.fixed(NOW, ZoneOffset.UTC)
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.close();
+    }
+
+    @Test
+    void consumeHigh_shouldProcessAcknowledgeAndRecordTheEndToEndLatency() throws Exception {
+        listener.consumeHigh(record("notifications.email.high", NOW.minusMillis(1500).toEpochMilli()), ack);
+
+        verify(ack, timeout(5000)).acknowledge();
+        verify(notificationConsumerService).process(any());
+        // o timer é gravado antes do ack, no mesmo worker
+        var latency = meterRegistry.get("notification.consumer.lane.latency").tag("lane", "high").timer();
+        assertEquals(1, latency.count());
+        assertEquals(1500.0, latency.totalTime(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void consumeLow_shouldAcknowledgeAfterDlq_whenPayloadIsInvalid() {
+        when(deadLetterQueueDlq.send(any(), any(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+        ConsumerRecord<String, ByteBuffer> invalid = new ConsumerRecord<>("notifications.email.low", 0, 0L, "a@mail.com",
+                ByteBuffer.wrap("{ invalid-json }".getBytes(StandardCharsets.UTF_8)));
+
+        listener.consumeLow(invalid, ack);
+
+        verify(ack, timeout(5000)).acknowledge();
+        verify(deadLetterQueueDlq).send(any(), any(NotificationMessage.class), anyString());
+        verifyNoInteractions(notificationConsumerService);
+    }
+
+    @Test
+    void consumeNormal_shouldNotQueue_whileTheCircuitIsOpen() throws Exception {
+        CircuitBreakerProperties breakerProps = new CircuitBreakerProperties();
+        breakerProps.setWindowSize(1);
+        breakerProps.setMinimumCalls(1);
+        DeliveryCircuitBreaker breaker = new DeliveryCircuitBreaker(breakerProps, failure -> true, meterRegistry);
+        breaker.acquire();
+        breaker.onFailure(new IllegalStateException("relay down"));
+        listener = new KafkaNotificationLaneConsumerListener(
+                recordHandler(notificationConsumerService, new RetryExecutor(), deadLetterQueueDlq, RetryPolicy.of(1, 0))
+                        .breaker(breaker)
+                        .build(),
+                scheduler,
+                meterRegistry,
+                1,
+                Clock.fixed(NOW, ZoneOffset.UTC)
+        );
+        ConsumerRecord<String, ByteBuffer> record = record("notifications.email", NOW.toEpochMilli());
+
+        assertThrows(CircuitOpenException.class, () -> listener.consumeNormal(record, ack));
+
+        assertEquals(0, scheduler.depth(NotificationPriority.NORMAL));
+        verifyNoInteractions(notificationConsumerService, ack);
+    }
+
+    private ConsumerRecord<String, ByteBuffer> record(String topic, long timestamp) throws Exception {
+        NotificationMessage message = new NotificationMessage("id-1", "EMAIL", "a@mail.com", "Hello", "Body",
+                NOW, NotificationPriority.HIGH);
+        return new ConsumerRecord<>(topic, 0, 0L, timestamp, TimestampType.CREATE_TIME, -1, -1, "a@mail.com",
+                ByteBuffer.wrap(objectMapper.writeValueAsBytes(message)), new RecordHeaders(), Optional.empty());
+    }
+}
@@ -0,0 +1,246 @@
+package com.notification.consumer.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.notification.consumer.breaker.CircuitBreakerProperties;
+import com.notification.consumer.breaker.CircuitOpenException;
+import com.notification.consumer.breaker.DeliveryCircuitBreaker;
+import com.notification.consumer.dlq.DeadLetterPublishException;
+import com.notification.consumer.dlq.DeadLetterQueueDlq;
+import com.notification.consumer.model.NotificationMessage;
+import com.notification.consumer.retry.RetryExecutor;
+import com.notification.consumer.retry.RetryPolicy;
+import com.notification.consumer.service.NotificationConsumerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.notification.consumer.listener.RecordHandlerBuilder.recordHandler;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaNotificationParallelConsumerListenerTest {
+
+    @Mock
+    private NotificationConsumerService notificationConsumerService;
+
+    @Mock
+    private DeadLetterQueueDlq deadLetterQueueDlq;
+
+    @Mock
+    private Acknowledgment ack;
+
+    private KeyOrderedExecutor executor;
+    private KafkaNotificationParallelConsumerListener listener;
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setup() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        executor = new KeyOrderedExecutor(Executors.newFixedThreadPool(4));
+
+        listener = new KafkaNotificationParallelConsumerListener(
+                recordHandler(notificationConsumerService, new RetryExecutor(), deadLetterQueueDlq, RetryPolicy.of(1, 0))
+                        .build(),
+                executor,
+                1
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void consume_shouldAcknowledgeOnlyAfterProcessingCompletes() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(notificationConsumerService).process(any());
+
+        listener.consume(record("a@mail.com", message("id-1")), ack);
+
+        // o listener volta na hora; o ack espera o processamento
+        verify(ack, never()).acknowledge();
+        release.countDown();
+        verify(ack, timeout(5000)).acknowledge();
+        verifyNoInteractions(deadLetterQueueDlq);
+    }
+
+    @Test
+    void consume_shouldAcknowledgeAfterDlq_whenProcessingFails() throws Exception {
+        dlqAcks();
+        doAnswer(invocation -> {
+            throw new IllegalStateException("smtp down");
+        }).when(notificationConsumerService).process(any());
+
+        listener.consume(record("a@mail.com", message("id-1")), ack);
+
+        verify(ack, timeout(5000)).acknowledge();
+        verify(deadLetterQueueDlq).send(any(), any(NotificationMessage.class), anyString());
+    }
+
+    @Test
+    void consume_shouldAcknowledgeAfterDlq_whenPayloadIsInvalid() {
+        dlqAcks();
+        ConsumerRecord<String, ByteBuffer> invalid = new ConsumerRecord<>("notifications.email", 0, 0L, "a@mail.com",
+                ByteBuffer.wrap("{ invalid-json }".getBytes(StandardCharsets.UTF_8)));
+
+        listener.consume(invalid, ack);
+
+        verify(ack, timeout(5000)).acknowledge();
+        verify(deadLetterQueueDlq).send(any(), any(NotificationMessage.class), anyString());
+        verifyNoInteractions(notificationConsumerService);
+    }
+
+    @Test
+    void consume_shouldNotOvertakeEarlierMessageOfSameRecipient() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        CountDownLatch otherDone = new CountDownLatch(1);
+        StringBuffer order = new StringBuffer();
+
+        doAnswer(invocation -> {
+            NotificationMessage m = invocation.getArgument(0);
+            if (m.id().equals("a-1")) {
+                firstStarted.countDown();
+                releaseFirst.await(5, TimeUnit.SECONDS);
+            }
+            order.append(m.id()).append(' ');
+            if (m.id().equals("b-1")) {
+                otherDone.countDown();
+            }
+            return null;
+        }).when(notificationConsumerService).process(any());
+
+        listener.consume(record("a@mail.com", message("a-1")), ack);
+        listener.consume(record("a@mail.com", message("a-2")), ack);
+        listener.consume(record("b@mail.com", message("b-1")), ack);
+
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        // outro destinatário não espera o a-1
+        assertTrue(otherDone.await(5, TimeUnit.SECONDS));
+        releaseFirst.countDown();
+
+        verify(ack, timeout(5000).times(3)).acknowledge();
+        assertEquals("b-1 a-1 a-2 ", order.toString());
+    }
+
+    @Test
+    void consume_shouldRedoFailedStep_untilDlqAcknowledges() throws Exception {
+        when(deadLetterQueueDlq.send(any(), any(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new DeadLetterPublishException("not acked", null)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        doAnswer(invocation -> {
+            throw new IllegalStateException("smtp down");
+        }).when(notificationConsumerService).process(any());
+
+        listener.consume(record("a@mail.com", message("id-1")), ack);
+
+        verify(ack, timeout(5000)).acknowledge();
+        // a primeira escrita na DLQ falhou: processamento e DLQ foram refeitos
+        verify(notificationConsumerService, times(2)).process(any());
+        verify(deadLetterQueueDlq, times(2)).send(any(), any(NotificationMessage.class), anyString());
+    }
+
+    @Test
+    void consume_shouldNotDispatch_whileTheCircuitIsOpen() throws Exception {
+        DeliveryCircuitBreaker breaker = breaker(Duration.ofSeconds(30));
+        breaker.acquire();
+        breaker.onFailure(new IllegalStateException("relay down"));
+        listener = new KafkaNotificationParallelConsumerListener(
+                recordHandler(notificationConsumerService, new RetryExecutor(), deadLetterQueueDlq, RetryPolicy.of(1, 0))
+                        .breaker(breaker)
+                        .build(),
+                executor,
+                1
+        );
+        ConsumerRecord<String, ByteBuffer> record = record("a@mail.com", message("id-1"));
+
+        // o error handler do container faz o seek de volta
+        assertThrows(CircuitOpenException.class, () -> listener.consume(record, ack));
+
+        assertEquals(0, executor.activeKeys());
+        verifyNoInteractions(notificationConsumerService, ack);
+    }
+
+    @Test
+    void consume_shouldParkAQueuedRecordWithoutHoldingAWorker_whenTheCircuitOpens() throws Exception {
+        KeyOrderedExecutor single = new KeyOrderedExecutor(Executors.newSingleThreadExecutor());
+        try {
+            listener = new KafkaNotificationParallelConsumerListener(
+                    recordHandler(notificationConsumerService, new RetryExecutor(), deadLetterQueueDlq, RetryPolicy.of(1, 0))
+                            .breaker(breaker(Duration.ofMillis(300)))
+                            .build(),
+                    single,
+                    1
+            );
+            // a falha abre o circuito: a mensagem não vai para a DLQ, espera o probe
+            doThrow(new IllegalStateException("relay down")).doNothing().when(notificationConsumerService).process(any());
+
+            listener.consume(record("a@mail.com", message("id-1")), ack);
+
+            verify(notificationConsumerService, timeout(5000)).process(any());
+            // com o único worker livre, outra tarefa roda enquanto o record espera
+            single.submit("b@mail.com", () -> { }).get(250, TimeUnit.MILLISECONDS);
+            verify(ack, never()).acknowledge();
+
+            verify(ack, timeout(5000)).acknowledge();
+            verify(notificationConsumerService, times(2)).process(any());
+            verifyNoInteractions(deadLetterQueueDlq);
+        } finally {
+            single.close();
+        }
+    }
+
+    private static DeliveryCircuitBreaker breaker(Duration openDuration) {
+        CircuitBreakerProperties props = new CircuitBreakerProperties();
+        props.setWindowSize(1);
+        props.setMinimumCalls(1);
+        props.setOpenDuration(openDuration);
+        props.setHalfOpenProbes(1);
+        return new DeliveryCircuitBreaker(props, failure -> true, new SimpleMeterRegistry());
+    }
+
+    private void dlqAcks() {
+        when(deadLetterQueueDlq.send(any(), any(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    private ConsumerRecord<String, ByteBuffer> record(String key, NotificationMessage message) throws Exception {
+        return new ConsumerRecord<>("notifications.email", 0, 0L, key,
+                ByteBuffer.wrap(objectMapper.writeValueAsBytes(message)));
+    }
+
+    private NotificationMessage message(String id) {
+        return new NotificationMessage(id, "EMAIL", "test@mail.com", "Hello", "Body content", Instant.now());
+    }
+}
@@ -0,0 +1,113 @@
+package com.notification.consumer.listener;
+
+import com.notification.consumer.dlq.DeadLetterPublishException;
+import com.notification.consumer.model.DecodedNotification;
+import com.notification.consumer.model.NotificationMessage;
+import com.notification.consumer.retry.RetryHeaders;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaNotificationRetryListenerTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Mock
+    private NotificationRecordHandler recordHandler;
+
+    @Mock
+    private Acknowledgment ack;
+
+    private KafkaNotificationRetryListener listener;
+
+    @BeforeEach
+    void setup() {
+        listener = new KafkaNotificationRetryListener(recordHandler, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void onMessage_shouldPauseUntilDue_whenRecordIsNotDueYet() {
+        listener.onMessage(record(NOW.toEpochMilli() + 4_000), ack);
+
+        verify(ack).nack(Duration.ofMillis(4_000));
+        verify(ack, never()).acknowledge();
+        verifyNoInteractions(recordHandler);
+    }
+
+    @Test
+    void onMessage_shouldCapThePause_whenDueIsFarAway() {
+        listener.onMessage(record(NOW.toEpochMilli() + Duration.ofMinutes(5).toMillis()), ack);
+
+        verify(ack).nack(Duration.ofSeconds(30));
+    }
+
+    @Test
+    void onMessage_shouldProcessAndAcknowledge_whenRecordIsDue() {
+        ConsumerRecord<String, ByteBuffer> record = record(NOW.toEpochMilli() - 1);
+        DecodedNotification decoded = DecodedNotification.of(
+                new NotificationMessage("id-1", "EMAIL", "a@mail.com", "Hello", "Body", NOW));
+        when(recordHandler.decode(eq(record), any())).thenReturn(decoded);
+
+        listener.onMessage(record, ack);
+
+        verify(recordHandler).process(eq(record), eq(decoded), any());
+        verify(ack).acknowledge();
+        verify(ack, never()).nack(any(Duration.class));
+    }
+
+    @Test
+    void onMessage_shouldAcknowledge_whenPayloadIsInvalid() {
+        ConsumerRecord<String, ByteBuffer> record = record(NOW.toEpochMilli());
+        when(recordHandler.decode(eq(record), any())).thenReturn(null);
+
+        listener.onMessage(record, ack);
+
+        verify(recordHandler, never()).process(any(), any(), any());
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    void onMessage_shouldRedeliverShortly_whenDeadLetterWriteIsNotAcknowledged() {
+        ConsumerRecord<String, ByteBuffer> record = record(NOW.toEpochMilli());
+        doAnswer(invocation -> {
+            PendingDeadLetters pending = invocation.getArgument(1);
+            pending.add(CompletableFuture.failedFuture(new DeadLetterPublishException("not acked", null)));
+            return null;
+        }).when(recordHandler).decode(eq(record), any());
+
+        listener.onMessage(record, ack);
+
+        verify(ack).nack(Duration.ofSeconds(1));
+        verify(ack, never()).acknowledge();
+    }
+
+    private ConsumerRecord<String, ByteBuffer> record(long dueAt) {
+        ConsumerRecord<String, ByteBuffer> record = new ConsumerRecord<>("notifications.email.retry.5s", 0, 0L, "a@mail.com",
+                ByteBuffer.wrap("{}".getBytes(StandardCharsets.UTF_8)));
+        record.headers()
+                .add(RetryHeaders.ATTEMPT, "2".getBytes(StandardCharsets.UTF_8))
+                .add(RetryHeaders.DUE_AT, String.valueOf(dueAt).getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+}
@@ -0,0 +1,128 @@
+package com.notification.consumer.listener;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyOrderedExecutorTest {
+
+    private final KeyOrderedExecutor executor = new KeyOrderedExecutor(Executors.newFixedThreadPool(8));
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void submit_shouldRunSameKeyInSubmissionOrder() throws Exception {
+        List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            final int n = i;
+            futures.add(executor.submit("a@mail.com", () -> {
+                if (n % 7 == 0) {
+                    sleep(1);
+                }
+                seen.add(n);
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i, seen.get(i));
+        }
+    }
+
+    @Test
+    void submit_shouldRunDifferentKeysConcurrently() throws Exception {
+        CountDownLatch bothRunning = new CountDownLatch(2);
+
+        // cada tarefa só termina quando a outra também começou: em série isso daria timeout
+        CompletableFuture<Void> a = executor.submit("a@mail.com", () -> awaitQuietly(bothRunning));
+        CompletableFuture<Void> b = executor.submit("b@mail.com", () -> awaitQuietly(bothRunning));
+
+        CompletableFuture.allOf(a, b).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void submitAsync_shouldHoldTheKeyUntilTheReturnedFutureCompletes_withoutHoldingAWorker() throws Exception {
+        KeyOrderedExecutor single = new KeyOrderedExecutor(Executors.newSingleThreadExecutor());
+        try {
+            CompletableFuture<Void> parked = new CompletableFuture<>();
+            List<String> seen = Collections.synchronizedList(new ArrayList<>());
+
+            CompletableFuture<Void> first = single.submitAsync("a@mail.com", () -> {
+                seen.add("a-1");
+                return parked;
+            });
+            CompletableFuture<Void> second = single.submit("a@mail.com", () -> seen.add("a-2"));
+            // o único worker está livre para outras chaves enquanto a-1 espera
+            single.submit("b@mail.com", () -> seen.add("b-1")).get(5, TimeUnit.SECONDS);
+            assertFalse(second.isDone());
+
+            parked.complete(null);
+            CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+            assertEquals(List.of("a-1", "b-1", "a-2"), seen);
+        } finally {
+            single.close();
+        }
+    }
+
+    @Test
+    void submit_shouldKeepKeyQueueGoing_whenTaskFails() throws Exception {
+        CompletableFuture<Void> failed = executor.submit("a@mail.com", () -> {
+            throw new IllegalStateException("boom");
+        });
+        CompletableFuture<Void> next = executor.submit("a@mail.com", () -> {
+        });
+
+        next.get(5, TimeUnit.SECONDS);
+        assertTrue(failed.isCompletedExceptionally());
+    }
+
+    @Test
+    void activeKeys_shouldDropKeys_whenTheirWorkIsDone() throws Exception {
+        executor.submit("a@mail.com", () -> {
+        }).get(5, TimeUnit.SECONDS);
+        executor.submit("b@mail.com", () -> {
+        }).get(5, TimeUnit.SECONDS);
+
+        // a remoção roda no whenComplete, logo depois do get liberar
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.activeKeys() > 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(0, executor.activeKeys());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("other key never started");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.notification.consumer.listener;
+
+import com.notification.consumer.model.NotificationPriority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.notification.consumer.model.NotificationPriority.HIGH;
+import static com.notification.consumer.model.NotificationPriority.LOW;
+import static com.notification.consumer.model.NotificationPriority.NORMAL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LaneSchedulerTest {
+
+    private static final Map<NotificationPriority, Integer> WEIGHTS = new EnumMap<>(Map.of(HIGH, 8, NORMAL, 3, LOW, 1));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void poll_shouldSplitByWeight_whenAllLanesHaveWork() {
+        LaneScheduler scheduler = new LaneScheduler(WEIGHTS, meterRegistry);
+        fill(scheduler, 100);
+
+        List<NotificationPriority> picked = drain(scheduler, 120);
+
+        assertEquals(80, count(picked, HIGH));
+        assertEquals(30, count(picked, NORMAL));
+        assertEquals(10, count(picked, LOW));
+        // HIGH sai primeiro, mas intercalado: nunca 12 seguidas sem as outras
+        assertEquals(HIGH, picked.get(0));
+        assertEquals(1, count(picked.subList(0, 12), LOW));
+    }
+
+    @Test
+    void poll_shouldNotStarveLow_underAConstantHighBacklog() {
+        LaneScheduler scheduler = new LaneScheduler(WEIGHTS, meterRegistry);
+        for (int i = 0; i < 1000; i++) {
+            scheduler.submit(HIGH, () -> { });
+        }
+        scheduler.submit(LOW, () -> { });
+
+        List<NotificationPriority> picked = drain(scheduler, 9);
+
+        // com só HIGH e LOW na disputa, LOW é atendida em até 8 + 1 escolhas
+        assertEquals(1, count(picked, LOW));
+    }
+
+    @Test
+    void poll_shouldGiveTheWholePoolToTheOnlyLaneWithWork() {
+        LaneScheduler scheduler = new LaneScheduler(WEIGHTS, meterRegistry);
+        for (int i = 0; i < 20; i++) {
+            scheduler.submit(LOW, () -> { });
+        }
+
+        assertEquals(20, count(drain(scheduler, 20), LOW));
+        assertNull(scheduler.poll());
+    }
+
+    @Test
+    void poll_shouldNotBankCredit_whileALaneIsIdle() {
+        LaneScheduler scheduler = new LaneScheduler(WEIGHTS, meterRegistry);
+        // LOW sozinha por um tempo e depois HIGH chega: HIGH passa na frente logo
+        for (int i = 0; i < 50; i++) {
+            scheduler.submit(LOW, () -> { });
+        }
+        drain(scheduler, 40);
+        scheduler.submit(HIGH, () -> { });
+
+        assertEquals(HIGH, scheduler.poll().priority());
+    }
+
+    @Test
+    void submit_shouldRunOnWorkersAndExposeDepth() throws Exception {
+        LaneScheduler scheduler = new LaneScheduler(WEIGHTS, 2, meterRegistry);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(scheduler.submit(i % 2 == 0 ? HIGH : LOW, () -> { }));
+        }
+        CompletableFuture<Void> failed = scheduler.submit(NORMAL, () -> {
+            throw new IllegalStateException("boom");
+        });
+
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertTrue(failed.handle((ignored, ex) -> ex != null).get(5, TimeUnit.SECONDS));
+        assertEquals(0.0, meterRegistry.get("notification.consumer.lane.depth").tag("lane", "high").gauge().value());
+        assertEquals(25, meterRegistry.get("notification.consumer.lane.wait").tag("lane", "low").timer().count());
+
+        scheduler.close();
+        assertThrows(RejectedExecutionException.class, () -> scheduler.submit(HIGH, () -> { }));
+    }
+
+    @Test
+    void constructor_shouldRejectLanesWithoutWeight() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new LaneScheduler(new EnumMap<>(Map.of(HIGH, 8, NORMAL, 3)), meterRegistry));
+    }
+
+    private static void fill(LaneScheduler scheduler, int perLane) {
+        for (int i = 0; i < perLane; i++) {
+            for (NotificationPriority priority : NotificationPriority.values()) {
+                scheduler.submit(priority, () -> { });
+            }
+        }
+    }
+
+    private static List<NotificationPriority> drain(LaneScheduler scheduler, int n) {
+        List<NotificationPriority> picked = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            LaneScheduler.Task task = scheduler.poll();
+            task.run();
+            picked.add(task.priority());
+        }
+        return picked;
+    }
+
+    private static long count(List<NotificationPriority> picked, NotificationPriority priority) {
+        return picked.stream().filter(priority::equals).count();
+    }
+}
@@ -0,0 +1,79 @@
+package com.notification.consumer.listener;
+
+import com.notification.consumer.breaker.DeliveryCircuitBreaker;
+import com.notification.consumer.codec.NotificationCodecRegistry;
+import com.notification.consumer.concurrency.AdaptiveConcurrencyLimiter;
+import com.notification.consumer.dedup.NotificationDeduplicator;
+import com.notification.consumer.dlq.DeadLetterQueueDlq;
+import com.notification.consumer.metrics.DeliveryLatencyMetrics;
+import com.notification.consumer.retry.DelayedRetryPublisher;
+import com.notification.consumer.retry.RetryExecutor;
+import com.notification.consumer.retry.RetryPolicy;
+import com.notification.consumer.service.NotificationConsumerService;
+import com.notification.consumer.throttle.DomainThrottle;
+
+/**
+ * Monta o {@link NotificationRecordHandler} dos testes: as dependências obrigatórias no construtor, as opcionais
+ * (null = desligada, como no contexto Spring) só quando o teste precisa delas.
+ */
+final class RecordHandlerBuilder {
+
+    private final NotificationConsumerService service;
+    private final RetryExecutor retryExecutor;
+    private final DeadLetterQueueDlq deadLetterQueueDlq;
+    private final RetryPolicy retryPolicy;
+    private DelayedRetryPublisher delayedRetry;
+    private NotificationDeduplicator deduplicator;
+    private DomainThrottle throttle;
+    private DeliveryCircuitBreaker breaker;
+    private AdaptiveConcurrencyLimiter limiter;
+    private DeliveryLatencyMetrics latency;
+
+    private RecordHandlerBuilder(NotificationConsumerService service, RetryExecutor retryExecutor,
+                                 DeadLetterQueueDlq deadLetterQueueDlq, RetryPolicy retryPolicy) {
+        this.service = service;
+        this.retryExecutor = retryExecutor;
+        this.deadLetterQueueDlq = deadLetterQueueDlq;
+        this.retryPolicy = retryPolicy;
+    }
+
+    static RecordHandlerBuilder recordHandler(NotificationConsumerService service, RetryExecutor retryExecutor,
+                                              DeadLetterQueueDlq deadLetterQueueDlq, RetryPolicy retryPolicy) {
+        return new RecordHandlerBuilder(service, retryExecutor, deadLetterQueueDlq, retryPolicy);
+    }
+
+    RecordHandlerBuilder delayedRetry(DelayedRetryPublisher delayedRetry) {
+        this.delayedRetry = delayedRetry;
+        return this;
+    }
+
+    RecordHandlerBuilder deduplicator(NotificationDeduplicator deduplicator) {
+        this.deduplicator = deduplicator;
+        return this;
+    }
+
+    RecordHandlerBuilder throttle(DomainThrottle throttle) {
+        this.throttle = throttle;
+        return this;
+    }
+
+    RecordHandlerBuilder breaker(DeliveryCircuitBreaker breaker) {
+        this.breaker = breaker;
+        return this;
+    }
+
+    RecordHandlerBuilder limiter(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+        return this;
+    }
+
+    RecordHandlerBuilder latency(DeliveryLatencyMetrics latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    NotificationRecordHandler build() {
+        return new NotificationRecordHandler(service, retryExecutor, deadLetterQueueDlq, retryPolicy,
+                new NotificationCodecRegistry(), delayedRetry, deduplicator, throttle, breaker, limiter, latency);
+    }
+}
@@ -0,0 +1,80 @@
+package com.notification.consumer.metrics;
+
+import com.notification.consumer.model.DecodedNotification;
+import com.notification.consumer.model.NotificationMessage;
+import com.notification.consumer.model.NotificationPriority;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DeliveryLatencyMetricsTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LatencyMetricsProperties props = new LatencyMetricsProperties();
+
+    @Test
+    void record_shouldSplitTheLatencyIntoDwellAndProcessing() {
+        DeliveryLatencyMetrics metrics = new DeliveryLatencyMetrics(props, meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC));
+        DecodedNotification decoded = decoded("EMAIL", NOW.minusMillis(2_000), null, NOW.minusMillis(400));
+
+        metrics.record(record(NOW.minusMillis(1_500)), decoded, DeliveryLatencyMetrics.Outcome.SUCCESS);
+
+        assertEquals(2_000.0, timer("notification.consumer.latency.end-to-end", "EMAIL", "success").totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(1_100.0, timer("notification.consumer.latency.broker-dwell", "EMAIL", "success").totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(400.0, timer("notification.consumer.latency.processing", "EMAIL", "success").totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(0, timer("notification.consumer.latency.end-to-end", "EMAIL", "dlq").count());
+    }
+
+    @Test
+    void record_shouldStartTheClockAtSendAt_forScheduledMessages() {
+        DeliveryLatencyMetrics metrics = new DeliveryLatencyMetrics(props, meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC));
+        DecodedNotification decoded = decoded("EMAIL", NOW.minusSeconds(3_600), NOW.minusMillis(300), NOW.minusMillis(100));
+
+        metrics.record(record(NOW.minusMillis(200)), decoded, DeliveryLatencyMetrics.Outcome.RETRY);
+
+        assertEquals(300.0, timer("notification.consumer.latency.end-to-end", "EMAIL", "retry").totalTime(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void record_shouldTagTypesBeyondTheLimitAsOther() {
+        props.setMaxTaggedTypes(1);
+        DeliveryLatencyMetrics metrics = new DeliveryLatencyMetrics(props, meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC));
+
+        metrics.record(record(NOW), decoded("EMAIL", NOW, null, NOW), DeliveryLatencyMetrics.Outcome.DLQ);
+        metrics.record(record(NOW), decoded("SMS", NOW, null, NOW), DeliveryLatencyMetrics.Outcome.DLQ);
+        metrics.record(record(NOW), decoded("PUSH", NOW, null, NOW), DeliveryLatencyMetrics.Outcome.DLQ);
+
+        assertEquals(1, timer("notification.consumer.latency.end-to-end", "EMAIL", "dlq").count());
+        assertEquals(2, timer("notification.consumer.latency.end-to-end", DeliveryLatencyMetrics.OTHER, "dlq").count());
+    }
+
+    private Timer timer(String name, String type, String outcome) {
+        return meterRegistry.get(name).tag("type", type).tag("outcome", outcome).timer();
+    }
+
+    private static DecodedNotification decoded(String type, Instant createdAt, Instant sendAt, Instant receivedAt) {
+        DecodedNotification decoded = DecodedNotification.of(new NotificationMessage("id-1", type, "a@mail.com",
+                "Hello", "Body", createdAt, NotificationPriority.NORMAL, sendAt));
+        decoded.receivedAt(receivedAt.toEpochMilli());
+        return decoded;
+    }
+
+    private static ConsumerRecord<String, ByteBuffer> record(Instant timestamp) {
+        return new ConsumerRecord<>("notifications.email", 0, 0L, timestamp.toEpochMilli(), TimestampType.CREATE_TIME,
+                -1, -1, "a@mail.com", ByteBuffer.allocate(0), new RecordHeaders(), Optional.empty());
+    }
+}
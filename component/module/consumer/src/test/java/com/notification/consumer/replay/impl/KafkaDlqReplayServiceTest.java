@@ -0,0 +1,246 @@
+package com.notification.consumer.replay.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.notification.consumer.codec.JsonNotificationCodec;
+import com.notification.consumer.codec.NotificationCodecHeaders;
+import com.notification.consumer.dlq.impl.KafkaDeadLetterQueueDlq.DlqEnvelope;
+import com.notification.consumer.dto.DlqReplayProgressDTO;
+import com.notification.consumer.dto.DlqReplayRequestDTO;
+import com.notification.consumer.exception.ReplayConflictException;
+import com.notification.consumer.model.NotificationMessage;
+import com.notification.consumer.model.NotificationPriority;
+import com.notification.consumer.model.PriorityTopics;
+import com.notification.consumer.replay.DlqReplayProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaDlqReplayServiceTest {
+
+    private static final String DLQ = "notifications.email.dlq";
+    private static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+
+    @Mock
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Captor
+    private ArgumentCaptor<ProducerRecord<String, byte[]>> captor;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final TopicPartition partition = new TopicPartition(DLQ, 0);
+    private MockConsumer<String, byte[]> consumer;
+    private DlqReplayProperties props;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.updatePartitions(DLQ, List.of(new PartitionInfo(DLQ, 0, null, null, null)));
+        props = new DlqReplayProperties();
+        props.setMaxPerSecondLimit(1_000_000);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void start_shouldRepublishMatchingEnvelopesWithinTheOffsetRange() throws Exception {
+        when(kafkaTemplate.send(anyRecord())).thenReturn(CompletableFuture.completedFuture(null));
+        List<byte[]> envelopes = List.of(
+                envelope("Permanent failure after 3 attempts: smtp down", message("a@Mail.com")), // 0: antes do intervalo
+                envelope("Permanent failure after 3 attempts: smtp down", "mail.com", message("b@mail.com")), // 1
+                envelope("Non-retryable failure: Invalid recipient: x", message("c@mail.com")),  // 2: filtrado
+                envelope("Permanent failure after 3 attempts: SMTP DOWN", "other.com", message("d@other.com")), // 3
+                envelope("Permanent failure after 3 attempts: smtp down", null),                  // 4: sem mensagem
+                envelope("Permanent failure after 3 attempts: smtp down", message("f@mail.com"))  // 5: depois do intervalo
+        );
+        offsets(0, envelopes.size());
+        consumer.schedulePollTask(() -> {
+            for (int i = 0; i < envelopes.size(); i++) {
+                consumer.addRecord(new ConsumerRecord<>(DLQ, 0, i, "k" + i, envelopes.get(i)));
+            }
+        });
+
+        KafkaDlqReplayService service = service(Runnable::run);
+        DlqReplayProgressDTO progress = service.start(
+                new DlqReplayRequestDTO(1L, 4L, null, null, "smtp down", null, null, null));
+
+        DlqReplayProgressDTO finished = service.progress(progress.id());
+        assertEquals("COMPLETED", finished.status());
+        assertEquals(4, finished.total());
+        assertEquals(4, finished.scanned());
+        assertEquals(3, finished.matched());
+        assertEquals(2, finished.replayed());
+        assertEquals(1, finished.unreplayable());
+        assertEquals(2.0, meterRegistry.get("notification.consumer.dlq.replayed").counter().count());
+
+        verify(kafkaTemplate, times(2)).send(captor.capture());
+        List<ProducerRecord<String, byte[]>> sent = captor.getAllValues();
+        assertEquals("notifications.email", sent.get(0).topic());
+        // a key original (aqui, da estratégia DOMAIN), não o destinatário
+        assertEquals(List.of("mail.com", "other.com"), sent.stream().map(ProducerRecord::key).toList());
+        assertEquals("json", new String(sent.get(0).headers().lastHeader(NotificationCodecHeaders.FORMAT).value(),
+                StandardCharsets.UTF_8));
+        assertEquals(progress.id(), new String(sent.get(0).headers().lastHeader(KafkaDlqReplayService.REPLAY_ID_HEADER).value(),
+                StandardCharsets.UTF_8));
+        assertEquals("d@other.com", objectMapper.readValue(sent.get(1).value(), NotificationMessage.class).to());
+    }
+
+    @Test
+    void start_shouldLeaveThePartitionToTheProducer_whenTheEnvelopeHasNoSourceKey() throws Exception {
+        when(kafkaTemplate.send(anyRecord())).thenReturn(CompletableFuture.completedFuture(null));
+        // envelope gravado antes do sourceKey existir
+        ObjectNode legacy = objectMapper.valueToTree(
+                new DlqEnvelope("env", NOW, "smtp down", null, message("a@mail.com")));
+        legacy.remove("sourceKey");
+        byte[] envelope = objectMapper.writeValueAsBytes(legacy);
+        offsets(0, 1);
+        consumer.schedulePollTask(() -> consumer.addRecord(new ConsumerRecord<>(DLQ, 0, 0L, "k", envelope)));
+
+        service(Runnable::run).start(new DlqReplayRequestDTO(null, null, null, null, null, null, null, null));
+
+        verify(kafkaTemplate).send(captor.capture());
+        assertNull(captor.getValue().key());
+    }
+
+    @Test
+    void start_shouldFail_whenTheMainTopicDoesNotAcknowledge() throws Exception {
+        when(kafkaTemplate.send(anyRecord()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+        byte[] envelope = envelope("Permanent failure after 3 attempts: smtp down", message("a@mail.com"));
+        offsets(0, 1);
+        consumer.schedulePollTask(() -> consumer.addRecord(new ConsumerRecord<>(DLQ, 0, 0L, "k", envelope)));
+
+        KafkaDlqReplayService service = service(Runnable::run);
+        DlqReplayProgressDTO progress = service.start(
+                new DlqReplayRequestDTO(null, null, null, null, null, null, null, null));
+
+        DlqReplayProgressDTO finished = service.progress(progress.id());
+        assertEquals("FAILED", finished.status());
+        assertEquals(0, finished.replayed());
+        assertTrue(finished.error().contains("broker down"));
+    }
+
+    @Test
+    void start_shouldRepublishEachMessageToTheTopicOfItsPriority() throws Exception {
+        when(kafkaTemplate.send(anyRecord())).thenReturn(CompletableFuture.completedFuture(null));
+        List<byte[]> envelopes = List.of(
+                envelope("smtp down", message("a@mail.com", NotificationPriority.HIGH)),
+                envelope("smtp down", message("b@mail.com", NotificationPriority.LOW)),
+                envelope("smtp down", message("c@mail.com")));
+        offsets(0, envelopes.size());
+        consumer.schedulePollTask(() -> {
+            for (int i = 0; i < envelopes.size(); i++) {
+                consumer.addRecord(new ConsumerRecord<>(DLQ, 0, i, "k" + i, envelopes.get(i)));
+            }
+        });
+
+        service(Runnable::run).start(new DlqReplayRequestDTO(null, null, null, null, null, null, null, null));
+
+        verify(kafkaTemplate, times(3)).send(captor.capture());
+        assertEquals(List.of("notifications.email.high", "notifications.email.low", "notifications.email"),
+                captor.getAllValues().stream().map(ProducerRecord::topic).toList());
+    }
+
+    @Test
+    void start_shouldRejectASecondReplay_whileOneIsRunning() {
+        List<Runnable> queued = new ArrayList<>();
+        KafkaDlqReplayService service = service(queued::add);
+        DlqReplayRequestDTO all = new DlqReplayRequestDTO(null, null, null, null, null, null, null, null);
+
+        service.start(all);
+
+        assertThrows(ReplayConflictException.class, () -> service.start(all));
+        assertEquals(1, queued.size());
+    }
+
+    @Test
+    void start_shouldRejectInvalidRanges() {
+        KafkaDlqReplayService service = service(Runnable::run);
+
+        assertThrows(IllegalArgumentException.class, () -> service.start(
+                new DlqReplayRequestDTO(1L, null, NOW, null, null, null, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> service.start(
+                new DlqReplayRequestDTO(5L, 1L, null, null, null, null, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> service.start(
+                new DlqReplayRequestDTO(null, null, null, null, null, null, null, 2_000_000)));
+    }
+
+    @Test
+    void matches_shouldApplyTheFailedAtWindow() {
+        DlqEnvelope envelope = new DlqEnvelope("e", NOW, "Permanent failure", "a@mail.com", message("a@mail.com"));
+
+        assertTrue(KafkaDlqReplayService.matches(envelope,
+                new DlqReplayRequestDTO(null, null, null, null, null, NOW, NOW.plusSeconds(1), null)));
+        assertFalse(KafkaDlqReplayService.matches(envelope,
+                new DlqReplayRequestDTO(null, null, null, null, null, NOW.plusSeconds(1), null, null)));
+        // failedBefore é exclusivo
+        assertFalse(KafkaDlqReplayService.matches(envelope,
+                new DlqReplayRequestDTO(null, null, null, null, null, null, NOW, null)));
+    }
+
+    private KafkaDlqReplayService service(Executor runner) {
+        return new KafkaDlqReplayService(() -> consumer, kafkaTemplate,
+                new JsonNotificationCodec(objectMapper), props, meterRegistry,
+                DLQ, new PriorityTopics("notifications.email.high", "notifications.email", "notifications.email.low"),
+                runner, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private void offsets(long begin, long end) {
+        consumer.updateBeginningOffsets(Map.of(partition, begin));
+        consumer.updateEndOffsets(Map.of(partition, end));
+    }
+
+    private byte[] envelope(String reason, NotificationMessage message) throws Exception {
+        return envelope(reason, message == null ? null : message.to(), message);
+    }
+
+    private byte[] envelope(String reason, String sourceKey, NotificationMessage message) throws Exception {
+        return objectMapper.writeValueAsBytes(new DlqEnvelope("env", NOW.minusSeconds(60), reason, sourceKey, message));
+    }
+
+    private static NotificationMessage message(String to) {
+        return new NotificationMessage("id-" + to, "EMAIL", to, "Hello", "Body", NOW.minusSeconds(120));
+    }
+
+    private static NotificationMessage message(String to, NotificationPriority priority) {
+        return new NotificationMessage("id-" + to, "EMAIL", to, "Hello", "Body", NOW.minusSeconds(120), priority);
+    }
+
+    private static ProducerRecord<String, byte[]> anyRecord() {
+        return ArgumentMatchers.any();
+    }
+}
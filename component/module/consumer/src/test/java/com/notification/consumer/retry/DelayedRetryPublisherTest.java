@@ -0,0 +1,294 @@
+package com.notification.consumer.retry;
+
+import com.notification.consumer.codec.NotificationCodecHeaders;
+import com.notification.consumer.dlq.DeadLetterQueueDlq;
+import com.notification.consumer.model.NotificationMessage;
+import com.notification.consumer.model.PriorityTopics;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DelayedRetryPublisherTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Mock
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Mock
+    private DeadLetterQueueDlq deadLetterQueueDlq;
+
+    @Captor
+    private ArgumentCaptor<ProducerRecord<String, byte[]>> captor;
+
+    private DelayedRetryPublisher publisher;
+
+    @BeforeEach
+    void setup() {
+        RetryProperties props = new RetryProperties();
+        props.getTopics().setTiers(List.of(Duration.ofSeconds(5), Duration.ofSeconds(30), Duration.ofMinutes(5)));
+
+        RetryPolicy policy = new RetryPolicy(3, 0, 1.0, 0, RetryJitter.NONE,
+                List.of(), List.of(NonRetryableException.class));
+
+        publisher = new DelayedRetryPublisher(kafkaTemplate, deadLetterQueueDlq, policy, props,
+                new PriorityTopics("notifications.email.high", "notifications.email", "notifications.email.low"),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void tierTopics_shouldBeNamedAfterThePriorityTopicAndTheDelay() {
+        assertEquals(List.of(
+                        "notifications.email.high.retry.5s", "notifications.email.high.retry.30s", "notifications.email.high.retry.5m",
+                        "notifications.email.retry.5s", "notifications.email.retry.30s", "notifications.email.retry.5m",
+                        "notifications.email.low.retry.5s", "notifications.email.low.retry.30s", "notifications.email.low.retry.5m"),
+                publisher.tierTopics());
+        assertEquals(4, publisher.maxAttempts());
+        assertEquals("1h", DelayedRetryPublisher.label(Duration.ofHours(1)));
+        assertEquals("1500ms", DelayedRetryPublisher.label(Duration.ofMillis(1500)));
+    }
+
+    @Test
+    void schedule_shouldRepublishOriginalPayloadToFirstTier_afterFirstAttempt() {
+        tierAcks();
+        ConsumerRecord<String, ByteBuffer> record = record("binary-payload");
+        record.headers().add(NotificationCodecHeaders.FORMAT, "binary".getBytes(StandardCharsets.UTF_8));
+
+        publisher.schedule(record, message(), 1, new IllegalStateException("smtp down"));
+
+        ProducerRecord<String, byte[]> sent = captureSent();
+        assertEquals("notifications.email.retry.5s", sent.topic());
+        assertEquals("a@mail.com", sent.key());
+        assertArrayEquals("binary-payload".getBytes(StandardCharsets.UTF_8), sent.value());
+        assertEquals(2, RetryHeaders.attempt(sent.headers()));
+        assertEquals(NOW.toEpochMilli() + 5_000, RetryHeaders.dueAt(sent.headers()));
+        // o formato original continua valendo para o decode no tier
+        assertNotNull(sent.headers().lastHeader(NotificationCodecHeaders.FORMAT));
+        verifyNoInteractions(deadLetterQueueDlq);
+    }
+
+    @Test
+    void schedule_shouldReplaceRetryHeaders_whenComingFromATier() {
+        tierAcks();
+        ConsumerRecord<String, ByteBuffer> record = record("payload");
+        record.headers()
+                .add(RetryHeaders.ATTEMPT, "3".getBytes(StandardCharsets.UTF_8))
+                .add(RetryHeaders.DUE_AT, "1".getBytes(StandardCharsets.UTF_8));
+
+        publisher.schedule(record, message(), 3, new IllegalStateException("smtp down"));
+
+        ProducerRecord<String, byte[]> sent = captureSent();
+        assertEquals("notifications.email.retry.5m", sent.topic());
+        assertEquals(4, RetryHeaders.attempt(sent.headers()));
+        assertEquals(1, countHeaders(sent, RetryHeaders.ATTEMPT));
+        assertEquals(1, countHeaders(sent, RetryHeaders.DUE_AT));
+    }
+
+    @Test
+    void schedule_shouldKeepThePriority_ofTheTopicTheRecordCameFrom() {
+        tierAcks();
+
+        publisher.schedule(record("notifications.email.high", "payload"), message(), 1, new IllegalStateException("smtp down"));
+
+        assertEquals("notifications.email.high.retry.5s", captureSent().topic());
+    }
+
+    @Test
+    void schedule_shouldStayInTheLowTiers_whenComingFromALowTier() {
+        tierAcks();
+        ConsumerRecord<String, ByteBuffer> record = record("notifications.email.low.retry.5s", "payload");
+        record.headers().add(RetryHeaders.ATTEMPT, "2".getBytes(StandardCharsets.UTF_8));
+
+        publisher.schedule(record, message(), 2, new IllegalStateException("smtp down"));
+
+        assertEquals("notifications.email.low.retry.30s", captureSent().topic());
+    }
+
+    @Test
+    void schedule_shouldSendToDlq_whenAllTiersAreExhausted() {
+        dlqAcks();
+        publisher.schedule(record("payload"), message(), 4, new IllegalStateException("smtp down"));
+
+        ArgumentCaptor<String> reason = ArgumentCaptor.forClass(String.class);
+        verify(deadLetterQueueDlq).send(eq("a@mail.com"), eq(message()), reason.capture());
+        assertTrue(reason.getValue().startsWith("Permanent failure after 4 attempts: smtp down"));
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void schedule_shouldSendToDlqWithoutRetry_whenFailureIsNonRetryable() {
+        dlqAcks();
+        publisher.schedule(record("payload"), message(), 1, new NonRetryableException("Invalid recipient: nope"));
+
+        verify(deadLetterQueueDlq).send("a@mail.com", message(), "Non-retryable failure: Invalid recipient: nope");
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void schedule_shouldSendToDlq_whenRepublishFails() {
+        when(kafkaTemplate.send(ArgumentMatchers.<ProducerRecord<String, byte[]>>any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+        dlqAcks();
+
+        CompletableFuture<Void> settled = publisher.schedule(record("payload"), message(), 1, new IllegalStateException("smtp down"));
+
+        verify(deadLetterQueueDlq).send(any(), eq(message()), anyString());
+        // a DLQ confirmou no lugar do tier: o record de origem pode ser comitado
+        assertDoesNotThrow(() -> settled.join());
+    }
+
+    @Test
+    void defer_shouldParkTheRecordInADelayTier_withoutSpendingAnAttempt() {
+        tierAcks();
+        ConsumerRecord<String, ByteBuffer> record = record("payload");
+        record.headers().add(RetryHeaders.ATTEMPT, "2".getBytes(StandardCharsets.UTF_8));
+
+        publisher.defer(record, Duration.ofMillis(1500)).join();
+
+        ProducerRecord<String, byte[]> sent = captureSent();
+        assertEquals("notifications.email.retry.5s", sent.topic());
+        assertEquals(2, RetryHeaders.attempt(sent.headers()));
+        assertEquals(1, countHeaders(sent, RetryHeaders.ATTEMPT));
+        assertEquals(NOW.toEpochMilli() + 1_500, RetryHeaders.dueAt(sent.headers()));
+        assertEquals(NOW.toEpochMilli() + 1_500, RetryHeaders.throttledUntil(sent.headers()));
+        verifyNoInteractions(deadLetterQueueDlq);
+    }
+
+    @Test
+    void defer_shouldPickTheFirstTierAtLeastAsLongAsTheDeferral() {
+        tierAcks();
+
+        publisher.defer(record("payload"), Duration.ofSeconds(20)).join();
+
+        ProducerRecord<String, byte[]> sent = captureSent();
+        // no tier de 5s o due-at de 20s seguraria os retries que chegam depois dele
+        assertEquals("notifications.email.retry.30s", sent.topic());
+        assertEquals(NOW.toEpochMilli() + 20_000, RetryHeaders.dueAt(sent.headers()));
+    }
+
+    @Test
+    void defer_shouldWaitOneLastTierDelay_whenTheDeferralIsLongerThanEveryTier() {
+        tierAcks();
+
+        publisher.defer(record("payload"), Duration.ofMinutes(12)).join();
+
+        ProducerRecord<String, byte[]> sent = captureSent();
+        assertEquals("notifications.email.retry.5m", sent.topic());
+        assertEquals(NOW.toEpochMilli() + 300_000, RetryHeaders.dueAt(sent.headers()));
+        // a reserva continua valendo: quando voltar, é adiado de novo pelo que falta
+        assertEquals(NOW.toEpochMilli() + 720_000, RetryHeaders.throttledUntil(sent.headers()));
+    }
+
+    @Test
+    void defer_shouldUseTheTiersOfTheRecordPriority() {
+        tierAcks();
+
+        publisher.defer(record("notifications.email.high.retry.30s", "payload"), Duration.ofSeconds(2)).join();
+
+        assertEquals("notifications.email.high.retry.5s", captureSent().topic());
+    }
+
+    @Test
+    void reservedDeferral_shouldTellHowLongUntilTheReservedToken() {
+        ConsumerRecord<String, ByteBuffer> fresh = record("payload");
+        ConsumerRecord<String, ByteBuffer> parked = record("payload");
+        parked.headers().add(RetryHeaders.THROTTLED_UNTIL,
+                String.valueOf(NOW.toEpochMilli() + 700).getBytes(StandardCharsets.UTF_8));
+        ConsumerRecord<String, ByteBuffer> due = record("payload");
+        due.headers().add(RetryHeaders.THROTTLED_UNTIL,
+                String.valueOf(NOW.toEpochMilli() - 1).getBytes(StandardCharsets.UTF_8));
+
+        assertNull(publisher.reservedDeferral(fresh));
+        assertEquals(Duration.ofMillis(700), publisher.reservedDeferral(parked));
+        assertEquals(Duration.ZERO, publisher.reservedDeferral(due));
+    }
+
+    @Test
+    void schedule_shouldDropTheThrottleReservation_soTheRetryTakesANewToken() {
+        tierAcks();
+        ConsumerRecord<String, ByteBuffer> record = record("payload");
+        record.headers().add(RetryHeaders.THROTTLED_UNTIL, "1".getBytes(StandardCharsets.UTF_8));
+
+        publisher.schedule(record, message(), 1, new IllegalStateException("smtp down"));
+
+        assertEquals(0, RetryHeaders.throttledUntil(captureSent().headers()));
+    }
+
+    @Test
+    void defer_shouldFail_whenTheTierDoesNotAcknowledge() {
+        when(kafkaTemplate.send(ArgumentMatchers.<ProducerRecord<String, byte[]>>any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        CompletableFuture<Void> settled = publisher.defer(record("payload"), Duration.ofSeconds(1));
+
+        // sem DLQ: o record de origem não é comitado e volta a ser entregue
+        assertTrue(settled.isCompletedExceptionally());
+        verifyNoInteractions(deadLetterQueueDlq);
+    }
+
+    private void tierAcks() {
+        when(kafkaTemplate.send(ArgumentMatchers.<ProducerRecord<String, byte[]>>any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    private void dlqAcks() {
+        when(deadLetterQueueDlq.send(any(), any(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    private ProducerRecord<String, byte[]> captureSent() {
+        verify(kafkaTemplate).send(captor.capture());
+        return captor.getValue();
+    }
+
+    private static int countHeaders(ProducerRecord<String, byte[]> record, String key) {
+        int count = 0;
+        for (var header : record.headers().headers(key)) {
+            count++;
+        }
+        return count;
+    }
+
+    private ConsumerRecord<String, ByteBuffer> record(String payload) {
+        return record("notifications.email", payload);
+    }
+
+    private ConsumerRecord<String, ByteBuffer> record(String topic, String payload) {
+        return new ConsumerRecord<>(topic, 0, 0L, "a@mail.com",
+                ByteBuffer.wrap(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private NotificationMessage message() {
+        return new NotificationMessage("id-1", "EMAIL", "a@mail.com", "Hello", "Body", NOW);
+    }
+}
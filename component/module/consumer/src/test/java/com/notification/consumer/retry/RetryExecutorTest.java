@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -58,4 +59,25 @@ public class RetryExecutorTest {
         assertEquals("always fails", ex.getMessage());
     }
 
+    @Test
+    void execute_shouldNotRetry_whenFailureIsNonRetryable() {
+        AtomicInteger attempts = new AtomicInteger(0);
+        RetryPolicy policy = new RetryPolicy(5, 0, 2.0, 0, RetryJitter.NONE,
+                List.of(), List.of(NonRetryableException.class));
+
+        assertThrows(
+                NonRetryableException.class,
+                () -> retryExecutor.execute(
+                        "test-operation",
+                        policy,
+                        () -> {
+                            attempts.incrementAndGet();
+                            throw new NonRetryableException("bad recipient");
+                        }
+                )
+        );
+
+        assertEquals(1, attempts.get());
+    }
+
 }
@@ -0,0 +1,85 @@
+package com.notification.consumer.retry;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryPolicyTest {
+
+    @Test
+    void delayBefore_shouldGrowExponentially_upToTheCap() {
+        RetryPolicy policy = policy(RetryJitter.NONE);
+
+        assertEquals(100, policy.delayBefore(2, 0, new SplittableRandom(1)));
+        assertEquals(200, policy.delayBefore(3, 100, new SplittableRandom(1)));
+        assertEquals(400, policy.delayBefore(4, 200, new SplittableRandom(1)));
+        assertEquals(1_000, policy.delayBefore(10, 400, new SplittableRandom(1)));
+    }
+
+    @Test
+    void delayBefore_shouldStayWithinExponentialBound_withFullJitter() {
+        RetryPolicy policy = policy(RetryJitter.FULL);
+        SplittableRandom random = new SplittableRandom(42);
+
+        for (int attempt = 2; attempt < 12; attempt++) {
+            long bound = Math.min(1_000, 100L << (attempt - 2));
+            for (int i = 0; i < 1_000; i++) {
+                long delay = policy.delayBefore(attempt, 0, random);
+                assertTrue(delay >= 0 && delay <= bound, "delay " + delay + " outside [0, " + bound + "]");
+            }
+        }
+    }
+
+    @Test
+    void delayBefore_shouldStayBetweenBaseAndThreeTimesPrevious_withDecorrelatedJitter() {
+        RetryPolicy policy = policy(RetryJitter.DECORRELATED);
+        SplittableRandom random = new SplittableRandom(7);
+
+        long previous = 0;
+        for (int i = 0; i < 1_000; i++) {
+            long delay = policy.delayBefore(2 + i, previous, random);
+            long upper = Math.min(1_000, Math.max(100, previous * 3));
+            assertTrue(delay >= 100 && delay <= upper, "delay " + delay + " outside [100, " + upper + "]");
+            previous = delay;
+        }
+    }
+
+    @Test
+    void isRetryable_shouldLookAtTheCauseChain() {
+        RetryPolicy policy = new RetryPolicy(3, 0, 1.0, 0, RetryJitter.NONE,
+                List.of(), List.of(NonRetryableException.class));
+
+        assertTrue(policy.isRetryable(new IllegalStateException("timeout")));
+        assertFalse(policy.isRetryable(new NonRetryableException("bad recipient")));
+        assertFalse(policy.isRetryable(new IllegalStateException("wrapped", new NonRetryableException("bad recipient"))));
+    }
+
+    @Test
+    void isRetryable_shouldOnlyRetryListedTypes_whenRetryableListIsSet() {
+        RetryPolicy policy = new RetryPolicy(3, 0, 1.0, 0, RetryJitter.NONE,
+                List.of(IOException.class), List.of());
+
+        assertTrue(policy.isRetryable(new UncheckedIOException(new IOException("connection reset"))));
+        assertFalse(policy.isRetryable(new IllegalStateException("unknown")));
+    }
+
+    @Test
+    void withMaxAttempts_shouldKeepTheRestOfThePolicy() {
+        RetryPolicy policy = policy(RetryJitter.FULL).withMaxAttempts(2);
+
+        assertEquals(2, policy.maxAttempts());
+        assertEquals(RetryJitter.FULL, policy.jitter());
+        assertEquals(1_000, policy.maxBackoffMillis());
+    }
+
+    private static RetryPolicy policy(RetryJitter jitter) {
+        return new RetryPolicy(5, 100, 2.0, 1_000, jitter, List.of(), List.of());
+    }
+}
@@ -0,0 +1,235 @@
+package com.notification.consumer.schedule;
+
+import com.notification.consumer.codec.NotificationCodecHeaders;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationSchedulerTest {
+
+    private static final String SCHEDULED = "notifications.email.scheduled";
+    private static final String MAIN = "notifications.email";
+
+    @Mock
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Captor
+    private ArgumentCaptor<ProducerRecord<String, byte[]>> captor;
+
+    private final MutableClock clock = new MutableClock();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TopicPartition partition = new TopicPartition(SCHEDULED, 2);
+    private NotificationScheduler scheduler;
+    private long offset;
+
+    @BeforeEach
+    void setup() {
+        ScheduleProperties props = new ScheduleProperties();
+        props.setTick(Duration.ofMillis(10));
+        props.setWheelSize(64);
+        props.setRetryDelay(Duration.ofSeconds(5));
+        scheduler = new NotificationScheduler(kafkaTemplate, props, meterRegistry, SCHEDULED, MAIN, clock, false);
+    }
+
+    @Test
+    void releaseDue_shouldRepublishToTheTargetTopic_thenWriteATombstone() {
+        when(kafkaTemplate.send(anyRecord())).thenReturn(CompletableFuture.completedFuture(null));
+        scheduler.accept(scheduled("id-1", clock.millis() + 60_000, "notifications.email.high", "a@mail.com"));
+
+        assertEquals(0, scheduler.releaseDue());
+        assertEquals(1, scheduler.pending());
+
+        clock.advance(Duration.ofSeconds(60));
+        assertEquals(1, scheduler.releaseDue());
+
+        verify(kafkaTemplate, times(2)).send(captor.capture());
+        ProducerRecord<String, byte[]> released = captor.getAllValues().get(0);
+        assertEquals("notifications.email.high", released.topic());
+        assertEquals("a@mail.com", released.key());
+        assertArrayEquals(payload("id-1"), released.value());
+        assertEquals("binary", header(released, NotificationCodecHeaders.FORMAT));
+        assertNull(released.headers().lastHeader(ScheduleHeaders.SEND_AT));
+        assertNull(released.headers().lastHeader(ScheduleHeaders.TARGET_TOPIC));
+
+        ProducerRecord<String, byte[]> tombstone = captor.getAllValues().get(1);
+        assertEquals(SCHEDULED, tombstone.topic());
+        assertEquals(2, tombstone.partition());
+        assertEquals("id-1", tombstone.key());
+        assertNull(tombstone.value());
+
+        assertEquals(0, scheduler.pending());
+        assertEquals(1.0, meterRegistry.get("notification.consumer.schedule.released").tag("result", "released").counter().count());
+    }
+
+    @Test
+    void accept_shouldHoldEverything_untilThePartitionIsLoaded() {
+        when(kafkaTemplate.send(anyRecord())).thenReturn(CompletableFuture.completedFuture(null));
+        scheduler.assigned(partition);
+
+        // no log: id-1 já liberado (tombstone adiante), id-2 reagendado, id-3 pendente sem target (tópico padrão)
+        scheduler.accept(scheduled("id-1", clock.millis() - 1_000, "notifications.email.high", null));
+        scheduler.accept(scheduled("id-2", clock.millis() - 1_000, MAIN, null));
+        scheduler.accept(scheduled("id-3", clock.millis() - 1_000, null, null));
+        scheduler.accept(tombstone("id-1"));
+        scheduler.accept(scheduled("id-2", clock.millis() + 30_000, MAIN, null));
+
+        assertTrue(scheduler.isLoading(partition));
+        assertEquals(0, scheduler.releaseDue());
+        verify(kafkaTemplate, never()).send(anyRecord());
+        assertEquals(2, scheduler.pending());
+
+        scheduler.loaded(partition);
+        assertEquals(1, scheduler.releaseDue());
+
+        verify(kafkaTemplate, times(2)).send(captor.capture());
+        assertEquals(MAIN, captor.getAllValues().get(0).topic());
+        assertArrayEquals(payload("id-3"), captor.getAllValues().get(0).value());
+        assertEquals(1, scheduler.pending());
+    }
+
+    @Test
+    void releaseDue_shouldRetryLater_whenTheTargetTopicDoesNotAcknowledge() {
+        when(kafkaTemplate.send(anyRecord()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        scheduler.accept(scheduled("id-1", clock.millis(), MAIN, null));
+
+        assertEquals(0, scheduler.releaseDue());
+        assertEquals(1, scheduler.pending());
+        assertEquals(1.0, meterRegistry.get("notification.consumer.schedule.released").tag("result", "failed").counter().count());
+
+        clock.advance(Duration.ofSeconds(4));
+        assertEquals(0, scheduler.releaseDue());
+
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(1, scheduler.releaseDue());
+        // falha, release e tombstone
+        verify(kafkaTemplate, times(3)).send(anyRecord());
+    }
+
+    @Test
+    void accept_shouldReplaceAndCancelById() {
+        scheduler.accept(scheduled("id-1", clock.millis() + 1_000, MAIN, null));
+        scheduler.accept(scheduled("id-1", clock.millis() + 60_000, MAIN, null));
+        scheduler.accept(scheduled("id-2", clock.millis() + 1_000, MAIN, null));
+        scheduler.accept(tombstone("id-2"));
+        assertEquals(1, scheduler.pending());
+
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(0, scheduler.releaseDue());
+        verify(kafkaTemplate, never()).send(anyRecord());
+    }
+
+    @Test
+    void revoked_shouldDropOnlyThatPartition() {
+        TopicPartition other = new TopicPartition(SCHEDULED, 0);
+        scheduler.accept(scheduled("id-1", clock.millis() + 1_000, MAIN, null));
+        scheduler.accept(record(other, "id-2", clock.millis() + 1_000, MAIN));
+        scheduler.assigned(new TopicPartition(SCHEDULED, 5));
+
+        scheduler.revoked(List.of(partition, new TopicPartition(SCHEDULED, 5)));
+
+        assertEquals(1, scheduler.pending());
+        assertFalse(scheduler.isLoading(new TopicPartition(SCHEDULED, 5)));
+    }
+
+    private ConsumerRecord<String, ByteBuffer> scheduled(String id, long sendAt, String target, String key) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(NotificationCodecHeaders.FORMAT, utf8("binary"));
+        headers.add(ScheduleHeaders.SEND_AT, utf8(String.valueOf(sendAt)));
+        if (target != null) {
+            headers.add(ScheduleHeaders.TARGET_TOPIC, utf8(target));
+        }
+        if (key != null) {
+            headers.add(ScheduleHeaders.KEY, utf8(key));
+        }
+        return new ConsumerRecord<>(partition.topic(), partition.partition(), offset++, 0L, TimestampType.CREATE_TIME,
+                0, 0, id, ByteBuffer.wrap(payload(id)), headers, Optional.empty());
+    }
+
+    private ConsumerRecord<String, ByteBuffer> record(TopicPartition source, String id, long sendAt, String target) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(ScheduleHeaders.SEND_AT, utf8(String.valueOf(sendAt)));
+        headers.add(ScheduleHeaders.TARGET_TOPIC, utf8(target));
+        return new ConsumerRecord<>(source.topic(), source.partition(), offset++, 0L, TimestampType.CREATE_TIME,
+                0, 0, id, ByteBuffer.wrap(payload(id)), headers, Optional.empty());
+    }
+
+    private ConsumerRecord<String, ByteBuffer> tombstone(String id) {
+        return new ConsumerRecord<>(partition.topic(), partition.partition(), offset++, id, null);
+    }
+
+    private static byte[] payload(String id) {
+        return ("payload-" + id).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String header(ProducerRecord<String, byte[]> record, String name) {
+        return new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private static ProducerRecord<String, byte[]> anyRecord() {
+        return ArgumentMatchers.any();
+    }
+}
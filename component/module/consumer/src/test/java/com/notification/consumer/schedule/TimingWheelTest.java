@@ -0,0 +1,115 @@
+package com.notification.consumer.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    void advance_shouldExpireEntriesWithinOneTickOfTheirDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, START);
+        wheel.add(START + 25, "a");
+        wheel.add(START + 55, "b");
+
+        wheel.advance(START + 19);
+        assertFalse(wheel.hasExpired());
+
+        wheel.advance(START + 20);
+        assertEquals("a", wheel.pollExpired());
+        assertNull(wheel.pollExpired());
+
+        wheel.advance(START + 50);
+        assertEquals("b", wheel.pollExpired());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void add_shouldExpireImmediately_whenTheDeadlineHasPassed() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, START);
+
+        wheel.add(START - 5_000, "late");
+        wheel.add(START + 3, "this-tick");
+
+        assertTrue(wheel.hasExpired());
+        assertEquals("late", wheel.pollExpired());
+        assertEquals("this-tick", wheel.pollExpired());
+    }
+
+    @Test
+    void add_shouldCascadeThroughOverflowLevels() {
+        // nível 0 cobre 80ms; 1h precisa de vários níveis acima
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, START);
+        wheel.add(START + 3_600_000, "hour");
+        wheel.add(START + 500, "half-second");
+
+        wheel.advance(START + 3_599_000);
+        assertEquals("half-second", wheel.pollExpired());
+        assertNull(wheel.pollExpired());
+
+        wheel.advance(START + 3_600_000);
+        assertEquals("hour", wheel.pollExpired());
+    }
+
+    @Test
+    void cancel_shouldRemoveTheEntry_andReportWhetherItWasPending() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, START);
+        TimingWheel.Entry<String> a = wheel.add(START + 30, "a");
+        TimingWheel.Entry<String> b = wheel.add(START + 30, "b");
+
+        assertTrue(wheel.cancel(a));
+        assertFalse(wheel.cancel(a));
+        assertEquals(1, wheel.size());
+
+        wheel.advance(START + 30);
+        assertEquals("b", wheel.pollExpired());
+        assertFalse(wheel.cancel(b));
+        assertNull(wheel.pollExpired());
+    }
+
+    @Test
+    void advance_shouldNeverExpireEarlierThanOneTick_forRandomDeadlines() {
+        TimingWheel<Long> wheel = new TimingWheel<>(10, 16, START);
+        Random random = new Random(42);
+        List<Long> due = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            long at = START + random.nextInt(10_000_000);
+            due.add(at);
+            wheel.add(at, at);
+        }
+
+        int expired = 0;
+        for (long now = START; now <= START + 10_000_000; now += 997) {
+            wheel.advance(now);
+            Long value;
+            while ((value = wheel.pollExpired()) != null) {
+                assertTrue(value < now + 10, "expired too early: due=" + value + " now=" + now);
+                assertTrue(value >= now - 997, "expired too late: due=" + value + " now=" + now);
+                expired++;
+            }
+        }
+        wheel.advance(START + 10_001_000);
+        while (wheel.pollExpired() != null) {
+            expired++;
+        }
+
+        assertEquals(due.size(), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void constructor_shouldRejectInvalidSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<>(0, 8, START));
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel<>(10, 1, START));
+    }
+}
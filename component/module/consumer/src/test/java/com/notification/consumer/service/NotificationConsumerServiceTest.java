@@ -1,6 +1,11 @@
 package com.notification.consumer.service;
 
+import com.notification.consumer.delivery.EmailDeliveryException;
+import com.notification.consumer.delivery.EmailSendFailure;
+import com.notification.consumer.delivery.EmailSender;
+import com.notification.consumer.delivery.impl.LoggingEmailSender;
 import com.notification.consumer.model.NotificationMessage;
+import com.notification.consumer.retry.NonRetryableException;
 import com.notification.consumer.service.impl.NotificationConsumerServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,9 +13,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Instant;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class NotificationConsumerServiceTest {
@@ -19,7 +31,7 @@ public class NotificationConsumerServiceTest {
 
     @BeforeEach
     void setup() {
-        service = new NotificationConsumerServiceImpl();
+        service = new NotificationConsumerServiceImpl(new LoggingEmailSender());
     }
 
     @Test
@@ -50,4 +62,67 @@ public class NotificationConsumerServiceTest {
         assertThrows(IllegalStateException.class, () -> service.process(msg));
     }
 
+    @Test
+    void process_shouldThrowNonRetryable_whenRecipientIsMalformed() {
+        var msg = new NotificationMessage("id-3", "EMAIL", "not-an-address", "Hello", "Body", Instant.now());
+
+        assertThrows(NonRetryableException.class, () -> service.process(msg));
+    }
+
+    @Test
+    void processBatch_shouldReportOnlyFailedMessages() {
+        var ok1 = new NotificationMessage("id-1", "EMAIL", "a@mail.com", "Hello", "Body", Instant.now());
+        var bad = new NotificationMessage("id-2", "EMAIL", "b@mail.com", "fail", "Body", Instant.now());
+        var ok2 = new NotificationMessage("id-3", "EMAIL", "c@mail.com", "Hi", "Body", Instant.now());
+
+        var failures = service.processBatch(List.of(ok1, bad, ok2));
+
+        assertEquals(1, failures.size());
+        assertEquals(1, failures.get(0).index());
+        assertEquals(bad, failures.get(0).message());
+        assertInstanceOf(IllegalStateException.class, failures.get(0).cause());
+    }
+
+    @Test
+    void process_shouldThrowNonRetryable_whenTheServerRejectsPermanently() {
+        EmailSender sender = mock(EmailSender.class);
+        doThrow(new EmailDeliveryException(550, "SMTP RCPT TO rejected: 550 Mailbox unavailable"))
+                .when(sender).send(any());
+        service = new NotificationConsumerServiceImpl(sender);
+        var msg = new NotificationMessage("id-4", "EMAIL", "gone@mail.com", "Hello", "Body", Instant.now());
+
+        assertThrows(NonRetryableException.class, () -> service.process(msg));
+    }
+
+    @Test
+    void process_shouldKeepTransientDeliveryFailuresRetryable() {
+        EmailSender sender = mock(EmailSender.class);
+        doThrow(new EmailDeliveryException(421, "SMTP MAIL FROM rejected: 421 Try again later"))
+                .when(sender).send(any());
+        service = new NotificationConsumerServiceImpl(sender);
+        var msg = new NotificationMessage("id-5", "EMAIL", "a@mail.com", "Hello", "Body", Instant.now());
+
+        assertThrows(EmailDeliveryException.class, () -> service.process(msg));
+    }
+
+    @Test
+    void processBatch_shouldSendValidMessagesTogether_andMapSenderFailuresBack() {
+        EmailSender sender = mock(EmailSender.class);
+        // o lote que chega no sender já não tem a mensagem inválida: posição 1 do sender = posição 2 do lote
+        when(sender.sendAll(any())).thenReturn(List.of(
+                new EmailSendFailure(1, new EmailDeliveryException(550, "rejected"))));
+        service = new NotificationConsumerServiceImpl(sender);
+        var ok = new NotificationMessage("id-1", "EMAIL", "a@mail.com", "Hello", "Body", Instant.now());
+        var invalid = new NotificationMessage("id-2", "EMAIL", "not-an-address", "Hello", "Body", Instant.now());
+        var rejected = new NotificationMessage("id-3", "EMAIL", "gone@mail.com", "Hi", "Body", Instant.now());
+
+        var failures = service.processBatch(List.of(ok, invalid, rejected));
+
+        assertEquals(2, failures.size());
+        assertEquals(1, failures.get(0).index());
+        assertEquals(2, failures.get(1).index());
+        assertEquals(rejected, failures.get(1).message());
+        assertInstanceOf(NonRetryableException.class, failures.get(1).cause());
+    }
+
 }
@@ -0,0 +1,164 @@
+package com.notification.consumer.throttle;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DomainThrottleTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DomainThrottleProperties props;
+    private DomainThrottle throttle;
+
+    @BeforeEach
+    void setup() {
+        props = new DomainThrottleProperties();
+        props.setDefaultLimit(new DomainThrottleProperties.Limit(10, 2));
+        props.setMinDeferral(Duration.ofMillis(50));
+        props.setIdleTimeout(Duration.ofMinutes(1));
+        throttle = new DomainThrottle(props, meterRegistry, clock);
+    }
+
+    @Test
+    void tryAcquire_shouldAllowTheBurst_thenDeferUntilTheNextToken() {
+        assertEquals(Duration.ZERO, throttle.tryAcquire("a@mail.com"));
+        assertEquals(Duration.ZERO, throttle.tryAcquire("b@MAIL.com"));
+
+        // 10/s: o próximo token sai em 100ms
+        assertEquals(Duration.ofMillis(100), throttle.tryAcquire("c@mail.com"));
+
+        // o token de 100ms ficou reservado para c; passado o tempo de dois tokens, sobra um
+        clock.advance(Duration.ofMillis(200));
+        assertEquals(Duration.ZERO, throttle.tryAcquire("d@mail.com"));
+    }
+
+    @Test
+    void tryAcquire_shouldReserveConsecutiveSlots_forDeferredMessages() {
+        throttle.tryAcquire("a@mail.com");
+        throttle.tryAcquire("b@mail.com");
+
+        // a k-ésima adiada espera k / rate, não o mesmo próximo token de todas
+        assertEquals(Duration.ofMillis(100), throttle.tryAcquire("c@mail.com"));
+        assertEquals(Duration.ofMillis(200), throttle.tryAcquire("d@mail.com"));
+        assertEquals(Duration.ofMillis(300), throttle.tryAcquire("e@mail.com"));
+
+        clock.advance(Duration.ofMillis(150));
+        assertEquals(Duration.ofMillis(250), throttle.tryAcquire("f@mail.com"));
+    }
+
+    @Test
+    void tryAcquire_shouldNotEvictABucketWithPendingReservations() {
+        props.setDefaultLimit(new DomainThrottleProperties.Limit(0.01, 1));
+        throttle = new DomainThrottle(props, meterRegistry, clock);
+        throttle.tryAcquire("a@slow.com");
+        // reserva para daqui a 100s, além do idle-timeout de 1 minuto
+        assertEquals(Duration.ofSeconds(100), throttle.tryAcquire("b@slow.com"));
+
+        clock.advance(Duration.ofSeconds(61));
+        throttle.tryAcquire("a@other.com");
+
+        assertEquals(2, throttle.trackedDomains());
+    }
+
+    @Test
+    void tryAcquire_shouldKeepDomainsIndependent_andApplyPerDomainLimits() {
+        props.getDomains().put("Big-Provider.com", new DomainThrottleProperties.Limit(1, 1));
+        throttle = new DomainThrottle(props, meterRegistry, clock);
+
+        assertEquals(Duration.ZERO, throttle.tryAcquire("x@big-provider.com"));
+        assertEquals(Duration.ofSeconds(1), throttle.tryAcquire("y@big-provider.com"));
+        assertEquals(Duration.ZERO, throttle.tryAcquire("x@mail.com"));
+        assertEquals(Duration.ZERO, throttle.tryAcquire("y@mail.com"));
+    }
+
+    @Test
+    void tryAcquire_shouldNeverDeferLessThanTheMinimum() {
+        props.setDefaultLimit(new DomainThrottleProperties.Limit(1000, 1));
+        throttle = new DomainThrottle(props, meterRegistry, clock);
+
+        throttle.tryAcquire("a@mail.com");
+
+        assertEquals(Duration.ofMillis(50), throttle.tryAcquire("a@mail.com"));
+    }
+
+    @Test
+    void tryAcquire_shouldEvictIdleBuckets() {
+        throttle.tryAcquire("a@one.com");
+        throttle.tryAcquire("a@two.com");
+        assertEquals(2, throttle.trackedDomains());
+
+        clock.advance(Duration.ofSeconds(61));
+        throttle.tryAcquire("a@three.com");
+
+        assertEquals(1, throttle.trackedDomains());
+        assertEquals(1.0, meterRegistry.get("notification.consumer.throttle.domains").gauge().value());
+    }
+
+    @Test
+    void metrics_shouldCountDeliveredAndDeferredPerDomain_upToTheTagLimit() {
+        props.setMaxTaggedDomains(1);
+        throttle = new DomainThrottle(props, meterRegistry, clock);
+
+        throttle.delivered("a@mail.com");
+        throttle.delivered("b@mail.com");
+        throttle.tryAcquire("a@mail.com");
+        throttle.tryAcquire("a@mail.com");
+        throttle.tryAcquire("a@mail.com");
+        throttle.delivered("a@other-domain.com");
+
+        assertEquals(2.0, count("mail.com", "delivered"));
+        assertEquals(1.0, count("mail.com", "deferred"));
+        assertEquals(1.0, count(DomainThrottle.OTHER, "delivered"));
+        assertTrue(meterRegistry.find("notification.consumer.throttle.messages").tag("domain", "other-domain.com")
+                .counters().isEmpty());
+    }
+
+    @Test
+    void domainOf_shouldHandleMissingDomains() {
+        assertEquals("mail.com", DomainThrottle.domainOf("A@Mail.COM"));
+        assertEquals(DomainThrottle.UNKNOWN, DomainThrottle.domainOf(null));
+        assertEquals(DomainThrottle.UNKNOWN, DomainThrottle.domainOf("nobody@"));
+    }
+
+    private double count(String domain, String result) {
+        return meterRegistry.get("notification.consumer.throttle.messages")
+                .tag("domain", domain)
+                .tag("result", result)
+                .counter()
+                .count();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -1,9 +1,21 @@
 package com.notification.publisher.adapter;
 
 import com.notification.publisher.model.NotificationMessage;
+import com.notification.publisher.model.PublishReceipt;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface NotificationPublisherAdapter {
 
-    void publish(NotificationMessage message);
+    CompletableFuture<PublishReceipt> publish(NotificationMessage message);
+
+    void publishBatch(List<NotificationMessage> messages);
+
+    /**
+     * Envia direto ao Kafka, sem passar pelo spool em caso de falha (usado pelo próprio dreno do spool).
+     * Completa quando todos tiverem ack, ou com erro no primeiro que falhar.
+     */
+    CompletableFuture<Void> replay(List<NotificationMessage> messages);
 
 }
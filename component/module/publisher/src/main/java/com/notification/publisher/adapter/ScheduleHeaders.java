@@ -0,0 +1,18 @@
+package com.notification.publisher.adapter;
+
+/**
+ * Headers dos records agendados (sendAt no futuro). O consumer segura o record até sendAt e depois o
+ * republica, com o mesmo payload, no tópico e com a key que teria recebido na hora do publish.
+ */
+public final class ScheduleHeaders {
+
+    // epoch millis do sendAt
+    public static final String SEND_AT = "notification-send-at";
+    // tópico da prioridade da mensagem
+    public static final String TARGET_TOPIC = "notification-target-topic";
+    // key da estratégia de particionamento; ausente quando a estratégia não usa key
+    public static final String KEY = "notification-key";
+
+    private ScheduleHeaders() {
+    }
+}
@@ -1,55 +1,269 @@
 package com.notification.publisher.adapter.impl;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.notification.publisher.adapter.NotificationPublisherAdapter;
+import com.notification.publisher.adapter.ScheduleHeaders;
+import com.notification.publisher.admission.ProducerAdmissionController;
+import com.notification.publisher.codec.NotificationCodec;
+import com.notification.publisher.codec.NotificationCodecHeaders;
+import com.notification.publisher.config.KafkaProducerProperties;
+import com.notification.publisher.exception.PublisherOverloadedException;
 import com.notification.publisher.model.NotificationMessage;
+import com.notification.publisher.model.NotificationPriority;
+import com.notification.publisher.model.PublishReceipt;
+import com.notification.publisher.partitioning.PartitionKeyStrategy;
+import com.notification.publisher.spool.NotificationSpool;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
 @Component
 public class KafkaNotificationPublisherAdapterImpl implements NotificationPublisherAdapter {
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final ObjectMapper objectMapper;
-    private final String topic;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final NotificationCodec codec;
+    private final ProducerAdmissionController admissionController;
+    private final NotificationSpool spool;
+    private final PartitionKeyStrategy keyStrategy;
+    private final Map<NotificationPriority, String> topics;
+    private final String scheduledTopic;
+    private final byte[] formatHeader;
+    private final byte[] schemaVersionHeader;
 
     public KafkaNotificationPublisherAdapterImpl(
-            KafkaTemplate<String, String> kafkaTemplate,
-            ObjectMapper objectMapper,
-            @Value("${app.kafka.topic.email}") String topic
+            KafkaTemplate<String, byte[]> kafkaTemplate,
+            NotificationCodec codec,
+            ProducerAdmissionController admissionController,
+            NotificationSpool spool,
+            KafkaProducerProperties producerProperties,
+            @Value("${app.kafka.topic.email}") String topic,
+            @Value("${app.kafka.topic.email-high}") String highTopic,
+            @Value("${app.kafka.topic.email-low}") String lowTopic,
+            @Value("${app.kafka.topic.email-scheduled}") String scheduledTopic
     ) {
         this.kafkaTemplate = kafkaTemplate;
-        this.objectMapper = objectMapper;
-        this.topic = topic;
+        this.codec = codec;
+        this.admissionController = admissionController;
+        this.spool = spool;
+        this.keyStrategy = producerProperties.getPartitioning().getStrategy();
+        this.topics = new EnumMap<>(Map.of(
+                NotificationPriority.HIGH, highTopic,
+                NotificationPriority.NORMAL, topic,
+                NotificationPriority.LOW, lowTopic
+        ));
+        this.scheduledTopic = scheduledTopic;
+        this.formatHeader = codec.format().getBytes(StandardCharsets.UTF_8);
+        this.schemaVersionHeader = String.valueOf(codec.schemaVersion()).getBytes(StandardCharsets.UTF_8);
     }
 
     @Override
-    public void publish(NotificationMessage message) {
-        final String payload;
+    public CompletableFuture<PublishReceipt> publish(NotificationMessage message) {
+        final byte[] payload = codec.encode(message);
+
+        // Com backlog no spool a mensagem entra na fila atrás dele: mantém a ordem e não prende a
+        // thread do request esperando metadata de um broker que provavelmente ainda está fora.
+        if (spool.pending() > 0 && spool.append(message)) {
+            return CompletableFuture.completedFuture(spooled(message, "backlog"));
+        }
+
+        final long admittedAt;
         try {
-            payload = objectMapper.writeValueAsString(message);
-        } catch (JsonProcessingException e) {
-            throw new IllegalStateException("Failed to serialize message to JSON", e);
+            admittedAt = admissionController.admit(1);
+        } catch (PublisherOverloadedException ex) {
+            return CompletableFuture.completedFuture(spoolOrThrow(message, "producer saturated", ex));
         }
 
         log.info("Publishing message to Kafka. topic={} id={} type={} to={}",
-                topic, message.id(), message.type(), message.to());
+                topicFor(message), message.id(), message.type(), message.to());
 
         // send assíncrono — requisito do PDF é publicar, não esperar envio.
-        kafkaTemplate.send(topic, message.id(), payload)
-                .whenComplete((result, ex) -> {
-                    if (ex != null) {
-                        log.error("Kafka publish failed. topic={} id={} error={}",
-                                topic, message.id(), ex.getMessage());
-                        return;
-                    }
-                    var meta = result.getRecordMetadata();
-                    log.info("Kafka publish ok. topic={} id={} partition={} offset={}",
-                            meta.topic(), message.id(), meta.partition(), meta.offset());
-                });
-    }
-}
\ No newline at end of file
+        // O future devolvido é opcional para quem precisa do ack (ex.: ingestão em stream).
+        final CompletableFuture<SendResult<String, byte[]>> sent;
+        try {
+            sent = send(message, payload, admittedAt, 1);
+        } catch (RuntimeException ex) {
+            return CompletableFuture.completedFuture(spoolOrThrow(message, "send failed", ex));
+        }
+        return sent.handle((result, ex) -> ex == null
+                ? toReceipt(message, result)
+                : spoolOrThrow(message, "send failed", ex));
+    }
+
+    @Override
+    public void publishBatch(List<NotificationMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        // serializa tudo antes do primeiro send: uma falha aqui não deixa o lote pela metade no tópico
+        final List<byte[]> payloads = new ArrayList<>(messages.size());
+        for (NotificationMessage message : messages) {
+            payloads.add(codec.encode(message));
+        }
+
+        if (spool.pending() > 0 && spool.appendAll(messages)) {
+            log.warn("Batch spooled behind pending backlog. size={} pending={}", messages.size(), spool.pending());
+            return;
+        }
+
+        final long admittedAt;
+        try {
+            admittedAt = admissionController.admit(messages.size());
+        } catch (PublisherOverloadedException ex) {
+            if (spool.appendAll(messages)) {
+                log.warn("Batch spooled, producer saturated. size={}", messages.size());
+                return;
+            }
+            throw ex;
+        }
+
+        log.info("Publishing batch to Kafka. size={}", messages.size());
+
+        for (int i = 0; i < messages.size(); i++) {
+            final NotificationMessage message = messages.get(i);
+            try {
+                send(message, payloads.get(i), admittedAt, messages.size() - i)
+                        .whenComplete((result, ex) -> {
+                            if (ex != null) {
+                                spoolAfterFailure(message, ex);
+                            }
+                        });
+            } catch (RuntimeException ex) {
+                // o producer recusou no meio do lote: o que sobrou vai inteiro para o spool
+                if (!spool.appendAll(messages.subList(i, messages.size()))) {
+                    throw ex;
+                }
+                log.warn("Batch remainder spooled after send failure. spooled={} error={}",
+                        messages.size() - i, ex.getMessage());
+                break;
+            }
+        }
+
+        // os sends acima só enchem o accumulator do producer; um único flush empurra o lote inteiro
+        kafkaTemplate.flush();
+    }
+
+    @Override
+    public CompletableFuture<Void> replay(List<NotificationMessage> messages) {
+        if (messages.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        final long admittedAt = admissionController.admit(messages.size());
+        final CompletableFuture<?>[] acks = new CompletableFuture<?>[messages.size()];
+        for (int i = 0; i < messages.size(); i++) {
+            final NotificationMessage message = messages.get(i);
+            acks[i] = send(message, codec.encode(message), admittedAt, messages.size() - i);
+        }
+        kafkaTemplate.flush();
+        return CompletableFuture.allOf(acks);
+    }
+
+    private PublishReceipt spoolOrThrow(NotificationMessage message, String reason, Throwable cause) {
+        if (spool.append(message)) {
+            return spooled(message, reason);
+        }
+        if (cause instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        throw new IllegalStateException("Kafka publish failed and the spool did not accept the message", cause);
+    }
+
+    private void spoolAfterFailure(NotificationMessage message, Throwable cause) {
+        if (spool.append(message)) {
+            log.warn("Message spooled after Kafka failure. id={} error={}", message.id(), cause.getMessage());
+        } else {
+            log.error("Kafka publish failed and spool is unavailable, message lost. id={}", message.id());
+        }
+    }
+
+    private PublishReceipt spooled(NotificationMessage message, String reason) {
+        log.warn("Message spooled. id={} reason={} pending={}", message.id(), reason, spool.pending());
+        return PublishReceipt.spooled(message.id(), topicFor(message));
+    }
+
+    /**
+     * @param unsent quantos records admitidos ainda não foram enviados, incluindo este;
+     *               liberados se o send falhar antes de chegar no producer
+     */
+    private CompletableFuture<SendResult<String, byte[]>> send(
+            NotificationMessage message, byte[] payload, long admittedAt, int unsent
+    ) {
+        final ProducerRecord<String, byte[]> record = toRecord(message, payload);
+        record.headers()
+                .add(NotificationCodecHeaders.FORMAT, formatHeader)
+                .add(NotificationCodecHeaders.SCHEMA_VERSION, schemaVersionHeader);
+
+        final CompletableFuture<SendResult<String, byte[]>> future;
+        try {
+            future = kafkaTemplate.send(record);
+        } catch (RuntimeException e) {
+            admissionController.release(unsent);
+            throw e;
+        }
+        return future.whenComplete((result, ex) -> {
+            admissionController.complete(admittedAt);
+            logResult(message, result, ex);
+        });
+    }
+
+    private ProducerRecord<String, byte[]> toRecord(NotificationMessage message, byte[] payload) {
+        // key por destinatário/domínio dá ordem e localidade no consumer; o id já viaja no payload
+        final String key = keyStrategy.keyFor(message);
+        final String target = topics.get(message.priority());
+        if (!isScheduled(message)) {
+            return new ProducerRecord<>(target, key, payload);
+        }
+
+        // o tópico de agendamento é compactado por id: o consumer apaga o record com um tombstone da mesma key
+        // quando o libera, e o destino e a key de verdade seguem nos headers
+        final ProducerRecord<String, byte[]> record = new ProducerRecord<>(scheduledTopic, message.id(), payload);
+        record.headers()
+                .add(ScheduleHeaders.SEND_AT, utf8(String.valueOf(message.sendAt().toEpochMilli())))
+                .add(ScheduleHeaders.TARGET_TOPIC, utf8(target));
+        if (key != null) {
+            record.headers().add(ScheduleHeaders.KEY, utf8(key));
+        }
+        return record;
+    }
+
+    // cada prioridade tem o seu tópico: um backlog de LOW não atrasa o HIGH nem dentro da partição
+    private String topicFor(NotificationMessage message) {
+        return isScheduled(message) ? scheduledTopic : topics.get(message.priority());
+    }
+
+    private static boolean isScheduled(NotificationMessage message) {
+        return message.sendAt() != null && message.sendAt().isAfter(Instant.now());
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private PublishReceipt toReceipt(NotificationMessage message, SendResult<String, byte[]> result) {
+        var meta = result.getRecordMetadata();
+        return new PublishReceipt(message.id(), meta.topic(), meta.partition(), meta.offset());
+    }
+
+    private void logResult(NotificationMessage message, SendResult<String, byte[]> result, Throwable ex) {
+        if (ex != null) {
+            log.error("Kafka publish failed. topic={} id={} error={}",
+                    topicFor(message), message.id(), ex.getMessage());
+            return;
+        }
+        var meta = result.getRecordMetadata();
+        log.info("Kafka publish ok. topic={} id={} partition={} offset={}",
+                meta.topic(), message.id(), meta.partition(), meta.offset());
+    }
+}
@@ -0,0 +1,124 @@
+package com.notification.publisher.admission;
+
+import com.notification.publisher.config.PublisherProperties;
+import com.notification.publisher.exception.PublisherOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decide se um send pode ir para o producer antes de chamar o KafkaTemplate.
+ * Com o broker lento o buffer do producer enche e o send bloqueia por até max.block.ms
+ * segurando a thread do Tomcat; aqui rejeitamos rápido (429/503) antes de chegar nesse ponto.
+ */
+@Component
+public class ProducerAdmissionController {
+
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final PublisherProperties.Admission config;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejectedInFlight;
+    private final Counter rejectedAckLatency;
+    private final Timer ackLatency;
+
+    // atualizado só pelos callbacks do producer, que rodam na thread de I/O dele
+    private volatile double ackLatencyEwmaMillis;
+
+    public ProducerAdmissionController(PublisherProperties properties, MeterRegistry meterRegistry) {
+        this.config = properties.getAdmission();
+
+        Gauge.builder("notification.publisher.inflight", inFlight, AtomicInteger::get)
+                .description("Kafka sends waiting for a broker ack")
+                .register(meterRegistry);
+        Gauge.builder("notification.publisher.ack.latency.ewma", this, c -> c.ackLatencyEwmaMillis)
+                .description("Moving average of the time between send and broker ack")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+
+        this.rejectedInFlight = rejectedCounter(meterRegistry, PublisherOverloadedException.Reason.IN_FLIGHT_LIMIT);
+        this.rejectedAckLatency = rejectedCounter(meterRegistry, PublisherOverloadedException.Reason.ACK_LATENCY);
+        this.ackLatency = Timer.builder("notification.publisher.ack.latency")
+                .description("Time between send and broker ack")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reserva espaço para records sends. Cada record admitido precisa de um complete (ack/erro)
+     * ou release (falha antes do send).
+     *
+     * @return o instante da admissão, para medir a latência do ack
+     */
+    public long admit(int records) {
+        if (config.isEnabled()) {
+            checkAckLatency();
+            reserve(records);
+        } else {
+            inFlight.addAndGet(records);
+        }
+        return System.nanoTime();
+    }
+
+    public void complete(long admittedAtNanos) {
+        inFlight.decrementAndGet();
+
+        final long elapsed = System.nanoTime() - admittedAtNanos;
+        ackLatency.record(elapsed, TimeUnit.NANOSECONDS);
+        ackLatencyEwmaMillis += EWMA_ALPHA * (elapsed / 1_000_000.0 - ackLatencyEwmaMillis);
+    }
+
+    public void release(int records) {
+        inFlight.addAndGet(-records);
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private void checkAckLatency() {
+        final double latencyMillis = ackLatencyEwmaMillis;
+
+        // Com nada em voo deixamos passar: é o que gera amostras novas para a média voltar a cair.
+        if (latencyMillis > config.getMaxAckLatency().toMillis() && inFlight.get() > 0) {
+            rejectedAckLatency.increment();
+            final Duration retryAfter = max(config.getRetryAfter(), Duration.ofMillis((long) latencyMillis));
+            throw new PublisherOverloadedException(
+                    PublisherOverloadedException.Reason.ACK_LATENCY,
+                    retryAfter,
+                    "Kafka broker is slow to acknowledge (avg " + (long) latencyMillis + " ms)"
+            );
+        }
+    }
+
+    private void reserve(int records) {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current + records > config.getMaxInFlight()) {
+                rejectedInFlight.increment();
+                throw new PublisherOverloadedException(
+                        PublisherOverloadedException.Reason.IN_FLIGHT_LIMIT,
+                        config.getRetryAfter(),
+                        "Too many notifications waiting for Kafka (" + current + " in flight)"
+                );
+            }
+        } while (!inFlight.compareAndSet(current, current + records));
+    }
+
+    private static Counter rejectedCounter(MeterRegistry registry, PublisherOverloadedException.Reason reason) {
+        return Counter.builder("notification.publisher.admission.rejected")
+                .description("Publish requests shed by the admission controller")
+                .tag("reason", reason.name().toLowerCase())
+                .register(registry);
+    }
+
+    private static Duration max(Duration a, Duration b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+}
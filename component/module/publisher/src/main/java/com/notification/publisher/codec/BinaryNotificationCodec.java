@@ -0,0 +1,242 @@
+package com.notification.publisher.codec;
+
+import com.notification.publisher.model.NotificationMessage;
+import com.notification.publisher.model.NotificationPriority;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Formato binário compacto, schema v3:
+ *
+ * <pre>
+ * presença   1 byte, um bit por campo (FLAG_*)
+ * id         16 bytes quando é um UUID canônico (FLAG_ID_UUID), senão string
+ * type       string
+ * to         string
+ * priority   1 byte (PRIORITY_*), desde o v2 e só quando não é NORMAL
+ * subject    string
+ * body       string
+ * createdAt  varlong epochSecond + varint nanos
+ * extensão   desde o v3 e só quando há algum campo dela:
+ *   presença 1 byte (EXT_*)
+ *   sendAt   varlong epochSecond + varint nanos
+ *
+ * string = varint tamanho em bytes + UTF-8
+ * </pre>
+ *
+ * Os campos de roteamento (id, type, to, priority) vêm primeiro, antes do body.
+ * Cada versão só acrescentou campos opcionais que a anterior nunca escreve (o bit FLAG_PRIORITY no v2, o bloco
+ * de extensão no v3): o mesmo decode serve para todas, e uma mensagem sem os campos novos tem os bytes do v1.
+ * Mudou a ordem ou o conjunto de campos: é schema novo, não edita o v3.
+ */
+public class BinaryNotificationCodec implements NotificationCodec {
+
+    public static final String FORMAT = "binary";
+
+    private static final int FLAG_ID = 1;
+    private static final int FLAG_ID_UUID = 1 << 1;
+    private static final int FLAG_TYPE = 1 << 2;
+    private static final int FLAG_TO = 1 << 3;
+    private static final int FLAG_SUBJECT = 1 << 4;
+    private static final int FLAG_BODY = 1 << 5;
+    private static final int FLAG_CREATED_AT = 1 << 6;
+    private static final int FLAG_PRIORITY = 1 << 7;
+
+    // códigos fixos no fio, independentes da ordem do enum
+    private static final int PRIORITY_HIGH = 1;
+    private static final int PRIORITY_LOW = 2;
+
+    private static final int EXT_SEND_AT = 1;
+
+    @Override
+    public String format() {
+        return FORMAT;
+    }
+
+    @Override
+    public int schemaVersion() {
+        return 3;
+    }
+
+    @Override
+    public byte[] encode(NotificationMessage message) {
+        final UUID uuid = parseUuid(message.id());
+
+        int flags = 0;
+        if (message.id() != null) flags |= FLAG_ID;
+        if (uuid != null) flags |= FLAG_ID_UUID;
+        if (message.type() != null) flags |= FLAG_TYPE;
+        if (message.to() != null) flags |= FLAG_TO;
+        if (message.subject() != null) flags |= FLAG_SUBJECT;
+        if (message.body() != null) flags |= FLAG_BODY;
+        if (message.createdAt() != null) flags |= FLAG_CREATED_AT;
+        if (message.priority() != NotificationPriority.NORMAL) flags |= FLAG_PRIORITY;
+
+        final Writer out = new Writer(64 + length(message.subject()) + length(message.body()));
+        out.writeByte(flags);
+
+        if (uuid != null) {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } else if (message.id() != null) {
+            out.writeString(message.id());
+        }
+        if (message.type() != null) out.writeString(message.type());
+        if (message.to() != null) out.writeString(message.to());
+        if ((flags & FLAG_PRIORITY) != 0) out.writeByte(message.priority() == NotificationPriority.HIGH ? PRIORITY_HIGH : PRIORITY_LOW);
+        if (message.subject() != null) out.writeString(message.subject());
+        if (message.body() != null) out.writeString(message.body());
+        if (message.createdAt() != null) {
+            out.writeVarLong(message.createdAt().getEpochSecond());
+            out.writeVarLong(message.createdAt().getNano());
+        }
+        if (message.sendAt() != null) {
+            out.writeByte(EXT_SEND_AT);
+            out.writeVarLong(message.sendAt().getEpochSecond());
+            out.writeVarLong(message.sendAt().getNano());
+        }
+
+        return out.toByteArray();
+    }
+
+    @Override
+    public NotificationMessage decode(byte[] payload, int schemaVersion) {
+        try {
+            final ByteBuffer in = ByteBuffer.wrap(payload);
+            final int flags = in.get() & 0xFF;
+
+            String id = null;
+            if ((flags & FLAG_ID_UUID) != 0) {
+                id = new UUID(in.getLong(), in.getLong()).toString();
+            } else if ((flags & FLAG_ID) != 0) {
+                id = readString(in);
+            }
+            final String type = (flags & FLAG_TYPE) != 0 ? readString(in) : null;
+            final String to = (flags & FLAG_TO) != 0 ? readString(in) : null;
+            final NotificationPriority priority = (flags & FLAG_PRIORITY) != 0 ? readPriority(in) : NotificationPriority.NORMAL;
+            final String subject = (flags & FLAG_SUBJECT) != 0 ? readString(in) : null;
+            final String body = (flags & FLAG_BODY) != 0 ? readString(in) : null;
+            final Instant createdAt = (flags & FLAG_CREATED_AT) != 0
+                    ? Instant.ofEpochSecond(readVarLong(in), readVarLong(in))
+                    : null;
+
+            Instant sendAt = null;
+            if (in.hasRemaining()) {
+                final int ext = in.get() & 0xFF;
+                if ((ext & EXT_SEND_AT) != 0) {
+                    sendAt = Instant.ofEpochSecond(readVarLong(in), readVarLong(in));
+                }
+            }
+
+            if (in.hasRemaining()) {
+                throw new IllegalArgumentException("Invalid binary payload: " + in.remaining() + " trailing bytes");
+            }
+            return new NotificationMessage(id, type, to, subject, body, createdAt, priority, sendAt);
+
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid binary payload: truncated", e);
+        }
+    }
+
+    private static UUID parseUuid(String id) {
+        if (id == null || id.length() != 36) {
+            return null;
+        }
+        try {
+            final UUID uuid = UUID.fromString(id);
+            // só usa a forma de 16 bytes se o decode devolver exatamente a mesma string
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static NotificationPriority readPriority(ByteBuffer in) {
+        return switch (in.get()) {
+            case PRIORITY_HIGH -> NotificationPriority.HIGH;
+            case PRIORITY_LOW -> NotificationPriority.LOW;
+            // código desconhecido (writer mais novo): cai na fila normal em vez de descartar a mensagem
+            default -> NotificationPriority.NORMAL;
+        };
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static String readString(ByteBuffer in) {
+        final int length = (int) readVarLong(in);
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("Invalid binary payload: string length " + length);
+        }
+        final String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Invalid binary payload: varint too long");
+    }
+
+    private static final class Writer {
+
+        private byte[] buffer;
+        private int size;
+
+        Writer(int initialCapacity) {
+            this.buffer = new byte[initialCapacity];
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+}
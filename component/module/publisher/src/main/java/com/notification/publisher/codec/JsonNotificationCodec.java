@@ -0,0 +1,50 @@
+package com.notification.publisher.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.notification.publisher.model.NotificationMessage;
+
+import java.io.IOException;
+
+public class JsonNotificationCodec implements NotificationCodec {
+
+    public static final String FORMAT = "json";
+
+    // writer/reader já resolvidos para o tipo: thread-safe e sem lookup de serializer por mensagem
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+
+    public JsonNotificationCodec(ObjectMapper objectMapper) {
+        this.writer = objectMapper.writerFor(NotificationMessage.class);
+        this.reader = objectMapper.readerFor(NotificationMessage.class);
+    }
+
+    @Override
+    public String format() {
+        return FORMAT;
+    }
+
+    @Override
+    public int schemaVersion() {
+        return 1;
+    }
+
+    @Override
+    public byte[] encode(NotificationMessage message) {
+        try {
+            return writer.writeValueAsBytes(message);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize message to JSON", e);
+        }
+    }
+
+    @Override
+    public NotificationMessage decode(byte[] payload, int schemaVersion) {
+        try {
+            return reader.readValue(payload);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid JSON payload: " + e.getMessage(), e);
+        }
+    }
+}
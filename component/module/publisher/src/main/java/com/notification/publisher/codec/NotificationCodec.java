@@ -0,0 +1,23 @@
+package com.notification.publisher.codec;
+
+import com.notification.publisher.model.NotificationMessage;
+
+/**
+ * Formato de serialização do NotificationMessage no tópico.
+ * O formato e a versão do schema viajam nos headers de cada record (ver NotificationCodecHeaders),
+ * então o consumer sabe decodificar mensagens de qualquer formato durante uma migração.
+ */
+public interface NotificationCodec {
+
+    String format();
+
+    int schemaVersion();
+
+    byte[] encode(NotificationMessage message);
+
+    /**
+     * @param schemaVersion versão declarada no header do record; nunca maior que {@link #schemaVersion()}
+     */
+    NotificationMessage decode(byte[] payload, int schemaVersion);
+
+}
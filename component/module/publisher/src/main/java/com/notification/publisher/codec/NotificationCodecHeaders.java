@@ -0,0 +1,10 @@
+package com.notification.publisher.codec;
+
+public final class NotificationCodecHeaders {
+
+    public static final String FORMAT = "notification-format";
+    public static final String SCHEMA_VERSION = "notification-schema-version";
+
+    private NotificationCodecHeaders() {
+    }
+}
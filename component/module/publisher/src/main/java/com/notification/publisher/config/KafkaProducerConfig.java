@@ -0,0 +1,29 @@
+package com.notification.publisher.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(KafkaProducerProperties.class)
+public class KafkaProducerConfig {
+
+    /**
+     * Aplica o perfil escolhido em app.kafka.producer.profile na producer factory do Spring Boot,
+     * a mesma que cria o KafkaTemplate usado pelo KafkaNotificationPublisherAdapterImpl.
+     */
+    @Bean
+    public DefaultKafkaProducerFactoryCustomizer producerProfileCustomizer(KafkaProducerProperties properties) {
+        final Map<String, Object> configs = new HashMap<>(properties.activeProfile().toProducerConfigs());
+        configs.putAll(properties.partitionerConfigs());
+        log.info("Kafka producer profile={} partitioning={} configs={}",
+                properties.getProfile(), properties.getPartitioning().getStrategy(), configs);
+        return factory -> factory.updateConfigs(configs);
+    }
+}
@@ -0,0 +1,159 @@
+package com.notification.publisher.config;
+
+import com.notification.publisher.partitioning.HotKeySpreadingPartitioner;
+import com.notification.publisher.partitioning.PartitionKeyStrategy;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "app.kafka.producer")
+public class KafkaProducerProperties {
+
+    public static final String LOW_LATENCY = "low-latency";
+    public static final String BALANCED = "balanced";
+    public static final String MAX_THROUGHPUT = "max-throughput";
+
+    @NotBlank
+    private String profile = BALANCED;
+
+    // os três perfis padrão já vêm preenchidos; o yaml pode ajustar um deles ou declarar novos
+    @Valid
+    private Map<String, Profile> profiles = defaultProfiles();
+
+    @Valid
+    private Partitioning partitioning = new Partitioning();
+
+    public Profile activeProfile() {
+        final Profile active = profiles.get(profile);
+        if (active == null) {
+            throw new IllegalStateException(
+                    "Unknown app.kafka.producer.profile: " + profile + " (available: " + profiles.keySet() + ")");
+        }
+        return active;
+    }
+
+    /**
+     * Configs do partitioner; vazio quando o partitioner padrão do Kafka basta.
+     */
+    public Map<String, Object> partitionerConfigs() {
+        final Partitioning.HotKey hotKey = partitioning.getHotKey();
+        if (partitioning.getStrategy() == PartitionKeyStrategy.RANDOM || !hotKey.isEnabled()) {
+            return Map.of();
+        }
+        final Map<String, Object> configs = new HashMap<>();
+        configs.put(ProducerConfig.PARTITIONER_CLASS_CONFIG, HotKeySpreadingPartitioner.class);
+        configs.put(HotKeySpreadingPartitioner.WINDOW_MS_CONFIG, hotKey.getWindow().toMillis());
+        configs.put(HotKeySpreadingPartitioner.THRESHOLD_CONFIG, hotKey.getThreshold());
+        configs.put(HotKeySpreadingPartitioner.SPREAD_CONFIG, hotKey.getSpread());
+        return configs;
+    }
+
+    public static Map<String, Profile> defaultProfiles() {
+        final Map<String, Profile> defaults = new LinkedHashMap<>();
+        // envia assim que possível; acks do líder só, sem idempotência
+        defaults.put(LOW_LATENCY, new Profile(0, 16 * 1024, "none", "1", false, 5));
+        // alguns ms de linger já enchem os batches sob carga; lz4 é barato em CPU
+        defaults.put(BALANCED, new Profile(5, 64 * 1024, "lz4", "all", true, 5));
+        // batches grandes + zstd: mais msgs/s e menos bytes no broker, ao custo de latência
+        defaults.put(MAX_THROUGHPUT, new Profile(20, 256 * 1024, "zstd", "all", true, 5));
+        return defaults;
+    }
+
+    @Getter
+    @Setter
+    public static class Profile {
+
+        @Min(0)
+        private int lingerMs;
+
+        @Min(0)
+        private int batchSize;
+
+        @NotBlank
+        private String compressionType = "none";
+
+        @NotBlank
+        private String acks = "all";
+
+        private boolean idempotence = true;
+
+        @Min(1)
+        private int maxInFlight = 5;
+
+        public Profile() {
+        }
+
+        public Profile(int lingerMs, int batchSize, String compressionType, String acks,
+                       boolean idempotence, int maxInFlight) {
+            this.lingerMs = lingerMs;
+            this.batchSize = batchSize;
+            this.compressionType = compressionType;
+            this.acks = acks;
+            this.idempotence = idempotence;
+            this.maxInFlight = maxInFlight;
+        }
+
+        public Map<String, Object> toProducerConfigs() {
+            // o producer recusa essas combinações com idempotência; falhamos antes com uma mensagem clara
+            if (idempotence && !("all".equals(acks) || "-1".equals(acks))) {
+                throw new IllegalStateException("Idempotent producer requires acks=all, got acks=" + acks);
+            }
+            if (idempotence && maxInFlight > 5) {
+                throw new IllegalStateException(
+                        "Idempotent producer allows at most 5 in-flight requests, got " + maxInFlight);
+            }
+
+            final Map<String, Object> configs = new HashMap<>();
+            configs.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+            configs.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+            configs.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+            configs.put(ProducerConfig.ACKS_CONFIG, acks);
+            configs.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, idempotence);
+            configs.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, maxInFlight);
+            return configs;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Partitioning {
+
+        // RANDOM mantém o comportamento antigo (sem afinidade); RECIPIENT/DOMAIN dão ordem por key
+        @NotNull
+        private PartitionKeyStrategy strategy = PartitionKeyStrategy.RANDOM;
+
+        @Valid
+        private HotKey hotKey = new HotKey();
+
+        @Getter
+        @Setter
+        public static class HotKey {
+
+            private boolean enabled = true;
+
+            private Duration window = Duration.ofSeconds(1);
+
+            // records da mesma key dentro da janela para ela ser considerada quente
+            @Min(1)
+            private int threshold = 1000;
+
+            // quantas partições uma key quente pode ocupar
+            @Min(1)
+            private int spread = 4;
+        }
+    }
+}
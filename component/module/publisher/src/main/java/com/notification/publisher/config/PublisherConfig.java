@@ -0,0 +1,51 @@
+package com.notification.publisher.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.publisher.codec.BinaryNotificationCodec;
+import com.notification.publisher.codec.JsonNotificationCodec;
+import com.notification.publisher.codec.NotificationCodec;
+import com.notification.publisher.spool.NotificationSpool;
+import com.notification.publisher.spool.impl.DisabledNotificationSpool;
+import com.notification.publisher.spool.impl.MappedFileNotificationSpool;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+@Configuration
+@EnableConfigurationProperties(PublisherProperties.class)
+public class PublisherConfig {
+
+    /**
+     * Formato usado para publicar. O default continua json: só troque para binary
+     * depois que todos os consumers estiverem numa versão que entende o header de formato.
+     */
+    @Bean
+    public NotificationCodec notificationCodec(
+            ObjectMapper objectMapper,
+            @Value("${app.kafka.codec:json}") String format
+    ) {
+        return switch (format) {
+            case JsonNotificationCodec.FORMAT -> new JsonNotificationCodec(objectMapper);
+            case BinaryNotificationCodec.FORMAT -> new BinaryNotificationCodec();
+            default -> throw new IllegalArgumentException("Unknown app.kafka.codec: " + format);
+        };
+    }
+
+    /**
+     * O close() do spool (force + fechar os segmentos) é chamado pelo Spring no shutdown.
+     */
+    @Bean
+    public NotificationSpool notificationSpool(
+            PublisherProperties properties,
+            MeterRegistry meterRegistry
+    ) throws IOException {
+        if (!properties.getSpool().isEnabled()) {
+            return new DisabledNotificationSpool();
+        }
+        return new MappedFileNotificationSpool(properties.getSpool(), meterRegistry);
+    }
+}
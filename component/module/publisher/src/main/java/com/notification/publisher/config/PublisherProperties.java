@@ -0,0 +1,125 @@
+package com.notification.publisher.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "app.publisher")
+public class PublisherProperties {
+
+    @Valid
+    private Batch batch = new Batch();
+
+    @Valid
+    private Stream stream = new Stream();
+
+    @Valid
+    private Admission admission = new Admission();
+
+    @Valid
+    private Idempotency idempotency = new Idempotency();
+
+    @Valid
+    private Spool spool = new Spool();
+
+    @Valid
+    private SyncAck syncAck = new SyncAck();
+
+    @Getter
+    @Setter
+    public static class Batch {
+
+        // limite de itens por request no endpoint /email/batch
+        @Min(1)
+        private int maxItems = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Stream {
+
+        // sends aguardando ack do broker por upload; ao atingir o limite paramos de ler o socket
+        @Min(1)
+        private int maxInFlight = 500;
+
+        // linhas maiores que isso são rejeitadas sem ficarem inteiras em memória
+        @Min(64)
+        private int maxLineBytes = 64 * 1024;
+    }
+
+    @Getter
+    @Setter
+    public static class Admission {
+
+        private boolean enabled = true;
+
+        // sends aguardando ack somando todos os requests; acima disso respondemos 429
+        @Min(1)
+        private int maxInFlight = 10_000;
+
+        // média móvel do tempo até o ack; acima disso o broker está lento e respondemos 503
+        private Duration maxAckLatency = Duration.ofSeconds(2);
+
+        private Duration retryAfter = Duration.ofSeconds(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Idempotency {
+
+        // teto de chaves guardadas; acima disso as mais antigas saem antes do TTL
+        @Min(1)
+        private int maxEntries = 100_000;
+
+        // janela em que um retry com a mesma Idempotency-Key devolve o id original
+        private Duration ttl = Duration.ofHours(1);
+
+        // arredondado para potência de 2
+        @Min(1)
+        private int stripes = 16;
+    }
+
+    @Getter
+    @Setter
+    public static class Spool {
+
+        private boolean enabled = true;
+
+        @NotBlank
+        private String directory = "data/spool";
+
+        private DataSize segmentSize = DataSize.ofMegabytes(16);
+
+        // acima disso o spool recusa e a falha volta para o cliente (ou só log, se o 202 já saiu)
+        private DataSize maxSize = DataSize.ofGigabytes(1);
+
+        // force() a cada gravação: sobrevive a queda do SO, custa um fsync por mensagem
+        private boolean syncOnAppend = false;
+
+        private Duration drainInterval = Duration.ofSeconds(1);
+
+        @Min(1)
+        private int drainBatchSize = 500;
+
+        // tempo máximo esperando os acks de um lote drenado antes de tentar de novo
+        private Duration drainTimeout = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class SyncAck {
+
+        // espera máxima pelo ack no modo ack=broker; depois disso 504 (o send continua em andamento)
+        private Duration timeout = Duration.ofSeconds(5);
+    }
+}
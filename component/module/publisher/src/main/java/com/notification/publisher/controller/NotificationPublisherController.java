@@ -1,30 +1,105 @@
 package com.notification.publisher.controller;
 
+import com.notification.publisher.config.PublisherProperties;
+import com.notification.publisher.dto.BatchItemResultDTO;
+import com.notification.publisher.dto.BatchPublishResponseDTO;
 import com.notification.publisher.dto.EmailNotificationRequestDTO;
 import com.notification.publisher.dto.PublishAcceptedResponseDTO;
+import com.notification.publisher.dto.PublishAckResponseDTO;
 import com.notification.publisher.service.NotificationPublisherService;
+import com.notification.publisher.service.NotificationStreamService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 @RestController
 @RequestMapping("/api/notifications")
 public class NotificationPublisherController {
 
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final NotificationPublisherService publishService;
+    private final NotificationStreamService streamService;
+    private final PublisherProperties properties;
 
-    public NotificationPublisherController(NotificationPublisherService publishService) {
+    public NotificationPublisherController(
+            NotificationPublisherService publishService,
+            NotificationStreamService streamService,
+            PublisherProperties properties
+    ) {
         this.publishService = publishService;
+        this.streamService = streamService;
+        this.properties = properties;
     }
 
     @PostMapping("/email")
     public ResponseEntity<PublishAcceptedResponseDTO> publishEmail(
-            @RequestBody @Valid EmailNotificationRequestDTO request
+            @RequestBody @Valid EmailNotificationRequestDTO request,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey
     ) {
-        String id = publishService.publishEmail(request);
+        String id = publishService.publishEmail(request, idempotencyKey);
         return ResponseEntity.accepted().body(PublishAcceptedResponseDTO.accepted(id));
     }
+
+    /**
+     * Modo opt-in (?ack=broker): responde só depois do ack do Kafka, com partition/offset.
+     * O retorno assíncrono libera a thread do Tomcat enquanto o ack não chega; passado
+     * app.publisher.sync-ack.timeout a resposta é 504. Um 504 não quer dizer que o envio falhou: o retry
+     * deve levar o mesmo Idempotency-Key.
+     */
+    @PostMapping(value = "/email", params = "ack=broker")
+    public CompletableFuture<ResponseEntity<PublishAckResponseDTO>> publishEmailAwaitingAck(
+            @RequestBody @Valid EmailNotificationRequestDTO request,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey
+    ) {
+        final long timeoutMillis = properties.getSyncAck().getTimeout().toMillis();
+        return publishService.publishEmailAsync(request, idempotencyKey)
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .thenApply(receipt -> {
+                    final PublishAckResponseDTO body = PublishAckResponseDTO.of(receipt);
+                    return receipt.isSpooled() || receipt.isDuplicate()
+                            ? ResponseEntity.accepted().body(body)
+                            : ResponseEntity.ok(body);
+                });
+    }
+
+    /**
+     * Validação é feita item a item no service, para que um item inválido
+     * não derrube o lote inteiro.
+     */
+    @PostMapping("/email/batch")
+    public ResponseEntity<BatchPublishResponseDTO> publishEmailBatch(
+            @RequestBody List<EmailNotificationRequestDTO> requests,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey
+    ) {
+        List<BatchItemResultDTO> results = publishService.publishEmailBatch(requests, idempotencyKey);
+        return ResponseEntity.accepted().body(BatchPublishResponseDTO.of(results));
+    }
+
+    /**
+     * Ingestão em NDJSON: o corpo é lido linha a linha enquanto chega e a resposta
+     * devolve um resultado NDJSON por linha (index = número da linha).
+     */
+    @PostMapping(
+            value = "/email/stream",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    public void publishEmailStream(InputStream body, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        streamService.publishEmailStream(body, response.getOutputStream());
+    }
 }
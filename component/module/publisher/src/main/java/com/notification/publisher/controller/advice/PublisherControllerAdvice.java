@@ -0,0 +1,63 @@
+package com.notification.publisher.controller.advice;
+
+import com.notification.publisher.controller.NotificationPublisherController;
+import com.notification.publisher.dto.ErrorDTO;
+import com.notification.publisher.exception.BatchTooLargeException;
+import com.notification.publisher.exception.PublisherOverloadedException;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.concurrent.TimeoutException;
+
+// Precisa rodar antes do AuthControllerAdvice, que captura Exception genérica.
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RestControllerAdvice(assignableTypes = NotificationPublisherController.class)
+public class PublisherControllerAdvice {
+
+    @ExceptionHandler(BatchTooLargeException.class)
+    public ResponseEntity<ErrorDTO> handleBatchTooLarge(BatchTooLargeException ex) {
+        return build(HttpStatus.PAYLOAD_TOO_LARGE, ex.getMessage());
+    }
+
+    @ExceptionHandler(PublisherOverloadedException.class)
+    public ResponseEntity<ErrorDTO> handleOverloaded(PublisherOverloadedException ex) {
+        final HttpStatus status = ex.getReason() == PublisherOverloadedException.Reason.IN_FLIGHT_LIMIT
+                ? HttpStatus.TOO_MANY_REQUESTS
+                : HttpStatus.SERVICE_UNAVAILABLE;
+
+        // Retry-After é em segundos inteiros; arredonda para cima e nunca manda 0
+        final long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+
+        return ResponseEntity
+                .status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(new ErrorDTO(
+                        status.value(),
+                        status.getReasonPhrase(),
+                        ex.getMessage()
+                ));
+    }
+
+    // modo ack=broker: o send segue em andamento e ainda pode ser entregue
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<ErrorDTO> handleAckTimeout(TimeoutException ex) {
+        return build(HttpStatus.GATEWAY_TIMEOUT,
+                "Kafka did not acknowledge in time; the notification may still be delivered");
+    }
+
+    private ResponseEntity<ErrorDTO> build(HttpStatus status, String message) {
+        return ResponseEntity
+                .status(status)
+                .body(new ErrorDTO(
+                        status.value(),
+                        status.getReasonPhrase(),
+                        message
+                ));
+    }
+
+}
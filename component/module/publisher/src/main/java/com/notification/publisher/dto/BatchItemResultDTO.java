@@ -0,0 +1,34 @@
+package com.notification.publisher.dto;
+
+import jakarta.validation.ConstraintViolation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+public record BatchItemResultDTO(
+        int index,
+        String notificationId,
+        String status,
+        Map<String, String> errors
+) {
+    public static BatchItemResultDTO accepted(int index, String id) {
+        return new BatchItemResultDTO(index, id, "ACCEPTED", null);
+    }
+
+    public static BatchItemResultDTO rejected(int index, Map<String, String> errors) {
+        return new BatchItemResultDTO(index, null, "REJECTED", errors);
+    }
+
+    public static BatchItemResultDTO failed(int index, String error) {
+        return new BatchItemResultDTO(index, null, "FAILED", Map.of("publish", error));
+    }
+
+    public static BatchItemResultDTO rejected(int index, Set<? extends ConstraintViolation<?>> violations) {
+        Map<String, String> errors = new LinkedHashMap<>();
+        for (ConstraintViolation<?> violation : violations) {
+            errors.putIfAbsent(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        return rejected(index, errors);
+    }
+}
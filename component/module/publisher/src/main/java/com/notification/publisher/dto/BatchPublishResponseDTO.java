@@ -0,0 +1,16 @@
+package com.notification.publisher.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record BatchPublishResponseDTO(
+        int accepted,
+        int rejected,
+        List<BatchItemResultDTO> results,
+        Instant timestamp
+) {
+    public static BatchPublishResponseDTO of(List<BatchItemResultDTO> results) {
+        int accepted = (int) results.stream().filter(r -> "ACCEPTED".equals(r.status())).count();
+        return new BatchPublishResponseDTO(accepted, results.size() - accepted, results, Instant.now());
+    }
+}
@@ -1,11 +1,20 @@
 package com.notification.publisher.dto;
 
+import com.notification.publisher.model.NotificationPriority;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 
+import java.time.Instant;
+
 public record EmailNotificationRequestDTO(
         @NotBlank @Email String to,
         @NotBlank String subject,
-        @NotBlank String body
+        @NotBlank String body,
+        NotificationPriority priority,  // opcional, sem valor é NORMAL
+        Instant sendAt  // opcional; no passado ou sem valor, entrega imediata
 ) {
+
+    public EmailNotificationRequestDTO(String to, String subject, String body) {
+        this(to, subject, body, null, null);
+    }
 }
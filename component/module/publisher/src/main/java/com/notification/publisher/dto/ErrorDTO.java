@@ -0,0 +1,14 @@
+package com.notification.publisher.dto;
+
+import java.util.Map;
+
+public record ErrorDTO(
+        int status,
+        String error,
+        String message,
+        Map<String, String> fields
+) {
+    public ErrorDTO(int status, String error, String message) {
+        this(status, error, message, null);
+    }
+}
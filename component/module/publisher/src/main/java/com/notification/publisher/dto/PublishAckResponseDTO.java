@@ -0,0 +1,33 @@
+package com.notification.publisher.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.notification.publisher.model.PublishReceipt;
+
+import java.time.Instant;
+
+/**
+ * Resposta do modo ack=broker: ACKED traz a posição no tópico; SPOOLED significa que o Kafka
+ * recusou e a mensagem ficou no spool local, sem partition/offset ainda; DUPLICATE é um retry com
+ * Idempotency-Key já usado, respondido com o id original sem publicar de novo.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PublishAckResponseDTO(
+        String notificationId,
+        String status,
+        String topic,
+        Integer partition,
+        Long offset,
+        Instant timestamp
+) {
+    public static PublishAckResponseDTO of(PublishReceipt receipt) {
+        if (receipt.isDuplicate()) {
+            return new PublishAckResponseDTO(receipt.notificationId(), "DUPLICATE", null, null, null, Instant.now());
+        }
+        if (receipt.isSpooled()) {
+            return new PublishAckResponseDTO(receipt.notificationId(), "SPOOLED", null, null, null, Instant.now());
+        }
+        return new PublishAckResponseDTO(
+                receipt.notificationId(), "ACKED", receipt.topic(), receipt.partition(), receipt.offset(), Instant.now()
+        );
+    }
+}
@@ -0,0 +1,9 @@
+package com.notification.publisher.exception;
+
+public class BatchTooLargeException extends RuntimeException {
+
+    public BatchTooLargeException(int size, int maxItems) {
+        super("Batch size " + size + " exceeds the maximum of " + maxItems + " items");
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.notification.publisher.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class PublisherOverloadedException extends RuntimeException {
+
+    public enum Reason {
+        IN_FLIGHT_LIMIT,
+        ACK_LATENCY
+    }
+
+    private final Reason reason;
+    private final Duration retryAfter;
+
+    public PublisherOverloadedException(Reason reason, Duration retryAfter, String message) {
+        super(message);
+        this.reason = reason;
+        this.retryAfter = retryAfter;
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.notification.publisher.idempotency;
+
+import com.notification.publisher.config.PublisherProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Idempotency-Key -> notificationId, limitado em número de entradas e com TTL.
+ * Dividido em stripes com lock próprio para que requests concorrentes com chaves
+ * diferentes não disputem o mesmo monitor. Como o TTL é o mesmo para todas as entradas,
+ * a ordem de inserção de cada stripe é também a ordem de expiração: expirar e despejar
+ * por tamanho é sempre remover do início do LinkedHashMap.
+ */
+@Component
+public class IdempotencyCache {
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final int maxEntriesPerStripe;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter expired;
+    private final Counter evicted;
+
+    @Autowired
+    public IdempotencyCache(PublisherProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    IdempotencyCache(PublisherProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        final PublisherProperties.Idempotency config = properties.getIdempotency();
+        final int stripeCount = config.getStripes() <= 1 ? 1 : Integer.highestOneBit((config.getStripes() - 1) << 1);
+
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.mask = stripeCount - 1;
+        this.maxEntriesPerStripe = Math.max(1, (config.getMaxEntries() + stripeCount - 1) / stripeCount);
+        this.ttlNanos = config.getTtl().toNanos();
+        this.nanoClock = nanoClock;
+
+        this.hits = requestCounter(meterRegistry, "hit");
+        this.misses = requestCounter(meterRegistry, "miss");
+        this.expired = evictionCounter(meterRegistry, "expired");
+        this.evicted = evictionCounter(meterRegistry, "size");
+        Gauge.builder("notification.publisher.idempotency.size", this, IdempotencyCache::size)
+                .description("Idempotency keys currently cached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registra key -> notificationId se a chave ainda não existe (ou expirou).
+     *
+     * @return o id já associado à chave, ou null se esta chamada ficou com a chave e deve publicar
+     */
+    public String reserve(String key, String notificationId) {
+        final Stripe stripe = stripeFor(key);
+        final long now = nanoClock.getAsLong();
+        final String existing;
+        int expiredCount;
+        int evictedCount = 0;
+
+        synchronized (stripe) {
+            expiredCount = stripe.expire(now);
+            final Entry entry = stripe.entries.get(key);
+            if (entry != null) {
+                existing = entry.notificationId();
+            } else {
+                existing = null;
+                stripe.entries.put(key, new Entry(notificationId, now + ttlNanos));
+                evictedCount = stripe.trim(maxEntriesPerStripe);
+            }
+        }
+
+        // métricas fora do lock
+        if (expiredCount > 0) {
+            expired.increment(expiredCount);
+        }
+        if (evictedCount > 0) {
+            evicted.increment(evictedCount);
+        }
+        (existing != null ? hits : misses).increment();
+        return existing;
+    }
+
+    /**
+     * Desfaz um reserve cujo publish falhou, para que o retry do cliente publique de novo.
+     * Só remove se a chave ainda aponta para o mesmo id.
+     */
+    public void invalidate(String key, String notificationId) {
+        final Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            final Entry entry = stripe.entries.get(key);
+            if (entry != null && entry.notificationId().equals(notificationId)) {
+                stripe.entries.remove(key);
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.entries.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripeFor(String key) {
+        final int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+
+    private static Counter requestCounter(MeterRegistry registry, String result) {
+        return Counter.builder("notification.publisher.idempotency.requests")
+                .description("Publish requests carrying an Idempotency-Key")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static Counter evictionCounter(MeterRegistry registry, String cause) {
+        return Counter.builder("notification.publisher.idempotency.evictions")
+                .description("Idempotency keys dropped from the cache")
+                .tag("cause", cause)
+                .register(registry);
+    }
+
+    private record Entry(String notificationId, long expiresAtNanos) {
+    }
+
+    private static final class Stripe {
+
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+        int expire(long now) {
+            int removed = 0;
+            final Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext() && it.next().expiresAtNanos() - now <= 0) {
+                it.remove();
+                removed++;
+            }
+            return removed;
+        }
+
+        int trim(int maxEntries) {
+            int removed = 0;
+            final Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while (entries.size() > maxEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+                removed++;
+            }
+            return removed;
+        }
+    }
+}
@@ -8,6 +8,23 @@ public record NotificationMessage(
         String to,
         String subject,
         String body,
-        Instant createdAt
+        Instant createdAt,
+        NotificationPriority priority,
+        Instant sendAt  // null = entrega imediata
 ) {
+
+    public NotificationMessage {
+        if (priority == null) {
+            priority = NotificationPriority.NORMAL;
+        }
+    }
+
+    public NotificationMessage(String id, String type, String to, String subject, String body, Instant createdAt) {
+        this(id, type, to, subject, body, createdAt, NotificationPriority.NORMAL, null);
+    }
+
+    public NotificationMessage(String id, String type, String to, String subject, String body, Instant createdAt,
+                               NotificationPriority priority) {
+        this(id, type, to, subject, body, createdAt, priority, null);
+    }
 }
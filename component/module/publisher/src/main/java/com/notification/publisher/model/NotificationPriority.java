@@ -0,0 +1,10 @@
+package com.notification.publisher.model;
+
+/**
+ * Cada prioridade vai para o seu tópico; o consumer drena os tópicos com pesos diferentes.
+ */
+public enum NotificationPriority {
+    HIGH,
+    NORMAL,
+    LOW
+}
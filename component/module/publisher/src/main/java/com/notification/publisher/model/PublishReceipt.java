@@ -0,0 +1,35 @@
+package com.notification.publisher.model;
+
+public record PublishReceipt(
+        String notificationId,
+        String topic,
+        int partition,
+        long offset
+) {
+
+    private static final int SPOOLED = -1;
+    private static final int DUPLICATE = -2;
+
+    /**
+     * Aceita no spool local; partition/offset só existem depois que o SpoolDrainer entregar.
+     */
+    public static PublishReceipt spooled(String notificationId, String topic) {
+        return new PublishReceipt(notificationId, topic, SPOOLED, -1L);
+    }
+
+    /**
+     * Retry com um Idempotency-Key já usado: nada foi publicado de novo, e a posição do envio original não é
+     * conhecida aqui (ele pode ainda estar esperando o ack).
+     */
+    public static PublishReceipt duplicate(String notificationId) {
+        return new PublishReceipt(notificationId, null, DUPLICATE, -1L);
+    }
+
+    public boolean isSpooled() {
+        return partition == SPOOLED;
+    }
+
+    public boolean isDuplicate() {
+        return partition == DUPLICATE;
+    }
+}
@@ -0,0 +1,9 @@
+package com.notification.publisher.model;
+
+public record StreamIngestSummary(
+        int lines,
+        int accepted,
+        int rejected,
+        int failed
+) {
+}
@@ -0,0 +1,125 @@
+package com.notification.publisher.partitioning;
+
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.utils.Utils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Hash da key igual ao partitioner padrão do Kafka (murmur2), mas uma key que passa de
+ * threshold records dentro da janela é espalhada por até spread partições consecutivas
+ * a partir da partição dela. Assim um remetente em massa para um único domínio ocupa alguns
+ * consumers em vez de travar um só; a ordem dessa key deixa de ser garantida enquanto ela estiver quente.
+ *
+ * A contagem por key é um count-min sketch zerado a cada janela: memória fixa, sem guardar keys.
+ * Uma key segue quente durante a janela seguinte à que passou do limite.
+ */
+public class HotKeySpreadingPartitioner implements Partitioner {
+
+    public static final String WINDOW_MS_CONFIG = "notification.partitioner.hot-key.window-ms";
+    public static final String THRESHOLD_CONFIG = "notification.partitioner.hot-key.threshold";
+    public static final String SPREAD_CONFIG = "notification.partitioner.hot-key.spread";
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 4096;
+
+    private long windowMillis = 1000;
+    private int threshold = 1000;
+    private int spread = 4;
+
+    private volatile Window current = new Window(0);
+    private volatile Window previous = new Window(0);
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        windowMillis = longConfig(configs, WINDOW_MS_CONFIG, windowMillis);
+        threshold = (int) longConfig(configs, THRESHOLD_CONFIG, threshold);
+        spread = (int) longConfig(configs, SPREAD_CONFIG, spread);
+    }
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster) {
+        final int numPartitions = cluster.partitionsForTopic(topic).size();
+
+        if (keyBytes == null) {
+            // o adapter só manda key null na estratégia RANDOM, que não instala este partitioner
+            return ThreadLocalRandom.current().nextInt(numPartitions);
+        }
+
+        final int hash = Utils.murmur2(keyBytes);
+        final int home = Utils.toPositive(hash) % numPartitions;
+        final int width = Math.min(spread, numPartitions);
+        if (width <= 1 || !isHot(keyBytes, hash, System.currentTimeMillis())) {
+            return home;
+        }
+        return (home + ThreadLocalRandom.current().nextInt(width)) % numPartitions;
+    }
+
+    boolean isHot(byte[] keyBytes, int hash, long nowMillis) {
+        final Window window = windowAt(nowMillis);
+        final int hash2 = Arrays.hashCode(keyBytes) * 0x9E3779B9;
+        final int count = window.increment(hash, hash2);
+        return count > threshold || previous.estimate(hash, hash2) > threshold;
+    }
+
+    private Window windowAt(long nowMillis) {
+        Window window = current;
+        if (nowMillis - window.startMillis < windowMillis) {
+            return window;
+        }
+        synchronized (this) {
+            window = current;
+            if (nowMillis - window.startMillis >= windowMillis) {
+                // se passou mais de uma janela sem tráfego, a anterior não diz nada sobre agora
+                previous = nowMillis - window.startMillis < 2 * windowMillis ? window : new Window(0);
+                window = new Window(nowMillis);
+                current = window;
+            }
+            return window;
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static long longConfig(Map<String, ?> configs, String name, long defaultValue) {
+        final Object value = configs.get(name);
+        return value == null ? defaultValue : Long.parseLong(value.toString());
+    }
+
+    private static final class Window {
+
+        private final long startMillis;
+        private final AtomicIntegerArray counts = new AtomicIntegerArray(SKETCH_DEPTH * SKETCH_WIDTH);
+
+        private Window(long startMillis) {
+            this.startMillis = startMillis;
+        }
+
+        int increment(int hash1, int hash2) {
+            int min = Integer.MAX_VALUE;
+            for (int row = 0; row < SKETCH_DEPTH; row++) {
+                min = Math.min(min, counts.incrementAndGet(index(row, hash1, hash2)));
+            }
+            return min;
+        }
+
+        int estimate(int hash1, int hash2) {
+            int min = Integer.MAX_VALUE;
+            for (int row = 0; row < SKETCH_DEPTH; row++) {
+                min = Math.min(min, counts.get(index(row, hash1, hash2)));
+            }
+            return min;
+        }
+
+        private static int index(int row, int hash1, int hash2) {
+            // Kirsch-Mitzenmacher: hash1 + row * hash2 faz as vezes de SKETCH_DEPTH funções de hash
+            return row * SKETCH_WIDTH + ((hash1 + row * hash2) & (SKETCH_WIDTH - 1));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.notification.publisher.partitioning;
+
+import com.notification.publisher.model.NotificationMessage;
+
+import java.util.Locale;
+
+/**
+ * Define a key do record e, com ela, a partição. Mensagens com a mesma key vão para a mesma
+ * partição e são consumidas em ordem pelo mesmo consumer.
+ */
+public enum PartitionKeyStrategy {
+
+    // ordem por destinatário
+    RECIPIENT {
+        @Override
+        public String keyFor(NotificationMessage message) {
+            return message.to() == null ? null : message.to().toLowerCase(Locale.ROOT);
+        }
+    },
+
+    // localidade por domínio (mesmo servidor SMTP de destino no mesmo consumer)
+    DOMAIN {
+        @Override
+        public String keyFor(NotificationMessage message) {
+            if (message.to() == null) {
+                return null;
+            }
+            final int at = message.to().lastIndexOf('@');
+            return message.to().substring(at + 1).toLowerCase(Locale.ROOT);
+        }
+    },
+
+    // sem key: o sticky partitioner do producer enche um batch por vez
+    RANDOM {
+        @Override
+        public String keyFor(NotificationMessage message) {
+            return null;
+        }
+    };
+
+    public abstract String keyFor(NotificationMessage message);
+}
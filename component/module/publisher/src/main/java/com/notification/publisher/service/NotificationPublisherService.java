@@ -1,9 +1,37 @@
 package com.notification.publisher.service;
 
+import com.notification.publisher.dto.BatchItemResultDTO;
 import com.notification.publisher.dto.EmailNotificationRequestDTO;
+import com.notification.publisher.model.PublishReceipt;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface NotificationPublisherService {
 
-    String publishEmail(EmailNotificationRequestDTO request);
+    /**
+     * @param idempotencyKey opcional; um retry com a mesma chave dentro do TTL devolve o id
+     *                       original sem publicar de novo
+     */
+    String publishEmail(EmailNotificationRequestDTO request, String idempotencyKey);
+
+    /**
+     * Igual ao publishEmail, mas devolve o ack do broker em vez de só o id.
+     * O request já deve ter sido validado por quem chama.
+     */
+    default CompletableFuture<PublishReceipt> publishEmailAsync(EmailNotificationRequestDTO request) {
+        return publishEmailAsync(request, null);
+    }
+
+    /**
+     * @param idempotencyKey opcional; um retry com a mesma chave dentro do TTL recebe
+     *                       {@link PublishReceipt#duplicate} com o id original, sem publicar de novo
+     */
+    CompletableFuture<PublishReceipt> publishEmailAsync(EmailNotificationRequestDTO request, String idempotencyKey);
+
+    /**
+     * @param idempotencyKey opcional; vale para o lote inteiro, cada item é deduplicado pela sua posição
+     */
+    List<BatchItemResultDTO> publishEmailBatch(List<EmailNotificationRequestDTO> requests, String idempotencyKey);
 
 }
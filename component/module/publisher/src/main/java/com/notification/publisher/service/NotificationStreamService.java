@@ -0,0 +1,17 @@
+package com.notification.publisher.service;
+
+import com.notification.publisher.model.StreamIngestSummary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface NotificationStreamService {
+
+    /**
+     * Lê requests de email em NDJSON (um JSON por linha) e escreve em out um resultado por linha,
+     * na ordem em que os acks chegam. Nunca mantém o upload inteiro em memória.
+     */
+    StreamIngestSummary publishEmailStream(InputStream in, OutputStream out) throws IOException;
+
+}
@@ -1,41 +1,171 @@
 package com.notification.publisher.service.impl;
 
 import com.notification.publisher.adapter.NotificationPublisherAdapter;
+import com.notification.publisher.config.PublisherProperties;
+import com.notification.publisher.dto.BatchItemResultDTO;
 import com.notification.publisher.dto.EmailNotificationRequestDTO;
+import com.notification.publisher.exception.BatchTooLargeException;
+import com.notification.publisher.idempotency.IdempotencyCache;
 import com.notification.publisher.model.NotificationMessage;
+import com.notification.publisher.model.PublishReceipt;
 import com.notification.publisher.service.NotificationPublisherService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
 public class NotificationPublisherServiceImpl implements NotificationPublisherService {
 
     private final NotificationPublisherAdapter publisherAdapter;
+    private final Validator validator;
+    private final PublisherProperties properties;
+    private final IdempotencyCache idempotencyCache;
 
-    public NotificationPublisherServiceImpl(NotificationPublisherAdapter publisherAdapter) {
+    public NotificationPublisherServiceImpl(
+            NotificationPublisherAdapter publisherAdapter,
+            Validator validator,
+            PublisherProperties properties,
+            IdempotencyCache idempotencyCache
+    ) {
         this.publisherAdapter = publisherAdapter;
+        this.validator = validator;
+        this.properties = properties;
+        this.idempotencyCache = idempotencyCache;
     }
 
     @Override
-    public String publishEmail(EmailNotificationRequestDTO request) {
-        final String id = UUID.randomUUID().toString();
+    public String publishEmail(EmailNotificationRequestDTO request, String idempotencyKey) {
+        NotificationMessage message = toMessage(request, Instant.now());
 
-        NotificationMessage message = new NotificationMessage(
-                id,
+        if (idempotencyKey != null) {
+            String existing = idempotencyCache.reserve(idempotencyKey, message.id());
+            if (existing != null) {
+                log.info("Idempotent replay, not republishing. id={} key={}", existing, idempotencyKey);
+                return existing;
+            }
+        }
+
+        try {
+            publisherAdapter.publish(message)
+                    .whenComplete((receipt, ex) -> releaseKeyOnFailure(idempotencyKey, message.id(), ex));
+        } catch (RuntimeException ex) {
+            releaseKeyOnFailure(idempotencyKey, message.id(), ex);
+            throw ex;
+        }
+
+        log.info("Publish requested. id={} to={}", message.id(), request.to());
+        return message.id();
+    }
+
+    @Override
+    public CompletableFuture<PublishReceipt> publishEmailAsync(EmailNotificationRequestDTO request, String idempotencyKey) {
+        NotificationMessage message = toMessage(request, Instant.now());
+
+        if (idempotencyKey != null) {
+            String existing = idempotencyCache.reserve(idempotencyKey, message.id());
+            if (existing != null) {
+                log.info("Idempotent replay, not republishing. id={} key={}", existing, idempotencyKey);
+                return CompletableFuture.completedFuture(PublishReceipt.duplicate(existing));
+            }
+        }
+
+        final CompletableFuture<PublishReceipt> ack;
+        try {
+            ack = publisherAdapter.publish(message);
+        } catch (RuntimeException ex) {
+            releaseKeyOnFailure(idempotencyKey, message.id(), ex);
+            throw ex;
+        }
+        ack.whenComplete((receipt, ex) -> releaseKeyOnFailure(idempotencyKey, message.id(), ex));
+
+        log.debug("Publish requested (awaiting ack). id={} to={}", message.id(), request.to());
+        // cópia: um orTimeout de quem chamou falha só a cópia; a chave só é liberada se o envio falhar de fato
+        return ack.copy();
+    }
+
+    @Override
+    public List<BatchItemResultDTO> publishEmailBatch(List<EmailNotificationRequestDTO> requests, String idempotencyKey) {
+        final int maxItems = properties.getBatch().getMaxItems();
+        if (requests.size() > maxItems) {
+            throw new BatchTooLargeException(requests.size(), maxItems);
+        }
+
+        final Instant now = Instant.now();
+        final List<BatchItemResultDTO> results = new ArrayList<>(requests.size());
+        final List<NotificationMessage> messages = new ArrayList<>(requests.size());
+        final List<String> reservedKeys = new ArrayList<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            final EmailNotificationRequestDTO request = requests.get(i);
+
+            if (request == null) {
+                results.add(BatchItemResultDTO.rejected(i, Map.of("item", "must not be null")));
+                continue;
+            }
+
+            final Set<ConstraintViolation<EmailNotificationRequestDTO>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                results.add(BatchItemResultDTO.rejected(i, violations));
+                continue;
+            }
+
+            final NotificationMessage message = toMessage(request, now);
+
+            if (idempotencyKey != null) {
+                final String itemKey = idempotencyKey + "#" + i;
+                final String existing = idempotencyCache.reserve(itemKey, message.id());
+                if (existing != null) {
+                    results.add(BatchItemResultDTO.accepted(i, existing));
+                    continue;
+                }
+                reservedKeys.add(itemKey);
+            }
+
+            messages.add(message);
+            results.add(BatchItemResultDTO.accepted(i, message.id()));
+        }
+
+        // um único publishBatch: o lote nunca é quebrado em sends individuais
+        try {
+            publisherAdapter.publishBatch(messages);
+        } catch (RuntimeException ex) {
+            for (int i = 0; i < reservedKeys.size(); i++) {
+                idempotencyCache.invalidate(reservedKeys.get(i), messages.get(i).id());
+            }
+            throw ex;
+        }
+
+        log.info("Batch publish requested. size={} accepted={} rejected={}",
+                requests.size(), messages.size(), requests.size() - messages.size());
+        return results;
+    }
+
+    private void releaseKeyOnFailure(String idempotencyKey, String notificationId, Throwable ex) {
+        if (idempotencyKey != null && ex != null) {
+            idempotencyCache.invalidate(idempotencyKey, notificationId);
+        }
+    }
+
+    private NotificationMessage toMessage(EmailNotificationRequestDTO request, Instant createdAt) {
+        return new NotificationMessage(
+                UUID.randomUUID().toString(),
                 "EMAIL",
                 request.to(),
                 request.subject(),
                 request.body(),
-                Instant.now()
+                createdAt,
+                request.priority(),
+                request.sendAt()
         );
-
-        publisherAdapter.publish(message);
-
-        log.info("Publish requested. id={} to={}", id, request.to());
-        return id;
     }
 }
@@ -0,0 +1,263 @@
+package com.notification.publisher.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.publisher.config.PublisherProperties;
+import com.notification.publisher.dto.BatchItemResultDTO;
+import com.notification.publisher.dto.EmailNotificationRequestDTO;
+import com.notification.publisher.model.PublishReceipt;
+import com.notification.publisher.model.StreamIngestSummary;
+import com.notification.publisher.service.NotificationPublisherService;
+import com.notification.publisher.service.NotificationStreamService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+public class NotificationStreamServiceImpl implements NotificationStreamService {
+
+    private static final long DRAIN_INTERVAL_MS = 50;
+
+    private final NotificationPublisherService publisherService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final PublisherProperties properties;
+
+    public NotificationStreamServiceImpl(
+            NotificationPublisherService publisherService,
+            ObjectMapper objectMapper,
+            Validator validator,
+            PublisherProperties properties
+    ) {
+        this.publisherService = publisherService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.properties = properties;
+    }
+
+    @Override
+    public StreamIngestSummary publishEmailStream(InputStream in, OutputStream out) throws IOException {
+        final PublisherProperties.Stream config = properties.getStream();
+        final IngestSession session = new IngestSession(out, config.getMaxInFlight());
+        final LineReader reader = new LineReader(in, config.getMaxLineBytes());
+
+        int lineNumber = 0;
+        LineReader.Line line;
+
+        while ((line = reader.next()) != null) {
+            lineNumber++;
+            session.drainCompleted(false);
+
+            if (line.overflow()) {
+                session.write(BatchItemResultDTO.rejected(lineNumber,
+                        Map.of("line", "exceeds " + config.getMaxLineBytes() + " bytes")));
+                continue;
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+
+            final EmailNotificationRequestDTO request;
+            try {
+                request = objectMapper.readValue(line.bytes(), 0, line.length(), EmailNotificationRequestDTO.class);
+            } catch (JsonProcessingException e) {
+                session.write(BatchItemResultDTO.rejected(lineNumber, Map.of("line", "Invalid JSON: " + e.getOriginalMessage())));
+                continue;
+            }
+
+            final Set<ConstraintViolation<EmailNotificationRequestDTO>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                session.write(BatchItemResultDTO.rejected(lineNumber, violations));
+                continue;
+            }
+
+            // sem permit não lemos a próxima linha: o buffer do socket enche e o TCP segura o cliente
+            session.acquirePermit();
+            session.track(lineNumber, publish(request));
+        }
+
+        session.awaitAll();
+
+        final StreamIngestSummary summary = session.summary(lineNumber);
+        log.info("Stream ingest finished. lines={} accepted={} rejected={} failed={}",
+                summary.lines(), summary.accepted(), summary.rejected(), summary.failed());
+        return summary;
+    }
+
+    private CompletableFuture<PublishReceipt> publish(EmailNotificationRequestDTO request) {
+        try {
+            return publisherService.publishEmailAsync(request);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Estado de um upload. Os callbacks do producer só enfileiram resultados;
+     * quem escreve no socket é sempre a thread do request.
+     */
+    private final class IngestSession {
+
+        private final OutputStream out;
+        private final int maxInFlight;
+        private final Semaphore permits;
+        private final Queue<BatchItemResultDTO> completed = new ConcurrentLinkedQueue<>();
+
+        private int accepted;
+        private int rejected;
+        private int failed;
+
+        private IngestSession(OutputStream out, int maxInFlight) {
+            this.out = out;
+            this.maxInFlight = maxInFlight;
+            this.permits = new Semaphore(maxInFlight);
+        }
+
+        void track(int index, CompletableFuture<PublishReceipt> ack) {
+            ack.whenComplete((receipt, ex) -> {
+                completed.add(ex == null
+                        ? BatchItemResultDTO.accepted(index, receipt.notificationId())
+                        : BatchItemResultDTO.failed(index, rootMessage(ex)));
+                permits.release();
+            });
+        }
+
+        void acquirePermit() throws IOException {
+            acquire(1);
+        }
+
+        void awaitAll() throws IOException {
+            acquire(maxInFlight);
+            permits.release(maxInFlight);
+            drainCompleted(true);
+        }
+
+        void drainCompleted(boolean flush) throws IOException {
+            BatchItemResultDTO result;
+            boolean wrote = false;
+            while ((result = completed.poll()) != null) {
+                write(result);
+                wrote = true;
+            }
+            if (flush && wrote) {
+                out.flush();
+            }
+        }
+
+        void write(BatchItemResultDTO result) throws IOException {
+            switch (result.status()) {
+                case "ACCEPTED" -> accepted++;
+                case "REJECTED" -> rejected++;
+                default -> failed++;
+            }
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write('\n');
+        }
+
+        StreamIngestSummary summary(int lines) {
+            return new StreamIngestSummary(lines, accepted, rejected, failed);
+        }
+
+        private void acquire(int count) throws IOException {
+            try {
+                // enquanto esperamos, os resultados que já chegaram continuam indo para o cliente
+                while (!permits.tryAcquire(count, DRAIN_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                    drainCompleted(true);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for in-flight sends");
+            }
+        }
+
+        private String rootMessage(Throwable ex) {
+            Throwable cause = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+            return cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage();
+        }
+    }
+
+    /**
+     * Leitor de linhas sobre bytes, com tamanho máximo por linha.
+     * Evita o BufferedReader.readLine, que cresce sem limite numa linha gigante.
+     */
+    static final class LineReader {
+
+        private final InputStream in;
+        private final int maxLineBytes;
+        private final byte[] buffer = new byte[8192];
+        private final byte[] line;
+        private int position;
+        private int limit;
+
+        LineReader(InputStream in, int maxLineBytes) {
+            this.in = in;
+            this.maxLineBytes = maxLineBytes;
+            this.line = new byte[maxLineBytes];
+        }
+
+        record Line(byte[] bytes, int length, boolean overflow) {
+            boolean isBlank() {
+                for (int i = 0; i < length; i++) {
+                    if (!Character.isWhitespace(bytes[i])) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+
+        /**
+         * @return a próxima linha (sem o terminador) ou null no fim do stream.
+         * O array devolvido é reaproveitado na chamada seguinte.
+         */
+        Line next() throws IOException {
+            int length = 0;
+            boolean overflow = false;
+            boolean readAny = false;
+
+            while (true) {
+                if (position == limit) {
+                    limit = in.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        break;
+                    }
+                }
+                readAny = true;
+                byte b = buffer[position++];
+                if (b == '\n') {
+                    break;
+                }
+                if (length < maxLineBytes) {
+                    line[length++] = b;
+                } else {
+                    overflow = true;
+                }
+            }
+
+            if (!readAny) {
+                return null;
+            }
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+            return new Line(line, length, overflow);
+        }
+    }
+}
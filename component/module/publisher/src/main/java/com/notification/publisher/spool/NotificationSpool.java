@@ -0,0 +1,35 @@
+package com.notification.publisher.spool;
+
+import com.notification.publisher.model.NotificationMessage;
+
+import java.util.List;
+
+/**
+ * Outbox local para mensagens já aceitas (202) que não chegaram ao Kafka: falha do send,
+ * producer saturado ou backlog ainda sendo drenado. O SpoolDrainer reenvia em lotes, na ordem de gravação.
+ */
+public interface NotificationSpool {
+
+    /**
+     * @return false se o spool está desabilitado ou cheio; quem chama decide o que fazer com a mensagem
+     */
+    boolean append(NotificationMessage message);
+
+    /**
+     * Grava todas ou nenhuma.
+     */
+    boolean appendAll(List<NotificationMessage> messages);
+
+    /**
+     * Próximas mensagens a partir do último commit, sem consumi-las.
+     */
+    SpoolBatch peek(int maxMessages);
+
+    /**
+     * Marca o lote como entregue; o espaço dele pode ser liberado.
+     */
+    void commit(SpoolBatch batch);
+
+    long pending();
+
+}
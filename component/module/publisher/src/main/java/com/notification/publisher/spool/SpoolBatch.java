@@ -0,0 +1,21 @@
+package com.notification.publisher.spool;
+
+import com.notification.publisher.model.NotificationMessage;
+
+import java.util.List;
+
+/**
+ * Lote lido do spool. segment/position apontam para logo depois da última mensagem do lote;
+ * records inclui registros ilegíveis que foram descartados na leitura.
+ */
+public record SpoolBatch(
+        List<NotificationMessage> messages,
+        int records,
+        long segment,
+        int position
+) {
+
+    public boolean isEmpty() {
+        return records == 0;
+    }
+}
@@ -0,0 +1,88 @@
+package com.notification.publisher.spool;
+
+import com.notification.publisher.adapter.NotificationPublisherAdapter;
+import com.notification.publisher.config.PublisherProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reenvia o conteúdo do spool em lotes, numa única thread, na ordem em que foi gravado.
+ * Só faz commit de um lote depois do ack de todas as mensagens dele; se algo falhar o lote
+ * inteiro é tentado de novo no próximo ciclo (o consumer pode receber duplicatas).
+ */
+@Slf4j
+@Component
+public class SpoolDrainer {
+
+    private final NotificationSpool spool;
+    private final NotificationPublisherAdapter publisherAdapter;
+    private final PublisherProperties.Spool config;
+    private ScheduledExecutorService scheduler;
+
+    public SpoolDrainer(
+            NotificationSpool spool,
+            NotificationPublisherAdapter publisherAdapter,
+            PublisherProperties properties
+    ) {
+        this.spool = spool;
+        this.publisherAdapter = publisherAdapter;
+        this.config = properties.getSpool();
+    }
+
+    @PostConstruct
+    void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "notification-spool-drainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long interval = config.getDrainInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::drain, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Drena enquanto houver lotes e o Kafka aceitar; para no primeiro erro.
+     *
+     * @return quantas mensagens foram entregues
+     */
+    public int drain() {
+        int delivered = 0;
+        try {
+            while (spool.pending() > 0) {
+                final SpoolBatch batch = spool.peek(config.getDrainBatchSize());
+                if (batch.isEmpty()) {
+                    break;
+                }
+                publisherAdapter.replay(batch.messages())
+                        .get(config.getDrainTimeout().toMillis(), TimeUnit.MILLISECONDS);
+                spool.commit(batch);
+                delivered += batch.messages().size();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // broker ainda fora ou producer saturado: o lote fica no spool para o próximo ciclo
+            log.warn("Spool drain paused. delivered={} pending={} error={}", delivered, spool.pending(), e.getMessage());
+        }
+        if (delivered > 0) {
+            log.info("Spool drained. delivered={} pending={}", delivered, spool.pending());
+        }
+        return delivered;
+    }
+}
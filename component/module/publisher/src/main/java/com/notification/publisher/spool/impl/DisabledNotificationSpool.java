@@ -0,0 +1,37 @@
+package com.notification.publisher.spool.impl;
+
+import com.notification.publisher.model.NotificationMessage;
+import com.notification.publisher.spool.NotificationSpool;
+import com.notification.publisher.spool.SpoolBatch;
+
+import java.util.List;
+
+/**
+ * app.publisher.spool.enabled=false: nada é guardado e falhas de send voltam a ser só log.
+ */
+public class DisabledNotificationSpool implements NotificationSpool {
+
+    @Override
+    public boolean append(NotificationMessage message) {
+        return false;
+    }
+
+    @Override
+    public boolean appendAll(List<NotificationMessage> messages) {
+        return false;
+    }
+
+    @Override
+    public SpoolBatch peek(int maxMessages) {
+        return new SpoolBatch(List.of(), 0, 0, 0);
+    }
+
+    @Override
+    public void commit(SpoolBatch batch) {
+    }
+
+    @Override
+    public long pending() {
+        return 0;
+    }
+}
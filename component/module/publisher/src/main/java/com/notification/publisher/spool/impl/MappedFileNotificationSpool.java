@@ -0,0 +1,366 @@
+package com.notification.publisher.spool.impl;
+
+import com.notification.publisher.codec.BinaryNotificationCodec;
+import com.notification.publisher.config.PublisherProperties;
+import com.notification.publisher.model.NotificationMessage;
+import com.notification.publisher.spool.NotificationSpool;
+import com.notification.publisher.spool.SpoolBatch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Log append-only em segmentos de tamanho fixo mapeados em memória (NNNN.spool no diretório configurado).
+ *
+ * Cada registro é [int length][int crc32][mensagem em BinaryNotificationCodec]. O length é escrito por
+ * último, então uma escrita interrompida deixa length 0 (arquivo novo é zerado) ou um crc que não bate:
+ * na recuperação o segmento termina ali. O cursor de leitura (segmento + posição) vive no arquivo
+ * "cursor" e só avança no commit, depois do ack do Kafka: entrega at-least-once.
+ *
+ * Escritas vão para o page cache; sobrevivem a um crash do processo, mas não do SO a menos que
+ * sync-on-append esteja ligado.
+ */
+@Slf4j
+public class MappedFileNotificationSpool implements NotificationSpool, Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String CURSOR_FILE = "cursor";
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final boolean syncOnAppend;
+    private final BinaryNotificationCodec codec = new BinaryNotificationCodec();
+
+    // segmentos ainda não drenados, do mais antigo (o do cursor) ao de escrita
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private long readSegment;
+    private int readPosition;
+    private final AtomicLong pending = new AtomicLong();
+
+    private final Counter appended;
+    private final Counter rejected;
+    private final Counter drained;
+
+    public MappedFileNotificationSpool(PublisherProperties.Spool config, MeterRegistry meterRegistry) throws IOException {
+        this.directory = Paths.get(config.getDirectory());
+        this.segmentBytes = (int) config.getSegmentSize().toBytes();
+        this.maxSegments = (int) Math.max(1, config.getMaxSize().toBytes() / segmentBytes);
+        this.syncOnAppend = config.isSyncOnAppend();
+
+        recover();
+
+        Gauge.builder("notification.publisher.spool.pending", pending, AtomicLong::get)
+                .description("Accepted notifications waiting in the local spool")
+                .register(meterRegistry);
+        this.appended = Counter.builder("notification.publisher.spool.appended")
+                .description("Notifications written to the local spool")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("notification.publisher.spool.rejected")
+                .description("Notifications refused because the spool is full")
+                .register(meterRegistry);
+        this.drained = Counter.builder("notification.publisher.spool.drained")
+                .description("Spooled notifications acknowledged by Kafka")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean append(NotificationMessage message) {
+        return appendAll(List.of(message));
+    }
+
+    @Override
+    public synchronized boolean appendAll(List<NotificationMessage> messages) {
+        final List<byte[]> payloads = new ArrayList<>(messages.size());
+        for (NotificationMessage message : messages) {
+            payloads.add(codec.encode(message));
+        }
+        if (!fits(payloads)) {
+            rejected.increment(messages.size());
+            log.error("Spool full, notifications not stored. count={} pending={}", messages.size(), pending.get());
+            return false;
+        }
+
+        Segment segment = segments.peekLast();
+        for (byte[] payload : payloads) {
+            if (segment.remaining() < HEADER_BYTES + payload.length) {
+                segment = roll(segment);
+            }
+            write(segment, payload);
+        }
+        pending.addAndGet(payloads.size());
+        appended.increment(payloads.size());
+        return true;
+    }
+
+    @Override
+    public synchronized SpoolBatch peek(int maxMessages) {
+        final List<NotificationMessage> messages = new ArrayList<>(Math.min(maxMessages, 1024));
+        final Iterator<Segment> it = segments.iterator();
+        Segment segment = it.next();
+        int position = readPosition;
+        int records = 0;
+
+        while (records < maxMessages) {
+            if (position < segment.writePosition) {
+                final int length = segment.buffer.getInt(position);
+                final byte[] payload = new byte[length];
+                segment.buffer.get(position + HEADER_BYTES, payload);
+                position += HEADER_BYTES + length;
+                records++;
+                try {
+                    messages.add(codec.decode(payload, codec.schemaVersion()));
+                } catch (IllegalArgumentException e) {
+                    // o crc bateu, então foi gravado assim; travar o dreno por causa dele seria pior
+                    log.error("Discarding unreadable spool record. segment={} error={}", segment.seq, e.getMessage());
+                }
+            } else if (it.hasNext()) {
+                segment = it.next();
+                position = 0;
+            } else {
+                break;
+            }
+        }
+        return new SpoolBatch(messages, records, segment.seq, position);
+    }
+
+    @Override
+    public synchronized void commit(SpoolBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        while (segments.size() > 1 && segments.peekFirst().seq < batch.segment()) {
+            segments.pollFirst().delete();
+        }
+        readSegment = batch.segment();
+        readPosition = batch.position();
+        pending.addAndGet(-batch.records());
+        drained.increment(batch.messages().size());
+        writeCursor();
+    }
+
+    @Override
+    public long pending() {
+        return pending.get();
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Segment segment : segments) {
+            segment.buffer.force();
+            segment.close();
+        }
+    }
+
+    private boolean fits(List<byte[]> payloads) {
+        int segmentCount = segments.size();
+        int remaining = segments.peekLast().remaining();
+        for (byte[] payload : payloads) {
+            final int size = HEADER_BYTES + payload.length;
+            if (size > segmentBytes) {
+                return false;
+            }
+            if (remaining < size) {
+                segmentCount++;
+                remaining = segmentBytes;
+            }
+            remaining -= size;
+        }
+        return segmentCount <= maxSegments;
+    }
+
+    private void write(Segment segment, byte[] payload) {
+        final int position = segment.writePosition;
+        final CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        segment.buffer.putInt(position + 4, (int) crc.getValue());
+        segment.buffer.put(position + HEADER_BYTES, payload);
+        // length por último: até aqui o registro é invisível para a recuperação
+        segment.buffer.putInt(position, payload.length);
+        segment.writePosition = position + HEADER_BYTES + payload.length;
+
+        if (syncOnAppend) {
+            segment.buffer.force(position, HEADER_BYTES + payload.length);
+        }
+    }
+
+    private Segment roll(Segment current) {
+        current.buffer.force();
+        try {
+            final Segment next = Segment.open(segmentPath(current.seq + 1), current.seq + 1, segmentBytes);
+            segments.addLast(next);
+            return next;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create spool segment", e);
+        }
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        readCursor();
+
+        final List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing
+                    .filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        for (Path file : files) {
+            final long seq = Long.parseLong(file.getFileName().toString().replace(SEGMENT_SUFFIX, ""));
+            if (seq < readSegment) {
+                Files.deleteIfExists(file);
+                continue;
+            }
+            final Segment segment = Segment.open(file, seq, segmentBytes);
+            segment.writePosition = scan(segment.buffer);
+            segments.addLast(segment);
+        }
+
+        if (segments.isEmpty()) {
+            segments.addLast(Segment.open(segmentPath(readSegment), readSegment, segmentBytes));
+            readPosition = 0;
+        } else if (segments.peekFirst().seq != readSegment) {
+            // o segmento do cursor sumiu (apagado à mão?): recomeça do mais antigo que sobrou
+            readSegment = segments.peekFirst().seq;
+            readPosition = 0;
+        }
+
+        long count = 0;
+        int from = readPosition;
+        for (Segment segment : segments) {
+            count += countRecords(segment, from);
+            from = 0;
+        }
+        pending.set(count);
+
+        if (count > 0) {
+            log.warn("Recovered spool with pending notifications. pending={} segments={}", count, segments.size());
+        }
+    }
+
+    private int countRecords(Segment segment, int from) {
+        int count = 0;
+        int position = from;
+        while (position < segment.writePosition) {
+            position += HEADER_BYTES + segment.buffer.getInt(position);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Posição logo depois do último registro íntegro do segmento.
+     */
+    private static int scan(ByteBuffer buffer) {
+        int position = 0;
+        while (position + HEADER_BYTES <= buffer.capacity()) {
+            final int length = buffer.getInt(position);
+            if (length <= 0 || length > buffer.capacity() - position - HEADER_BYTES) {
+                break;
+            }
+            final CRC32 crc = new CRC32();
+            crc.update(buffer.slice(position + HEADER_BYTES, length));
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    private void readCursor() throws IOException {
+        final Path file = directory.resolve(CURSOR_FILE);
+        if (Files.exists(file) && Files.size(file) == 12) {
+            final ByteBuffer cursor = ByteBuffer.wrap(Files.readAllBytes(file));
+            readSegment = cursor.getLong();
+            readPosition = cursor.getInt();
+        }
+    }
+
+    private void writeCursor() {
+        final ByteBuffer cursor = ByteBuffer.allocate(12).putLong(readSegment).putInt(readPosition);
+        final Path tmp = directory.resolve(CURSOR_FILE + ".tmp");
+        try {
+            Files.write(tmp, cursor.array());
+            Files.move(tmp, directory.resolve(CURSOR_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // na pior hipótese o próximo start reenvia um lote já entregue
+            log.warn("Failed to persist spool cursor. error={}", e.getMessage());
+        }
+    }
+
+    private Path segmentPath(long seq) {
+        return directory.resolve(String.format("%020d%s", seq, SEGMENT_SUFFIX));
+    }
+
+    private static final class Segment {
+
+        private final long seq;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+
+        private Segment(long seq, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.seq = seq;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment open(Path path, long seq, int segmentBytes) throws IOException {
+            final FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // segmentos antigos mantêm o tamanho com que foram criados
+            final long size = channel.size() > 0 ? channel.size() : segmentBytes;
+            return new Segment(seq, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+
+        int remaining() {
+            return buffer.capacity() - writePosition;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close spool segment. path={} error={}", path, e.getMessage());
+            }
+        }
+
+        void delete() {
+            close();
+            try {
+                // o mapeamento é liberado quando o buffer for coletado; no Linux o espaço volta no unlink
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("Failed to delete drained spool segment. path={} error={}", path, e.getMessage());
+            }
+        }
+    }
+}
@@ -1,29 +1,52 @@
 package com.notification.publisher.adapter;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.notification.publisher.adapter.impl.KafkaNotificationPublisherAdapterImpl;
+import com.notification.publisher.admission.ProducerAdmissionController;
+import com.notification.publisher.codec.BinaryNotificationCodec;
+import com.notification.publisher.codec.JsonNotificationCodec;
+import com.notification.publisher.codec.NotificationCodec;
+import com.notification.publisher.codec.NotificationCodecHeaders;
+import com.notification.publisher.config.KafkaProducerProperties;
+import com.notification.publisher.config.PublisherProperties;
+import com.notification.publisher.exception.PublisherOverloadedException;
 import com.notification.publisher.model.NotificationMessage;
+import com.notification.publisher.model.NotificationPriority;
+import com.notification.publisher.model.PublishReceipt;
+import com.notification.publisher.partitioning.PartitionKeyStrategy;
+import com.notification.publisher.spool.NotificationSpool;
+import com.notification.publisher.spool.impl.DisabledNotificationSpool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
-import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -31,20 +54,40 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class KafkaNotificationPublisherAdapterImplTest {
 
+    private static final String TOPIC = "notifications.email";
+    private static final String HIGH_TOPIC = "notifications.email.high";
+    private static final String LOW_TOPIC = "notifications.email.low";
+    private static final String SCHEDULED_TOPIC = "notifications.email.scheduled";
+
+    @Mock
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
     @Mock
-    private KafkaTemplate<String, String> kafkaTemplate;
+    private SendResult<String, byte[]> sendResult;
+
+    @Captor
+    private ArgumentCaptor<ProducerRecord<String, byte[]>> captor;
 
     private ObjectMapper objectMapper;
+    private NotificationCodec jsonCodec;
+    private PublisherProperties properties;
+    private ProducerAdmissionController admissionController;
+    private KafkaProducerProperties producerProperties;
+    private NotificationSpool spool;
 
     @BeforeEach
     void setup() {
         objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        jsonCodec = new JsonNotificationCodec(objectMapper);
+        properties = new PublisherProperties();
+        admissionController = new ProducerAdmissionController(properties, new SimpleMeterRegistry());
+        producerProperties = new KafkaProducerProperties();
+        spool = new DisabledNotificationSpool();
     }
 
     @Test
     void publish_shouldSendToKafkaWithSerializedJson() {
-        String topic = "notifications.email";
-        var adapter = new KafkaNotificationPublisherAdapterImpl(kafkaTemplate, objectMapper, topic);
+        var adapter = adapter();
 
         NotificationMessage msg = new NotificationMessage(
                 UUID.randomUUID().toString(),
@@ -56,46 +99,280 @@ class KafkaNotificationPublisherAdapterImplTest {
         );
 
         // simula send async ok
-        when(kafkaTemplate.send(anyString(), anyString(), anyString()))
-                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+        when(kafkaTemplate.send(anyRecord()))
+                .thenReturn(CompletableFuture.completedFuture(sendResult));
 
         adapter.publish(msg);
 
-        ArgumentCaptor<String> topicCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<String> keyCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<String> payloadCaptor = ArgumentCaptor.forClass(String.class);
+        ProducerRecord<String, byte[]> record = capturedRecord();
 
-        verify(kafkaTemplate).send(topicCaptor.capture(), keyCaptor.capture(), payloadCaptor.capture());
+        assertEquals(TOPIC, record.topic());
+        // estratégia padrão RANDOM: sem key, o producer escolhe a partição
+        assertNull(record.key());
 
-        assertEquals(topic, topicCaptor.getValue());
-        assertEquals(msg.id(), keyCaptor.getValue());
-
-        String payload = payloadCaptor.getValue();
+        String payload = new String(record.value(), StandardCharsets.UTF_8);
         assertNotNull(payload);
         assertTrue(payload.contains(msg.id()));
         assertTrue(payload.contains("\"type\":\"EMAIL\""));
         assertTrue(payload.contains("user@example.com"));
+
+        assertEquals("json", header(record, NotificationCodecHeaders.FORMAT));
+        assertEquals("1", header(record, NotificationCodecHeaders.SCHEMA_VERSION));
+    }
+
+    @Test
+    void publish_shouldTagRecordWithBinaryFormat_whenBinaryCodecIsSelected() {
+        BinaryNotificationCodec codec = new BinaryNotificationCodec();
+        var adapter = adapter(codec);
+
+        NotificationMessage msg = new NotificationMessage(
+                UUID.randomUUID().toString(), "EMAIL", "user@example.com", "Hello", "Body", Instant.now()
+        );
+
+        when(kafkaTemplate.send(anyRecord()))
+                .thenReturn(CompletableFuture.completedFuture(sendResult));
+
+        adapter.publish(msg);
+
+        ProducerRecord<String, byte[]> record = capturedRecord();
+        assertEquals("binary", header(record, NotificationCodecHeaders.FORMAT));
+        assertEquals(msg, codec.decode(record.value(), 3));
     }
 
     @Test
-    void publish_shouldThrowWhenSerializationFails() {
-        String topic = "notifications.email";
+    void publish_shouldRouteEachPriorityToItsOwnTopic() {
+        var adapter = adapter();
+        when(kafkaTemplate.send(anyRecord()))
+                .thenReturn(CompletableFuture.completedFuture(sendResult));
+
+        for (NotificationPriority priority : List.of(NotificationPriority.HIGH, NotificationPriority.NORMAL, NotificationPriority.LOW)) {
+            adapter.publish(new NotificationMessage(
+                    UUID.randomUUID().toString(), "EMAIL", "a@example.com", "Hello", "Body", Instant.now(), priority));
+        }
 
-        // ObjectMapper "quebrado" para forçar exceção
+        verify(kafkaTemplate, times(3)).send(captor.capture());
+        assertEquals(List.of(HIGH_TOPIC, TOPIC, LOW_TOPIC),
+                captor.getAllValues().stream().map(ProducerRecord::topic).toList());
+    }
+
+    @Test
+    void publish_shouldKeyRecordByRecipientOrDomain_whenStrategyIsConfigured() {
+        NotificationMessage msg = new NotificationMessage(
+                UUID.randomUUID().toString(), "EMAIL", "Some.User@Example.com", "Hello", "Body", Instant.now()
+        );
+        when(kafkaTemplate.send(anyRecord()))
+                .thenReturn(CompletableFuture.completedFuture(sendResult));
+
+        producerProperties.getPartitioning().setStrategy(PartitionKeyStrategy.RECIPIENT);
+        adapter().publish(msg);
+
+        producerProperties.getPartitioning().setStrategy(PartitionKeyStrategy.DOMAIN);
+        adapter().publish(msg);
+
+        verify(kafkaTemplate, times(2)).send(captor.capture());
+        assertEquals("some.user@example.com", captor.getAllValues().get(0).key());
+        assertEquals("example.com", captor.getAllValues().get(1).key());
+    }
+
+    @Test
+    void publish_shouldParkFutureMessagesInTheScheduledTopic_keyedById() {
+        producerProperties.getPartitioning().setStrategy(PartitionKeyStrategy.RECIPIENT);
+        var adapter = adapter();
+        when(kafkaTemplate.send(anyRecord()))
+                .thenReturn(CompletableFuture.completedFuture(sendResult));
+        Instant sendAt = Instant.now().plusSeconds(3600);
+
+        adapter.publish(new NotificationMessage("id-1", "EMAIL", "User@Example.com", "Hello", "Body", Instant.now(),
+                NotificationPriority.HIGH, sendAt));
+
+        ProducerRecord<String, byte[]> record = capturedRecord();
+        assertEquals(SCHEDULED_TOPIC, record.topic());
+        assertEquals("id-1", record.key());
+        assertEquals(String.valueOf(sendAt.toEpochMilli()), header(record, ScheduleHeaders.SEND_AT));
+        assertEquals(HIGH_TOPIC, header(record, ScheduleHeaders.TARGET_TOPIC));
+        assertEquals("user@example.com", header(record, ScheduleHeaders.KEY));
+    }
+
+    @Test
+    void publish_shouldSendRightAway_whenSendAtIsInThePast() {
+        var adapter = adapter();
+        when(kafkaTemplate.send(anyRecord()))
+                .thenReturn(CompletableFuture.completedFuture(sendResult));
+
+        adapter.publish(new NotificationMessage("id-1", "EMAIL", "a@example.com", "Hello", "Body", Instant.now(),
+                NotificationPriority.NORMAL, Instant.now().minusSeconds(1)));
+
+        ProducerRecord<String, byte[]> record = capturedRecord();
+        assertEquals(TOPIC, record.topic());
+        assertNull(record.headers().lastHeader(ScheduleHeaders.SEND_AT));
+    }
+
+    @Test
+    void publish_shouldThrowWhenSerializationFails() throws Exception {
+        // ObjectMapper "quebrado" para forçar exceção; o codec usa o ObjectWriter criado a partir dele
         ObjectMapper broken = mock(ObjectMapper.class);
-        var adapter = new KafkaNotificationPublisherAdapterImpl(kafkaTemplate, broken, topic);
+        ObjectWriter brokenWriter = mock(ObjectWriter.class);
+        when(broken.writerFor(NotificationMessage.class)).thenReturn(brokenWriter);
+        var adapter = adapter(new JsonNotificationCodec(broken));
 
         NotificationMessage msg = new NotificationMessage(
                 "1", "EMAIL", "user@example.com", "Hello", "Body", Instant.now()
         );
 
-        try {
-            when(broken.writeValueAsString(any())).thenThrow(new com.fasterxml.jackson.core.JsonProcessingException("boom") {});
-        } catch (Exception ignored) { }
+        when(brokenWriter.writeValueAsBytes(any())).thenThrow(new com.fasterxml.jackson.core.JsonProcessingException("boom") {});
 
         IllegalStateException ex = assertThrows(IllegalStateException.class, () -> adapter.publish(msg));
         assertTrue(ex.getMessage().contains("Failed to serialize"));
 
         verifyNoInteractions(kafkaTemplate);
+        assertEquals(0, admissionController.inFlight());
+    }
+
+    @Test
+    void publishBatch_shouldSendAllRecordsAndFlushOnce() {
+        var adapter = adapter();
+
+        List<NotificationMessage> batch = List.of(
+                new NotificationMessage("1", "EMAIL", "a@example.com", "Hello", "Body", Instant.now()),
+                new NotificationMessage("2", "EMAIL", "b@example.com", "Hello", "Body", Instant.now()),
+                new NotificationMessage("3", "EMAIL", "c@example.com", "Hello", "Body", Instant.now())
+        );
+
+        when(kafkaTemplate.send(anyRecord()))
+                .thenReturn(CompletableFuture.completedFuture(sendResult));
+
+        adapter.publishBatch(batch);
+
+        var ordered = inOrder(kafkaTemplate);
+        ordered.verify(kafkaTemplate, times(3)).send(anyRecord());
+        ordered.verify(kafkaTemplate).flush();
+    }
+
+    @Test
+    void publishBatch_shouldDoNothing_whenBatchIsEmpty() {
+        var adapter = adapter();
+
+        adapter.publishBatch(List.of());
+
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void publish_shouldRejectWithoutSending_whenInFlightLimitIsReached() {
+        properties.getAdmission().setMaxInFlight(1);
+        var adapter = adapter();
+
+        // primeiro send fica pendurado esperando ack
+        when(kafkaTemplate.send(anyRecord()))
+                .thenReturn(new CompletableFuture<>());
+
+        adapter.publish(new NotificationMessage("1", "EMAIL", "a@example.com", "Hello", "Body", Instant.now()));
+
+        PublisherOverloadedException ex = assertThrows(PublisherOverloadedException.class, () -> adapter.publish(
+                new NotificationMessage("2", "EMAIL", "b@example.com", "Hello", "Body", Instant.now())));
+
+        assertEquals(PublisherOverloadedException.Reason.IN_FLIGHT_LIMIT, ex.getReason());
+        verify(kafkaTemplate, times(1)).send(anyRecord());
+    }
+
+    @Test
+    void publish_shouldReleaseAdmission_whenSendThrowsSynchronously() {
+        var adapter = adapter();
+
+        when(kafkaTemplate.send(anyRecord()))
+                .thenThrow(new IllegalStateException("producer closed"));
+
+        assertThrows(IllegalStateException.class, () -> adapter.publish(
+                new NotificationMessage("1", "EMAIL", "a@example.com", "Hello", "Body", Instant.now())));
+
+        assertEquals(0, admissionController.inFlight());
+    }
+
+    @Test
+    void publish_shouldSpoolAndReturnSpooledReceipt_whenKafkaSendFails() throws Exception {
+        spool = mock(NotificationSpool.class);
+        when(spool.append(any(NotificationMessage.class))).thenReturn(true);
+        var adapter = adapter();
+        NotificationMessage msg = new NotificationMessage("1", "EMAIL", "a@example.com", "Hello", "Body", Instant.now());
+
+        when(kafkaTemplate.send(anyRecord()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        PublishReceipt receipt = adapter.publish(msg).get();
+
+        assertTrue(receipt.isSpooled());
+        assertEquals("1", receipt.notificationId());
+        verify(spool).append(msg);
+        assertEquals(0, admissionController.inFlight());
+    }
+
+    @Test
+    void publish_shouldGoStraightToSpool_whileBacklogIsPending() throws Exception {
+        spool = mock(NotificationSpool.class);
+        when(spool.pending()).thenReturn(10L);
+        when(spool.append(any(NotificationMessage.class))).thenReturn(true);
+        var adapter = adapter();
+
+        PublishReceipt receipt = adapter.publish(
+                new NotificationMessage("1", "EMAIL", "a@example.com", "Hello", "Body", Instant.now())).get();
+
+        assertTrue(receipt.isSpooled());
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void publishBatch_shouldSpoolWholeBatch_whenProducerIsSaturated() {
+        properties.getAdmission().setMaxInFlight(1);
+        spool = mock(NotificationSpool.class);
+        when(spool.appendAll(any())).thenReturn(true);
+        var adapter = adapter();
+
+        List<NotificationMessage> batch = List.of(
+                new NotificationMessage("1", "EMAIL", "a@example.com", "Hello", "Body", Instant.now()),
+                new NotificationMessage("2", "EMAIL", "b@example.com", "Hello", "Body", Instant.now())
+        );
+
+        adapter.publishBatch(batch);
+
+        verify(spool).appendAll(batch);
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void replay_shouldNotSpoolAgain_whenSendFails() {
+        spool = mock(NotificationSpool.class);
+        var adapter = adapter();
+
+        when(kafkaTemplate.send(anyRecord()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        CompletableFuture<Void> ack = adapter.replay(List.of(
+                new NotificationMessage("1", "EMAIL", "a@example.com", "Hello", "Body", Instant.now())));
+
+        assertTrue(ack.isCompletedExceptionally());
+        verify(spool, never()).append(any());
+        verify(kafkaTemplate).flush();
+    }
+
+    private KafkaNotificationPublisherAdapterImpl adapter() {
+        return adapter(jsonCodec);
+    }
+
+    private KafkaNotificationPublisherAdapterImpl adapter(NotificationCodec codec) {
+        return new KafkaNotificationPublisherAdapterImpl(kafkaTemplate, codec, admissionController, spool,
+                producerProperties, TOPIC, HIGH_TOPIC, LOW_TOPIC, SCHEDULED_TOPIC);
+    }
+
+    private ProducerRecord<String, byte[]> capturedRecord() {
+        verify(kafkaTemplate).send(captor.capture());
+        return captor.getValue();
+    }
+
+    private static ProducerRecord<String, byte[]> anyRecord() {
+        return ArgumentMatchers.any();
+    }
+
+    private static String header(ProducerRecord<String, byte[]> record, String name) {
+        return new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
     }
 }
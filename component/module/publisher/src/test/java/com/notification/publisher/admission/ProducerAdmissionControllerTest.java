@@ -0,0 +1,87 @@
+package com.notification.publisher.admission;
+
+import com.notification.publisher.config.PublisherProperties;
+import com.notification.publisher.exception.PublisherOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProducerAdmissionControllerTest {
+
+    private PublisherProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private ProducerAdmissionController admission;
+
+    @BeforeEach
+    void setup() {
+        properties = new PublisherProperties();
+        properties.getAdmission().setMaxInFlight(3);
+        meterRegistry = new SimpleMeterRegistry();
+        admission = new ProducerAdmissionController(properties, meterRegistry);
+    }
+
+    @Test
+    void admit_shouldRejectWhenBatchDoesNotFitInFlightLimit() {
+        admission.admit(2);
+
+        PublisherOverloadedException ex = assertThrows(PublisherOverloadedException.class, () -> admission.admit(2));
+
+        assertEquals(PublisherOverloadedException.Reason.IN_FLIGHT_LIMIT, ex.getReason());
+        assertEquals(2, admission.inFlight());
+        assertEquals(1.0, meterRegistry.get("notification.publisher.admission.rejected")
+                .tag("reason", "in_flight_limit").counter().count());
+        assertEquals(2.0, meterRegistry.get("notification.publisher.inflight").gauge().value());
+    }
+
+    @Test
+    void complete_shouldFreeCapacity() {
+        long admittedAt = admission.admit(3);
+
+        admission.complete(admittedAt);
+
+        assertDoesNotThrow(() -> admission.admit(1));
+        assertEquals(3, admission.inFlight());
+    }
+
+    @Test
+    void admit_shouldShedOnSlowAcks_onlyWhileSendsAreStillInFlight() {
+        properties.getAdmission().setMaxAckLatency(Duration.ZERO);
+        properties.getAdmission().setRetryAfter(Duration.ofMillis(10));
+
+        // um ack "lento" (> 0 ms) empurra a média acima do limite
+        long admittedAt = admission.admit(1);
+        busyWait(Duration.ofMillis(2));
+        admission.complete(admittedAt);
+
+        // nada em voo: deixa passar como sonda
+        admission.admit(1);
+
+        PublisherOverloadedException ex = assertThrows(PublisherOverloadedException.class, () -> admission.admit(1));
+        assertEquals(PublisherOverloadedException.Reason.ACK_LATENCY, ex.getReason());
+        assertTrue(ex.getRetryAfter().toMillis() >= 10);
+    }
+
+    @Test
+    void admit_shouldAlwaysPass_whenDisabled() {
+        properties.getAdmission().setEnabled(false);
+
+        admission.admit(3);
+
+        assertDoesNotThrow(() -> admission.admit(10));
+        assertEquals(13, admission.inFlight());
+    }
+
+    private static void busyWait(Duration duration) {
+        long end = System.nanoTime() + duration.toNanos();
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+}
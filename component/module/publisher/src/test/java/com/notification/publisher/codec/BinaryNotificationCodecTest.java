@@ -0,0 +1,100 @@
+package com.notification.publisher.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.notification.publisher.model.NotificationMessage;
+import com.notification.publisher.model.NotificationPriority;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BinaryNotificationCodecTest {
+
+    private final BinaryNotificationCodec codec = new BinaryNotificationCodec();
+
+    @Test
+    void roundTrip_shouldPreserveAllFields() {
+        NotificationMessage msg = new NotificationMessage(
+                UUID.randomUUID().toString(),
+                "EMAIL",
+                "user@example.com",
+                "Olá — assunto com acentuação",
+                "Body ✉ with unicode\nand newlines",
+                Instant.parse("2026-01-02T03:04:05.123456789Z")
+        );
+
+        assertEquals(msg, codec.decode(codec.encode(msg), 3));
+    }
+
+    @Test
+    void roundTrip_shouldPreserveNullsAndNonUuidIds() {
+        NotificationMessage msg = new NotificationMessage("custom-id", null, null, "", null, null);
+
+        assertEquals(msg, codec.decode(codec.encode(msg), 3));
+    }
+
+    @Test
+    void roundTrip_shouldKeepUppercaseUuidAsString() {
+        // UUID em maiúsculas não sobrevive ao formato de 16 bytes, então vai como string
+        String id = UUID.randomUUID().toString().toUpperCase();
+        NotificationMessage msg = new NotificationMessage(id, "EMAIL", "a@b.com", "s", "b", Instant.EPOCH);
+
+        assertEquals(id, codec.decode(codec.encode(msg), 3).id());
+    }
+
+    @Test
+    void roundTrip_shouldPreservePriority() {
+        for (NotificationPriority priority : NotificationPriority.values()) {
+            NotificationMessage msg = new NotificationMessage(
+                    UUID.randomUUID().toString(), "EMAIL", "a@b.com", "s", "b", Instant.EPOCH, priority);
+
+            assertEquals(msg, codec.decode(codec.encode(msg), 3));
+        }
+    }
+
+    @Test
+    void encode_shouldOmitNormalPriority_soTheBytesMatchSchemaV1() {
+        NotificationMessage normal = new NotificationMessage("id", "EMAIL", "a@b.com", "s", "b", Instant.EPOCH);
+        NotificationMessage high = new NotificationMessage("id", "EMAIL", "a@b.com", "s", "b", Instant.EPOCH,
+                NotificationPriority.HIGH);
+
+        // payload v1 (spool antigo, consumer desatualizado) decodifica igual, como NORMAL
+        assertEquals(normal, codec.decode(codec.encode(normal), 1));
+        assertEquals(codec.encode(normal).length + 1, codec.encode(high).length);
+    }
+
+    @Test
+    void roundTrip_shouldPreserveSendAt() {
+        NotificationMessage msg = new NotificationMessage(UUID.randomUUID().toString(), "EMAIL", "a@b.com", "s", "b",
+                Instant.EPOCH, NotificationPriority.LOW, Instant.parse("2026-03-01T08:00:00.5Z"));
+
+        assertEquals(msg, codec.decode(codec.encode(msg), 3));
+    }
+
+    @Test
+    void encode_shouldBeSmallerThanJson() throws Exception {
+        NotificationMessage msg = new NotificationMessage(
+                UUID.randomUUID().toString(), "EMAIL", "user@example.com", "Hello", "Body", Instant.now()
+        );
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+        assertTrue(codec.encode(msg).length < mapper.writeValueAsBytes(msg).length);
+    }
+
+    @Test
+    void decode_shouldRejectTruncatedPayload() {
+        NotificationMessage msg = new NotificationMessage(
+                UUID.randomUUID().toString(), "EMAIL", "user@example.com", "Hello", "Body", Instant.now()
+        );
+        byte[] encoded = codec.encode(msg);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> codec.decode(Arrays.copyOf(encoded, encoded.length - 3), 3));
+    }
+}
@@ -0,0 +1,75 @@
+package com.notification.publisher.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.notification.publisher.model.NotificationMessage;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compara tamanho do payload e custo de encode/decode entre json e binary.
+ * Não roda no build normal: ./gradlew :component:module:publisher:benchmark
+ */
+@Tag("benchmark")
+public class NotificationCodecBenchmarkTest {
+
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+
+    private long sink;
+
+    @Test
+    void compareJsonAndBinary() {
+        // mesma configuração do ObjectMapper do Spring Boot (datas ISO-8601)
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        List<NotificationCodec> codecs = List.of(new JsonNotificationCodec(mapper), new BinaryNotificationCodec());
+
+        NotificationMessage small = message("Your code is 123456", "Use it within 10 minutes.");
+        NotificationMessage large = message("Weekly digest", "Lorem ipsum dolor sit amet. ".repeat(150));
+
+        System.out.printf("%-8s %-7s %8s %12s %12s%n", "message", "codec", "bytes", "encode ns", "decode ns");
+        for (NotificationMessage msg : List.of(small, large)) {
+            String label = msg == small ? "small" : "large";
+            for (NotificationCodec codec : codecs) {
+                byte[] payload = codec.encode(msg);
+                measureEncode(codec, msg, WARMUP);
+                measureDecode(codec, payload, WARMUP);
+                double encodeNs = measureEncode(codec, msg, ITERATIONS);
+                double decodeNs = measureDecode(codec, payload, ITERATIONS);
+                System.out.printf("%-8s %-7s %8d %12.1f %12.1f%n",
+                        label, codec.format(), payload.length, encodeNs, decodeNs);
+            }
+        }
+        System.out.println("(sink=" + sink + ")");
+    }
+
+    private double measureEncode(NotificationCodec codec, NotificationMessage msg, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += codec.encode(msg).length;
+        }
+        return (System.nanoTime() - start) / (double) iterations;
+    }
+
+    private double measureDecode(NotificationCodec codec, byte[] payload, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += codec.decode(payload, codec.schemaVersion()).to().length();
+        }
+        return (System.nanoTime() - start) / (double) iterations;
+    }
+
+    private static NotificationMessage message(String subject, String body) {
+        return new NotificationMessage(
+                UUID.randomUUID().toString(), "EMAIL", "some.user@example.com", subject, body, Instant.now()
+        );
+    }
+}
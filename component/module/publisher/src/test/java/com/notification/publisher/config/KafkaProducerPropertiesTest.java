@@ -0,0 +1,37 @@
+package com.notification.publisher.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class KafkaProducerPropertiesTest {
+
+    @Test
+    void activeProfile_shouldDefaultToBalanced() {
+        Map<String, Object> configs = new KafkaProducerProperties().activeProfile().toProducerConfigs();
+
+        assertEquals(5, configs.get(ProducerConfig.LINGER_MS_CONFIG));
+        assertEquals("lz4", configs.get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+        assertEquals("all", configs.get(ProducerConfig.ACKS_CONFIG));
+        assertEquals(true, configs.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG));
+    }
+
+    @Test
+    void activeProfile_shouldFailFast_whenProfileIsUnknown() {
+        KafkaProducerProperties properties = new KafkaProducerProperties();
+        properties.setProfile("turbo");
+
+        assertThrows(IllegalStateException.class, properties::activeProfile);
+    }
+
+    @Test
+    void toProducerConfigs_shouldRejectIdempotenceWithoutAcksAll() {
+        KafkaProducerProperties.Profile profile = new KafkaProducerProperties.Profile(0, 16384, "none", "1", true, 5);
+
+        assertThrows(IllegalStateException.class, profile::toProducerConfigs);
+    }
+}
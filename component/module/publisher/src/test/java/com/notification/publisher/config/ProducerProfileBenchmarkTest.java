@@ -0,0 +1,106 @@
+package com.notification.publisher.config;
+
+import com.notification.publisher.codec.BinaryNotificationCodec;
+import com.notification.publisher.model.NotificationMessage;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * msgs/s e p99 do ack para cada perfil de app.kafka.producer, contra um broker embutido.
+ * Os números absolutos dependem da máquina; o que interessa é a comparação entre perfis.
+ * Não roda no build normal: ./gradlew :component:module:publisher:benchmark
+ */
+@Tag("benchmark")
+public class ProducerProfileBenchmarkTest {
+
+    private static final String TOPIC = "bench.notifications.email";
+    private static final int WARMUP = 10_000;
+    private static final int MESSAGES = 100_000;
+
+    private static EmbeddedKafkaBroker broker;
+
+    @BeforeAll
+    static void startBroker() {
+        broker = new EmbeddedKafkaKraftBroker(1, 3, TOPIC);
+        broker.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        broker.destroy();
+    }
+
+    @Test
+    void compareProfiles() throws Exception {
+        byte[] payload = new BinaryNotificationCodec().encode(new NotificationMessage(
+                UUID.randomUUID().toString(), "EMAIL", "some.user@example.com",
+                "Weekly digest", "Lorem ipsum dolor sit amet. ".repeat(10), Instant.now()
+        ));
+
+        System.out.printf("%-15s %12s %12s %12s%n", "profile", "msgs/s", "p50 ms", "p99 ms");
+        for (Map.Entry<String, KafkaProducerProperties.Profile> entry
+                : KafkaProducerProperties.defaultProfiles().entrySet()) {
+            DefaultKafkaProducerFactory<String, byte[]> factory =
+                    new DefaultKafkaProducerFactory<>(producerConfigs(entry.getValue()));
+            try {
+                KafkaTemplate<String, byte[]> template = new KafkaTemplate<>(factory);
+                run(template, payload, WARMUP);
+                long[] latencies = new long[MESSAGES];
+                long start = System.nanoTime();
+                run(template, payload, latencies);
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                Arrays.sort(latencies);
+                System.out.printf("%-15s %12.0f %12.2f %12.2f%n",
+                        entry.getKey(), MESSAGES / seconds,
+                        percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6);
+            } finally {
+                factory.destroy();
+            }
+        }
+    }
+
+    private void run(KafkaTemplate<String, byte[]> template, byte[] payload, int messages) throws Exception {
+        run(template, payload, new long[messages]);
+    }
+
+    private void run(KafkaTemplate<String, byte[]> template, byte[] payload, long[] latencies) throws Exception {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[latencies.length];
+        for (int i = 0; i < latencies.length; i++) {
+            final int index = i;
+            final long sentAt = System.nanoTime();
+            futures[i] = template.send(TOPIC, "key-" + (i % 1024), payload)
+                    .whenComplete((result, ex) -> latencies[index] = System.nanoTime() - sentAt);
+        }
+        CompletableFuture.allOf(futures).get(2, TimeUnit.MINUTES);
+    }
+
+    private Map<String, Object> producerConfigs(KafkaProducerProperties.Profile profile) {
+        Map<String, Object> configs = new HashMap<>(profile.toProducerConfigs());
+        configs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        configs.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configs.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        return configs;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[(int) Math.ceil(p * sorted.length) - 1];
+    }
+}
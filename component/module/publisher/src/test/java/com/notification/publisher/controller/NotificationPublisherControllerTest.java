@@ -1,8 +1,15 @@
 package com.notification.publisher.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.publisher.config.PublisherProperties;
+import com.notification.publisher.controller.advice.PublisherControllerAdvice;
+import com.notification.publisher.dto.BatchItemResultDTO;
 import com.notification.publisher.dto.EmailNotificationRequestDTO;
+import com.notification.publisher.exception.BatchTooLargeException;
+import com.notification.publisher.exception.PublisherOverloadedException;
+import com.notification.publisher.model.PublishReceipt;
 import com.notification.publisher.service.NotificationPublisherService;
+import com.notification.publisher.service.NotificationStreamService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,13 +17,26 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.never;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,18 +44,23 @@ public class NotificationPublisherControllerTest {
 
     private MockMvc mockMvc;
     private ObjectMapper objectMapper;
+    private PublisherProperties properties;
 
     @Mock
     private NotificationPublisherService publisherService;
 
+    @Mock
+    private NotificationStreamService streamService;
+
     @BeforeEach
     void setup() {
-        NotificationPublisherController controller = new NotificationPublisherController(publisherService);
+        properties = new PublisherProperties();
+        NotificationPublisherController controller =
+                new NotificationPublisherController(publisherService, streamService, properties);
 
         mockMvc = MockMvcBuilders
                 .standaloneSetup(controller)
-                // Se você tiver um Advice padrão de validation/errors, plugue aqui:
-                // .setControllerAdvice(new PublisherControllerAdvice())
+                .setControllerAdvice(new PublisherControllerAdvice())
                 .build();
 
         objectMapper = new ObjectMapper();
@@ -43,7 +68,7 @@ public class NotificationPublisherControllerTest {
 
     @Test
     void publishEmail_shouldReturn202_whenServiceSucceeds() throws Exception {
-        when(publisherService.publishEmail(any(EmailNotificationRequestDTO.class)))
+        when(publisherService.publishEmail(any(EmailNotificationRequestDTO.class), any()))
                 .thenReturn("notification-id-123");
 
         var request = new EmailNotificationRequestDTO(
@@ -62,6 +87,21 @@ public class NotificationPublisherControllerTest {
                 .andExpect(jsonPath("$.timestamp").exists());
     }
 
+    @Test
+    void publishEmail_shouldPassIdempotencyKeyToService() throws Exception {
+        when(publisherService.publishEmail(any(EmailNotificationRequestDTO.class), eq("retry-key-1")))
+                .thenReturn("notification-id-123");
+
+        var request = new EmailNotificationRequestDTO("test@mail.com", "Hello", "Body content");
+
+        mockMvc.perform(post("/api/notifications/email")
+                        .header(NotificationPublisherController.IDEMPOTENCY_KEY_HEADER, "retry-key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.notificationId").value("notification-id-123"));
+    }
+
     @Test
     void publishEmail_shouldReturn400_whenInvalidRequest() throws Exception {
         // inválido: to não é email, subject/body vazios
@@ -77,4 +117,167 @@ public class NotificationPublisherControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void publishEmailBatch_shouldReturn202_withPerItemResults() throws Exception {
+        when(publisherService.publishEmailBatch(anyList(), any()))
+                .thenReturn(List.of(
+                        BatchItemResultDTO.accepted(0, "id-0"),
+                        BatchItemResultDTO.rejected(1, Map.of("to", "must be a well-formed email address"))
+                ));
+
+        var requests = List.of(
+                new EmailNotificationRequestDTO("test@mail.com", "Hello", "Body"),
+                new EmailNotificationRequestDTO("not-an-email", "Hello", "Body")
+        );
+
+        mockMvc.perform(post("/api/notifications/email/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.results[0].notificationId").value("id-0"))
+                .andExpect(jsonPath("$.results[0].status").value("ACCEPTED"))
+                .andExpect(jsonPath("$.results[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$.results[1].errors.to").exists());
+    }
+
+    @Test
+    void publishEmailBatch_shouldReturn413_whenBatchIsTooLarge() throws Exception {
+        when(publisherService.publishEmailBatch(anyList(), any()))
+                .thenThrow(new BatchTooLargeException(2, 1));
+
+        var requests = List.of(
+                new EmailNotificationRequestDTO("a@mail.com", "Hello", "Body"),
+                new EmailNotificationRequestDTO("b@mail.com", "Hello", "Body")
+        );
+
+        mockMvc.perform(post("/api/notifications/email/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.status").value(413));
+    }
+
+    @Test
+    void publishEmailStream_shouldDelegateToStreamService_withNdjsonResponse() throws Exception {
+        mockMvc.perform(post("/api/notifications/email/stream")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"to\":\"a@mail.com\",\"subject\":\"Hi\",\"body\":\"B\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON));
+
+        verify(streamService).publishEmailStream(any(), any());
+    }
+
+    @Test
+    void publishEmail_shouldReturn429WithRetryAfter_whenProducerIsSaturated() throws Exception {
+        when(publisherService.publishEmail(any(EmailNotificationRequestDTO.class), any()))
+                .thenThrow(new PublisherOverloadedException(
+                        PublisherOverloadedException.Reason.IN_FLIGHT_LIMIT, Duration.ofMillis(1500), "busy"));
+
+        var request = new EmailNotificationRequestDTO("test@mail.com", "Hello", "Body content");
+
+        mockMvc.perform(post("/api/notifications/email")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"));
+    }
+
+    @Test
+    void publishEmail_shouldReturn503_whenBrokerAcksAreSlow() throws Exception {
+        when(publisherService.publishEmail(any(EmailNotificationRequestDTO.class), any()))
+                .thenThrow(new PublisherOverloadedException(
+                        PublisherOverloadedException.Reason.ACK_LATENCY, Duration.ofSeconds(3), "slow"));
+
+        var request = new EmailNotificationRequestDTO("test@mail.com", "Hello", "Body content");
+
+        mockMvc.perform(post("/api/notifications/email")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "3"));
+    }
+
+    @Test
+    void publishEmailAwaitingAck_shouldReturn200WithPartitionAndOffset_afterBrokerAck() throws Exception {
+        when(publisherService.publishEmailAsync(any(EmailNotificationRequestDTO.class), any()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new PublishReceipt("notification-id-123", "notifications.email", 2, 42L)));
+
+        var request = new EmailNotificationRequestDTO("test@mail.com", "Hello", "Body content");
+
+        MvcResult pending = mockMvc.perform(post("/api/notifications/email")
+                        .param("ack", "broker")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notificationId").value("notification-id-123"))
+                .andExpect(jsonPath("$.status").value("ACKED"))
+                .andExpect(jsonPath("$.partition").value(2))
+                .andExpect(jsonPath("$.offset").value(42));
+
+        verify(publisherService, never()).publishEmail(any(), any());
+    }
+
+    @Test
+    void publishEmailAwaitingAck_shouldReturn202_whenMessageWasSpooled() throws Exception {
+        when(publisherService.publishEmailAsync(any(EmailNotificationRequestDTO.class), any()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        PublishReceipt.spooled("notification-id-123", "notifications.email")));
+
+        var request = new EmailNotificationRequestDTO("test@mail.com", "Hello", "Body content");
+
+        MvcResult pending = mockMvc.perform(post("/api/notifications/email?ack=broker")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("SPOOLED"))
+                .andExpect(jsonPath("$.partition").doesNotExist());
+    }
+
+    @Test
+    void publishEmailAwaitingAck_shouldReturn202WithOriginalId_whenIdempotencyKeyWasAlreadyUsed() throws Exception {
+        when(publisherService.publishEmailAsync(any(EmailNotificationRequestDTO.class), eq("key-1")))
+                .thenReturn(CompletableFuture.completedFuture(PublishReceipt.duplicate("notification-id-123")));
+
+        var request = new EmailNotificationRequestDTO("test@mail.com", "Hello", "Body content");
+
+        MvcResult pending = mockMvc.perform(post("/api/notifications/email?ack=broker")
+                        .header(NotificationPublisherController.IDEMPOTENCY_KEY_HEADER, "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.notificationId").value("notification-id-123"))
+                .andExpect(jsonPath("$.status").value("DUPLICATE"));
+    }
+
+    @Test
+    void publishEmailAwaitingAck_shouldReturn504_whenAckDoesNotArriveInTime() throws Exception {
+        properties.getSyncAck().setTimeout(Duration.ofMillis(20));
+        when(publisherService.publishEmailAsync(any(EmailNotificationRequestDTO.class), any()))
+                .thenReturn(new CompletableFuture<>());
+
+        var request = new EmailNotificationRequestDTO("test@mail.com", "Hello", "Body content");
+
+        MvcResult pending = mockMvc.perform(post("/api/notifications/email?ack=broker")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isGatewayTimeout());
+    }
 }
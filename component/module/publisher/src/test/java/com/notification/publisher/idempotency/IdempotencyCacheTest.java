@@ -0,0 +1,77 @@
+package com.notification.publisher.idempotency;
+
+import com.notification.publisher.config.PublisherProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class IdempotencyCacheTest {
+
+    private PublisherProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicLong clock;
+
+    @BeforeEach
+    void setup() {
+        properties = new PublisherProperties();
+        properties.getIdempotency().setTtl(Duration.ofSeconds(10));
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new AtomicLong();
+    }
+
+    @Test
+    void reserve_shouldReturnExistingIdUntilTtlExpires() {
+        IdempotencyCache cache = new IdempotencyCache(properties, meterRegistry, clock::get);
+
+        assertNull(cache.reserve("key", "id-1"));
+        assertEquals("id-1", cache.reserve("key", "id-2"));
+
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertNull(cache.reserve("key", "id-3"));
+        assertEquals("id-3", cache.reserve("key", "id-4"));
+
+        assertEquals(2.0, counter("notification.publisher.idempotency.requests", "result", "hit"));
+        assertEquals(2.0, counter("notification.publisher.idempotency.requests", "result", "miss"));
+        assertEquals(1.0, counter("notification.publisher.idempotency.evictions", "cause", "expired"));
+    }
+
+    @Test
+    void reserve_shouldEvictOldestKeys_whenMaxEntriesIsReached() {
+        properties.getIdempotency().setStripes(1);
+        properties.getIdempotency().setMaxEntries(2);
+        IdempotencyCache cache = new IdempotencyCache(properties, meterRegistry, clock::get);
+
+        cache.reserve("a", "id-a");
+        cache.reserve("b", "id-b");
+        cache.reserve("c", "id-c");
+
+        assertEquals(2, cache.size());
+        assertNull(cache.reserve("a", "id-a2"));
+        assertEquals("id-c", cache.reserve("c", "other"));
+        assertEquals(2.0, counter("notification.publisher.idempotency.evictions", "cause", "size"));
+        assertEquals(2.0, meterRegistry.get("notification.publisher.idempotency.size").gauge().value());
+    }
+
+    @Test
+    void invalidate_shouldOnlyRemoveKeyStillOwnedByTheSameId() {
+        IdempotencyCache cache = new IdempotencyCache(properties, meterRegistry, clock::get);
+        cache.reserve("key", "id-1");
+
+        cache.invalidate("key", "someone-else");
+        assertEquals("id-1", cache.reserve("key", "id-2"));
+
+        cache.invalidate("key", "id-1");
+        assertNull(cache.reserve("key", "id-3"));
+    }
+
+    private double counter(String name, String tag, String value) {
+        return meterRegistry.get(name).tag(tag, value).counter().count();
+    }
+}
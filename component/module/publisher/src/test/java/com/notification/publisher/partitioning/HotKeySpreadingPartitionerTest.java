@@ -0,0 +1,93 @@
+package com.notification.publisher.partitioning;
+
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.utils.Utils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HotKeySpreadingPartitionerTest {
+
+    private static final String TOPIC = "notifications.email";
+    private static final int PARTITIONS = 12;
+
+    private Cluster cluster;
+    private HotKeySpreadingPartitioner partitioner;
+
+    @BeforeEach
+    void setup() {
+        Node node = new Node(0, "localhost", 9092);
+        List<PartitionInfo> partitions = new ArrayList<>();
+        for (int i = 0; i < PARTITIONS; i++) {
+            partitions.add(new PartitionInfo(TOPIC, i, node, new Node[]{node}, new Node[]{node}));
+        }
+        cluster = new Cluster("cluster", List.of(node), partitions, Set.of(), Set.of());
+
+        partitioner = new HotKeySpreadingPartitioner();
+        partitioner.configure(Map.of(
+                HotKeySpreadingPartitioner.WINDOW_MS_CONFIG, "60000",
+                HotKeySpreadingPartitioner.THRESHOLD_CONFIG, "100",
+                HotKeySpreadingPartitioner.SPREAD_CONFIG, "3"
+        ));
+    }
+
+    @Test
+    void partition_shouldMatchDefaultMurmur2Partition_whileKeyIsCold() {
+        byte[] key = bytes("user@example.com");
+        int home = Utils.toPositive(Utils.murmur2(key)) % PARTITIONS;
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(home, partition(key));
+        }
+    }
+
+    @Test
+    void partition_shouldSpreadHotKeyOverBoundedSubset() {
+        byte[] hot = bytes("bulk-sender.com");
+        int home = Utils.toPositive(Utils.murmur2(hot)) % PARTITIONS;
+
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < 2_000; i++) {
+            used.add(partition(hot));
+        }
+
+        assertEquals(Set.of(home, (home + 1) % PARTITIONS, (home + 2) % PARTITIONS), used);
+
+        // uma key fria continua na partição dela mesmo com outra key quente no mesmo sketch
+        byte[] cold = bytes("quiet.org");
+        assertEquals(Utils.toPositive(Utils.murmur2(cold)) % PARTITIONS, partition(cold));
+    }
+
+    @Test
+    void partition_shouldNotSpreadBeyondPartitionCount() {
+        partitioner.configure(Map.of(HotKeySpreadingPartitioner.SPREAD_CONFIG, "50"));
+        byte[] hot = bytes("bulk-sender.com");
+
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < 5_000; i++) {
+            used.add(partition(hot));
+        }
+
+        assertTrue(used.size() <= PARTITIONS);
+        assertTrue(used.size() > 1);
+    }
+
+    private int partition(byte[] key) {
+        return partitioner.partition(TOPIC, null, key, null, null, cluster);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,19 +1,41 @@
 package com.notification.publisher.service;
 
 import com.notification.publisher.adapter.NotificationPublisherAdapter;
+import com.notification.publisher.config.PublisherProperties;
+import com.notification.publisher.dto.BatchItemResultDTO;
 import com.notification.publisher.dto.EmailNotificationRequestDTO;
+import com.notification.publisher.exception.BatchTooLargeException;
+import com.notification.publisher.idempotency.IdempotencyCache;
 import com.notification.publisher.model.NotificationMessage;
+import com.notification.publisher.model.PublishReceipt;
 import com.notification.publisher.service.impl.NotificationPublisherServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class NotificationPublisherServiceTest {
@@ -21,9 +43,20 @@ public class NotificationPublisherServiceTest {
     @Mock
     private NotificationPublisherAdapter publisherAdapter;
 
+    private Validator validator;
+    private PublisherProperties properties;
+    private IdempotencyCache idempotencyCache;
+
+    @BeforeEach
+    void setup() {
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+        properties = new PublisherProperties();
+        idempotencyCache = new IdempotencyCache(properties, new SimpleMeterRegistry());
+    }
+
     @Test
     void publishEmail_shouldCreateMessageAndCallAdapter() {
-        var service = new NotificationPublisherServiceImpl(publisherAdapter);
+        var service = new NotificationPublisherServiceImpl(publisherAdapter, validator, properties, idempotencyCache);
 
         EmailNotificationRequestDTO req = new EmailNotificationRequestDTO(
                 "user@example.com",
@@ -31,7 +64,9 @@ public class NotificationPublisherServiceTest {
                 "Body"
         );
 
-        String id = service.publishEmail(req);
+        when(publisherAdapter.publish(any())).thenReturn(new CompletableFuture<>());
+
+        String id = service.publishEmail(req, null);
 
         assertNotNull(id);
         assertFalse(id.isBlank());
@@ -48,4 +83,150 @@ public class NotificationPublisherServiceTest {
         assertNotNull(msg.createdAt());
     }
 
+    @Test
+    void publishEmailBatch_shouldPublishValidItemsInSingleBatchAndRejectInvalidOnes() {
+        var service = new NotificationPublisherServiceImpl(publisherAdapter, validator, properties, idempotencyCache);
+
+        List<EmailNotificationRequestDTO> requests = List.of(
+                new EmailNotificationRequestDTO("a@example.com", "Hello", "Body"),
+                new EmailNotificationRequestDTO("not-an-email", "Hello", "Body"),
+                new EmailNotificationRequestDTO("b@example.com", "Hi", "Body 2")
+        );
+
+        List<BatchItemResultDTO> results = service.publishEmailBatch(requests, null);
+
+        assertEquals(3, results.size());
+        assertEquals("ACCEPTED", results.get(0).status());
+        assertNotNull(results.get(0).notificationId());
+        assertEquals("REJECTED", results.get(1).status());
+        assertNull(results.get(1).notificationId());
+        assertTrue(results.get(1).errors().containsKey("to"));
+        assertEquals(1, results.get(1).index());
+        assertEquals("ACCEPTED", results.get(2).status());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<NotificationMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(publisherAdapter).publishBatch(captor.capture());
+        verify(publisherAdapter, never()).publish(any());
+
+        List<NotificationMessage> published = captor.getValue();
+        assertEquals(2, published.size());
+        assertEquals(results.get(0).notificationId(), published.get(0).id());
+        assertEquals(results.get(2).notificationId(), published.get(1).id());
+        assertEquals("b@example.com", published.get(1).to());
+    }
+
+    @Test
+    void publishEmailBatch_shouldThrow_whenBatchExceedsMaxItems() {
+        properties.getBatch().setMaxItems(1);
+        var service = new NotificationPublisherServiceImpl(publisherAdapter, validator, properties, idempotencyCache);
+
+        List<EmailNotificationRequestDTO> requests = List.of(
+                new EmailNotificationRequestDTO("a@example.com", "Hello", "Body"),
+                new EmailNotificationRequestDTO("b@example.com", "Hello", "Body")
+        );
+
+        assertThrows(BatchTooLargeException.class, () -> service.publishEmailBatch(requests, null));
+        verify(publisherAdapter, never()).publishBatch(any());
+    }
+
+    @Test
+    void publishEmail_shouldReturnOriginalIdWithoutRepublishing_whenIdempotencyKeyRepeats() {
+        var service = new NotificationPublisherServiceImpl(publisherAdapter, validator, properties, idempotencyCache);
+        when(publisherAdapter.publish(any())).thenReturn(new CompletableFuture<>());
+        var req = new EmailNotificationRequestDTO("user@example.com", "Hello", "Body");
+
+        String first = service.publishEmail(req, "key-1");
+        String retry = service.publishEmail(req, "key-1");
+        String other = service.publishEmail(req, "key-2");
+
+        assertEquals(first, retry);
+        assertNotEquals(first, other);
+        verify(publisherAdapter, times(2)).publish(any());
+    }
+
+    @Test
+    void publishEmail_shouldRepublishOnRetry_whenBrokerRejectedTheFirstAttempt() {
+        var service = new NotificationPublisherServiceImpl(publisherAdapter, validator, properties, idempotencyCache);
+        when(publisherAdapter.publish(any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+                .thenReturn(CompletableFuture.completedFuture(new PublishReceipt("id", "topic", 0, 1L)));
+        var req = new EmailNotificationRequestDTO("user@example.com", "Hello", "Body");
+
+        String first = service.publishEmail(req, "key-1");
+        String retry = service.publishEmail(req, "key-1");
+
+        assertNotEquals(first, retry);
+        verify(publisherAdapter, times(2)).publish(any());
+    }
+
+    @Test
+    void publishEmailAsync_shouldAnswerDuplicate_whenIdempotencyKeyWasAlreadyUsed() {
+        var service = new NotificationPublisherServiceImpl(publisherAdapter, validator, properties, idempotencyCache);
+        // o primeiro envio ainda espera o ack (o cliente recebeu 504) quando o retry chega
+        when(publisherAdapter.publish(any())).thenReturn(new CompletableFuture<>());
+        var req = new EmailNotificationRequestDTO("user@example.com", "Hello", "Body");
+
+        service.publishEmailAsync(req, "key-1");
+        PublishReceipt retry = service.publishEmailAsync(req, "key-1").join();
+
+        assertTrue(retry.isDuplicate());
+        ArgumentCaptor<NotificationMessage> captor = ArgumentCaptor.forClass(NotificationMessage.class);
+        verify(publisherAdapter).publish(captor.capture());
+        assertEquals(captor.getValue().id(), retry.notificationId());
+    }
+
+    @Test
+    void publishEmailAsync_shouldKeepTheIdempotencyKey_whenTheCallerTimesOutWaitingForTheAck() {
+        var service = new NotificationPublisherServiceImpl(publisherAdapter, validator, properties, idempotencyCache);
+        CompletableFuture<PublishReceipt> brokerAck = new CompletableFuture<>();
+        when(publisherAdapter.publish(any())).thenReturn(brokerAck);
+        var req = new EmailNotificationRequestDTO("user@example.com", "Hello", "Body");
+
+        // o que o controller faz no ?ack=broker: o cliente recebe 504 e tenta de novo com a mesma chave
+        CompletableFuture<PublishReceipt> first = service.publishEmailAsync(req, "key-1")
+                .orTimeout(1, TimeUnit.MILLISECONDS);
+        assertThrows(CompletionException.class, first::join);
+        PublishReceipt retry = service.publishEmailAsync(req, "key-1").join();
+
+        assertTrue(retry.isDuplicate());
+        assertFalse(brokerAck.isDone());
+        verify(publisherAdapter, times(1)).publish(any());
+    }
+
+    @Test
+    void publishEmailAsync_shouldRepublishOnRetry_whenBrokerRejectedTheFirstAttempt() {
+        var service = new NotificationPublisherServiceImpl(publisherAdapter, validator, properties, idempotencyCache);
+        when(publisherAdapter.publish(any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+                .thenReturn(CompletableFuture.completedFuture(new PublishReceipt("id", "topic", 0, 1L)));
+        var req = new EmailNotificationRequestDTO("user@example.com", "Hello", "Body");
+
+        assertTrue(service.publishEmailAsync(req, "key-1").isCompletedExceptionally());
+        PublishReceipt retry = service.publishEmailAsync(req, "key-1").join();
+
+        assertFalse(retry.isDuplicate());
+        verify(publisherAdapter, times(2)).publish(any());
+    }
+
+    @Test
+    void publishEmailBatch_shouldSkipItemsAlreadyPublishedWithSameIdempotencyKey() {
+        var service = new NotificationPublisherServiceImpl(publisherAdapter, validator, properties, idempotencyCache);
+        List<EmailNotificationRequestDTO> requests = List.of(
+                new EmailNotificationRequestDTO("a@example.com", "Hello", "Body"),
+                new EmailNotificationRequestDTO("b@example.com", "Hi", "Body 2")
+        );
+
+        List<BatchItemResultDTO> first = service.publishEmailBatch(requests, "batch-1");
+        List<BatchItemResultDTO> retry = service.publishEmailBatch(requests, "batch-1");
+
+        assertEquals(first.get(0).notificationId(), retry.get(0).notificationId());
+        assertEquals(first.get(1).notificationId(), retry.get(1).notificationId());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<NotificationMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(publisherAdapter, times(2)).publishBatch(captor.capture());
+        assertEquals(2, captor.getAllValues().get(0).size());
+        assertTrue(captor.getAllValues().get(1).isEmpty());
+    }
 }
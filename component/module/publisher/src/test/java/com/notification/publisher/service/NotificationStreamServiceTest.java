@@ -0,0 +1,165 @@
+package com.notification.publisher.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.publisher.config.PublisherProperties;
+import com.notification.publisher.dto.EmailNotificationRequestDTO;
+import com.notification.publisher.model.PublishReceipt;
+import com.notification.publisher.model.StreamIngestSummary;
+import com.notification.publisher.service.impl.NotificationStreamServiceImpl;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificationStreamServiceTest {
+
+    @Mock
+    private NotificationPublisherService publisherService;
+
+    private ObjectMapper objectMapper;
+    private PublisherProperties properties;
+    private NotificationStreamServiceImpl service;
+
+    @BeforeEach
+    void setup() {
+        objectMapper = new ObjectMapper();
+        properties = new PublisherProperties();
+        service = new NotificationStreamServiceImpl(
+                publisherService,
+                objectMapper,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                properties
+        );
+    }
+
+    @Test
+    void publishEmailStream_shouldWriteOneResultPerLine() throws Exception {
+        when(publisherService.publishEmailAsync(any(EmailNotificationRequestDTO.class)))
+                .thenAnswer(inv -> {
+                    EmailNotificationRequestDTO req = inv.getArgument(0);
+                    if (req.to().startsWith("broken")) {
+                        return CompletableFuture.failedFuture(new IllegalStateException("broker down"));
+                    }
+                    return CompletableFuture.completedFuture(
+                            new PublishReceipt("id-" + req.to(), "notifications.email", 0, 1L));
+                });
+
+        String ndjson = """
+                {"to":"a@mail.com","subject":"Hi","body":"B"}
+                { not json }
+
+                {"to":"not-an-email","subject":"Hi","body":"B"}
+                {"to":"broken@mail.com","subject":"Hi","body":"B"}
+                """;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamIngestSummary summary = service.publishEmailStream(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), out);
+
+        assertEquals(5, summary.lines());
+        assertEquals(1, summary.accepted());
+        assertEquals(2, summary.rejected());
+        assertEquals(1, summary.failed());
+
+        Map<Integer, JsonNode> byLine = new HashMap<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            JsonNode node = objectMapper.readTree(line);
+            byLine.put(node.get("index").asInt(), node);
+        }
+
+        assertEquals(4, byLine.size());
+        assertEquals("ACCEPTED", byLine.get(1).get("status").asText());
+        assertEquals("id-a@mail.com", byLine.get(1).get("notificationId").asText());
+        assertEquals("REJECTED", byLine.get(2).get("status").asText());
+        assertEquals("REJECTED", byLine.get(4).get("status").asText());
+        assertTrue(byLine.get(4).get("errors").has("to"));
+        assertEquals("FAILED", byLine.get(5).get("status").asText());
+        assertEquals("broker down", byLine.get(5).get("errors").get("publish").asText());
+
+        verify(publisherService, times(2)).publishEmailAsync(any());
+    }
+
+    @Test
+    void publishEmailStream_shouldNeverExceedMaxInFlight() throws Exception {
+        properties.getStream().setMaxInFlight(2);
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxObserved = new AtomicInteger();
+        ConcurrentLinkedQueue<CompletableFuture<PublishReceipt>> pending = new ConcurrentLinkedQueue<>();
+
+        when(publisherService.publishEmailAsync(any(EmailNotificationRequestDTO.class)))
+                .thenAnswer(inv -> {
+                    maxObserved.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    CompletableFuture<PublishReceipt> ack = new CompletableFuture<>();
+                    pending.add(ack);
+                    return ack;
+                });
+
+        // "broker" que confirma os sends pendentes em segundo plano
+        Thread broker = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                CompletableFuture<PublishReceipt> ack = pending.poll();
+                if (ack != null) {
+                    inFlight.decrementAndGet();
+                    ack.complete(new PublishReceipt("id", "notifications.email", 0, 0L));
+                }
+                Thread.onSpinWait();
+            }
+        });
+        broker.start();
+
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            ndjson.append("{\"to\":\"u").append(i).append("@mail.com\",\"subject\":\"Hi\",\"body\":\"B\"}\n");
+        }
+
+        try {
+            StreamIngestSummary summary = service.publishEmailStream(
+                    new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8)),
+                    new ByteArrayOutputStream());
+
+            assertEquals(20, summary.accepted());
+            assertTrue(maxObserved.get() <= 2, "in-flight sends must stay within the configured cap");
+        } finally {
+            broker.interrupt();
+            broker.join();
+        }
+    }
+
+    @Test
+    void publishEmailStream_shouldRejectLinesAboveMaxLineBytes() throws Exception {
+        properties.getStream().setMaxLineBytes(64);
+
+        String longLine = "{\"to\":\"a@mail.com\",\"subject\":\"" + "x".repeat(200) + "\",\"body\":\"B\"}\n";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamIngestSummary summary = service.publishEmailStream(
+                new ByteArrayInputStream(longLine.getBytes(StandardCharsets.UTF_8)), out);
+
+        assertEquals(1, summary.rejected());
+        List<String> lines = List.of(out.toString(StandardCharsets.UTF_8).split("\n"));
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("exceeds 64 bytes"));
+    }
+}
@@ -0,0 +1,156 @@
+package com.notification.publisher.spool;
+
+import com.notification.publisher.config.PublisherProperties;
+import com.notification.publisher.model.NotificationMessage;
+import com.notification.publisher.spool.impl.MappedFileNotificationSpool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappedFileNotificationSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    private PublisherProperties.Spool config;
+
+    @BeforeEach
+    void setup() {
+        config = new PublisherProperties().getSpool();
+        config.setDirectory(directory.toString());
+        config.setSegmentSize(DataSize.ofKilobytes(4));
+        config.setMaxSize(DataSize.ofKilobytes(64));
+    }
+
+    @Test
+    void peekAndCommit_shouldReturnMessagesInAppendOrder() throws Exception {
+        try (MappedFileNotificationSpool spool = open()) {
+            List<NotificationMessage> messages = messages(5);
+            messages.forEach(spool::append);
+
+            SpoolBatch first = spool.peek(3);
+            assertEquals(messages.subList(0, 3), first.messages());
+            // peek não consome
+            assertEquals(first.messages(), spool.peek(3).messages());
+
+            spool.commit(first);
+
+            assertEquals(2, spool.pending());
+            assertEquals(messages.subList(3, 5), spool.peek(10).messages());
+        }
+    }
+
+    @Test
+    void spool_shouldRollSegmentsAndDeleteThemOnceDrained() throws Exception {
+        try (MappedFileNotificationSpool spool = open()) {
+            List<NotificationMessage> messages = messages(100);
+            assertTrue(spool.appendAll(messages));
+            assertTrue(segmentFiles() > 1);
+
+            List<NotificationMessage> drained = new ArrayList<>();
+            SpoolBatch batch;
+            while (!(batch = spool.peek(7)).isEmpty()) {
+                drained.addAll(batch.messages());
+                spool.commit(batch);
+            }
+
+            assertEquals(messages, drained);
+            assertEquals(0, spool.pending());
+            assertEquals(1, segmentFiles());
+        }
+    }
+
+    @Test
+    void recovery_shouldResumeFromCommittedCursor_andIgnoreTornTail() throws Exception {
+        List<NotificationMessage> messages = messages(4);
+        try (MappedFileNotificationSpool spool = open()) {
+            messages.forEach(spool::append);
+            spool.commit(spool.peek(1));
+        }
+
+        // simula um crash no meio de uma gravação: length escrito, payload não
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(p -> p.toString().endsWith(".spool")).findFirst().orElseThrow();
+        }
+        int tail = tailPosition(segment);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(tail);
+            file.writeInt(120);
+        }
+
+        try (MappedFileNotificationSpool spool = open()) {
+            assertEquals(3, spool.pending());
+            assertEquals(messages.subList(1, 4), spool.peek(10).messages());
+
+            NotificationMessage next = messages(1).get(0);
+            spool.append(next);
+            assertEquals(next, spool.peek(10).messages().get(3));
+        }
+    }
+
+    @Test
+    void append_shouldRefuse_whenSpoolIsFull() throws Exception {
+        config.setMaxSize(DataSize.ofKilobytes(4));
+        try (MappedFileNotificationSpool spool = open()) {
+            int accepted = 0;
+            while (spool.append(messages(1).get(0))) {
+                accepted++;
+            }
+
+            assertTrue(accepted > 0);
+            assertEquals(accepted, spool.pending());
+            assertFalse(spool.appendAll(messages(1)));
+        }
+    }
+
+    private MappedFileNotificationSpool open() throws Exception {
+        return new MappedFileNotificationSpool(config, new SimpleMeterRegistry());
+    }
+
+    private long segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.toString().endsWith(".spool")).count();
+        }
+    }
+
+    private static int tailPosition(Path segment) throws Exception {
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "r")) {
+            int position = 0;
+            while (true) {
+                file.seek(position);
+                int length = file.readInt();
+                if (length == 0) {
+                    return position;
+                }
+                position += 8 + length;
+            }
+        }
+    }
+
+    private static List<NotificationMessage> messages(int count) {
+        List<NotificationMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(new NotificationMessage(
+                    UUID.randomUUID().toString(), "EMAIL", "user" + i + "@example.com",
+                    "Subject " + i, "Body " + i, Instant.now()
+            ));
+        }
+        return messages;
+    }
+}
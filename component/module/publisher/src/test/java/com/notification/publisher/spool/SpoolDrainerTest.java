@@ -0,0 +1,69 @@
+package com.notification.publisher.spool;
+
+import com.notification.publisher.adapter.NotificationPublisherAdapter;
+import com.notification.publisher.config.PublisherProperties;
+import com.notification.publisher.model.NotificationMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class SpoolDrainerTest {
+
+    @Mock
+    private NotificationSpool spool;
+
+    @Mock
+    private NotificationPublisherAdapter publisherAdapter;
+
+    private SpoolDrainer drainer;
+
+    @BeforeEach
+    void setup() {
+        drainer = new SpoolDrainer(spool, publisherAdapter, new PublisherProperties());
+    }
+
+    @Test
+    void drain_shouldCommitBatchOnlyAfterKafkaAck() {
+        SpoolBatch batch = batch();
+        when(spool.pending()).thenReturn(1L, 0L);
+        when(spool.peek(500)).thenReturn(batch);
+        when(publisherAdapter.replay(batch.messages())).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertEquals(1, drainer.drain());
+
+        verify(spool).commit(batch);
+    }
+
+    @Test
+    void drain_shouldKeepBatchInSpool_whenKafkaIsStillDown() {
+        SpoolBatch batch = batch();
+        when(spool.pending()).thenReturn(1L);
+        when(spool.peek(500)).thenReturn(batch);
+        when(publisherAdapter.replay(batch.messages()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        assertEquals(0, drainer.drain());
+
+        verify(spool, never()).commit(any());
+    }
+
+    private static SpoolBatch batch() {
+        NotificationMessage message = new NotificationMessage(
+                "1", "EMAIL", "a@example.com", "Hello", "Body", Instant.now()
+        );
+        return new SpoolBatch(List.of(message), 1, 0, 64);
+    }
+}